@@ -0,0 +1,80 @@
+package uk.gov.pay.connector.app;
+
+import io.dropwizard.Configuration;
+import io.dropwizard.util.Duration;
+
+public class BulkRefundConfig extends Configuration {
+    private int maximumItems = 500;
+
+    // each gateway gets its own limits, so a slow gateway cannot hold up refunds at the others
+    private int gatewayRefundParallelism = 4;
+    private double gatewayRefundsPerSecond = 10;
+
+    private boolean cleanupEnabled = true;
+    private long cleanupSchedulerInitialDelayInSeconds = 120;
+    private long cleanupSchedulerIntervalInSeconds = 300;
+    // refunds are only dispatched in memory, so one still pending this long was lost with the node dispatching it;
+    // long enough for a full job to get through a gateway that is timing out
+    private Duration pendingTimeout = Duration.hours(6);
+    private Duration retention = Duration.days(30);
+    private int purgeBatchSize = 1000;
+    private int purgeMaximumBatchesPerRun = 20;
+    // must outlast a clean up of purgeMaximumBatchesPerRun batches, so the lease cannot lapse while one is still running
+    private Duration cleanupLeaseDuration = Duration.minutes(5);
+
+    public int getMaximumItems() {
+        return maximumItems;
+    }
+
+    public int getGatewayRefundParallelism() {
+        return gatewayRefundParallelism;
+    }
+
+    public double getGatewayRefundsPerSecond() {
+        return gatewayRefundsPerSecond;
+    }
+
+    public boolean isCleanupEnabled() {
+        return cleanupEnabled;
+    }
+
+    public long getCleanupSchedulerInitialDelayInSeconds() {
+        return cleanupSchedulerInitialDelayInSeconds;
+    }
+
+    public long getCleanupSchedulerIntervalInSeconds() {
+        return cleanupSchedulerIntervalInSeconds;
+    }
+
+    public Duration getPendingTimeout() {
+        return pendingTimeout;
+    }
+
+    public java.time.Duration getPendingTimeoutAsJavaDuration() {
+        return java.time.Duration.ofMillis(pendingTimeout.toMilliseconds());
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public java.time.Duration getRetentionAsJavaDuration() {
+        return java.time.Duration.ofMillis(retention.toMilliseconds());
+    }
+
+    public int getPurgeBatchSize() {
+        return purgeBatchSize;
+    }
+
+    public int getPurgeMaximumBatchesPerRun() {
+        return purgeMaximumBatchesPerRun;
+    }
+
+    public Duration getCleanupLeaseDuration() {
+        return cleanupLeaseDuration;
+    }
+
+    public java.time.Duration getCleanupLeaseDurationAsJavaDuration() {
+        return java.time.Duration.ofMillis(cleanupLeaseDuration.toMilliseconds());
+    }
+}
@@ -0,0 +1,53 @@
+package uk.gov.pay.connector.app;
+
+import io.dropwizard.Configuration;
+import io.dropwizard.util.Duration;
+
+public class ChargeArchiveConfig extends Configuration {
+    private boolean enabled = false;
+
+    private long schedulerInitialDelayInSeconds = 60;
+    private long schedulerIntervalInSeconds = 600;
+
+    private Duration archiveAfter = Duration.days(90);
+    private int batchSize = 500;
+    private int maximumBatchesPerRun = 20;
+    // must outlast a run of maximumBatchesPerRun batches, so the lease cannot lapse while one is still running
+    private Duration leaseDuration = Duration.minutes(10);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getSchedulerInitialDelayInSeconds() {
+        return schedulerInitialDelayInSeconds;
+    }
+
+    public long getSchedulerIntervalInSeconds() {
+        return schedulerIntervalInSeconds;
+    }
+
+    public Duration getArchiveAfter() {
+        return archiveAfter;
+    }
+
+    public java.time.Duration getArchiveAfterAsJavaDuration() {
+        return java.time.Duration.ofMillis(archiveAfter.toMilliseconds());
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getMaximumBatchesPerRun() {
+        return maximumBatchesPerRun;
+    }
+
+    public Duration getLeaseDuration() {
+        return leaseDuration;
+    }
+
+    public java.time.Duration getLeaseDurationAsJavaDuration() {
+        return java.time.Duration.ofMillis(leaseDuration.toMilliseconds());
+    }
+}
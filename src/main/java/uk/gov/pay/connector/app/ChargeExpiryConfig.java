@@ -0,0 +1,69 @@
+package uk.gov.pay.connector.app;
+
+import io.dropwizard.Configuration;
+import io.dropwizard.util.Duration;
+
+public class ChargeExpiryConfig extends Configuration {
+    private boolean enabled = false;
+
+    private long schedulerInitialDelayInSeconds = 30;
+    private long schedulerIntervalInSeconds = 60;
+
+    private Duration expiryWindow = Duration.hours(1);
+    private int pageSize = 100;
+    private Duration timeBudget = Duration.seconds(45);
+    // must be longer than the time budget, so the lease cannot lapse while a sweep is still running
+    private Duration leaseDuration = Duration.minutes(5);
+
+    // each gateway gets its own limits, so a slow gateway cannot hold up cancellations at the others
+    private int gatewayCancelParallelism = 4;
+    private double gatewayCancelsPerSecond = 10;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getSchedulerInitialDelayInSeconds() {
+        return schedulerInitialDelayInSeconds;
+    }
+
+    public long getSchedulerIntervalInSeconds() {
+        return schedulerIntervalInSeconds;
+    }
+
+    public Duration getExpiryWindow() {
+        return expiryWindow;
+    }
+
+    public java.time.Duration getExpiryWindowAsJavaDuration() {
+        return java.time.Duration.ofMillis(expiryWindow.toMilliseconds());
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    public java.time.Duration getTimeBudgetAsJavaDuration() {
+        return java.time.Duration.ofMillis(timeBudget.toMilliseconds());
+    }
+
+    public Duration getLeaseDuration() {
+        return leaseDuration;
+    }
+
+    public java.time.Duration getLeaseDurationAsJavaDuration() {
+        return java.time.Duration.ofMillis(leaseDuration.toMilliseconds());
+    }
+
+    public int getGatewayCancelParallelism() {
+        return gatewayCancelParallelism;
+    }
+
+    public double getGatewayCancelsPerSecond() {
+        return gatewayCancelsPerSecond;
+    }
+}
@@ -0,0 +1,11 @@
+package uk.gov.pay.connector.app;
+
+import io.dropwizard.Configuration;
+
+public class ChargeStatusLookupConfig extends Configuration {
+    private int maximumItems = 500;
+
+    public int getMaximumItems() {
+        return maximumItems;
+    }
+}
@@ -0,0 +1,19 @@
+package uk.gov.pay.connector.app;
+
+import io.dropwizard.Configuration;
+import io.dropwizard.util.Duration;
+
+public class ChargeStatusWaitConfig extends Configuration {
+    // a change made on another connector node is only seen when the wait times out and the charge is read again
+    private Duration timeout = Duration.seconds(10);
+    // threads answering the waiting requests once a change is committed, so the committing thread is not held up
+    private int resumeThreads = 4;
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public int getResumeThreads() {
+        return resumeThreads;
+    }
+}
@@ -0,0 +1,18 @@
+package uk.gov.pay.connector.app;
+
+import io.dropwizard.Configuration;
+import io.dropwizard.util.Duration;
+
+public class ChargeVersionCacheConfig extends Configuration {
+    private long maximumSize = 10000;
+    // bounds how long a node keeps answering 304 after a charge was changed by another node
+    private Duration expireAfterWrite = Duration.seconds(5);
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+}
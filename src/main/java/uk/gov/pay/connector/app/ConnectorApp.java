@@ -21,6 +21,7 @@ import io.dropwizard.setup.Environment;
 import org.glassfish.jersey.server.filter.RolesAllowedDynamicFeature;
 import uk.gov.pay.connector.auth.BasicAuthUser;
 import uk.gov.pay.connector.auth.SmartpayAccountSpecificAuthenticator;
+import uk.gov.pay.connector.dao.SchedulerLeaseDao;
 import uk.gov.pay.connector.filters.LoggingFilter;
 import uk.gov.pay.connector.filters.SchemeRewriteFilter;
 import uk.gov.pay.connector.healthcheck.CardExecutorServiceHealthCheck;
@@ -29,8 +30,16 @@ import uk.gov.pay.connector.healthcheck.Ping;
 import uk.gov.pay.connector.command.RenderStateTransitionGraphCommand;
 import uk.gov.pay.connector.resources.*;
 import uk.gov.pay.connector.service.Auth3dsDetailsFactory;
+import uk.gov.pay.connector.service.BulkRefundCleanupProcess;
 import uk.gov.pay.connector.service.CaptureProcessScheduler;
+import uk.gov.pay.connector.service.CardBrandLabelIndex;
 import uk.gov.pay.connector.service.CardCaptureProcess;
+import uk.gov.pay.connector.service.ChargeArchiveProcess;
+import uk.gov.pay.connector.service.ChargeExpiryProcess;
+import uk.gov.pay.connector.service.EmailOutboxProcess;
+import uk.gov.pay.connector.service.PeriodicTaskScheduler;
+import uk.gov.pay.connector.service.ReconciliationProcess;
+import uk.gov.pay.connector.service.TokenPurgeProcess;
 import uk.gov.pay.connector.util.DependentResourceWaitCommand;
 import uk.gov.pay.connector.util.TrustingSSLSocketFactory;
 
@@ -77,6 +86,7 @@ public class ConnectorApp extends Application<ConnectorConfiguration> {
 
         environment.jersey().register(injector.getInstance(GatewayAccountResource.class));
         environment.jersey().register(injector.getInstance(ChargeEventsResource.class));
+        environment.jersey().register(injector.getInstance(ChargeStatsResource.class));
         environment.jersey().register(injector.getInstance(SecurityTokensResource.class));
         environment.jersey().register(injector.getInstance(ChargesApiResource.class));
         environment.jersey().register(injector.getInstance(ChargesFrontendResource.class));
@@ -144,5 +154,61 @@ public class ConnectorApp extends Application<ConnectorConfiguration> {
     private void setupSchedulers(ConnectorConfiguration configuration, Environment environment, Injector injector) {
         CaptureProcessScheduler captureProcessScheduler = new CaptureProcessScheduler(configuration, environment, injector.getInstance(CardCaptureProcess.class));
         environment.lifecycle().manage(captureProcessScheduler);
+
+        SchedulerLeaseDao schedulerLeaseDao = injector.getInstance(SchedulerLeaseDao.class);
+
+        ChargeArchiveConfig archiveConfig = configuration.getChargeArchiveConfig();
+        ChargeArchiveProcess chargeArchiveProcess = injector.getInstance(ChargeArchiveProcess.class);
+        environment.lifecycle().manage(PeriodicTaskScheduler.builder("charge-archive", chargeArchiveProcess::runArchive)
+                .enabled(archiveConfig.isEnabled())
+                .schedule(archiveConfig.getSchedulerInitialDelayInSeconds(), archiveConfig.getSchedulerIntervalInSeconds())
+                .leased(schedulerLeaseDao, archiveConfig.getLeaseDurationAsJavaDuration())
+                .build(environment));
+
+        ChargeExpiryConfig expiryConfig = configuration.getChargeExpiryConfig();
+        ChargeExpiryProcess chargeExpiryProcess = injector.getInstance(ChargeExpiryProcess.class);
+        environment.lifecycle().manage(PeriodicTaskScheduler.builder(ChargeExpiryProcess.LEASE_NAME, chargeExpiryProcess::runExpiry)
+                .enabled(expiryConfig.isEnabled())
+                .schedule(expiryConfig.getSchedulerInitialDelayInSeconds(), expiryConfig.getSchedulerIntervalInSeconds())
+                .leased(schedulerLeaseDao, expiryConfig.getLeaseDurationAsJavaDuration())
+                .build(environment));
+
+        TokenConfig tokenConfig = configuration.getTokenConfig();
+        TokenPurgeProcess tokenPurgeProcess = injector.getInstance(TokenPurgeProcess.class);
+        environment.lifecycle().manage(PeriodicTaskScheduler.builder("token-purge", tokenPurgeProcess::runPurge)
+                .enabled(tokenConfig.isPurgeEnabled())
+                .schedule(tokenConfig.getPurgeSchedulerInitialDelayInSeconds(), tokenConfig.getPurgeSchedulerIntervalInSeconds())
+                .leased(schedulerLeaseDao, tokenConfig.getPurgeLeaseDurationAsJavaDuration())
+                .build(environment));
+
+        ReconciliationConfig reconciliationConfig = configuration.getReconciliationConfig();
+        ReconciliationProcess reconciliationProcess = injector.getInstance(ReconciliationProcess.class);
+        environment.lifecycle().manage(PeriodicTaskScheduler.builder("reconciliation", reconciliationProcess::runReconciliation)
+                .enabled(reconciliationConfig.isEnabled())
+                .schedule(reconciliationConfig.getSchedulerInitialDelayInSeconds(), reconciliationConfig.getSchedulerIntervalInSeconds())
+                .leased(schedulerLeaseDao, reconciliationConfig.getLeaseDurationAsJavaDuration())
+                .build(environment));
+
+        EmailOutboxConfig emailOutboxConfig = configuration.getEmailOutboxConfig();
+        EmailOutboxProcess emailOutboxProcess = injector.getInstance(EmailOutboxProcess.class);
+        environment.lifecycle().manage(PeriodicTaskScheduler.builder("email-outbox", emailOutboxProcess::runEmailOutbox)
+                .enabled(emailOutboxConfig.isEnabled())
+                .schedule(emailOutboxConfig.getSchedulerInitialDelayInSeconds(), emailOutboxConfig.getSchedulerIntervalInSeconds())
+                .leased(schedulerLeaseDao, emailOutboxConfig.getLeaseDurationAsJavaDuration())
+                .build(environment));
+
+        BulkRefundConfig bulkRefundConfig = configuration.getBulkRefundConfig();
+        BulkRefundCleanupProcess bulkRefundCleanupProcess = injector.getInstance(BulkRefundCleanupProcess.class);
+        environment.lifecycle().manage(PeriodicTaskScheduler.builder("bulk-refund-cleanup", bulkRefundCleanupProcess::runCleanup)
+                .enabled(bulkRefundConfig.isCleanupEnabled())
+                .schedule(bulkRefundConfig.getCleanupSchedulerInitialDelayInSeconds(), bulkRefundConfig.getCleanupSchedulerIntervalInSeconds())
+                .leased(schedulerLeaseDao, bulkRefundConfig.getCleanupLeaseDurationAsJavaDuration())
+                .build(environment));
+
+        // every node refreshes the index it holds in memory, so this is the one task that must run on all of them
+        long cardBrandLabelRefreshInterval = CardBrandLabelIndex.REFRESH_INTERVAL.getSeconds();
+        environment.lifecycle().manage(PeriodicTaskScheduler.builder("card-brand-label-index", injector.getInstance(CardBrandLabelIndex.class)::refresh)
+                .schedule(cardBrandLabelRefreshInterval, cardBrandLabelRefreshInterval)
+                .build(environment));
     }
 }
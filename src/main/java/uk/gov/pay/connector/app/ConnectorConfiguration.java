@@ -23,6 +23,46 @@ public class ConnectorConfiguration extends Configuration {
     @NotNull
     private CaptureProcessConfig captureProcessConfig;
 
+    @Valid
+    @NotNull
+    private ChargeArchiveConfig chargeArchiveConfig = new ChargeArchiveConfig();
+
+    @Valid
+    @NotNull
+    private ChargeExpiryConfig chargeExpiryConfig = new ChargeExpiryConfig();
+
+    @Valid
+    @NotNull
+    private ChargeVersionCacheConfig chargeVersionCacheConfig = new ChargeVersionCacheConfig();
+
+    @Valid
+    @NotNull
+    private ChargeStatusWaitConfig chargeStatusWaitConfig = new ChargeStatusWaitConfig();
+
+    @Valid
+    @NotNull
+    private TokenConfig tokenConfig = new TokenConfig();
+
+    @Valid
+    @NotNull
+    private BulkRefundConfig bulkRefundConfig = new BulkRefundConfig();
+
+    @Valid
+    @NotNull
+    private ReconciliationConfig reconciliationConfig = new ReconciliationConfig();
+
+    @Valid
+    @NotNull
+    private EmailOutboxConfig emailOutboxConfig = new EmailOutboxConfig();
+
+    @Valid
+    @NotNull
+    private ChargeBatchConfig chargeBatchConfig = new ChargeBatchConfig();
+
+    @Valid
+    @NotNull
+    private ChargeStatusLookupConfig chargeStatusLookupConfig = new ChargeStatusLookupConfig();
+
     @Valid
     @NotNull
     @JsonProperty("transactionsPaginationServiceConfig")
@@ -146,4 +186,44 @@ public class ConnectorConfiguration extends Configuration {
         return captureProcessConfig;
     }
 
+    public ChargeArchiveConfig getChargeArchiveConfig() {
+        return chargeArchiveConfig;
+    }
+
+    public ChargeExpiryConfig getChargeExpiryConfig() {
+        return chargeExpiryConfig;
+    }
+
+    public ChargeVersionCacheConfig getChargeVersionCacheConfig() {
+        return chargeVersionCacheConfig;
+    }
+
+    public ChargeStatusWaitConfig getChargeStatusWaitConfig() {
+        return chargeStatusWaitConfig;
+    }
+
+    public TokenConfig getTokenConfig() {
+        return tokenConfig;
+    }
+
+    public BulkRefundConfig getBulkRefundConfig() {
+        return bulkRefundConfig;
+    }
+
+    public ReconciliationConfig getReconciliationConfig() {
+        return reconciliationConfig;
+    }
+
+    public EmailOutboxConfig getEmailOutboxConfig() {
+        return emailOutboxConfig;
+    }
+
+    public ChargeBatchConfig getChargeBatchConfig() {
+        return chargeBatchConfig;
+    }
+
+    public ChargeStatusLookupConfig getChargeStatusLookupConfig() {
+        return chargeStatusLookupConfig;
+    }
+
 }
@@ -4,17 +4,34 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.google.inject.persist.Transactional;
 import com.google.inject.persist.jpa.JpaPersistModule;
 import io.dropwizard.db.DataSourceFactory;
 import io.dropwizard.setup.Environment;
+import uk.gov.pay.connector.dao.ChargeStatusChangeRegistry;
+import uk.gov.pay.connector.dao.ChargeVersionCache;
+import uk.gov.pay.connector.dao.PublishStatusChangesAfterCommit;
+import uk.gov.pay.connector.dao.ReferenceDataCache;
 import uk.gov.pay.connector.model.builder.EntityBuilder;
+import uk.gov.pay.connector.service.BulkRefundExecutor;
+import uk.gov.pay.connector.service.CardBrandLabelIndex;
 import uk.gov.pay.connector.service.CardExecutorService;
+import uk.gov.pay.connector.service.ExpiryCancelExecutor;
 import uk.gov.pay.connector.service.NotifyClientProvider;
 import uk.gov.pay.connector.service.PaymentProviders;
+import uk.gov.pay.connector.service.TokenService;
+import uk.gov.pay.connector.util.CacheMetricsProfiler;
 import uk.gov.pay.connector.util.HashUtil;
 
 import java.util.Properties;
 
+import static com.google.inject.matcher.Matchers.annotatedWith;
+import static com.google.inject.matcher.Matchers.any;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static uk.gov.pay.connector.util.ConnectorSessionCustomiser.REFERENCE_DATA_CACHE_ENABLED;
+import static uk.gov.pay.connector.util.ConnectorSessionCustomiser.REFERENCE_DATA_CACHE_EXPIRY_MILLIS;
+import static uk.gov.pay.connector.util.ConnectorSessionCustomiser.REFERENCE_DATA_CACHE_PROFILER;
+
 public class ConnectorModule extends AbstractModule {
     final ConnectorConfiguration configuration;
     final Environment environment;
@@ -29,11 +46,23 @@ public class ConnectorModule extends AbstractModule {
         bind(ConnectorConfiguration.class).toInstance(configuration);
         bind(Environment.class).toInstance(environment);
         bind(CardExecutorService.class).in(Singleton.class);
+        bind(ExpiryCancelExecutor.class).in(Singleton.class);
+        bind(BulkRefundExecutor.class).in(Singleton.class);
         bind(NotifyClientProvider.class).in(Singleton.class);
         bind(PaymentProviders.class).in(Singleton.class);
+        bind(ReferenceDataCache.class).in(Singleton.class);
+        bind(ChargeVersionCache.class).in(Singleton.class);
+        ChargeStatusChangeRegistry chargeStatusChangeRegistry = new ChargeStatusChangeRegistry();
+        bind(ChargeStatusChangeRegistry.class).toInstance(chargeStatusChangeRegistry);
+        bind(CardBrandLabelIndex.class).in(Singleton.class);
+        bind(TokenService.class).in(Singleton.class);
         bind(EntityBuilder.class);
         bind(HashUtil.class);
 
+        // bound ahead of the persistence module so it runs outside its transactions, see PublishStatusChangesAfterCommit
+        PublishStatusChangesAfterCommit publishStatusChangesAfterCommit = new PublishStatusChangesAfterCommit(chargeStatusChangeRegistry);
+        bindInterceptor(annotatedWith(Transactional.class), any(), publishStatusChangesAfterCommit);
+        bindInterceptor(any(), annotatedWith(Transactional.class), publishStatusChangesAfterCommit);
         install(jpaModule(configuration));
     }
 
@@ -52,6 +81,9 @@ public class ConnectorModule extends AbstractModule {
         properties.put("eclipselink.cache.shared.default", jpaConfiguration.getCacheSharedDefault());
         properties.put("eclipselink.ddl-generation.output-mode", jpaConfiguration.getDdlGenerationOutputMode());
         properties.put("eclipselink.session.customizer", "uk.gov.pay.connector.util.ConnectorSessionCustomiser");
+        properties.put(REFERENCE_DATA_CACHE_ENABLED, String.valueOf(jpaConfiguration.isReferenceDataCacheEnabled()));
+        properties.put(REFERENCE_DATA_CACHE_EXPIRY_MILLIS, String.valueOf(SECONDS.toMillis(jpaConfiguration.getReferenceDataCacheExpiryInSeconds())));
+        properties.put(REFERENCE_DATA_CACHE_PROFILER, new CacheMetricsProfiler(environment.metrics()));
 
         final JpaPersistModule jpaModule = new JpaPersistModule("ConnectorUnit");
         jpaModule.properties(properties);
@@ -0,0 +1,120 @@
+package uk.gov.pay.connector.app;
+
+import io.dropwizard.Configuration;
+import io.dropwizard.util.Duration;
+
+public class EmailOutboxConfig extends Configuration {
+    // payment confirmation emails are only ever sent from the outbox, so this stays on wherever Notify is enabled
+    private boolean enabled = true;
+
+    private long schedulerInitialDelayInSeconds = 10;
+    private long schedulerIntervalInSeconds = 5;
+
+    private int pageSize = 100;
+    private Duration timeBudget = Duration.seconds(30);
+    // must be longer than the time budget, so the lease cannot lapse while a run is still going
+    private Duration leaseDuration = Duration.minutes(2);
+
+    private int sendParallelism = 8;
+    private double sendsPerSecond = 20;
+
+    private int maximumAttempts = 8;
+    private Duration initialRetryDelay = Duration.seconds(30);
+    private Duration maximumRetryDelay = Duration.hours(1);
+
+    private Duration deliveryCheckInterval = Duration.minutes(5);
+    private Duration deliveryCheckWindow = Duration.hours(24);
+
+    // emails no longer sent or checked on are deleted once this old, as they hold email addresses;
+    // must be longer than the delivery check window
+    private Duration retention = Duration.days(30);
+    private int purgeBatchSize = 1000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getSchedulerInitialDelayInSeconds() {
+        return schedulerInitialDelayInSeconds;
+    }
+
+    public long getSchedulerIntervalInSeconds() {
+        return schedulerIntervalInSeconds;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    public java.time.Duration getTimeBudgetAsJavaDuration() {
+        return java.time.Duration.ofMillis(timeBudget.toMilliseconds());
+    }
+
+    public Duration getLeaseDuration() {
+        return leaseDuration;
+    }
+
+    public java.time.Duration getLeaseDurationAsJavaDuration() {
+        return java.time.Duration.ofMillis(leaseDuration.toMilliseconds());
+    }
+
+    public int getSendParallelism() {
+        return sendParallelism;
+    }
+
+    public double getSendsPerSecond() {
+        return sendsPerSecond;
+    }
+
+    public int getMaximumAttempts() {
+        return maximumAttempts;
+    }
+
+    public Duration getInitialRetryDelay() {
+        return initialRetryDelay;
+    }
+
+    public java.time.Duration getInitialRetryDelayAsJavaDuration() {
+        return java.time.Duration.ofMillis(initialRetryDelay.toMilliseconds());
+    }
+
+    public Duration getMaximumRetryDelay() {
+        return maximumRetryDelay;
+    }
+
+    public java.time.Duration getMaximumRetryDelayAsJavaDuration() {
+        return java.time.Duration.ofMillis(maximumRetryDelay.toMilliseconds());
+    }
+
+    public Duration getDeliveryCheckInterval() {
+        return deliveryCheckInterval;
+    }
+
+    public java.time.Duration getDeliveryCheckIntervalAsJavaDuration() {
+        return java.time.Duration.ofMillis(deliveryCheckInterval.toMilliseconds());
+    }
+
+    public Duration getDeliveryCheckWindow() {
+        return deliveryCheckWindow;
+    }
+
+    public java.time.Duration getDeliveryCheckWindowAsJavaDuration() {
+        return java.time.Duration.ofMillis(deliveryCheckWindow.toMilliseconds());
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public java.time.Duration getRetentionAsJavaDuration() {
+        return java.time.Duration.ofMillis(retention.toMilliseconds());
+    }
+
+    public int getPurgeBatchSize() {
+        return purgeBatchSize;
+    }
+}
@@ -9,6 +9,8 @@ public class JPAConfiguration extends Configuration {
     private String ddlGenerationOutputMode;
     private String queryResultsCache;
     private String cacheSharedDefault;
+    private boolean referenceDataCacheEnabled = false;
+    private long referenceDataCacheExpiryInSeconds = 300;
 
     public String getJpaLoggingLevel() {
         return jpaLoggingLevel;
@@ -29,4 +31,12 @@ public class JPAConfiguration extends Configuration {
     public String getCacheSharedDefault() {
         return cacheSharedDefault;
     }
+
+    public boolean isReferenceDataCacheEnabled() {
+        return referenceDataCacheEnabled;
+    }
+
+    public long getReferenceDataCacheExpiryInSeconds() {
+        return referenceDataCacheExpiryInSeconds;
+    }
 }
@@ -43,4 +43,12 @@ public class JerseyClientOverrides {
     public void setCapture(OperationOverrides capture) {
         operationOverrides.put(GatewayOperation.CAPTURE, capture);
     }
+
+    public OperationOverrides getInquiry() {
+        return getOverridesFor(GatewayOperation.INQUIRY);
+    }
+
+    public void setInquiry(OperationOverrides inquiry) {
+        operationOverrides.put(GatewayOperation.INQUIRY, inquiry);
+    }
 }
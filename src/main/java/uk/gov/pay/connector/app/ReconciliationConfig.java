@@ -0,0 +1,64 @@
+package uk.gov.pay.connector.app;
+
+import io.dropwizard.Configuration;
+import io.dropwizard.util.Duration;
+
+public class ReconciliationConfig extends Configuration {
+    private boolean enabled = false;
+
+    private long schedulerInitialDelayInSeconds = 120;
+    private long schedulerIntervalInSeconds = 300;
+
+    // well beyond the gateway read timeouts, so a request still in flight is not mistaken for a stuck one
+    private Duration staleAfter = Duration.minutes(15);
+    private int pageSize = 50;
+    private Duration timeBudget = Duration.seconds(60);
+    // must be longer than the time budget, so the lease cannot lapse while a run is still going
+    private Duration leaseDuration = Duration.minutes(5);
+
+    private double gatewayInquiriesPerSecond = 5;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getSchedulerInitialDelayInSeconds() {
+        return schedulerInitialDelayInSeconds;
+    }
+
+    public long getSchedulerIntervalInSeconds() {
+        return schedulerIntervalInSeconds;
+    }
+
+    public Duration getStaleAfter() {
+        return staleAfter;
+    }
+
+    public java.time.Duration getStaleAfterAsJavaDuration() {
+        return java.time.Duration.ofMillis(staleAfter.toMilliseconds());
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    public java.time.Duration getTimeBudgetAsJavaDuration() {
+        return java.time.Duration.ofMillis(timeBudget.toMilliseconds());
+    }
+
+    public Duration getLeaseDuration() {
+        return leaseDuration;
+    }
+
+    public java.time.Duration getLeaseDurationAsJavaDuration() {
+        return java.time.Duration.ofMillis(leaseDuration.toMilliseconds());
+    }
+
+    public double getGatewayInquiriesPerSecond() {
+        return gatewayInquiriesPerSecond;
+    }
+}
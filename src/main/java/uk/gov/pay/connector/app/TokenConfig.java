@@ -0,0 +1,53 @@
+package uk.gov.pay.connector.app;
+
+import io.dropwizard.Configuration;
+import io.dropwizard.util.Duration;
+
+public class TokenConfig extends Configuration {
+    // longer than chargeExpiryConfig.expiryWindow, after which a charge can no longer be paid
+    private Duration timeToLive = Duration.minutes(90);
+
+    private boolean purgeEnabled = false;
+    private long purgeSchedulerInitialDelayInSeconds = 90;
+    private long purgeSchedulerIntervalInSeconds = 300;
+    private int purgeBatchSize = 1000;
+    private int purgeMaximumBatchesPerRun = 20;
+    // must outlast a run of purgeMaximumBatchesPerRun batches of each table, so the lease cannot lapse while one is still running
+    private Duration purgeLeaseDuration = Duration.minutes(5);
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public java.time.Duration getTimeToLiveAsJavaDuration() {
+        return java.time.Duration.ofMillis(timeToLive.toMilliseconds());
+    }
+
+    public boolean isPurgeEnabled() {
+        return purgeEnabled;
+    }
+
+    public long getPurgeSchedulerInitialDelayInSeconds() {
+        return purgeSchedulerInitialDelayInSeconds;
+    }
+
+    public long getPurgeSchedulerIntervalInSeconds() {
+        return purgeSchedulerIntervalInSeconds;
+    }
+
+    public int getPurgeBatchSize() {
+        return purgeBatchSize;
+    }
+
+    public int getPurgeMaximumBatchesPerRun() {
+        return purgeMaximumBatchesPerRun;
+    }
+
+    public Duration getPurgeLeaseDuration() {
+        return purgeLeaseDuration;
+    }
+
+    public java.time.Duration getPurgeLeaseDurationAsJavaDuration() {
+        return java.time.Duration.ofMillis(purgeLeaseDuration.toMilliseconds());
+    }
+}
@@ -6,7 +6,13 @@ public class TransactionsPaginationServiceConfig extends Configuration {
 
     private int displayPageSize;
 
+    private int exportFetchSize = 1000;
+
     public int getDisplayPageSize() {
         return displayPageSize;
     }
+
+    public int getExportFetchSize() {
+        return exportFetchSize;
+    }
 }
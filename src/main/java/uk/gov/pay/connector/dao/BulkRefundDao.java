@@ -0,0 +1,148 @@
+package uk.gov.pay.connector.dao;
+
+import com.google.inject.Provider;
+import com.google.inject.persist.Transactional;
+import uk.gov.pay.connector.model.BulkRefundItem;
+import uk.gov.pay.connector.model.domain.UTCDateTimeConverter;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static uk.gov.pay.connector.model.BulkRefundItem.Status.SUBMITTED;
+
+/**
+ * The items of bulk refund jobs. Jobs are kept in the database rather than in memory, so they can be polled
+ * through any connector node, whichever node is dispatching their refunds.
+ */
+@Transactional
+public class BulkRefundDao {
+
+    private static final String INSERT = "INSERT INTO bulk_refund_items " +
+            "(job_id, position, gateway_account_id, charge_external_id, amount, status, error) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // only a pending item takes an outcome, so a late one cannot overwrite the error the cleanup recorded for it
+    private static final String UPDATE = "UPDATE bulk_refund_items SET status = ?3, refund_external_id = ?4 " +
+            "WHERE job_id = ?1 AND position = ?2 AND status = 'PENDING'";
+
+    private static final String UPDATE_WITH_ERROR = "UPDATE bulk_refund_items SET status = ?3, error = ?4 " +
+            "WHERE job_id = ?1 AND position = ?2 AND status = 'PENDING'";
+
+    private static final String FIND = "SELECT position, charge_external_id, amount, status, refund_external_id, error " +
+            "FROM bulk_refund_items WHERE job_id = ?1 AND gateway_account_id = ?2 ORDER BY position";
+
+    private static final String UPDATE_PENDING_CREATED_BEFORE = "UPDATE bulk_refund_items SET status = 'ERROR', error = ?2 " +
+            "WHERE status = 'PENDING' AND created_date < ?1";
+
+    // the items of a job are inserted in one transaction, so they share their created_date and go together
+    private static final String DELETE_CREATED_BEFORE = "DELETE FROM bulk_refund_items WHERE (job_id, position) IN " +
+            "(SELECT job_id, position FROM bulk_refund_items WHERE created_date < ?1 LIMIT ?2)";
+
+    private static final int MAXIMUM_ERROR_LENGTH = 255;
+
+    private final Provider<EntityManager> entityManager;
+    private final UTCDateTimeConverter dateTimeConverter = new UTCDateTimeConverter();
+
+    @Inject
+    public BulkRefundDao(Provider<EntityManager> entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Inserts the items of a new job in one JDBC batch.
+     */
+    public void persist(String jobId, Long accountId, List<BulkRefundItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        JdbcBatch.execute(entityManager.get(), INSERT, items, (statement, item) -> {
+            statement.setString(1, jobId);
+            statement.setInt(2, item.getPosition());
+            statement.setLong(3, accountId);
+            statement.setString(4, item.getChargeId());
+            statement.setLong(5, item.getAmount());
+            statement.setString(6, item.getStatus().name());
+            statement.setString(7, item.getError().map(this::truncate).orElse(null));
+        });
+    }
+
+    /**
+     * @return whether the item was still pending, and so was marked
+     */
+    public boolean markSubmitted(String jobId, int position, String refundExternalId) {
+        return entityManager.get()
+                .createNativeQuery(UPDATE)
+                .setParameter(1, jobId)
+                .setParameter(2, position)
+                .setParameter(3, SUBMITTED.name())
+                .setParameter(4, refundExternalId)
+                .executeUpdate() > 0;
+    }
+
+    /**
+     * @return whether the item was still pending, and so was marked
+     */
+    public boolean markFailed(String jobId, int position, BulkRefundItem.Status status, String error) {
+        return entityManager.get()
+                .createNativeQuery(UPDATE_WITH_ERROR)
+                .setParameter(1, jobId)
+                .setParameter(2, position)
+                .setParameter(3, status.name())
+                .setParameter(4, truncate(error))
+                .executeUpdate() > 0;
+    }
+
+    /**
+     * Marks the items still pending that were submitted before <code>createdBefore</code> as errors.
+     *
+     * @return the number of items marked
+     */
+    public int markPendingCreatedBeforeAsError(ZonedDateTime createdBefore, String error) {
+        return entityManager.get()
+                .createNativeQuery(UPDATE_PENDING_CREATED_BEFORE)
+                .setParameter(1, dateTimeConverter.convertToDatabaseColumn(createdBefore))
+                .setParameter(2, truncate(error))
+                .executeUpdate();
+    }
+
+    /**
+     * Deletes up to <code>batchSize</code> items submitted before <code>createdBefore</code>.
+     *
+     * @return the number of items deleted
+     */
+    public int deleteCreatedBefore(ZonedDateTime createdBefore, int batchSize) {
+        return entityManager.get()
+                .createNativeQuery(DELETE_CREATED_BEFORE)
+                .setParameter(1, dateTimeConverter.convertToDatabaseColumn(createdBefore))
+                .setParameter(2, batchSize)
+                .executeUpdate();
+    }
+
+    /**
+     * @return the items of the job in the order they were submitted, or an empty list if the account has no such job
+     */
+    @SuppressWarnings("unchecked")
+    public List<BulkRefundItem> findItems(String jobId, Long accountId) {
+        List<Object[]> rows = entityManager.get()
+                .createNativeQuery(FIND)
+                .setParameter(1, jobId)
+                .setParameter(2, accountId)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new BulkRefundItem(
+                        ((Number) row[0]).intValue(),
+                        (String) row[1],
+                        ((Number) row[2]).longValue(),
+                        BulkRefundItem.Status.valueOf((String) row[3]),
+                        (String) row[4],
+                        (String) row[5]))
+                .collect(Collectors.toList());
+    }
+
+    private String truncate(String error) {
+        return error.length() > MAXIMUM_ERROR_LENGTH ? error.substring(0, MAXIMUM_ERROR_LENGTH) : error;
+    }
+}
@@ -2,10 +2,14 @@ package uk.gov.pay.connector.dao;
 
 import com.google.inject.Provider;
 import com.google.inject.persist.Transactional;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.jpa.JpaHelper;
 import uk.gov.pay.connector.model.domain.CardTypeEntity;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -25,8 +29,8 @@ public class CardTypeDao extends JpaDao<CardTypeEntity> {
     public List<CardTypeEntity> findAll() {
         String query = "SELECT ct FROM CardTypeEntity ct";
 
-        return super.entityManager.get()
-                .createQuery(query, CardTypeEntity.class)
+        return cacheable(super.entityManager.get()
+                .createQuery(query, CardTypeEntity.class))
                 .getResultList();
     }
 
@@ -34,8 +38,8 @@ public class CardTypeDao extends JpaDao<CardTypeEntity> {
         String query = "SELECT ct FROM CardTypeEntity ct " +
                 "WHERE ct.brand = :brand ";
 
-        return entityManager.get()
-                .createQuery(query, CardTypeEntity.class)
+        return cacheable(entityManager.get()
+                .createQuery(query, CardTypeEntity.class))
                 .setParameter("brand", brand)
                 .getResultList();
     }
@@ -44,8 +48,20 @@ public class CardTypeDao extends JpaDao<CardTypeEntity> {
         String query = "SELECT ct FROM CardTypeEntity ct " +
                 "WHERE ct.requires3ds = false ";
 
-        return entityManager.get()
-                .createQuery(query, CardTypeEntity.class)
+        return cacheable(entityManager.get()
+                .createQuery(query, CardTypeEntity.class))
                 .getResultList();
     }
+
+    /**
+     * Card types are static seed data, so when they live in the shared cache the query results are cached too.
+     */
+    private TypedQuery<CardTypeEntity> cacheable(TypedQuery<CardTypeEntity> query) {
+        boolean shared = JpaHelper.getEntityManager(entityManager.get())
+                .getServerSession()
+                .getDescriptor(CardTypeEntity.class)
+                .getCachePolicy()
+                .isSharedIsolation();
+        return shared ? query.setHint(QueryHints.QUERY_RESULTS_CACHE, HintValues.TRUE) : query;
+    }
 }
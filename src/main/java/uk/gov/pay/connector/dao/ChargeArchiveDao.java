@@ -0,0 +1,169 @@
+package uk.gov.pay.connector.dao;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Provider;
+import com.google.inject.persist.Transactional;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.ChargeStatus;
+import uk.gov.pay.connector.model.domain.RefundEntity;
+import uk.gov.pay.connector.model.domain.RefundStatus;
+import uk.gov.pay.connector.model.domain.UTCDateTimeConverter;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static uk.gov.pay.connector.model.domain.RefundStatus.CREATED;
+import static uk.gov.pay.connector.model.domain.RefundStatus.REFUND_SUBMITTED;
+
+/**
+ * Moves charges, with their events, refunds and tokens, between the live tables and the
+ * <code>*_archive</code> tables, which have the same columns but only the indexes needed to find
+ * a single charge again. Archived charges are read where they are; only a change to one moves it back.
+ */
+@Transactional
+public class ChargeArchiveDao {
+
+    private static final List<RefundStatus> IN_PROGRESS_REFUND_STATUSES = ImmutableList.of(CREATED, REFUND_SUBMITTED);
+
+    // children first when archiving, so the foreign keys to charges always hold
+    private static final List<String> CHARGE_CHILD_TABLES = ImmutableList.of("tokens", "charge_events", "refunds");
+
+    private final Provider<EntityManager> entityManager;
+    private final UTCDateTimeConverter dateTimeConverter = new UTCDateTimeConverter();
+
+    @Inject
+    public ChargeArchiveDao(Provider<EntityManager> entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Archives up to <code>batchSize</code> of the oldest charges created before the given date that are in
+     * one of the given statuses and have no refund in progress.
+     *
+     * @return the number of charges archived
+     */
+    public int archive(List<ChargeStatus> statuses, ZonedDateTime createdBefore, int batchSize) {
+        EntityManager em = entityManager.get();
+
+        @SuppressWarnings("unchecked")
+        List<Number> chargeIds = em.createNativeQuery(format(
+                "SELECT c.id FROM charges c " +
+                        "WHERE c.status IN (%s) AND c.created_date < ?1 " +
+                        "AND NOT EXISTS (SELECT 1 FROM refunds r WHERE r.charge_id = c.id AND r.status IN (%s)) " +
+                        "ORDER BY c.created_date " +
+                        "LIMIT ?2 " +
+                        "FOR UPDATE",
+                statuses.stream().map(status -> String.valueOf(status.getCode())).collect(joining(",")),
+                inList(IN_PROGRESS_REFUND_STATUSES.stream().map(RefundStatus::getValue).collect(toList()))))
+                .setParameter(1, dateTimeConverter.convertToDatabaseColumn(createdBefore))
+                .setParameter(2, batchSize)
+                .getResultList();
+
+        if (chargeIds.isEmpty()) {
+            return 0;
+        }
+
+        String ids = chargeIds.stream().map(id -> String.valueOf(id.longValue())).collect(joining(","));
+        CHARGE_CHILD_TABLES.forEach(table -> move(table, table + "_archive", "charge_id IN (" + ids + ")"));
+        move("charges", "charges_archive", "id IN (" + ids + ")");
+        return chargeIds.size();
+    }
+
+    /**
+     * An archived charge, with its archived refunds, read without moving it. The charge is not managed
+     * by the entity manager and is marked as archived, so {@link ChargeDao} restores it before merging it.
+     */
+    public Optional<ChargeEntity> findByExternalId(String externalId) {
+        return findArchived("SELECT c.* FROM charges_archive c WHERE c.external_id = ?1", externalId);
+    }
+
+    /**
+     * @see #findByExternalId(String)
+     */
+    public Optional<ChargeEntity> findByProviderAndTransactionId(String provider, String transactionId) {
+        return findArchived("SELECT c.* FROM charges_archive c JOIN gateway_accounts ga ON ga.id = c.gateway_account_id " +
+                "WHERE c.gateway_transaction_id = ?1 AND ga.payment_provider = ?2", transactionId, provider);
+    }
+
+    /**
+     * Moves an archived charge and everything archived with it back into the live tables. The archived row
+     * is locked first, so of two transactions restoring the same charge the second finds nothing left to move.
+     *
+     * @return false if there is no archived charge with this external id, including when it has just been restored
+     */
+    public boolean restoreByExternalId(String externalId) {
+        return restore(lockArchivedChargeId(
+                "SELECT c.id FROM charges_archive c WHERE c.external_id = ?1 FOR UPDATE", externalId));
+    }
+
+    /**
+     * @see #restoreByExternalId(String)
+     */
+    public boolean restoreById(long chargeId) {
+        return restore(lockArchivedChargeId(
+                "SELECT c.id FROM charges_archive c WHERE c.id = ?1 FOR UPDATE", chargeId));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Optional<ChargeEntity> findArchived(String query, Object... parameters) {
+        EntityManager em = entityManager.get();
+        Optional<ChargeEntity> charge = withParameters(em.createNativeQuery(query, ChargeEntity.class), parameters)
+                .setHint(QueryHints.MAINTAIN_CACHE, HintValues.FALSE)
+                .getResultList().stream()
+                .findFirst();
+        charge.ifPresent(archivedCharge -> {
+            List<RefundEntity> refunds = em.createNativeQuery("SELECT r.* FROM refunds_archive r WHERE r.charge_id = ?1 ORDER BY r.created_date", RefundEntity.class)
+                    .setParameter(1, archivedCharge.getId())
+                    .setHint(QueryHints.MAINTAIN_CACHE, HintValues.FALSE)
+                    .getResultList();
+            em.detach(archivedCharge);
+            refunds.forEach(refund -> {
+                em.detach(refund);
+                refund.setChargeEntity(archivedCharge);
+            });
+            archivedCharge.markAsArchived(refunds);
+        });
+        return charge;
+    }
+
+    private Optional<Long> lockArchivedChargeId(String query, Object... parameters) {
+        return withParameters(entityManager.get().createNativeQuery(query), parameters)
+                .getResultList().stream()
+                .findFirst()
+                .map(id -> ((Number) id).longValue());
+    }
+
+    private static Query withParameters(Query query, Object... parameters) {
+        for (int i = 0; i < parameters.length; i++) {
+            query.setParameter(i + 1, parameters[i]);
+        }
+        return query;
+    }
+
+    private boolean restore(Optional<Long> archivedChargeId) {
+        archivedChargeId.ifPresent(id -> {
+            move("charges_archive", "charges", "id = " + id);
+            CHARGE_CHILD_TABLES.forEach(table -> move(table + "_archive", table, "charge_id = " + id));
+        });
+        return archivedChargeId.isPresent();
+    }
+
+    private void move(String fromTable, String toTable, String condition) {
+        EntityManager em = entityManager.get();
+        em.createNativeQuery(format("INSERT INTO %s SELECT * FROM %s WHERE %s", toTable, fromTable, condition)).executeUpdate();
+        em.createNativeQuery(format("DELETE FROM %s WHERE %s", fromTable, condition)).executeUpdate();
+    }
+
+    private static String inList(List<String> values) {
+        return values.stream().map(value -> "'" + value + "'").collect(joining(","));
+    }
+}
@@ -3,20 +3,43 @@ package uk.gov.pay.connector.dao;
 import com.google.inject.Provider;
 import com.google.inject.persist.Transactional;
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.config.ResultSetType;
+import org.eclipse.persistence.queries.ReportQueryResult;
+import org.eclipse.persistence.queries.ScrollableCursor;
+import uk.gov.pay.connector.model.ChargeExportRow;
+import uk.gov.pay.connector.model.ChargeStatusSummary;
 import uk.gov.pay.connector.model.domain.ChargeEntity;
 import uk.gov.pay.connector.model.domain.ChargeEventEntity;
 import uk.gov.pay.connector.model.domain.ChargeStatus;
+import uk.gov.pay.connector.model.domain.UTCDateTimeConverter;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
 import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
+import java.sql.Timestamp;
 import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 import static uk.gov.pay.connector.model.domain.ChargeStatus.CAPTURE_APPROVED;
 import static uk.gov.pay.connector.model.domain.ChargeStatus.CAPTURE_APPROVED_RETRY;
 
@@ -30,28 +53,100 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
     private static final String REFERENCE = "reference";
     private static final String EMAIL = "email";
     public static final String SQL_ESCAPE_SEQ = "\\\\";
+    private static final String LOAD_GRAPH = "javax.persistence.loadgraph";
+    private static final String FIND_BY_EXTERNAL_ID = "SELECT c FROM ChargeEntity c WHERE c.externalId = :externalId";
+
+    // locks the charge only while it is in one of the from-states, moves it to the target status and
+    // records the event in one statement; returns no row when the charge was not in a from-state
+    private static final String TRANSITION_STATUS = "WITH locked AS (" +
+            "  SELECT id, status FROM charges WHERE external_id = ?1 AND status IN (%s) FOR UPDATE" +
+            "), transitioned AS (" +
+            "  UPDATE charges c SET status = ?2, version = c.version + 1 FROM locked WHERE c.id = locked.id " +
+            "  RETURNING c.id, locked.status AS from_status, c.gateway_account_id, c.created_date, c.amount" +
+            "), event AS (" +
+            "  INSERT INTO charge_events (charge_id, status, updated, gateway_event_date) " +
+            "  SELECT id, ?2, CAST(?3 AS timestamp), CAST(?4 AS timestamp) FROM transitioned" +
+            ") " +
+            "SELECT from_status, gateway_account_id, created_date, amount FROM transitioned";
+
+    private static final String CHARGE_EXISTS = "SELECT 1 FROM charges WHERE external_id = ?1";
+
+    // the set-based form of TRANSITION_STATUS; rows are locked in id order so that concurrent bulk
+    // transitions over overlapping charges cannot deadlock
+    private static final String TRANSITION_STATUS_IN_BULK = "WITH locked AS (" +
+            "  SELECT id, status FROM charges WHERE id IN (%s) AND status IN (%s) ORDER BY id FOR UPDATE" +
+            "), transitioned AS (" +
+            "  UPDATE charges c SET status = ?1, version = c.version + 1 FROM locked WHERE c.id = locked.id " +
+            "  RETURNING c.id, locked.status AS from_status, c.gateway_account_id, c.created_date, c.amount, c.external_id" +
+            "), events AS (" +
+            "  INSERT INTO charge_events (charge_id, status, updated) " +
+            "  SELECT id, ?1, CAST(?2 AS timestamp) FROM transitioned" +
+            ") " +
+            "SELECT id, from_status, gateway_account_id, created_date, amount, external_id FROM transitioned";
+
+    private static final String ALLOCATE_CHARGE_IDS = "SELECT nextval(pg_get_serial_sequence('charges', 'id')) FROM generate_series(1, ?1)";
+
+    private static final String INSERT_CHARGE = "INSERT INTO charges " +
+            "(id, external_id, amount, status, return_url, email, gateway_account_id, description, reference, created_date, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 1)";
+
+    // %1$s holds one placeholder per external id, from ?2 on; archived charges are read where they are
+    private static final String FIND_STATUSES_BY_EXTERNAL_IDS = "SELECT external_id, status, amount, gateway_transaction_id " +
+            "FROM charges WHERE gateway_account_id = ?1 AND external_id IN (%1$s) " +
+            "UNION ALL " +
+            "SELECT external_id, status, amount, gateway_transaction_id " +
+            "FROM charges_archive WHERE gateway_account_id = ?1 AND external_id IN (%1$s)";
+
+    private static final String SET_TRANSACTION_READ_ONLY = "SET TRANSACTION READ ONLY";
+    private static final String INSERT_CHARGE_EVENT = "INSERT INTO charge_events (charge_id, status, updated, version) VALUES (?, ?, ?, 1)";
+
+    public enum TransitionResult {
+        TRANSITIONED, CONFLICT, NOT_FOUND
+    }
 
     private ChargeEventDao chargeEventDao;
+    private ChargeArchiveDao chargeArchiveDao;
+    private ChargeStatsDao chargeStatsDao;
+    private ChargeVersionCache chargeVersionCache;
+    private ChargeStatusChangeRegistry chargeStatusChangeRegistry;
+    private final UTCDateTimeConverter dateTimeConverter = new UTCDateTimeConverter();
 
     @Inject
-    public ChargeDao(final Provider<EntityManager> entityManager, ChargeEventDao chargeEventDao) {
+    public ChargeDao(final Provider<EntityManager> entityManager, ChargeEventDao chargeEventDao,
+                     ChargeArchiveDao chargeArchiveDao, ChargeStatsDao chargeStatsDao,
+                     ChargeVersionCache chargeVersionCache, ChargeStatusChangeRegistry chargeStatusChangeRegistry) {
         super(entityManager);
         this.chargeEventDao = chargeEventDao;
+        this.chargeArchiveDao = chargeArchiveDao;
+        this.chargeStatsDao = chargeStatsDao;
+        this.chargeVersionCache = chargeVersionCache;
+        this.chargeStatusChangeRegistry = chargeStatusChangeRegistry;
     }
 
     public Optional<ChargeEntity> findById(Long chargeId) {
         return super.findById(ChargeEntity.class, chargeId);
     }
 
+    /**
+     * A charge that has been archived is read from the archive tables without being moved, and is moved back
+     * to the live tables only if a change to it is merged.
+     */
     public Optional<ChargeEntity> findByExternalId(String externalId) {
+        return withArchiveFallback(() -> findLiveByExternalId(externalId),
+                () -> chargeArchiveDao.findByExternalId(externalId));
+    }
 
-        String query = "SELECT c FROM ChargeEntity c " +
-                "WHERE c.externalId = :externalId";
-
-        return entityManager.get()
-                .createQuery(query, ChargeEntity.class)
-                .setParameter("externalId", externalId)
-                .getResultList().stream().findFirst();
+    /**
+     * @param entityGraph name of a {@link javax.persistence.NamedEntityGraph} on {@link ChargeEntity}
+     *                    (e.g. {@link ChargeEntity#WITH_REFUNDS}) whose lazy collections are loaded with the charge
+     */
+    public Optional<ChargeEntity> findByExternalId(String externalId, String entityGraph) {
+        EntityManager em = entityManager.get();
+        return withArchiveFallback(() -> em.createQuery(FIND_BY_EXTERNAL_ID, ChargeEntity.class)
+                        .setParameter("externalId", externalId)
+                        .setHint(LOAD_GRAPH, em.getEntityGraph(entityGraph))
+                        .getResultList().stream().findFirst(),
+                () -> chargeArchiveDao.findByExternalId(externalId));
     }
 
     public Optional<ChargeEntity> findByTokenId(String tokenId) {
@@ -69,23 +164,163 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
         return findByExternalId(externalId).filter(charge -> charge.isAssociatedTo(accountId));
     }
 
+    public Optional<ChargeEntity> findByExternalIdAndGatewayAccount(String externalId, Long accountId, String entityGraph) {
+        return findByExternalId(externalId, entityGraph).filter(charge -> charge.isAssociatedTo(accountId));
+    }
+
+    /**
+     * For callers about to change the charge in ways that do not go through {@link #merge(ChargeEntity)}, such as
+     * locking it for a refund: an archived charge is moved back to the live tables first. If another transaction
+     * has just restored it, the charge is found in the live tables all the same.
+     */
+    public Optional<ChargeEntity> findByExternalIdAndGatewayAccountRestoringArchived(String externalId, Long accountId) {
+        Optional<ChargeEntity> charge = findLiveByExternalId(externalId);
+        if (!charge.isPresent()) {
+            chargeArchiveDao.restoreByExternalId(externalId);
+            charge = findLiveByExternalId(externalId);
+        }
+        return charge.filter(chargeEntity -> chargeEntity.isAssociatedTo(accountId));
+    }
+
+    /**
+     * Loads the charges of the account with any of the given external ids in one query. Unlike
+     * {@link #findByExternalIdAndGatewayAccount(String, Long)}, archived charges are not read and so are
+     * missing from the result.
+     */
+    public List<ChargeEntity> findByExternalIdsAndGatewayAccount(Collection<String> externalIds, Long accountId) {
+        if (externalIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String query = "SELECT c FROM ChargeEntity c " +
+                "WHERE c.externalId IN :externalIds " +
+                "AND c.gatewayAccount.id = :accountId";
+
+        return entityManager.get()
+                .createQuery(query, ChargeEntity.class)
+                .setParameter("externalIds", externalIds)
+                .setParameter("accountId", accountId)
+                .getResultList();
+    }
+
+    /**
+     * The status of each charge of the account with any of the given external ids, read with one query
+     * and without loading the charges. Archived charges are read from the archive tables without being restored.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ChargeStatusSummary> findStatusesByExternalIdsAndGatewayAccount(List<String> externalIds, Long accountId) {
+        if (externalIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String placeholders = IntStream.rangeClosed(2, externalIds.size() + 1)
+                .mapToObj(position -> "?" + position)
+                .collect(joining(", "));
+        Query query = entityManager.get()
+                .createNativeQuery(format(FIND_STATUSES_BY_EXTERNAL_IDS, placeholders))
+                .setParameter(1, accountId);
+        for (int i = 0; i < externalIds.size(); i++) {
+            query.setParameter(i + 2, externalIds.get(i));
+        }
+
+        List<Object[]> rows = query.getResultList();
+        return rows.stream()
+                .map(row -> new ChargeStatusSummary(
+                        (String) row[0],
+                        ((Number) row[2]).longValue(),
+                        ChargeStatus.fromCode(((Number) row[1]).shortValue()).toExternal(),
+                        (String) row[3]))
+                .collect(toList());
+    }
+
     public Optional<ChargeEntity> findByProviderAndTransactionId(String provider, String transactionId) {
 
         String query = "SELECT c FROM ChargeEntity c " +
                 "WHERE c.gatewayTransactionId = :gatewayTransactionId " +
                 "AND c.gatewayAccount.gatewayName = :provider";
 
+        return withArchiveFallback(() -> entityManager.get()
+                        .createQuery(query, ChargeEntity.class)
+                        .setParameter("gatewayTransactionId", transactionId)
+                        .setParameter("provider", provider).getResultList().stream().findFirst(),
+                () -> chargeArchiveDao.findByProviderAndTransactionId(provider, transactionId));
+    }
+
+    private Optional<ChargeEntity> findLiveByExternalId(String externalId) {
         return entityManager.get()
-                .createQuery(query, ChargeEntity.class)
-                .setParameter("gatewayTransactionId", transactionId)
-                .setParameter("provider", provider).getResultList().stream().findFirst();
+                .createQuery(FIND_BY_EXTERNAL_ID, ChargeEntity.class)
+                .setParameter("externalId", externalId)
+                .getResultList().stream().findFirst();
+    }
+
+    private Optional<ChargeEntity> withArchiveFallback(Supplier<Optional<ChargeEntity>> find, Supplier<Optional<ChargeEntity>> findArchived) {
+        Optional<ChargeEntity> charge = find.get();
+        return charge.isPresent() ? charge : findArchived.get();
+    }
+
+    // a poll reading the charge before the change commits would otherwise put the old version back in the cache
+    private void invalidateVersionAfterCommit(String externalId) {
+        chargeStatusChangeRegistry.afterCommit(() -> chargeVersionCache.invalidate(externalId));
+    }
+
+    private void restoreIfArchived(ChargeEntity chargeEntity) {
+        if (chargeEntity.isArchived()) {
+            chargeArchiveDao.restoreById(chargeEntity.getId());
+        }
     }
 
     public void persist(ChargeEntity chargeEntity) {
         super.persist(chargeEntity);
+        chargeStatsDao.recordStatusOf(chargeEntity);
         chargeEventDao.persist(ChargeEventEntity.from(chargeEntity, ChargeStatus.CREATED, chargeEntity.getCreatedDate(), Optional.empty()));
     }
 
+    /**
+     * Persists new charges with their CREATED events, each table in one JDBC batch, rather than as
+     * {@link #persist(ChargeEntity)} does one statement at a time. The charges are given their ids but,
+     * unlike persisted ones, are not managed by the entity manager.
+     */
+    public void persistAll(List<ChargeEntity> chargeEntities) {
+        if (chargeEntities.isEmpty()) {
+            return;
+        }
+        EntityManager em = entityManager.get();
+
+        @SuppressWarnings("unchecked")
+        List<Number> ids = em.createNativeQuery(ALLOCATE_CHARGE_IDS)
+                .setParameter(1, chargeEntities.size())
+                .getResultList();
+        for (int i = 0; i < chargeEntities.size(); i++) {
+            chargeEntities.get(i).setId(ids.get(i).longValue());
+        }
+
+        JdbcBatch.execute(em, INSERT_CHARGE, chargeEntities, (statement, charge) -> {
+            statement.setLong(1, charge.getId());
+            statement.setString(2, charge.getExternalId());
+            statement.setLong(3, charge.getAmount());
+            statement.setShort(4, ChargeStatus.fromString(charge.getStatus()).getCode());
+            statement.setString(5, charge.getReturnUrl());
+            statement.setString(6, charge.getEmail());
+            statement.setLong(7, charge.getGatewayAccount().getId());
+            statement.setString(8, charge.getDescription());
+            statement.setString(9, charge.getReference());
+            statement.setTimestamp(10, dateTimeConverter.convertToDatabaseColumn(charge.getCreatedDate()));
+        });
+        JdbcBatch.execute(em, INSERT_CHARGE_EVENT, chargeEntities, (statement, charge) -> {
+            statement.setLong(1, charge.getId());
+            statement.setShort(2, ChargeStatus.CREATED.getCode());
+            statement.setTimestamp(3, dateTimeConverter.convertToDatabaseColumn(charge.getCreatedDate()));
+        });
+
+        // one update of the running totals per account and day, rather than one per charge
+        chargeEntities.stream()
+                .collect(groupingBy(charge -> charge.getGatewayAccount().getId() + ":" +
+                        charge.getCreatedDate().withZoneSameInstant(ZoneOffset.UTC).toLocalDate()))
+                .values()
+                .forEach(charges -> chargeStatsDao.recordTransitions(charges.get(0).getGatewayAccount().getId(),
+                        charges.get(0).getCreatedDate(), charges.size(), charges.stream().mapToLong(ChargeEntity::getAmount).sum(),
+                        Optional.empty(), ChargeStatus.CREATED));
+        chargeEntities.forEach(ChargeEntity::markStatusAsPersisted);
+    }
+
     public List<ChargeEntity> findBeforeDateWithStatusIn(ZonedDateTime date, List<ChargeStatus> statuses) {
         ChargeSearchParams params = new ChargeSearchParams()
                 .withToDate(date)
@@ -93,6 +328,69 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
         return findAllBy(params);
     }
 
+    /**
+     * One keyset page of charges in the given statuses created before <code>createdBefore</code>, oldest first.
+     * Pass the last charge of the previous page as <code>after</code> to get the next page; unlike an offset,
+     * the position stays correct while charges on earlier pages move out of the given statuses.
+     */
+    public List<ChargeEntity> findPageBeforeDateWithStatusIn(ZonedDateTime createdBefore, List<ChargeStatus> statuses,
+                                                             Optional<ChargeEntity> after, int limit) {
+        String query = "SELECT c FROM ChargeEntity c " +
+                "WHERE c.status IN :statuses AND c.createdDate < :createdBefore" +
+                (after.isPresent() ? " AND (c.createdDate > :afterDate OR (c.createdDate = :afterDate AND c.id > :afterId))" : "") +
+                " ORDER BY c.createdDate, c.id";
+
+        TypedQuery<ChargeEntity> typedQuery = entityManager.get()
+                .createQuery(query, ChargeEntity.class)
+                .setParameter("statuses", statuses)
+                .setParameter("createdBefore", createdBefore)
+                .setMaxResults(limit);
+        after.ifPresent(charge -> typedQuery
+                .setParameter("afterDate", charge.getCreatedDate())
+                .setParameter("afterId", charge.getId()));
+        return typedQuery.getResultList();
+    }
+
+    public long countBeforeDateWithStatusIn(ZonedDateTime createdBefore, List<ChargeStatus> statuses) {
+        return entityManager.get()
+                .createQuery("SELECT COUNT(c) FROM ChargeEntity c WHERE c.status IN :statuses AND c.createdDate < :createdBefore", Long.class)
+                .setParameter("statuses", statuses)
+                .setParameter("createdBefore", createdBefore)
+                .getSingleResult();
+    }
+
+    /**
+     * Like {@link #findPageBeforeDateWithStatusIn}, but only for charges with no event since <code>unchangedSince</code>,
+     * that is charges that have been in their current status at least since then.
+     */
+    public List<ChargeEntity> findPageUnchangedSinceWithStatusIn(ZonedDateTime unchangedSince, List<ChargeStatus> statuses,
+                                                                 Optional<ChargeEntity> after, int limit) {
+        String query = "SELECT c FROM ChargeEntity c " +
+                "WHERE c.status IN :statuses AND c.createdDate < :unchangedSince" +
+                " AND NOT EXISTS (SELECT e FROM ChargeEventEntity e WHERE e.chargeEntity = c AND e.updated >= :unchangedSince)" +
+                (after.isPresent() ? " AND (c.createdDate > :afterDate OR (c.createdDate = :afterDate AND c.id > :afterId))" : "") +
+                " ORDER BY c.createdDate, c.id";
+
+        TypedQuery<ChargeEntity> typedQuery = entityManager.get()
+                .createQuery(query, ChargeEntity.class)
+                .setParameter("statuses", statuses)
+                .setParameter("unchangedSince", unchangedSince)
+                .setMaxResults(limit);
+        after.ifPresent(charge -> typedQuery
+                .setParameter("afterDate", charge.getCreatedDate())
+                .setParameter("afterId", charge.getId()));
+        return typedQuery.getResultList();
+    }
+
+    public long countUnchangedSinceWithStatusIn(ZonedDateTime unchangedSince, List<ChargeStatus> statuses) {
+        return entityManager.get()
+                .createQuery("SELECT COUNT(c) FROM ChargeEntity c WHERE c.status IN :statuses AND c.createdDate < :unchangedSince" +
+                        " AND NOT EXISTS (SELECT e FROM ChargeEventEntity e WHERE e.chargeEntity = c AND e.updated >= :unchangedSince)", Long.class)
+                .setParameter("statuses", statuses)
+                .setParameter("unchangedSince", unchangedSince)
+                .getSingleResult();
+    }
+
     public List<ChargeEntity> findAllBy(ChargeSearchParams params) {
         CriteriaBuilder cb = entityManager.get().getCriteriaBuilder();
         CriteriaQuery<ChargeEntity> cq = cb.createQuery(ChargeEntity.class);
@@ -123,12 +421,214 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
         return entityManager.get().createQuery(cq).getSingleResult();
     }
 
+    /**
+     * Passes every charge matching the search params (ignoring paging) to the consumer, newest first.
+     * Rows are read as a projection through a forward-only cursor, so only one JDBC fetch of
+     * <code>fetchSize</code> rows is held in memory at a time.
+     * <p>
+     * Postgres only honours the fetch size on a connection with auto-commit off, so the rows are read in a
+     * read-only transaction of their own. It is always rolled back before this returns, however the read ends,
+     * so the connection goes back to the pool rather than staying open until the unit of work is cleaned up.
+     */
+    public void forEachMatching(ChargeSearchParams params, int fetchSize, Consumer<ChargeExportRow> consumer) {
+        EntityManager em = entityManager.get();
+        EntityTransaction transaction = em.getTransaction();
+        transaction.begin();
+        try {
+            em.createNativeQuery(SET_TRANSACTION_READ_ONLY).executeUpdate();
+            readMatching(em, params, fetchSize, consumer);
+        } finally {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+        }
+    }
+
+    private void readMatching(EntityManager em, ChargeSearchParams params, int fetchSize, Consumer<ChargeExportRow> consumer) {
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
+        Root<ChargeEntity> charge = cq.from(ChargeEntity.class);
+
+        List<Predicate> predicates = buildParamPredicates(params, cb, charge);
+        cq.multiselect(
+                charge.get("externalId"),
+                charge.get(REFERENCE),
+                charge.get("description"),
+                charge.get(EMAIL),
+                charge.get("amount"),
+                charge.get(STATUS),
+                charge.get(CARD_DETAILS).get("cardBrand"),
+                charge.get("gatewayTransactionId"),
+                charge.get(CREATED_DATE))
+                .where(predicates.toArray(new Predicate[]{}))
+                .orderBy(cb.desc(charge.get(CREATED_DATE)));
+
+        Query query = em.createQuery(cq)
+                .setHint(QueryHints.SCROLLABLE_CURSOR, HintValues.TRUE)
+                .setHint(QueryHints.RESULT_SET_TYPE, ResultSetType.ForwardOnly)
+                .setHint(QueryHints.JDBC_FETCH_SIZE, fetchSize);
+        ScrollableCursor cursor = (ScrollableCursor) query.getSingleResult();
+        try {
+            while (cursor.hasNext()) {
+                consumer.accept(toExportRow(cursor.next()));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private ChargeExportRow toExportRow(Object result) {
+        Object[] row = result instanceof ReportQueryResult ? ((ReportQueryResult) result).toArray() : (Object[]) result;
+        return new ChargeExportRow(
+                (String) row[0],
+                (String) row[1],
+                (String) row[2],
+                (String) row[3],
+                (Long) row[4],
+                ((ChargeStatus) row[5]).getValue(),
+                (String) row[6],
+                (String) row[7],
+                (ZonedDateTime) row[8]);
+    }
+
+    @Override
+    public ChargeEntity merge(ChargeEntity chargeEntity) {
+        restoreIfArchived(chargeEntity);
+        invalidateVersionAfterCommit(chargeEntity.getExternalId());
+        return super.merge(chargeEntity);
+    }
+
     public ChargeEntity mergeAndNotifyStatusHasChanged(ChargeEntity chargeEntity, Optional<ZonedDateTime> gatewayEventDate) {
+        restoreIfArchived(chargeEntity);
+        invalidateVersionAfterCommit(chargeEntity.getExternalId());
         ChargeEntity mergedCharge = super.merge(chargeEntity);
+        chargeStatsDao.recordStatusOf(mergedCharge);
+        chargeEntity.markStatusAsPersisted();
         chargeEventDao.persist(ChargeEventEntity.from(chargeEntity, ChargeStatus.fromString(chargeEntity.getStatus()), ZonedDateTime.now(), gatewayEventDate));
+        chargeStatusChangeRegistry.statusChanged(chargeEntity.getExternalId(), ChargeStatus.fromString(chargeEntity.getStatus()));
         return mergedCharge;
     }
 
+    /**
+     * Moves the charge to <code>toStatus</code> if, and only if, its current status is one of <code>fromStatuses</code>,
+     * without loading it. Callers pass only statuses from which <code>toStatus</code> is a valid transition.
+     * <p>
+     * The update bypasses the persistence context, so a <code>ChargeEntity</code> for the same charge already
+     * loaded in this transaction is stale afterwards.
+     *
+     * <p>
+     * An archived charge in one of <code>fromStatuses</code> is restored to the live tables first, as it is for any
+     * other change. One in any other status is left archived.
+     *
+     * @return {@link TransitionResult#CONFLICT} if the charge exists, live or archived, but is not in one of
+     * <code>fromStatuses</code>
+     */
+    public TransitionResult transitionStatus(String externalId, List<ChargeStatus> fromStatuses, ChargeStatus toStatus,
+                                             Optional<ZonedDateTime> gatewayEventDate) {
+        EntityManager em = entityManager.get();
+        List<Object[]> rows = runTransition(em, externalId, fromStatuses, toStatus, gatewayEventDate);
+
+        if (rows.isEmpty()) {
+            if (!em.createNativeQuery(CHARGE_EXISTS).setParameter(1, externalId).getResultList().isEmpty()) {
+                return TransitionResult.CONFLICT;
+            }
+            Optional<ChargeEntity> archivedCharge = chargeArchiveDao.findByExternalId(externalId);
+            if (!archivedCharge.isPresent()) {
+                return TransitionResult.NOT_FOUND;
+            }
+            if (!fromStatuses.contains(ChargeStatus.fromString(archivedCharge.get().getStatus()))) {
+                return TransitionResult.CONFLICT;
+            }
+            chargeArchiveDao.restoreByExternalId(externalId);
+            rows = runTransition(em, externalId, fromStatuses, toStatus, gatewayEventDate);
+            if (rows.isEmpty()) {
+                return TransitionResult.CONFLICT;
+            }
+        }
+
+        invalidateVersionAfterCommit(externalId);
+        Object[] row = rows.get(0);
+        chargeStatsDao.recordTransition(
+                ((Number) row[1]).longValue(),
+                dateTimeConverter.convertToEntityAttribute((Timestamp) row[2]),
+                ((Number) row[3]).longValue(),
+                Optional.of(ChargeStatus.fromCode(((Number) row[0]).shortValue())),
+                toStatus);
+        chargeStatusChangeRegistry.statusChanged(externalId, toStatus);
+        return TransitionResult.TRANSITIONED;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> runTransition(EntityManager em, String externalId, List<ChargeStatus> fromStatuses,
+                                         ChargeStatus toStatus, Optional<ZonedDateTime> gatewayEventDate) {
+        String fromCodes = fromStatuses.stream().map(status -> String.valueOf(status.getCode())).collect(joining(","));
+        return em.createNativeQuery(format(TRANSITION_STATUS, fromCodes))
+                .setParameter(1, externalId)
+                .setParameter(2, toStatus.getCode())
+                .setParameter(3, dateTimeConverter.convertToDatabaseColumn(ZonedDateTime.now()))
+                .setParameter(4, gatewayEventDate.map(dateTimeConverter::convertToDatabaseColumn).orElse(null))
+                .getResultList();
+    }
+
+    /**
+     * Moves every one of the given charges that is in one of <code>fromStatuses</code> to <code>toStatus</code>
+     * and records their events, with one statement whatever the number of charges. Charges in any other status
+     * are left alone. Callers pass only statuses from which <code>toStatus</code> is a valid transition.
+     * <p>
+     * Like {@link #transitionStatus}, the update bypasses the persistence context. The moved charges are evicted
+     * from the shared cache, but callers holding them loaded must {@link #detach} them rather than change them:
+     * their version is stale, so merging or flushing them fails.
+     *
+     * @return the ids of the charges that were moved
+     */
+    public List<Long> transitionStatusInBulk(List<Long> chargeIds, List<ChargeStatus> fromStatuses, ChargeStatus toStatus) {
+        if (chargeIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String ids = chargeIds.stream().map(String::valueOf).collect(joining(","));
+        String fromCodes = fromStatuses.stream().map(status -> String.valueOf(status.getCode())).collect(joining(","));
+
+        EntityManager em = entityManager.get();
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = em
+                .createNativeQuery(format(TRANSITION_STATUS_IN_BULK, ids, fromCodes))
+                .setParameter(1, toStatus.getCode())
+                .setParameter(2, dateTimeConverter.convertToDatabaseColumn(ZonedDateTime.now()))
+                .getResultList();
+
+        rows.forEach(row -> {
+            em.getEntityManagerFactory().getCache().evict(ChargeEntity.class, ((Number) row[0]).longValue());
+            invalidateVersionAfterCommit((String) row[5]);
+            chargeStatusChangeRegistry.statusChanged((String) row[5], toStatus);
+        });
+
+        // one update of the running totals per account, day of creation and previous status, not per charge
+        rows.stream()
+                .collect(groupingBy(row -> Arrays.asList(row[2], utcDayOf(row[3]), row[1])))
+                .forEach((key, group) -> chargeStatsDao.recordTransitions(
+                        ((Number) key.get(0)).longValue(),
+                        dateTimeConverter.convertToEntityAttribute((Timestamp) group.get(0)[3]),
+                        group.size(),
+                        group.stream().mapToLong(row -> ((Number) row[4]).longValue()).sum(),
+                        Optional.of(ChargeStatus.fromCode(((Number) key.get(2)).shortValue())),
+                        toStatus));
+
+        return rows.stream().map(row -> ((Number) row[0]).longValue()).collect(toList());
+    }
+
+    /**
+     * Removes the charge from the persistence context, so changes to it are no longer written and the next
+     * lookup loads it afresh.
+     */
+    public void detach(ChargeEntity chargeEntity) {
+        entityManager.get().detach(chargeEntity);
+    }
+
+    private LocalDate utcDayOf(Object createdDate) {
+        return dateTimeConverter.convertToEntityAttribute((Timestamp) createdDate).withZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+    }
+
     private List<Predicate> buildParamPredicates(ChargeSearchParams params, CriteriaBuilder cb, Root<ChargeEntity> charge) {
         List<Predicate> predicates = new ArrayList<>();
         if (params.getGatewayAccountId() != null)
@@ -162,8 +662,8 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
 
         Number count = (Number) entityManager.get()
                 .createQuery(query)
-                .setParameter("captureApprovedStatus", CAPTURE_APPROVED.getValue())
-                .setParameter("captureApprovedRetryStatus", CAPTURE_APPROVED_RETRY.getValue())
+                .setParameter("captureApprovedStatus", CAPTURE_APPROVED)
+                .setParameter("captureApprovedRetryStatus", CAPTURE_APPROVED_RETRY)
                 .getSingleResult();
         return count.intValue();
     }
@@ -182,8 +682,8 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
         return entityManager.get()
                 .createQuery(query, ChargeEntity.class)
                 .setMaxResults(maxNumberOfCharges)
-                .setParameter("captureApprovedStatus", CAPTURE_APPROVED.getValue())
-                .setParameter("captureApprovedRetryStatus", CAPTURE_APPROVED_RETRY.getValue())
+                .setParameter("captureApprovedStatus", CAPTURE_APPROVED)
+                .setParameter("captureApprovedRetryStatus", CAPTURE_APPROVED_RETRY)
                 .setParameter("eventStatus", CAPTURE_APPROVED_RETRY)
                 .setParameter("cutoffDate", ZonedDateTime.now().minus(notAttemptedWithin))
                 .getResultList();
@@ -2,16 +2,76 @@ package uk.gov.pay.connector.dao;
 
 import com.google.inject.Provider;
 import com.google.inject.persist.Transactional;
+import uk.gov.pay.connector.model.ChargeEvent;
+import uk.gov.pay.connector.model.api.ExternalChargeState;
 import uk.gov.pay.connector.model.domain.ChargeEventEntity;
+import uk.gov.pay.connector.model.domain.ChargeStatus;
+import uk.gov.pay.connector.model.domain.UTCDateTimeConverter;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+import static java.lang.String.format;
+import static java.util.Arrays.stream;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 
 @Transactional
 public class ChargeEventDao extends JpaDao<ChargeEventEntity> {
 
+    private static final String EXTERNAL_STATE_OF_EVENT = stream(ChargeStatus.values())
+            .map(status -> format("WHEN %d THEN '%s'", status.getCode(), status.toExternal().name()))
+            .collect(joining(" ", "CASE ce.status ", " END"));
+
+    // one row per external state with its most recent update, newest first;
+    // the left join yields a single row of nulls for a charge without events
+    private static final String EXTERNAL_EVENTS_FOR_CHARGE = "SELECT " + EXTERNAL_STATE_OF_EVENT + ", MAX(ce.updated) " +
+            "FROM %s c LEFT JOIN %s ce ON ce.charge_id = c.id " +
+            "WHERE c.external_id = ?1 AND c.gateway_account_id = ?2 " +
+            "GROUP BY 1 " +
+            "ORDER BY 2 DESC";
+
+    private final UTCDateTimeConverter dateTimeConverter = new UTCDateTimeConverter();
+
     @Inject
     public ChargeEventDao(final Provider<EntityManager> entityManager) {
         super(entityManager);
     }
+
+    /**
+     * Charge events mapped to external states, keeping only the latest event for each state.
+     * Archived charges are read from the archive tables without being restored.
+     *
+     * @return empty if there is no charge with this external id for the gateway account
+     */
+    public Optional<List<ChargeEvent>> findExternalChargeEvents(String externalChargeId, Long accountId) {
+        List<Object[]> rows = findExternalChargeEventRows("charges", "charge_events", externalChargeId, accountId);
+        if (rows.isEmpty()) {
+            rows = findExternalChargeEventRows("charges_archive", "charge_events_archive", externalChargeId, accountId);
+        }
+
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(rows.stream()
+                .filter(row -> row[0] != null)
+                .map(row -> new ChargeEvent(
+                        externalChargeId,
+                        ExternalChargeState.valueOf((String) row[0]),
+                        dateTimeConverter.convertToEntityAttribute((Timestamp) row[1])))
+                .collect(toList()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> findExternalChargeEventRows(String chargesTable, String eventsTable, String externalChargeId, Long accountId) {
+        return entityManager.get()
+                .createNativeQuery(format(EXTERNAL_EVENTS_FOR_CHARGE, chargesTable, eventsTable))
+                .setParameter(1, externalChargeId)
+                .setParameter(2, accountId)
+                .getResultList();
+    }
 }
@@ -0,0 +1,126 @@
+package uk.gov.pay.connector.dao;
+
+import com.google.inject.Provider;
+import com.google.inject.persist.Transactional;
+import uk.gov.pay.connector.model.ChargeStateTotal;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.ChargeStatus;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Running totals of charges per gateway account, external state and day of creation, kept up to date
+ * in the same transaction as every charge creation and status change.
+ */
+@Transactional
+public class ChargeStatsDao {
+
+    private static final String ADD_TO_TOTAL = "UPDATE charge_stats " +
+            "SET charge_count = charge_count + ?4, amount_total = amount_total + ?5 " +
+            "WHERE gateway_account_id = ?1 AND day = ?2 AND state = ?3";
+
+    private static final String INSERT_TOTAL = "INSERT INTO charge_stats (gateway_account_id, day, state, charge_count, amount_total) " +
+            "VALUES (?1, ?2, ?3, ?4, ?5)";
+
+    // postgres 9.4 has no upsert, so the first insert of a total is serialised per row key instead
+    private static final String LOCK_TOTAL = "SELECT pg_advisory_xact_lock(hashtext('charge_stats:' || ?1 || ':' || ?2 || ':' || ?3))";
+
+    private static final String TOTALS_FOR_ACCOUNT = "SELECT state, SUM(charge_count), SUM(amount_total) FROM charge_stats " +
+            "WHERE gateway_account_id = ?1 AND day >= ?2 AND day < ?3 " +
+            "GROUP BY state " +
+            "ORDER BY state";
+
+    private final Provider<EntityManager> entityManager;
+
+    @Inject
+    public ChargeStatsDao(Provider<EntityManager> entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Moves the charge from the external state of the status it was counted under to that of its current
+     * status, then marks the current status as counted.
+     */
+    public void recordStatusOf(ChargeEntity charge) {
+        recordTransition(charge.getGatewayAccount().getId(), charge.getCreatedDate(), charge.getAmount(),
+                charge.getPersistedStatus(), ChargeStatus.fromString(charge.getStatus()));
+        charge.markStatusAsPersisted();
+    }
+
+    /**
+     * Moves a charge that was counted under <code>fromStatus</code> to the external state of <code>toStatus</code>;
+     * an empty <code>fromStatus</code> counts a new charge.
+     */
+    public void recordTransition(Long accountId, ZonedDateTime createdDate, long amount, Optional<ChargeStatus> fromStatus, ChargeStatus toStatus) {
+        recordTransitions(accountId, createdDate, 1, amount, fromStatus, toStatus);
+    }
+
+    /**
+     * Moves <code>count</code> charges of the same account and day of creation, together worth
+     * <code>amountTotal</code>, in one update per total.
+     */
+    public void recordTransitions(Long accountId, ZonedDateTime createdDate, long count, long amountTotal,
+                                  Optional<ChargeStatus> fromStatus, ChargeStatus toStatus) {
+        Optional<String> countedState = fromStatus.map(status -> status.toExternal().getStatus());
+        String currentState = toStatus.toExternal().getStatus();
+
+        if (!countedState.equals(Optional.of(currentState))) {
+            Date day = Date.valueOf(createdDate.withZoneSameInstant(ZoneOffset.UTC).toLocalDate());
+            countedState.ifPresent(state -> addToTotal(accountId, day, state, -count, -amountTotal));
+            addToTotal(accountId, day, currentState, count, amountTotal);
+        }
+    }
+
+    /**
+     * @param fromDate first day included
+     * @param toDate   first day excluded
+     */
+    public List<ChargeStateTotal> findTotals(Long accountId, LocalDate fromDate, LocalDate toDate) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.get()
+                .createNativeQuery(TOTALS_FOR_ACCOUNT)
+                .setParameter(1, accountId)
+                .setParameter(2, Date.valueOf(fromDate))
+                .setParameter(3, Date.valueOf(toDate))
+                .getResultList();
+
+        return rows.stream()
+                .map(row -> new ChargeStateTotal((String) row[0], ((Number) row[1]).longValue(), ((Number) row[2]).longValue()))
+                .collect(toList());
+    }
+
+    private void addToTotal(Long accountId, Date day, String state, long count, long amount) {
+        if (executeWithTotalKey(ADD_TO_TOTAL, accountId, day, state, count, amount) == 0) {
+            EntityManager em = entityManager.get();
+            em.createNativeQuery(LOCK_TOTAL)
+                    .setParameter(1, accountId)
+                    .setParameter(2, day.toString())
+                    .setParameter(3, state)
+                    .getSingleResult();
+            // another transaction may have inserted the row while this one waited for the lock
+            if (executeWithTotalKey(ADD_TO_TOTAL, accountId, day, state, count, amount) == 0) {
+                executeWithTotalKey(INSERT_TOTAL, accountId, day, state, count, amount);
+            }
+        }
+    }
+
+    private int executeWithTotalKey(String statement, Long accountId, Date day, String state, long count, long amount) {
+        return entityManager.get()
+                .createNativeQuery(statement)
+                .setParameter(1, accountId)
+                .setParameter(2, day)
+                .setParameter(3, state)
+                .setParameter(4, count)
+                .setParameter(5, amount)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,104 @@
+package uk.gov.pay.connector.dao;
+
+import uk.gov.pay.connector.model.domain.ChargeStatus;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Listeners waiting for a charge's status to change, by charge external id. {@link ChargeDao} reports every
+ * status change it makes, so a listener is called as soon as a change is made on this connector node;
+ * changes made on other nodes are not seen here.
+ * <p>
+ * Each listener is called at most once, with the new status, and is then removed. A change made within a
+ * transaction is held back until the transaction commits, and dropped if it rolls back, so a listener
+ * never sees a status that is not in the database; see {@link PublishStatusChangesAfterCommit}. Listeners
+ * are called on the thread that committed, so they should hand any slow work to another thread.
+ * <p>
+ * Other work that must not happen before a change is visible, such as invalidating a cached copy of the charge,
+ * can be held back the same way with {@link #afterCommit}.
+ */
+public class ChargeStatusChangeRegistry {
+
+    private final ConcurrentMap<String, Set<Consumer<ChargeStatus>>> listeners = new ConcurrentHashMap<>();
+    private final ThreadLocal<Integer> transactionDepth = ThreadLocal.withInitial(() -> 0);
+    private final ThreadLocal<Map<String, ChargeStatus>> uncommittedChanges = ThreadLocal.withInitial(LinkedHashMap::new);
+    private final ThreadLocal<List<Runnable>> afterCommitActions = ThreadLocal.withInitial(ArrayList::new);
+
+    /**
+     * @return removes the listener if it has not been called yet
+     */
+    public Runnable register(String externalId, Consumer<ChargeStatus> listener) {
+        listeners.compute(externalId, (id, waiting) -> {
+            Set<Consumer<ChargeStatus>> updated = waiting == null ? ConcurrentHashMap.newKeySet() : waiting;
+            updated.add(listener);
+            return updated;
+        });
+        return () -> listeners.computeIfPresent(externalId, (id, waiting) -> {
+            waiting.remove(listener);
+            return waiting.isEmpty() ? null : waiting;
+        });
+    }
+
+    public void statusChanged(String externalId, ChargeStatus status) {
+        if (transactionDepth.get() > 0) {
+            uncommittedChanges.get().put(externalId, status);
+        } else {
+            publish(externalId, status);
+        }
+    }
+
+    /**
+     * Runs the action once the outermost transaction on this thread has committed, before any listener is
+     * called, or straight away outside a transaction. It is dropped if the transaction rolls back.
+     */
+    public void afterCommit(Runnable action) {
+        if (transactionDepth.get() > 0) {
+            afterCommitActions.get().add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    void transactionStarted() {
+        transactionDepth.set(transactionDepth.get() + 1);
+    }
+
+    /**
+     * Runs the actions and publishes the changes held back once the outermost transaction has committed,
+     * or drops them if it did not.
+     */
+    void transactionEnded(boolean committed) {
+        int depth = transactionDepth.get() - 1;
+        if (depth > 0) {
+            transactionDepth.set(depth);
+            return;
+        }
+        Map<String, ChargeStatus> changes = uncommittedChanges.get();
+        List<Runnable> actions = afterCommitActions.get();
+        transactionDepth.remove();
+        uncommittedChanges.remove();
+        afterCommitActions.remove();
+        if (committed) {
+            actions.forEach(Runnable::run);
+            changes.forEach(this::publish);
+        }
+    }
+
+    private void publish(String externalId, ChargeStatus status) {
+        Set<Consumer<ChargeStatus>> waiting = listeners.remove(externalId);
+        if (waiting != null) {
+            waiting.forEach(listener -> listener.accept(status));
+        }
+    }
+
+    int countWaiting(String externalId) {
+        return listeners.getOrDefault(externalId, ConcurrentHashMap.newKeySet()).size();
+    }
+}
@@ -0,0 +1,44 @@
+package uk.gov.pay.connector.dao;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import uk.gov.pay.connector.app.ChargeVersionCacheConfig;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+
+import javax.inject.Inject;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The version of each recently read charge, by external id, so a client that already holds that version
+ * can be answered without loading the charge again.
+ * <p>
+ * {@link ChargeDao} invalidates a charge once its change to it has committed. Charges changed by another
+ * connector node cannot be invalidated here, so entries also expire after
+ * <code>chargeVersionCacheConfig.expireAfterWrite</code>.
+ */
+public class ChargeVersionCache {
+
+    private final Cache<String, Long> versions;
+
+    @Inject
+    public ChargeVersionCache(ConnectorConfiguration configuration) {
+        ChargeVersionCacheConfig config = configuration.getChargeVersionCacheConfig();
+        this.versions = CacheBuilder.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getExpireAfterWrite().toMilliseconds(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public Optional<Long> getVersion(String externalId) {
+        return Optional.ofNullable(versions.getIfPresent(externalId));
+    }
+
+    public void put(String externalId, Long version) {
+        versions.put(externalId, version);
+    }
+
+    public void invalidate(String externalId) {
+        versions.invalidate(externalId);
+    }
+}
@@ -0,0 +1,212 @@
+package uk.gov.pay.connector.dao;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Provider;
+import com.google.inject.persist.Transactional;
+import uk.gov.pay.connector.model.EmailOutboxItem;
+import uk.gov.pay.connector.model.domain.UTCDateTimeConverter;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static uk.gov.pay.connector.model.EmailOutboxItem.Status.DELIVERED;
+import static uk.gov.pay.connector.model.EmailOutboxItem.Status.FAILED;
+import static uk.gov.pay.connector.model.EmailOutboxItem.Status.PENDING;
+import static uk.gov.pay.connector.model.EmailOutboxItem.Status.SENT;
+
+/**
+ * Emails to be sent through Notify. An email is written here in the same transaction as the change that
+ * calls for it, so it is sent even if the connector restarts before getting round to it.
+ */
+@Transactional
+public class EmailOutboxDao {
+
+    private static final String INSERT = "INSERT INTO email_outbox " +
+            "(charge_external_id, email_address, personalisation, status, next_attempt_at) " +
+            "VALUES (?1, ?2, ?3, ?4, ?5)";
+
+    private static final String SELECT_ITEM = "SELECT id, charge_external_id, email_address, personalisation, attempts, notification_id, created_date " +
+            "FROM email_outbox ";
+
+    private static final String FIND_DUE_TO_SEND = SELECT_ITEM +
+            "WHERE status = 'PENDING' AND next_attempt_at <= ?1 AND id > ?2 ORDER BY id LIMIT ?3";
+
+    private static final String FIND_DUE_FOR_DELIVERY_CHECK = SELECT_ITEM +
+            "WHERE status = 'SENT' AND next_attempt_at <= ?1 AND id > ?2 AND sent_date >= ?4 ORDER BY id LIMIT ?3";
+
+    private static final String COUNT_PENDING = "SELECT COUNT(*) FROM email_outbox WHERE status = 'PENDING'";
+
+    private static final String UPDATE_SENT = "UPDATE email_outbox SET status = ?2, notification_id = ?3, sent_date = ?4, " +
+            "next_attempt_at = ?5, attempts = attempts + 1, error = NULL WHERE id = ?1";
+
+    private static final String UPDATE_FAILED_ATTEMPT = "UPDATE email_outbox SET status = ?2, next_attempt_at = ?3, " +
+            "attempts = attempts + 1, error = ?4 WHERE id = ?1";
+
+    private static final String UPDATE_DELIVERY = "UPDATE email_outbox SET status = ?2, next_attempt_at = ?3 WHERE id = ?1";
+
+    private static final String DELETE_FINISHED = "DELETE FROM email_outbox WHERE id IN " +
+            "(SELECT id FROM email_outbox WHERE status IN ('SENT', 'DELIVERED', 'FAILED') AND created_date < ?1 LIMIT ?2)";
+
+    private static final String UPDATE_UNDELIVERED = "UPDATE email_outbox SET status = 'FAILED', error = ?2 WHERE id = ?1";
+
+    private static final int MAXIMUM_ERROR_LENGTH = 255;
+
+    private final Provider<EntityManager> entityManager;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UTCDateTimeConverter dateTimeConverter = new UTCDateTimeConverter();
+
+    @Inject
+    public EmailOutboxDao(Provider<EntityManager> entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public void enqueue(String chargeExternalId, String emailAddress, Map<String, String> personalisation) {
+        entityManager.get()
+                .createNativeQuery(INSERT)
+                .setParameter(1, chargeExternalId)
+                .setParameter(2, emailAddress)
+                .setParameter(3, toJson(personalisation))
+                .setParameter(4, PENDING.name())
+                .setParameter(5, dateTimeConverter.convertToDatabaseColumn(ZonedDateTime.now()))
+                .executeUpdate();
+    }
+
+    /**
+     * Emails due to be sent by <code>now</code>, in the order they were queued, a page at a time after the email <code>afterId</code>.
+     */
+    public List<EmailOutboxItem> findPageDueToSend(ZonedDateTime now, long afterId, int limit) {
+        return findPage(entityManager.get().createNativeQuery(FIND_DUE_TO_SEND), now, afterId, limit);
+    }
+
+    /**
+     * Emails sent since <code>sentSince</code> whose delivery is due to be checked by <code>now</code>,
+     * a page at a time after the email <code>afterId</code>.
+     */
+    public List<EmailOutboxItem> findPageDueForDeliveryCheck(ZonedDateTime now, ZonedDateTime sentSince, long afterId, int limit) {
+        return findPage(entityManager.get()
+                .createNativeQuery(FIND_DUE_FOR_DELIVERY_CHECK)
+                .setParameter(4, dateTimeConverter.convertToDatabaseColumn(sentSince)), now, afterId, limit);
+    }
+
+    public long countPending() {
+        return ((Number) entityManager.get()
+                .createNativeQuery(COUNT_PENDING)
+                .getSingleResult()).longValue();
+    }
+
+    public void markSent(long id, String notificationId, ZonedDateTime deliveryCheckAt) {
+        entityManager.get()
+                .createNativeQuery(UPDATE_SENT)
+                .setParameter(1, id)
+                .setParameter(2, SENT.name())
+                .setParameter(3, notificationId)
+                .setParameter(4, dateTimeConverter.convertToDatabaseColumn(ZonedDateTime.now()))
+                .setParameter(5, dateTimeConverter.convertToDatabaseColumn(deliveryCheckAt))
+                .executeUpdate();
+    }
+
+    public void markAttemptFailed(long id, ZonedDateTime retryAt, String error) {
+        updateFailedAttempt(id, PENDING, retryAt, error);
+    }
+
+    public void markFailed(long id, String error) {
+        updateFailedAttempt(id, FAILED, ZonedDateTime.now(), error);
+    }
+
+    public void markDelivered(long id) {
+        updateDelivery(id, DELIVERED, ZonedDateTime.now());
+    }
+
+    public void markUndelivered(long id, String error) {
+        entityManager.get()
+                .createNativeQuery(UPDATE_UNDELIVERED)
+                .setParameter(1, id)
+                .setParameter(2, truncate(error))
+                .executeUpdate();
+    }
+
+    public void postponeDeliveryCheck(long id, ZonedDateTime deliveryCheckAt) {
+        updateDelivery(id, SENT, deliveryCheckAt);
+    }
+
+    /**
+     * Deletes up to <code>batchSize</code> emails queued before <code>createdBefore</code> that are no longer
+     * to be sent, whether they were sent or given up on.
+     *
+     * @return the number of emails deleted
+     */
+    public int deleteFinishedCreatedBefore(ZonedDateTime createdBefore, int batchSize) {
+        return entityManager.get()
+                .createNativeQuery(DELETE_FINISHED)
+                .setParameter(1, dateTimeConverter.convertToDatabaseColumn(createdBefore))
+                .setParameter(2, batchSize)
+                .executeUpdate();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<EmailOutboxItem> findPage(Query query, ZonedDateTime now, long afterId, int limit) {
+        List<Object[]> rows = query
+                .setParameter(1, dateTimeConverter.convertToDatabaseColumn(now))
+                .setParameter(2, afterId)
+                .setParameter(3, limit)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new EmailOutboxItem(
+                        ((Number) row[0]).longValue(),
+                        (String) row[1],
+                        (String) row[2],
+                        fromJson((String) row[3]),
+                        ((Number) row[4]).intValue(),
+                        (String) row[5],
+                        dateTimeConverter.convertToEntityAttribute((Timestamp) row[6])))
+                .collect(Collectors.toList());
+    }
+
+    private void updateFailedAttempt(long id, EmailOutboxItem.Status status, ZonedDateTime nextAttemptAt, String error) {
+        entityManager.get()
+                .createNativeQuery(UPDATE_FAILED_ATTEMPT)
+                .setParameter(1, id)
+                .setParameter(2, status.name())
+                .setParameter(3, dateTimeConverter.convertToDatabaseColumn(nextAttemptAt))
+                .setParameter(4, truncate(error))
+                .executeUpdate();
+    }
+
+    private void updateDelivery(long id, EmailOutboxItem.Status status, ZonedDateTime nextAttemptAt) {
+        entityManager.get()
+                .createNativeQuery(UPDATE_DELIVERY)
+                .setParameter(1, id)
+                .setParameter(2, status.name())
+                .setParameter(3, dateTimeConverter.convertToDatabaseColumn(nextAttemptAt))
+                .executeUpdate();
+    }
+
+    private String toJson(Map<String, String> personalisation) {
+        try {
+            return objectMapper.writeValueAsString(personalisation);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Map<String, String> fromJson(String personalisation) {
+        try {
+            return objectMapper.readValue(personalisation, new TypeReference<Map<String, String>>() {});
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String truncate(String error) {
+        return error.length() > MAXIMUM_ERROR_LENGTH ? error.substring(0, MAXIMUM_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,38 @@
+package uk.gov.pay.connector.dao;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Runs one statement for many rows as a single JDBC batch, on the connection of the current transaction.
+ * The entities persisted through JPA here have identity ids, which EclipseLink inserts one at a time,
+ * so this is how many new rows are written in one round trip.
+ */
+final class JdbcBatch {
+
+    @FunctionalInterface
+    interface ParameterSetter<T> {
+        void setParameters(PreparedStatement statement, T row) throws SQLException;
+    }
+
+    private JdbcBatch() {
+    }
+
+    static <T> void execute(EntityManager entityManager, String sql, List<T> rows, ParameterSetter<T> parameterSetter) {
+        // only returns the connection within a transaction, which the @Transactional callers always have
+        Connection connection = entityManager.unwrap(Connection.class);
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (T row : rows) {
+                parameterSetter.setParameters(statement, row);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        } catch (SQLException e) {
+            throw new PersistenceException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package uk.gov.pay.connector.dao;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Wraps every {@link com.google.inject.persist.Transactional} method so the {@link ChargeStatusChangeRegistry}
+ * holds back the status changes made within it until the outermost one returns. It must be bound before the
+ * persistence module, so it runs outside the interceptor that commits: by the time the outermost method
+ * returns normally, the transaction has committed. A method that throws has its changes dropped, as its
+ * transaction was rolled back; a waiting listener then sees any committed change when it reads the charge again.
+ */
+public class PublishStatusChangesAfterCommit implements MethodInterceptor {
+
+    private final ChargeStatusChangeRegistry chargeStatusChangeRegistry;
+
+    public PublishStatusChangesAfterCommit(ChargeStatusChangeRegistry chargeStatusChangeRegistry) {
+        this.chargeStatusChangeRegistry = chargeStatusChangeRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        chargeStatusChangeRegistry.transactionStarted();
+        boolean committed = false;
+        try {
+            Object result = invocation.proceed();
+            committed = true;
+            return result;
+        } finally {
+            chargeStatusChangeRegistry.transactionEnded(committed);
+        }
+    }
+}
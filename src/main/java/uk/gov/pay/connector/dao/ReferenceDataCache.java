@@ -0,0 +1,55 @@
+package uk.gov.pay.connector.dao;
+
+import com.codahale.metrics.Counter;
+import com.google.inject.Provider;
+import io.dropwizard.setup.Environment;
+import uk.gov.pay.connector.model.domain.EmailNotificationEntity;
+import uk.gov.pay.connector.model.domain.GatewayAccountEntity;
+import uk.gov.pay.connector.model.domain.NotificationCredentials;
+
+import javax.inject.Inject;
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Gateway accounts, their email notification templates, notification credentials and accepted card types
+ * are held in the shared JPA cache when <code>jpa.referenceDataCacheEnabled</code> is set
+ * (see {@link uk.gov.pay.connector.util.ConnectorSessionCustomiser}).
+ * Endpoints changing them must evict the account so other requests on this node reload it. The eviction waits
+ * until the change has committed, as a request reading the account before then would cache the old one again.
+ */
+public class ReferenceDataCache {
+
+    private final Provider<EntityManagerFactory> entityManagerFactory;
+    private final ChargeStatusChangeRegistry chargeStatusChangeRegistry;
+    private final Counter evictions;
+
+    @Inject
+    public ReferenceDataCache(Provider<EntityManagerFactory> entityManagerFactory, ChargeStatusChangeRegistry chargeStatusChangeRegistry,
+                              Environment environment) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.chargeStatusChangeRegistry = chargeStatusChangeRegistry;
+        this.evictions = environment.metrics().counter("jpa-cache.evictions");
+    }
+
+    public void evict(GatewayAccountEntity gatewayAccount) {
+        chargeStatusChangeRegistry.afterCommit(() -> evictNow(gatewayAccount));
+    }
+
+    private void evictNow(GatewayAccountEntity gatewayAccount) {
+        Cache cache = entityManagerFactory.get().getCache();
+        cache.evict(GatewayAccountEntity.class, gatewayAccount.getId());
+
+        EmailNotificationEntity emailNotification = gatewayAccount.getEmailNotification();
+        if (emailNotification != null && emailNotification.getId() != null) {
+            cache.evict(EmailNotificationEntity.class, emailNotification.getId());
+        }
+
+        NotificationCredentials notificationCredentials = gatewayAccount.getNotificationCredentials();
+        if (notificationCredentials != null && notificationCredentials.getId() != null) {
+            cache.evict(NotificationCredentials.class, notificationCredentials.getId());
+        }
+
+        evictions.inc();
+    }
+}
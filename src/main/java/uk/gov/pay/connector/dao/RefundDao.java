@@ -2,12 +2,26 @@ package uk.gov.pay.connector.dao;
 
 import com.google.inject.Provider;
 import com.google.inject.persist.Transactional;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
 import uk.gov.pay.connector.model.domain.RefundEntity;
+import uk.gov.pay.connector.model.domain.RefundStatus;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Optional;
 
+import static uk.gov.pay.connector.model.domain.RefundStatus.CREATED;
+import static uk.gov.pay.connector.model.domain.RefundStatus.REFUNDED;
+import static uk.gov.pay.connector.model.domain.RefundStatus.REFUND_SUBMITTED;
+
+/**
+ * Besides the refunds themselves, keeps the refund amounts of their charge up to date:
+ * <code>charges.pending_refund_amount</code> is the total of refunds not yet confirmed by the gateway and
+ * <code>charges.refunded_amount</code> the total of confirmed ones. Failed refunds count towards neither.
+ */
 @Transactional
 public class RefundDao extends JpaDao<RefundEntity> {
 
@@ -33,4 +47,82 @@ public class RefundDao extends JpaDao<RefundEntity> {
                 .setParameter("provider", provider)
                 .getResultList().stream().findFirst();
     }
+
+    /**
+     * Refunds submitted to the gateway before <code>createdBefore</code> and still awaiting its outcome,
+     * oldest first, a page at a time after the refund <code>after</code>.
+     */
+    public List<RefundEntity> findPageSubmittedBefore(ZonedDateTime createdBefore, Optional<RefundEntity> after, int limit) {
+        String query = "SELECT r FROM RefundEntity r " +
+                "WHERE r.status = :status AND r.createdDate < :createdBefore" +
+                (after.isPresent() ? " AND (r.createdDate > :afterDate OR (r.createdDate = :afterDate AND r.id > :afterId))" : "") +
+                " ORDER BY r.createdDate, r.id";
+
+        TypedQuery<RefundEntity> typedQuery = entityManager.get()
+                .createQuery(query, RefundEntity.class)
+                .setParameter("status", REFUND_SUBMITTED.getValue())
+                .setParameter("createdBefore", createdBefore)
+                .setMaxResults(limit);
+        after.ifPresent(refund -> typedQuery
+                .setParameter("afterDate", refund.getCreatedDate())
+                .setParameter("afterId", refund.getId()));
+        return typedQuery.getResultList();
+    }
+
+    public long countSubmittedBefore(ZonedDateTime createdBefore) {
+        return entityManager.get()
+                .createQuery("SELECT COUNT(r) FROM RefundEntity r WHERE r.status = :status AND r.createdDate < :createdBefore", Long.class)
+                .setParameter("status", REFUND_SUBMITTED.getValue())
+                .setParameter("createdBefore", createdBefore)
+                .getSingleResult();
+    }
+
+    /**
+     * Locks the charge row until the end of the transaction, so refunds of the same charge are admitted one at a time.
+     *
+     * @return the amount of the charge that is neither refunded nor pending refund
+     */
+    public long lockAmountAvailableForRefund(ChargeEntity chargeEntity) {
+        Number amountAvailable = (Number) entityManager.get()
+                .createNativeQuery("SELECT amount - refunded_amount - pending_refund_amount FROM charges WHERE id = ?1 FOR UPDATE")
+                .setParameter(1, chargeEntity.getId())
+                .getSingleResult();
+        return amountAvailable.longValue();
+    }
+
+    @Override
+    public void persist(RefundEntity refundEntity) {
+        super.persist(refundEntity);
+        updateChargeRefundAmounts(refundEntity.getChargeEntity().getId(),
+                pendingAmount(refundEntity.getStatus(), refundEntity.getAmount()),
+                refundedAmount(refundEntity.getStatus(), refundEntity.getAmount()));
+    }
+
+    public void updateStatus(RefundEntity refundEntity, RefundStatus status) {
+        long amount = refundEntity.getAmount();
+        long pendingChange = pendingAmount(status, amount) - pendingAmount(refundEntity.getStatus(), amount);
+        long refundedChange = refundedAmount(status, amount) - refundedAmount(refundEntity.getStatus(), amount);
+        if (pendingChange != 0 || refundedChange != 0) {
+            updateChargeRefundAmounts(refundEntity.getChargeEntity().getId(), pendingChange, refundedChange);
+        }
+        refundEntity.setStatus(status);
+    }
+
+    private void updateChargeRefundAmounts(Long chargeId, long pendingChange, long refundedChange) {
+        entityManager.get()
+                .createNativeQuery("UPDATE charges SET pending_refund_amount = pending_refund_amount + ?1, " +
+                        "refunded_amount = refunded_amount + ?2 WHERE id = ?3")
+                .setParameter(1, pendingChange)
+                .setParameter(2, refundedChange)
+                .setParameter(3, chargeId)
+                .executeUpdate();
+    }
+
+    private static long pendingAmount(RefundStatus status, long amount) {
+        return status == CREATED || status == REFUND_SUBMITTED ? amount : 0;
+    }
+
+    private static long refundedAmount(RefundStatus status, long amount) {
+        return status == REFUNDED ? amount : 0;
+    }
 }
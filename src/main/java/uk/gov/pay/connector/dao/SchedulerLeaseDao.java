@@ -0,0 +1,56 @@
+package uk.gov.pay.connector.dao;
+
+import com.google.inject.Provider;
+import com.google.inject.persist.Transactional;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.time.Duration;
+
+/**
+ * Time-limited leases that let one connector node at a time run a scheduled job. A lease lapses by itself
+ * if its holder dies, so no node can block a job for longer than the lease duration.
+ * <p>
+ * Each lease name must have a row in scheduler_leases, inserted by the migration that introduces the job.
+ */
+@Transactional
+public class SchedulerLeaseDao {
+
+    private static final String NOW = "(now() at time zone 'utc')";
+
+    private static final String ACQUIRE = "UPDATE scheduler_leases " +
+            "SET owner = ?2, expires_at = " + NOW + " + ?3 * interval '1 millisecond' " +
+            "WHERE name = ?1 AND (expires_at <= " + NOW + " OR owner = ?2)";
+
+    private static final String RELEASE = "UPDATE scheduler_leases SET expires_at = " + NOW + " " +
+            "WHERE name = ?1 AND owner = ?2";
+
+    private final Provider<EntityManager> entityManager;
+
+    @Inject
+    public SchedulerLeaseDao(Provider<EntityManager> entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Takes the lease if it is free or has lapsed, or extends it if <code>owner</code> already holds it.
+     *
+     * @return whether <code>owner</code> now holds the lease
+     */
+    public boolean tryAcquire(String name, String owner, Duration duration) {
+        return entityManager.get()
+                .createNativeQuery(ACQUIRE)
+                .setParameter(1, name)
+                .setParameter(2, owner)
+                .setParameter(3, duration.toMillis())
+                .executeUpdate() == 1;
+    }
+
+    public void release(String name, String owner) {
+        entityManager.get()
+                .createNativeQuery(RELEASE)
+                .setParameter(1, name)
+                .setParameter(2, owner)
+                .executeUpdate();
+    }
+}
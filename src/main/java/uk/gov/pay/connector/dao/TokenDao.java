@@ -3,19 +3,41 @@ package uk.gov.pay.connector.dao;
 import com.google.inject.Provider;
 import com.google.inject.persist.Transactional;
 import uk.gov.pay.connector.model.domain.TokenEntity;
+import uk.gov.pay.connector.model.domain.UTCDateTimeConverter;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Transactional
 public class TokenDao extends JpaDao<TokenEntity> {
 
+    private static final String INSERT_TOKEN = "INSERT INTO tokens (charge_id, secure_redirect_token, created_date, version) VALUES (?, ?, ?, 1)";
+
+    private final UTCDateTimeConverter dateTimeConverter = new UTCDateTimeConverter();
+
     @Inject
     public TokenDao(Provider<EntityManager> entityManager) {
         super(entityManager);
     }
 
+    /**
+     * Persists new tokens in one JDBC batch. Their charges must already have ids.
+     */
+    public void persistAll(List<TokenEntity> tokenEntities) {
+        if (tokenEntities.isEmpty()) {
+            return;
+        }
+        JdbcBatch.execute(entityManager.get(), INSERT_TOKEN, tokenEntities, (statement, token) -> {
+            statement.setLong(1, token.getChargeEntity().getId());
+            statement.setString(2, token.getToken());
+            statement.setTimestamp(3, dateTimeConverter.convertToDatabaseColumn(token.getCreatedDate()));
+        });
+    }
+
     public Optional<TokenEntity> findByTokenId(String tokenId) {
         return entityManager.get()
                 .createQuery("SELECT t FROM TokenEntity t WHERE t.token = :token", TokenEntity.class)
@@ -31,4 +53,45 @@ public class TokenDao extends JpaDao<TokenEntity> {
                 .getResultList().stream()
                 .findFirst();
     }
+
+    /**
+     * The most recently issued token for the charge, if it was issued after <code>createdAfter</code>.
+     */
+    public Optional<TokenEntity> findLatestByChargeIdCreatedAfter(Long chargeId, ZonedDateTime createdAfter) {
+        return entityManager.get()
+                .createQuery("SELECT t FROM TokenEntity t WHERE t.chargeEntity.id = :chargeId AND t.createdDate > :createdAfter " +
+                        "ORDER BY t.createdDate DESC", TokenEntity.class)
+                .setParameter("chargeId", chargeId)
+                .setParameter("createdAfter", createdAfter)
+                .setMaxResults(1)
+                .getResultList().stream()
+                .findFirst();
+    }
+
+    /**
+     * Deletes up to <code>batchSize</code> tokens created before <code>createdBefore</code>.
+     *
+     * @return the number of tokens deleted
+     */
+    public int deleteCreatedBefore(ZonedDateTime createdBefore, int batchSize) {
+        return deleteCreatedBefore("tokens", createdBefore, batchSize);
+    }
+
+    /**
+     * Deletes up to <code>batchSize</code> tokens of archived charges created before <code>createdBefore</code>.
+     *
+     * @return the number of tokens deleted
+     */
+    public int deleteArchivedCreatedBefore(ZonedDateTime createdBefore, int batchSize) {
+        return deleteCreatedBefore("tokens_archive", createdBefore, batchSize);
+    }
+
+    private int deleteCreatedBefore(String table, ZonedDateTime createdBefore, int batchSize) {
+        return entityManager.get()
+                .createNativeQuery(String.format("DELETE FROM %1$s WHERE id IN " +
+                        "(SELECT id FROM %1$s WHERE created_date < ?1 LIMIT ?2)", table))
+                .setParameter(1, Timestamp.from(createdBefore.toInstant()))
+                .setParameter(2, batchSize)
+                .executeUpdate();
+    }
 }
@@ -0,0 +1,78 @@
+package uk.gov.pay.connector.model;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * One refund of a bulk refund job, with the outcome recorded so far.
+ */
+public class BulkRefundItem {
+
+    public enum Status {
+        PENDING, SUBMITTED, REJECTED, ERROR;
+
+        public String getValue() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final int position;
+    private final String chargeId;
+    private final long amount;
+    private final Status status;
+    private final String refundId;
+    private final String error;
+
+    public BulkRefundItem(int position, String chargeId, long amount, Status status, String refundId, String error) {
+        this.position = position;
+        this.chargeId = chargeId;
+        this.amount = amount;
+        this.status = status;
+        this.refundId = refundId;
+        this.error = error;
+    }
+
+    public static BulkRefundItem pending(int position, BulkRefundRequest.Item item) {
+        return new BulkRefundItem(position, item.getChargeId(), item.getAmount(), Status.PENDING, null, null);
+    }
+
+    public static BulkRefundItem rejected(int position, BulkRefundRequest.Item item, String error) {
+        return new BulkRefundItem(position, item.getChargeId(), item.getAmount(), Status.REJECTED, null, error);
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public String getChargeId() {
+        return chargeId;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Optional<String> getRefundId() {
+        return Optional.ofNullable(refundId);
+    }
+
+    public Optional<String> getError() {
+        return Optional.ofNullable(error);
+    }
+
+    public Map<String, Object> toMap() {
+        ImmutableMap.Builder<String, Object> map = ImmutableMap.<String, Object>builder()
+                .put("charge_id", chargeId)
+                .put("amount", amount)
+                .put("status", status.getValue());
+        getRefundId().ifPresent(id -> map.put("refund_id", id));
+        getError().ifPresent(message -> map.put("error", message));
+        return map.build();
+    }
+}
@@ -0,0 +1,57 @@
+package uk.gov.pay.connector.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class BulkRefundRequest {
+
+    public static class Item {
+
+        @JsonProperty("charge_id")
+        private String chargeId;
+
+        @JsonProperty("amount")
+        private long amount;
+
+        @JsonProperty("refund_amount_available")
+        private long amountAvailableForRefund;
+
+        public Item() {}
+
+        public Item(String chargeId, long amount, long amountAvailableForRefund) {
+            this.chargeId = chargeId;
+            this.amount = amount;
+            this.amountAvailableForRefund = amountAvailableForRefund;
+        }
+
+        public String getChargeId() {
+            return chargeId;
+        }
+
+        public long getAmount() {
+            return amount;
+        }
+
+        public long getAmountAvailableForRefund() {
+            return amountAvailableForRefund;
+        }
+
+        public RefundRequest toRefundRequest() {
+            return new RefundRequest(amount, amountAvailableForRefund);
+        }
+    }
+
+    @JsonProperty("refunds")
+    private List<Item> refunds;
+
+    public BulkRefundRequest() {}
+
+    public BulkRefundRequest(List<Item> refunds) {
+        this.refunds = refunds;
+    }
+
+    public List<Item> getRefunds() {
+        return refunds;
+    }
+}
@@ -0,0 +1,33 @@
+package uk.gov.pay.connector.model;
+
+import black.door.hate.HalRepresentation;
+
+import javax.ws.rs.core.UriInfo;
+import java.net.URI;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static uk.gov.pay.connector.model.BulkRefundItem.Status.PENDING;
+import static uk.gov.pay.connector.resources.ApiPaths.BULK_REFUND_API_PATH;
+
+public class BulkRefundResponse extends HalResourceResponse {
+
+    private BulkRefundResponse(HalRepresentation.HalRepresentationBuilder bulkRefundHalRepresentation, URI location) {
+        super(bulkRefundHalRepresentation, location);
+    }
+
+    public static BulkRefundResponse valueOf(Long accountId, String jobId, List<BulkRefundItem> items, UriInfo uriInfo) {
+
+        URI selfLink = uriInfo.getBaseUriBuilder()
+                .path(BULK_REFUND_API_PATH)
+                .build(accountId, jobId);
+
+        boolean inProgress = items.stream().anyMatch(item -> item.getStatus() == PENDING);
+
+        return new BulkRefundResponse(HalRepresentation.builder()
+                .addProperty("job_id", jobId)
+                .addProperty("status", inProgress ? "in progress" : "finished")
+                .addProperty("refunds", items.stream().map(BulkRefundItem::toMap).collect(Collectors.toList()))
+                .addLink("self", selfLink), selfLink);
+    }
+}
@@ -0,0 +1,22 @@
+package uk.gov.pay.connector.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Map;
+
+public class ChargeBatchRequest {
+
+    @JsonProperty("charges")
+    private List<Map<String, String>> charges;
+
+    public ChargeBatchRequest() {}
+
+    public ChargeBatchRequest(List<Map<String, String>> charges) {
+        this.charges = charges;
+    }
+
+    public List<Map<String, String>> getCharges() {
+        return charges;
+    }
+}
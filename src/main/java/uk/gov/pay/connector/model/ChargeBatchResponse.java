@@ -0,0 +1,66 @@
+package uk.gov.pay.connector.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.CREATED;
+
+/**
+ * The outcome of each charge request of a batch, in the order of the requests.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChargeBatchResponse {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Item {
+
+        @JsonProperty("status")
+        private final int status;
+
+        @JsonProperty("charge")
+        private final ChargeResponse charge;
+
+        @JsonProperty("message")
+        private final String message;
+
+        private Item(int status, ChargeResponse charge, String message) {
+            this.status = status;
+            this.charge = charge;
+            this.message = message;
+        }
+
+        public static Item created(ChargeResponse charge) {
+            return new Item(CREATED.getStatusCode(), charge, null);
+        }
+
+        public static Item invalid(String message) {
+            return new Item(BAD_REQUEST.getStatusCode(), null, message);
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public ChargeResponse getCharge() {
+            return charge;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    @JsonProperty("charges")
+    private final List<Item> charges;
+
+    public ChargeBatchResponse(List<Item> charges) {
+        this.charges = charges;
+    }
+
+    public List<Item> getCharges() {
+        return charges;
+    }
+}
@@ -0,0 +1,64 @@
+package uk.gov.pay.connector.model;
+
+import java.time.ZonedDateTime;
+
+public class ChargeExportRow {
+    private final String chargeId;
+    private final String reference;
+    private final String description;
+    private final String email;
+    private final Long amount;
+    private final String status;
+    private final String cardBrand;
+    private final String gatewayTransactionId;
+    private final ZonedDateTime createdDate;
+
+    public ChargeExportRow(String chargeId, String reference, String description, String email, Long amount,
+                           String status, String cardBrand, String gatewayTransactionId, ZonedDateTime createdDate) {
+        this.chargeId = chargeId;
+        this.reference = reference;
+        this.description = description;
+        this.email = email;
+        this.amount = amount;
+        this.status = status;
+        this.cardBrand = cardBrand;
+        this.gatewayTransactionId = gatewayTransactionId;
+        this.createdDate = createdDate;
+    }
+
+    public String getChargeId() {
+        return chargeId;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Long getAmount() {
+        return amount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getCardBrand() {
+        return cardBrand;
+    }
+
+    public String getGatewayTransactionId() {
+        return gatewayTransactionId;
+    }
+
+    public ZonedDateTime getCreatedDate() {
+        return createdDate;
+    }
+}
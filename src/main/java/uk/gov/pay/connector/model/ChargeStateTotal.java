@@ -0,0 +1,30 @@
+package uk.gov.pay.connector.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ChargeStateTotal {
+    private final String state;
+    private final long count;
+    private final long amount;
+
+    public ChargeStateTotal(String state, long count, long amount) {
+        this.state = state;
+        this.count = count;
+        this.amount = amount;
+    }
+
+    @JsonProperty("state")
+    public String getState() {
+        return state;
+    }
+
+    @JsonProperty("count")
+    public long getCount() {
+        return count;
+    }
+
+    @JsonProperty("amount")
+    public long getAmount() {
+        return amount;
+    }
+}
@@ -0,0 +1,21 @@
+package uk.gov.pay.connector.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class ChargeStatusLookupRequest {
+
+    @JsonProperty("charge_ids")
+    private List<String> chargeIds;
+
+    public ChargeStatusLookupRequest() {}
+
+    public ChargeStatusLookupRequest(List<String> chargeIds) {
+        this.chargeIds = chargeIds;
+    }
+
+    public List<String> getChargeIds() {
+        return chargeIds;
+    }
+}
@@ -0,0 +1,27 @@
+package uk.gov.pay.connector.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class ChargeStatusLookupResponse {
+
+    @JsonProperty("charges")
+    private final List<ChargeStatusSummary> charges;
+
+    @JsonProperty("not_found")
+    private final List<String> notFound;
+
+    public ChargeStatusLookupResponse(List<ChargeStatusSummary> charges, List<String> notFound) {
+        this.charges = charges;
+        this.notFound = notFound;
+    }
+
+    public List<ChargeStatusSummary> getCharges() {
+        return charges;
+    }
+
+    public List<String> getNotFound() {
+        return notFound;
+    }
+}
@@ -0,0 +1,47 @@
+package uk.gov.pay.connector.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import uk.gov.pay.connector.model.api.ExternalChargeState;
+
+/**
+ * The state of a charge without the rest of it, for callers that only follow how charges move on.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChargeStatusSummary {
+
+    @JsonProperty("charge_id")
+    private final String chargeId;
+
+    @JsonProperty("amount")
+    private final long amount;
+
+    @JsonProperty("state")
+    private final ExternalChargeState state;
+
+    @JsonProperty("gateway_transaction_id")
+    private final String gatewayTransactionId;
+
+    public ChargeStatusSummary(String chargeId, long amount, ExternalChargeState state, String gatewayTransactionId) {
+        this.chargeId = chargeId;
+        this.amount = amount;
+        this.state = state;
+        this.gatewayTransactionId = gatewayTransactionId;
+    }
+
+    public String getChargeId() {
+        return chargeId;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public ExternalChargeState getState() {
+        return state;
+    }
+
+    public String getGatewayTransactionId() {
+        return gatewayTransactionId;
+    }
+}
@@ -0,0 +1,61 @@
+package uk.gov.pay.connector.model;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+/**
+ * An email waiting in the email outbox to be sent, or whose delivery is still to be confirmed.
+ */
+public class EmailOutboxItem {
+
+    public enum Status {
+        PENDING, SENT, DELIVERED, FAILED
+    }
+
+    private final long id;
+    private final String chargeExternalId;
+    private final String emailAddress;
+    private final Map<String, String> personalisation;
+    private final int attempts;
+    private final String notificationId;
+    private final ZonedDateTime createdDate;
+
+    public EmailOutboxItem(long id, String chargeExternalId, String emailAddress, Map<String, String> personalisation,
+                           int attempts, String notificationId, ZonedDateTime createdDate) {
+        this.id = id;
+        this.chargeExternalId = chargeExternalId;
+        this.emailAddress = emailAddress;
+        this.personalisation = personalisation;
+        this.attempts = attempts;
+        this.notificationId = notificationId;
+        this.createdDate = createdDate;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getChargeExternalId() {
+        return chargeExternalId;
+    }
+
+    public String getEmailAddress() {
+        return emailAddress;
+    }
+
+    public Map<String, String> getPersonalisation() {
+        return personalisation;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getNotificationId() {
+        return notificationId;
+    }
+
+    public ZonedDateTime getCreatedDate() {
+        return createdDate;
+    }
+}
@@ -0,0 +1,32 @@
+package uk.gov.pay.connector.model;
+
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.GatewayAccountEntity;
+import uk.gov.pay.connector.service.GatewayOperation;
+
+public class InquiryGatewayRequest implements GatewayRequest {
+
+    private ChargeEntity charge;
+
+    private InquiryGatewayRequest(ChargeEntity charge) {
+        this.charge = charge;
+    }
+
+    public static InquiryGatewayRequest valueOf(ChargeEntity charge) {
+        return new InquiryGatewayRequest(charge);
+    }
+
+    public String getTransactionId() {
+        return charge.getGatewayTransactionId();
+    }
+
+    @Override
+    public GatewayAccountEntity getGatewayAccount() {
+        return charge.getGatewayAccount();
+    }
+
+    @Override
+    public GatewayOperation getRequestType() {
+        return GatewayOperation.INQUIRY;
+    }
+}
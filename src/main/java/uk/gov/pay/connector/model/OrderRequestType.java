@@ -5,7 +5,8 @@ public enum OrderRequestType {
     AUTHORISE_3DS("authorise3DS"),
     CAPTURE("capture"),
     CANCEL("cancel"),
-    REFUND("refund");
+    REFUND("refund"),
+    INQUIRY("inquiry");
 
     private final String name;
 
@@ -1,5 +1,7 @@
 package uk.gov.pay.connector.model.domain;
 
+import org.eclipse.persistence.annotations.BatchFetch;
+import org.eclipse.persistence.annotations.BatchFetchType;
 import uk.gov.pay.connector.exception.InvalidStateTransitionException;
 import uk.gov.pay.connector.model.api.ExternalChargeState;
 import uk.gov.pay.connector.service.PaymentGatewayName;
@@ -10,9 +12,10 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-import static org.apache.commons.lang3.StringUtils.equalsIgnoreCase;
 import static uk.gov.pay.connector.model.domain.ChargeStatus.*;
 import static uk.gov.pay.connector.model.domain.PaymentGatewayStateTransitions.stateTransitionsFor;
 
@@ -20,8 +23,15 @@ import static uk.gov.pay.connector.model.domain.PaymentGatewayStateTransitions.s
 @Table(name = "charges")
 @SequenceGenerator(name = "charges_charge_id_seq", sequenceName = "charges_charge_id_seq", allocationSize = 1)
 @Access(AccessType.FIELD)
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = ChargeEntity.WITH_REFUNDS, attributeNodes = @NamedAttributeNode("refunds")),
+        @NamedEntityGraph(name = ChargeEntity.WITH_EVENTS, attributeNodes = @NamedAttributeNode("events"))
+})
 public class ChargeEntity extends AbstractEntity {
 
+    public static final String WITH_REFUNDS = "ChargeEntity.withRefunds";
+    public static final String WITH_EVENTS = "ChargeEntity.withEvents";
+
     @Column(name = "external_id")
     private String externalId;
 
@@ -29,7 +39,8 @@ public class ChargeEntity extends AbstractEntity {
     private Long amount;
 
     @Column(name = "status")
-    private String status;
+    @Convert(converter = ChargeStatusConverter.class)
+    private ChargeStatus status;
 
     @Column(name = "gateway_transaction_id")
     private String gatewayTransactionId;
@@ -50,12 +61,23 @@ public class ChargeEntity extends AbstractEntity {
     @JoinColumn(name = "gateway_account_id", updatable = false)
     private GatewayAccountEntity gatewayAccount;
 
-    @OneToMany(mappedBy = "chargeEntity", fetch = FetchType.EAGER)
+    // refunds and events are loaded on first access; for charges read by the same query (e.g. a search page)
+    // they are batch read with one IN query rather than one query per charge
+    @OneToMany(mappedBy = "chargeEntity", fetch = FetchType.LAZY)
     @OrderBy("createdDate")
+    @BatchFetch(BatchFetchType.IN)
     private List<RefundEntity> refunds = new ArrayList<>();
 
-    @OneToMany(mappedBy = "chargeEntity")
+    // totals of the refunds above, kept up to date by RefundDao and never written through the entity
+    @Column(name = "refunded_amount", insertable = false, updatable = false)
+    private long refundedAmount;
+
+    @Column(name = "pending_refund_amount", insertable = false, updatable = false)
+    private long pendingRefundAmount;
+
+    @OneToMany(mappedBy = "chargeEntity", fetch = FetchType.LAZY)
     @OrderBy("updated DESC")
+    @BatchFetch(BatchFetchType.IN)
     private List<ChargeEventEntity> events = new ArrayList<>();
 
     @Column(name = "description")
@@ -71,6 +93,14 @@ public class ChargeEntity extends AbstractEntity {
     @Convert(converter = UTCDateTimeConverter.class)
     private ZonedDateTime createdDate;
 
+    // status as last read from or written to the database, i.e. the one the charge is counted under in charge_stats
+    @Transient
+    private ChargeStatus persistedStatus;
+
+    // read from the archive tables rather than the live ones; see ChargeArchiveDao
+    @Transient
+    private boolean archived;
+
     public ChargeEntity() {
         //for jpa
     }
@@ -83,7 +113,7 @@ public class ChargeEntity extends AbstractEntity {
     ChargeEntity(Long amount, ChargeStatus status, String returnUrl, String description, String reference,
                  GatewayAccountEntity gatewayAccount, String email, ZonedDateTime createdDate) {
         this.amount = amount;
-        this.status = status.getValue();
+        this.status = status;
         this.returnUrl = returnUrl;
         this.description = description;
         this.reference = reference;
@@ -98,7 +128,7 @@ public class ChargeEntity extends AbstractEntity {
     }
 
     public String getStatus() {
-        return status;
+        return status.getValue();
     }
 
     public String getGatewayTransactionId() {
@@ -149,11 +179,33 @@ public class ChargeEntity extends AbstractEntity {
         this.externalId = externalId;
     }
 
+    public Optional<ChargeStatus> getPersistedStatus() {
+        return Optional.ofNullable(persistedStatus);
+    }
+
+    @PostLoad
+    public void markStatusAsPersisted() {
+        this.persistedStatus = this.status;
+    }
+
+    public boolean isArchived() {
+        return archived;
+    }
+
+    /**
+     * Marks a charge read from the archive tables, with the refunds archived with it, so that it is
+     * moved back to the live tables before any change to it is merged.
+     */
+    public void markAsArchived(List<RefundEntity> archivedRefunds) {
+        this.archived = true;
+        this.refunds = archivedRefunds;
+    }
+
     public void setStatus(ChargeStatus targetStatus) throws InvalidStateTransitionException {
-        if (stateTransitionsFor(getPaymentGatewayName()).isValidTransition(fromString(this.status), targetStatus)) {
-            this.status = targetStatus.getValue();
+        if (stateTransitionsFor(getPaymentGatewayName()).isValidTransition(this.status, targetStatus)) {
+            this.status = targetStatus;
         } else {
-            throw new InvalidStateTransitionException(this.status, targetStatus.getValue());
+            throw new InvalidStateTransitionException(this.status.getValue(), targetStatus.getValue());
         }
     }
 
@@ -182,26 +234,30 @@ public class ChargeEntity extends AbstractEntity {
     }
 
     public boolean hasStatus(ChargeStatus... status) {
-        return Arrays.stream(status).anyMatch(s -> equalsIgnoreCase(s.getValue(), getStatus()));
+        return Arrays.stream(status).anyMatch(s -> s == this.status);
     }
 
-    public boolean hasStatus(List<ChargeStatus> status) {
-        return hasStatus(status.toArray(new ChargeStatus[0]));
+    public boolean hasStatus(Collection<ChargeStatus> status) {
+        return status.contains(this.status);
     }
 
     public boolean hasExternalStatus(ExternalChargeState... state) {
-        return Arrays.stream(state).anyMatch(s -> fromString(getStatus()).toExternal().equals(s));
+        return Arrays.stream(state).anyMatch(s -> this.status.toExternal().equals(s));
     }
 
     public long getTotalAmountToBeRefunded() {
         return this.amount - getRefundedAmount();
     }
 
+    // includes refunds still pending, which the charge amount must cover as well
     public long getRefundedAmount() {
-        return this.refunds.stream()
-                .filter(p -> p.hasStatus(RefundStatus.CREATED, RefundStatus.REFUND_SUBMITTED, RefundStatus.REFUNDED))
-                .mapToLong(RefundEntity::getAmount)
-                .sum();
+        return this.refundedAmount + this.pendingRefundAmount;
+    }
+
+    //for fixture
+    void setRefundAmounts(long refundedAmount, long pendingRefundAmount) {
+        this.refundedAmount = refundedAmount;
+        this.pendingRefundAmount = pendingRefundAmount;
     }
 
     public ZonedDateTime getCaptureSubmitTime() {
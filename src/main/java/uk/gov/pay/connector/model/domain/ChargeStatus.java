@@ -1,60 +1,80 @@
 package uk.gov.pay.connector.model.domain;
 
-import org.apache.commons.lang3.StringUtils;
 import uk.gov.pay.connector.model.api.ExternalChargeState;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static java.util.Arrays.stream;
 import static uk.gov.pay.connector.model.api.ExternalChargeState.*;
 
 public enum ChargeStatus implements Status {
-    CREATED("CREATED", EXTERNAL_CREATED),
-    ENTERING_CARD_DETAILS("ENTERING CARD DETAILS", EXTERNAL_STARTED),
-    AUTHORISATION_ABORTED("AUTHORISATION ABORTED", EXTERNAL_FAILED_REJECTED),
-    AUTHORISATION_READY("AUTHORISATION READY", EXTERNAL_STARTED),
-
-    AUTHORISATION_3DS_REQUIRED("AUTHORISATION 3DS REQUIRED", EXTERNAL_STARTED),
-    AUTHORISATION_3DS_READY("AUTHORISATION 3DS READY", EXTERNAL_STARTED),
-
-
-    AUTHORISATION_SUBMITTED("AUTHORISATION SUBMITTED", EXTERNAL_ERROR_GATEWAY),
-    AUTHORISATION_SUCCESS("AUTHORISATION SUCCESS", EXTERNAL_SUBMITTED),
-    AUTHORISATION_REJECTED("AUTHORISATION REJECTED", EXTERNAL_FAILED_REJECTED),
-    AUTHORISATION_CANCELLED("AUTHORISATION CANCELLED", EXTERNAL_FAILED_REJECTED),
-    AUTHORISATION_ERROR("AUTHORISATION ERROR", EXTERNAL_ERROR_GATEWAY),
-
-    CAPTURE_APPROVED("CAPTURE APPROVED", EXTERNAL_SUCCESS),
-    CAPTURE_APPROVED_RETRY("CAPTURE APPROVED RETRY", EXTERNAL_SUCCESS),
-    CAPTURE_READY("CAPTURE READY", EXTERNAL_SUCCESS),
-    CAPTURED("CAPTURED", EXTERNAL_SUCCESS),
-    CAPTURE_SUBMITTED("CAPTURE SUBMITTED", EXTERNAL_SUCCESS),
-    CAPTURE_ERROR("CAPTURE ERROR", EXTERNAL_ERROR_GATEWAY),
-
-    EXPIRE_CANCEL_READY("EXPIRE CANCEL READY", EXTERNAL_FAILED_EXPIRED),
-    EXPIRE_CANCEL_FAILED("EXPIRE CANCEL FAILED", EXTERNAL_FAILED_EXPIRED),
-    EXPIRE_CANCEL_SUBMITTED("EXPIRE CANCEL SUBMITTED", EXTERNAL_FAILED_EXPIRED),
-    EXPIRED("EXPIRED", EXTERNAL_FAILED_EXPIRED),
-
-    SYSTEM_CANCEL_READY("SYSTEM CANCEL READY", EXTERNAL_CANCELLED),
-    SYSTEM_CANCEL_ERROR("SYSTEM CANCEL ERROR", EXTERNAL_CANCELLED),
-    SYSTEM_CANCEL_SUBMITTED("SYSTEM CANCEL SUBMITTED", EXTERNAL_CANCELLED),
-    SYSTEM_CANCELLED("SYSTEM CANCELLED", EXTERNAL_CANCELLED),
-
-    USER_CANCEL_READY("USER CANCEL READY", EXTERNAL_FAILED_CANCELLED),
-    USER_CANCEL_SUBMITTED("USER CANCEL SUBMITTED", EXTERNAL_FAILED_CANCELLED),
-    USER_CANCELLED("USER CANCELLED", EXTERNAL_FAILED_CANCELLED),
-    USER_CANCEL_ERROR("USER CANCEL ERROR", EXTERNAL_FAILED_CANCELLED);
+    CREATED(1, "CREATED", EXTERNAL_CREATED),
+    ENTERING_CARD_DETAILS(2, "ENTERING CARD DETAILS", EXTERNAL_STARTED),
+    AUTHORISATION_ABORTED(3, "AUTHORISATION ABORTED", EXTERNAL_FAILED_REJECTED),
+    AUTHORISATION_READY(4, "AUTHORISATION READY", EXTERNAL_STARTED),
+
+    AUTHORISATION_3DS_REQUIRED(5, "AUTHORISATION 3DS REQUIRED", EXTERNAL_STARTED),
+    AUTHORISATION_3DS_READY(6, "AUTHORISATION 3DS READY", EXTERNAL_STARTED),
+
+
+    AUTHORISATION_SUBMITTED(7, "AUTHORISATION SUBMITTED", EXTERNAL_ERROR_GATEWAY),
+    AUTHORISATION_SUCCESS(8, "AUTHORISATION SUCCESS", EXTERNAL_SUBMITTED),
+    AUTHORISATION_REJECTED(9, "AUTHORISATION REJECTED", EXTERNAL_FAILED_REJECTED),
+    AUTHORISATION_CANCELLED(10, "AUTHORISATION CANCELLED", EXTERNAL_FAILED_REJECTED),
+    AUTHORISATION_ERROR(11, "AUTHORISATION ERROR", EXTERNAL_ERROR_GATEWAY),
+
+    CAPTURE_APPROVED(12, "CAPTURE APPROVED", EXTERNAL_SUCCESS),
+    CAPTURE_APPROVED_RETRY(13, "CAPTURE APPROVED RETRY", EXTERNAL_SUCCESS),
+    CAPTURE_READY(14, "CAPTURE READY", EXTERNAL_SUCCESS),
+    CAPTURED(15, "CAPTURED", EXTERNAL_SUCCESS),
+    CAPTURE_SUBMITTED(16, "CAPTURE SUBMITTED", EXTERNAL_SUCCESS),
+    CAPTURE_ERROR(17, "CAPTURE ERROR", EXTERNAL_ERROR_GATEWAY),
+
+    EXPIRE_CANCEL_READY(18, "EXPIRE CANCEL READY", EXTERNAL_FAILED_EXPIRED),
+    EXPIRE_CANCEL_FAILED(19, "EXPIRE CANCEL FAILED", EXTERNAL_FAILED_EXPIRED),
+    EXPIRE_CANCEL_SUBMITTED(20, "EXPIRE CANCEL SUBMITTED", EXTERNAL_FAILED_EXPIRED),
+    EXPIRED(21, "EXPIRED", EXTERNAL_FAILED_EXPIRED),
+
+    SYSTEM_CANCEL_READY(22, "SYSTEM CANCEL READY", EXTERNAL_CANCELLED),
+    SYSTEM_CANCEL_ERROR(23, "SYSTEM CANCEL ERROR", EXTERNAL_CANCELLED),
+    SYSTEM_CANCEL_SUBMITTED(24, "SYSTEM CANCEL SUBMITTED", EXTERNAL_CANCELLED),
+    SYSTEM_CANCELLED(25, "SYSTEM CANCELLED", EXTERNAL_CANCELLED),
+
+    USER_CANCEL_READY(26, "USER CANCEL READY", EXTERNAL_FAILED_CANCELLED),
+    USER_CANCEL_SUBMITTED(27, "USER CANCEL SUBMITTED", EXTERNAL_FAILED_CANCELLED),
+    USER_CANCELLED(28, "USER CANCELLED", EXTERNAL_FAILED_CANCELLED),
+    USER_CANCEL_ERROR(29, "USER CANCEL ERROR", EXTERNAL_FAILED_CANCELLED);
+
+    private static final ChargeStatus[] BY_CODE = new ChargeStatus[stream(values()).mapToInt(ChargeStatus::getCode).max().getAsInt() + 1];
+    private static final Map<String, ChargeStatus> BY_VALUE = new HashMap<>();
+
+    static {
+        for (ChargeStatus status : values()) {
+            BY_CODE[status.code] = status;
+            BY_VALUE.put(status.value, status);
+        }
+    }
 
+    private short code;
     private String value;
     private ExternalChargeState externalStatus;
 
-    ChargeStatus(String value, ExternalChargeState externalStatus) {
+    /**
+     * @param code the value stored in the status columns and the charge_statuses table; never reuse or renumber one
+     */
+    ChargeStatus(int code, String value, ExternalChargeState externalStatus) {
+        this.code = (short) code;
         this.value = value;
         this.externalStatus = externalStatus;
     }
 
+    public short getCode() {
+        return code;
+    }
+
     public String getValue() {
         return value;
     }
@@ -68,12 +88,19 @@ public enum ChargeStatus implements Status {
     }
 
     public static ChargeStatus fromString(String status) {
-        for (ChargeStatus stat : values()) {
-            if (StringUtils.equals(stat.getValue(), status)) {
-                return stat;
-            }
+        ChargeStatus chargeStatus = status == null ? null : BY_VALUE.get(status);
+        if (chargeStatus == null) {
+            throw new IllegalArgumentException("charge status not recognized: " + status);
+        }
+        return chargeStatus;
+    }
+
+    public static ChargeStatus fromCode(short code) {
+        ChargeStatus chargeStatus = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (chargeStatus == null) {
+            throw new IllegalArgumentException("charge status code not recognized: " + code);
         }
-        throw new IllegalArgumentException("charge status not recognized: " + status);
+        return chargeStatus;
     }
 
     public static List<ChargeStatus> fromExternal(ExternalChargeState externalStatus) {
@@ -4,18 +4,18 @@ import javax.persistence.AttributeConverter;
 import javax.persistence.Converter;
 
 @Converter
-public class ChargeStatusConverter implements AttributeConverter<ChargeStatus, String> {
+public class ChargeStatusConverter implements AttributeConverter<ChargeStatus, Short> {
     @Override
-    public String convertToDatabaseColumn(ChargeStatus status) {
-        return status.getValue();
+    public Short convertToDatabaseColumn(ChargeStatus status) {
+        return status.getCode();
     }
 
     @Override
-    public ChargeStatus convertToEntityAttribute(String status) {
-        if (status == null) {
+    public ChargeStatus convertToEntityAttribute(Short code) {
+        if (code == null) {
             return null;
         } else {
-            return ChargeStatus.fromString(status);
+            return ChargeStatus.fromCode(code);
         }
     }
 }
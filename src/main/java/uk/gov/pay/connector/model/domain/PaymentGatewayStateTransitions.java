@@ -3,9 +3,9 @@ package uk.gov.pay.connector.model.domain;
 import uk.gov.pay.connector.service.PaymentGatewayName;
 
 class PaymentGatewayStateTransitions {
-    private static StateTransitions defaultTransitions = new DefaultStateTransitions();
+    private static final StateTransitions DEFAULT_TRANSITIONS = new DefaultStateTransitions();
 
     static StateTransitions stateTransitionsFor(PaymentGatewayName gatewayName) {
-        return defaultTransitions;
+        return DEFAULT_TRANSITIONS;
     }
 }
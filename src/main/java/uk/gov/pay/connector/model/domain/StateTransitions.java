@@ -1,27 +1,35 @@
 package uk.gov.pay.connector.model.domain;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-
-import static java.util.Collections.emptyList;
+import java.util.Set;
 
 abstract class StateTransitions {
-    private Map<ChargeStatus, List<ChargeStatus>> transitionTable;
+    // every status has an entry, so a check is an array index and a bit test
+    private final Map<ChargeStatus, Set<ChargeStatus>> transitionTable;
 
     StateTransitions(Map<ChargeStatus, List<ChargeStatus>> transitionTable) {
-        this.transitionTable = transitionTable;
+        this.transitionTable = compile(transitionTable);
     }
 
     boolean isValidTransition(ChargeStatus state, ChargeStatus targetState) {
-        return transitionTable.getOrDefault(state, emptyList()).contains(targetState);
+        return state != null && transitionTable.get(state).contains(targetState);
     }
 
     static ImmutableList<ChargeStatus> validTransitions(ChargeStatus... statuses) {
         return ImmutableList.copyOf(statuses);
     }
-}
-
-
 
+    private static Map<ChargeStatus, Set<ChargeStatus>> compile(Map<ChargeStatus, List<ChargeStatus>> transitionTable) {
+        Map<ChargeStatus, Set<ChargeStatus>> compiled = new EnumMap<>(ChargeStatus.class);
+        for (ChargeStatus status : ChargeStatus.values()) {
+            compiled.put(status, Sets.immutableEnumSet(transitionTable.getOrDefault(status, ImmutableList.of())));
+        }
+        return Maps.immutableEnumMap(compiled);
+    }
+}
@@ -1,6 +1,8 @@
 package uk.gov.pay.connector.model.domain;
 
 import javax.persistence.*;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.UUID;
 
 @Entity
@@ -15,6 +17,10 @@ public class TokenEntity extends AbstractEntity {
     @JoinColumn(name = "charge_id", nullable = false)
     ChargeEntity chargeEntity;
 
+    @Column(name = "created_date")
+    @Convert(converter = UTCDateTimeConverter.class)
+    private ZonedDateTime createdDate;
+
     public TokenEntity() {
     }
 
@@ -22,6 +28,7 @@ public class TokenEntity extends AbstractEntity {
         TokenEntity tokenEntity = new TokenEntity();
         tokenEntity.setChargeEntity(chargeEntity);
         tokenEntity.setToken(UUID.randomUUID().toString());
+        tokenEntity.setCreatedDate(ZonedDateTime.now(ZoneId.of("UTC")));
         return tokenEntity;
     }
 
@@ -40,4 +47,12 @@ public class TokenEntity extends AbstractEntity {
     public void setChargeEntity(ChargeEntity chargeEntity) {
         this.chargeEntity = chargeEntity;
     }
+
+    public ZonedDateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(ZonedDateTime createdDate) {
+        this.createdDate = createdDate;
+    }
 }
@@ -25,6 +25,10 @@ public interface ApiPaths {
     String FRONTEND_ACCOUNT_CARDTYPES_API_PATH = API_VERSION_PATH + "/frontend/accounts/{accountId}/card-types";
 
     String CHARGES_API_PATH = API_VERSION_PATH +"/api/accounts/{accountId}/charges";
+    String CHARGES_BATCH_API_PATH = API_VERSION_PATH +"/api/accounts/{accountId}/charges/batch";
+    String CHARGES_STATUS_API_PATH = API_VERSION_PATH +"/api/accounts/{accountId}/charges/status";
+    String CHARGES_STATS_API_PATH = API_VERSION_PATH +"/api/accounts/{accountId}/charges/stats";
+    String CHARGES_EXPORT_API_PATH = API_VERSION_PATH +"/api/accounts/{accountId}/charges/export";
     String CHARGE_API_PATH = API_VERSION_PATH +"/api/accounts/{accountId}/charges/{chargeId}";
     String CHARGE_CANCEL_API_PATH = API_VERSION_PATH +"/api/accounts/{accountId}/charges/{chargeId}/cancel";
     String CHARGE_EVENTS_API_PATH = API_VERSION_PATH +"/api/accounts/{accountId}/charges/{chargeId}/events";
@@ -32,6 +36,8 @@ public interface ApiPaths {
 
     String REFUNDS_API_PATH = CHARGE_API_PATH + "/refunds";
     String REFUND_API_PATH = CHARGE_API_PATH + "/refunds/{refundId}";
+    String BULK_REFUNDS_API_PATH = GATEWAY_ACCOUNT_API_PATH + "/refunds/bulk";
+    String BULK_REFUND_API_PATH = GATEWAY_ACCOUNT_API_PATH + "/refunds/bulk/{jobId}";
 
     String CARD_TYPES_API_PATH = API_VERSION_PATH + "/api/card-types";
 
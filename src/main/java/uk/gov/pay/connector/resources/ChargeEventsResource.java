@@ -1,19 +1,21 @@
 package uk.gov.pay.connector.resources;
 
-import com.google.common.collect.ImmutableMap;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
-import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.dao.ChargeEventDao;
 import uk.gov.pay.connector.model.ChargeEvent;
-import uk.gov.pay.connector.model.domain.ChargeEventEntity;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
-import static java.util.stream.Collectors.toList;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.Response.ok;
 import static uk.gov.pay.connector.resources.ApiPaths.CHARGE_EVENTS_API_PATH;
@@ -21,44 +23,39 @@ import static uk.gov.pay.connector.util.ResponseUtil.responseWithChargeNotFound;
 
 @Path("/")
 public class ChargeEventsResource {
-    private ChargeDao chargeDao;
+    private final ChargeEventDao chargeEventDao;
+    private final ObjectMapper objectMapper;
 
     @Inject
-    public ChargeEventsResource(ChargeDao chargeDao) {
-        this.chargeDao = chargeDao;
+    public ChargeEventsResource(ChargeEventDao chargeEventDao, ObjectMapper objectMapper) {
+        this.chargeEventDao = chargeEventDao;
+        this.objectMapper = objectMapper;
     }
 
     @GET
     @Path(CHARGE_EVENTS_API_PATH)
     @Produces(APPLICATION_JSON)
     public Response getEvents(@PathParam("accountId") Long accountId, @PathParam("chargeId") String chargeId) {
-        return chargeDao.findByExternalIdAndGatewayAccount(chargeId, accountId)
-                .map(entity -> buildEventsResponse(entity.getExternalId(), entity.getEvents()))
+        return chargeEventDao.findExternalChargeEvents(chargeId, accountId)
+                .map(events -> buildEventsResponse(chargeId, events))
                 .orElseGet(() -> responseWithChargeNotFound(chargeId));
     }
 
-    private Response buildEventsResponse(String chargeId, List<ChargeEventEntity> events) {
-        List<ChargeEvent> eventsExternal = transformToExternalStatus(events);
-        List<ChargeEvent> nonRepeatingExternalChargeEvents = getNonRepeatingChargeEvents(eventsExternal);
-        ImmutableMap<String, Object> responsePayload = ImmutableMap.of(
-                "charge_id", chargeId,
-                "events", nonRepeatingExternalChargeEvents);
+    private Response buildEventsResponse(String chargeId, List<ChargeEvent> events) {
+        StreamingOutput responsePayload = output -> writeEvents(output, chargeId, events);
         return ok().entity(responsePayload).build();
     }
 
-    private List<ChargeEvent> transformToExternalStatus(List<ChargeEventEntity> events) {
-        return events.stream()
-                .map(event -> new ChargeEvent(
-                        event.getChargeEntity().getExternalId(),
-                        event.getStatus().toExternal(),
-                        event.getUpdated()
-                ))
-                .collect(toList());
-    }
-
-    private List<ChargeEvent> getNonRepeatingChargeEvents(List<ChargeEvent> externalEvents) {
-        return externalEvents.stream()
-                .distinct()
-                .collect(toList());
+    private void writeEvents(OutputStream output, String chargeId, List<ChargeEvent> events) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(output)) {
+            json.writeStartObject();
+            json.writeStringField("charge_id", chargeId);
+            json.writeArrayFieldStart("events");
+            for (ChargeEvent event : events) {
+                json.writeObject(event);
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
     }
 }
@@ -1,10 +1,16 @@
 package uk.gov.pay.connector.resources;
 
+import com.google.common.collect.ImmutableList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.BulkRefundConfig;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.dao.ChargeDao;
 import uk.gov.pay.connector.exception.RefundException;
 import uk.gov.pay.connector.exception.RefundException.ErrorCode;
+import uk.gov.pay.connector.model.BulkRefundItem;
+import uk.gov.pay.connector.model.BulkRefundRequest;
+import uk.gov.pay.connector.model.BulkRefundResponse;
 import uk.gov.pay.connector.model.GatewayError;
 import uk.gov.pay.connector.model.RefundRequest;
 import uk.gov.pay.connector.model.RefundResponse;
@@ -12,6 +18,7 @@ import uk.gov.pay.connector.model.RefundsResponse;
 import uk.gov.pay.connector.model.domain.ChargeEntity;
 import uk.gov.pay.connector.model.gateway.GatewayResponse;
 import uk.gov.pay.connector.service.BaseRefundResponse;
+import uk.gov.pay.connector.service.BulkRefundService;
 import uk.gov.pay.connector.service.ChargeRefundService;
 
 import javax.inject.Inject;
@@ -19,11 +26,15 @@ import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import java.util.List;
 import java.util.Optional;
 
 import static java.lang.String.format;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static uk.gov.pay.connector.exception.RefundException.ErrorCode.NOT_SUFFICIENT_AMOUNT_AVAILABLE;
+import static uk.gov.pay.connector.model.domain.ChargeEntity.WITH_REFUNDS;
+import static uk.gov.pay.connector.resources.ApiPaths.BULK_REFUNDS_API_PATH;
+import static uk.gov.pay.connector.resources.ApiPaths.BULK_REFUND_API_PATH;
 import static uk.gov.pay.connector.resources.ApiPaths.REFUNDS_API_PATH;
 import static uk.gov.pay.connector.resources.ApiPaths.REFUND_API_PATH;
 import static uk.gov.pay.connector.resources.ChargesApiResource.MAX_AMOUNT;
@@ -36,11 +47,16 @@ public class ChargeRefundsResource {
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final ChargeRefundService refundService;
     private final ChargeDao chargeDao;
+    private final BulkRefundService bulkRefundService;
+    private final BulkRefundConfig bulkRefundConfig;
 
     @Inject
-    public ChargeRefundsResource(ChargeRefundService refundService, ChargeDao chargeDao) {
+    public ChargeRefundsResource(ChargeRefundService refundService, ChargeDao chargeDao, BulkRefundService bulkRefundService,
+                                 ConnectorConfiguration configuration) {
         this.refundService = refundService;
         this.chargeDao = chargeDao;
+        this.bulkRefundService = bulkRefundService;
+        this.bulkRefundConfig = configuration.getBulkRefundConfig();
     }
 
     @POST
@@ -67,6 +83,38 @@ public class ChargeRefundsResource {
                 });
     }
 
+    @POST
+    @Path(BULK_REFUNDS_API_PATH)
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    public Response submitBulkRefund(@PathParam("accountId") Long accountId, BulkRefundRequest bulkRefundRequest, @Context UriInfo uriInfo) {
+        if (bulkRefundRequest == null || bulkRefundRequest.getRefunds() == null || bulkRefundRequest.getRefunds().isEmpty()) {
+            return fieldsMissingResponse(ImmutableList.of("refunds"));
+        }
+        if (bulkRefundRequest.getRefunds().size() > bulkRefundConfig.getMaximumItems()) {
+            return badRequestResponse(format("A bulk refund can have at most %d refunds", bulkRefundConfig.getMaximumItems()));
+        }
+        if (bulkRefundRequest.getRefunds().stream().anyMatch(item -> item.getChargeId() == null)) {
+            return fieldsMissingResponse(ImmutableList.of("charge_id"));
+        }
+        bulkRefundRequest.getRefunds().forEach(item -> validateRefundRequest(item.getAmount()));
+
+        String jobId = bulkRefundService.submit(accountId, bulkRefundRequest);
+        BulkRefundResponse response = BulkRefundResponse.valueOf(accountId, jobId, bulkRefundService.findItems(accountId, jobId), uriInfo);
+        return Response.accepted(response.serialize()).location(response.location()).build();
+    }
+
+    @GET
+    @Path(BULK_REFUND_API_PATH)
+    @Produces(APPLICATION_JSON)
+    public Response getBulkRefund(@PathParam("accountId") Long accountId, @PathParam("jobId") String jobId, @Context UriInfo uriInfo) {
+        List<BulkRefundItem> items = bulkRefundService.findItems(accountId, jobId);
+        if (items.isEmpty()) {
+            return notFoundResponse(format("Bulk refund with id [%s] not found.", jobId));
+        }
+        return Response.ok(BulkRefundResponse.valueOf(accountId, jobId, items, uriInfo).serialize()).build();
+    }
+
     private void validateRefundRequest(long amount) {
         if (MAX_AMOUNT < amount) {
             throw RefundException.refundException("Not sufficient amount available for refund", NOT_SUFFICIENT_AMOUNT_AVAILABLE);
@@ -80,7 +128,7 @@ public class ChargeRefundsResource {
     @Path(REFUND_API_PATH)
     @Produces(APPLICATION_JSON)
     public Response getRefund(@PathParam("accountId") Long accountId, @PathParam("chargeId") String chargeId, @PathParam("refundId") String refundId, @Context UriInfo uriInfo) {
-        return chargeDao.findByExternalIdAndGatewayAccount(chargeId, accountId)
+        return chargeDao.findByExternalIdAndGatewayAccount(chargeId, accountId, WITH_REFUNDS)
                 .map(chargeEntity -> getRefundResponse(chargeEntity, refundId, uriInfo))
                 .orElseGet(() -> responseWithChargeNotFound(chargeId));
     }
@@ -89,7 +137,7 @@ public class ChargeRefundsResource {
     @Path(REFUNDS_API_PATH)
     @Produces(APPLICATION_JSON)
     public Response getRefunds(@PathParam("accountId") Long accountId, @PathParam("chargeId") String chargeId, @Context UriInfo uriInfo) {
-        return chargeDao.findByExternalIdAndGatewayAccount(chargeId, accountId)
+        return chargeDao.findByExternalIdAndGatewayAccount(chargeId, accountId, WITH_REFUNDS)
                 .map(chargeEntity -> Response.ok(RefundsResponse.valueOf(chargeEntity, uriInfo).serialize()).build())
                 .orElseGet(() -> responseWithChargeNotFound(chargeId));
     }
@@ -0,0 +1,80 @@
+package uk.gov.pay.connector.resources;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Inject;
+import uk.gov.pay.connector.dao.ChargeStatsDao;
+import uk.gov.pay.connector.dao.GatewayAccountDao;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+import static java.lang.String.format;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static uk.gov.pay.connector.resources.ApiPaths.CHARGES_STATS_API_PATH;
+import static uk.gov.pay.connector.util.ResponseUtil.badRequestResponse;
+import static uk.gov.pay.connector.util.ResponseUtil.notFoundResponse;
+import static uk.gov.pay.connector.util.ResponseUtil.successResponseWithEntity;
+
+@Path("/")
+public class ChargeStatsResource {
+    private static final String FROM_DATE_KEY = "from_date";
+    private static final String TO_DATE_KEY = "to_date";
+
+    private final ChargeStatsDao chargeStatsDao;
+    private final GatewayAccountDao gatewayAccountDao;
+
+    @Inject
+    public ChargeStatsResource(ChargeStatsDao chargeStatsDao, GatewayAccountDao gatewayAccountDao) {
+        this.chargeStatsDao = chargeStatsDao;
+        this.gatewayAccountDao = gatewayAccountDao;
+    }
+
+    /**
+     * Number and total amount of the account's charges in each external state, for the charges created
+     * from <code>from_date</code> (inclusive) to <code>to_date</code> (exclusive), both UTC dates.
+     */
+    @GET
+    @Path(CHARGES_STATS_API_PATH)
+    @Produces(APPLICATION_JSON)
+    public Response getStats(@PathParam("accountId") Long accountId,
+                             @QueryParam(FROM_DATE_KEY) String fromDate,
+                             @QueryParam(TO_DATE_KEY) String toDate) {
+        Optional<LocalDate> parsedFrom = parseDate(fromDate);
+        Optional<LocalDate> parsedTo = parseDate(toDate);
+        if (!parsedFrom.isPresent() || !parsedTo.isPresent()) {
+            return badRequestResponse(format("query params '%s' and '%s' must be dates in the format yyyy-mm-dd", FROM_DATE_KEY, TO_DATE_KEY));
+        }
+        LocalDate from = parsedFrom.get();
+        LocalDate to = parsedTo.get();
+        if (!from.isBefore(to)) {
+            return badRequestResponse(format("query param '%s' must be before '%s'", FROM_DATE_KEY, TO_DATE_KEY));
+        }
+
+        if (!gatewayAccountDao.findById(accountId).isPresent()) {
+            return notFoundResponse(format("account with id %s not found", accountId));
+        }
+
+        return successResponseWithEntity(ImmutableMap.of(
+                FROM_DATE_KEY, from.toString(),
+                TO_DATE_KEY, to.toString(),
+                "results", chargeStatsDao.findTotals(accountId, from, to)));
+    }
+
+    private Optional<LocalDate> parseDate(String date) {
+        if (date == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(LocalDate.parse(date));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+}
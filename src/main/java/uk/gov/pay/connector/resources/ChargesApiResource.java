@@ -11,16 +11,23 @@ import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.dao.ChargeDao;
 import uk.gov.pay.connector.dao.ChargeSearchParams;
 import uk.gov.pay.connector.dao.GatewayAccountDao;
+import uk.gov.pay.connector.model.ChargeBatchRequest;
+import uk.gov.pay.connector.model.ChargeBatchResponse;
 import uk.gov.pay.connector.model.ChargeResponse;
+import uk.gov.pay.connector.model.ChargeStatusLookupRequest;
+import uk.gov.pay.connector.model.ChargeStatusLookupResponse;
+import uk.gov.pay.connector.model.ChargeStatusSummary;
 import uk.gov.pay.connector.model.domain.ChargeEntity;
-import uk.gov.pay.connector.service.ChargeExpiryService;
+import uk.gov.pay.connector.service.ChargeExpiryProcess;
 import uk.gov.pay.connector.service.ChargeService;
+import uk.gov.pay.connector.service.ChargesExportService;
 import uk.gov.pay.connector.util.ResponseUtil;
 
 import javax.inject.Inject;
 import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 import java.time.ZonedDateTime;
 import java.util.*;
@@ -33,7 +40,6 @@ import static javax.ws.rs.core.Response.created;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static uk.gov.pay.connector.resources.ApiPaths.*;
 import static uk.gov.pay.connector.resources.ApiValidators.validateGatewayAccountReference;
-import static uk.gov.pay.connector.service.ChargeExpiryService.EXPIRABLE_STATUSES;
 import static uk.gov.pay.connector.util.ResponseUtil.*;
 
 @Path("/")
@@ -60,6 +66,7 @@ public class ChargesApiResource {
     private static final String ACCOUNT_ID = "accountId";
     private static final String PAGE = "page";
     private static final String DISPLAY_SIZE = "display_size";
+    private static final String FORMAT = "format";
 
     private static final Set<String> CHARGE_REQUEST_KEYS_THAT_MAY_HAVE_PII = Collections.singleton("description");
 
@@ -67,21 +74,20 @@ public class ChargesApiResource {
     private final GatewayAccountDao gatewayAccountDao;
     private final ChargeService chargeService;
     private final ConnectorConfiguration configuration;
-    private final ChargeExpiryService chargeExpiryService;
-
-    private static final int ONE_HOUR = 3600;
-    private static final String CHARGE_EXPIRY_WINDOW = "CHARGE_EXPIRY_WINDOW_SECONDS";
+    private final ChargeExpiryProcess chargeExpiryProcess;
+    private final ChargesExportService chargesExportService;
 
     private static final Logger logger = LoggerFactory.getLogger(ChargesApiResource.class);
 
     @Inject
     public ChargesApiResource(ChargeDao chargeDao, GatewayAccountDao gatewayAccountDao,
-                              ChargeService chargeService, ChargeExpiryService chargeExpiryService,
-                              ConnectorConfiguration configuration) {
+                              ChargeService chargeService, ChargeExpiryProcess chargeExpiryProcess,
+                              ChargesExportService chargesExportService, ConnectorConfiguration configuration) {
         this.chargeDao = chargeDao;
         this.gatewayAccountDao = gatewayAccountDao;
         this.chargeService = chargeService;
-        this.chargeExpiryService = chargeExpiryService;
+        this.chargeExpiryProcess = chargeExpiryProcess;
+        this.chargesExportService = chargesExportService;
         this.configuration = configuration;
     }
 
@@ -128,23 +134,52 @@ public class ChargesApiResource {
                                         .withPage(pageNumber != null ? pageNumber : 1), uriInfo)))); // always the first page if its missing
     }
 
+    @GET
+    @Path(CHARGES_EXPORT_API_PATH)
+    @Produces({"text/csv", "application/x-ndjson", APPLICATION_JSON})
+    public Response exportCharges(@PathParam(ACCOUNT_ID) Long accountId,
+                                  @QueryParam(EMAIL_KEY) String email,
+                                  @QueryParam(REFERENCE_KEY) String reference,
+                                  @QueryParam(STATE_KEY) String state,
+                                  @QueryParam(CARD_BRAND_KEY) String cardBrand,
+                                  @QueryParam(FROM_DATE_KEY) String fromDate,
+                                  @QueryParam(TO_DATE_KEY) String toDate,
+                                  @QueryParam(FORMAT) @DefaultValue("csv") String formatName) {
+
+        List<Pair<String, String>> inputDatePairMap = ImmutableList.of(Pair.of(FROM_DATE_KEY, fromDate), Pair.of(TO_DATE_KEY, toDate));
+        Optional<ChargesExportService.Format> exportFormat = Arrays.stream(ChargesExportService.Format.values())
+                .filter(value -> value.name().equalsIgnoreCase(formatName))
+                .findFirst();
+        if (!exportFormat.isPresent()) {
+            return asJson(badRequestResponse(format("query param '%s' should be one of csv, ndjson", FORMAT)));
+        }
+
+        return ApiValidators
+                .validateQueryParams(inputDatePairMap, ImmutableList.of())
+                .map(errors -> asJson(badRequestResponse(errors)))
+                .orElseGet(() -> reduce(validateGatewayAccountReference(gatewayAccountDao, accountId)
+                        .bimap(error -> asJson(notFoundResponse(error)),
+                                success -> {
+                                    ChargeSearchParams searchParams = new ChargeSearchParams()
+                                            .withGatewayAccountId(accountId)
+                                            .withEmailLike(email)
+                                            .withReferenceLike(reference)
+                                            .withExternalChargeState(state)
+                                            .withCardBrand(cardBrand)
+                                            .withFromDate(parseDate(fromDate))
+                                            .withToDate(parseDate(toDate));
+                                    StreamingOutput export = output -> chargesExportService.export(searchParams, exportFormat.get(), output);
+                                    return Response.ok(export, exportFormat.get().getMediaType()).build();
+                                })));
+    }
+
     @POST
     @Path(CHARGES_API_PATH)
     @Produces(APPLICATION_JSON)
     public Response createNewCharge(@PathParam(ACCOUNT_ID) Long accountId, Map<String, String> chargeRequest, @Context UriInfo uriInfo) {
-        Optional<List<String>> missingFields = checkMissingFields(chargeRequest);
-        if (missingFields.isPresent()) {
-            return fieldsMissingResponse(missingFields.get());
-        }
-
-        Optional<List<String>> invalidSizeFields = checkInvalidSizeFields(chargeRequest);
-        if (invalidSizeFields.isPresent()) {
-            return fieldsInvalidSizeResponse(invalidSizeFields.get());
-        }
-
-        Optional<List<String>> invalidFields = ApiValidators.validateChargeParams(chargeRequest);
-        if (invalidFields.isPresent()) {
-            return fieldsInvalidResponse(invalidFields.get());
+        Optional<String> invalidRequest = validateChargeRequest(chargeRequest);
+        if (invalidRequest.isPresent()) {
+            return badRequestResponse(invalidRequest.get());
         }
 
         return gatewayAccountDao.findById(accountId).map(
@@ -157,23 +192,85 @@ public class ChargesApiResource {
     }
 
     @POST
-    @Path(CHARGES_EXPIRE_CHARGES_TASK_API_PATH)
+    @Path(CHARGES_BATCH_API_PATH)
+    @Consumes(APPLICATION_JSON)
     @Produces(APPLICATION_JSON)
-    public Response expireCharges(@Context UriInfo uriInfo) {
-        List<ChargeEntity> charges = chargeDao.findBeforeDateWithStatusIn(getExpiryDate(), EXPIRABLE_STATUSES);
-        logger.info(format("Charges found for expiry - number_of_charges=%s, since_date=%s", charges.size(), getExpiryDate()));
-        Map<String, Integer> resultMap = chargeExpiryService.expire(charges);
-        return successResponseWithEntity(resultMap);
+    public Response createNewCharges(@PathParam(ACCOUNT_ID) Long accountId, ChargeBatchRequest chargeBatchRequest, @Context UriInfo uriInfo) {
+        if (chargeBatchRequest == null || chargeBatchRequest.getCharges() == null || chargeBatchRequest.getCharges().isEmpty()) {
+            return fieldsMissingResponse(ImmutableList.of("charges"));
+        }
+        int maximumItems = configuration.getChargeBatchConfig().getMaximumItems();
+        if (chargeBatchRequest.getCharges().size() > maximumItems) {
+            return badRequestResponse(format("A charge batch can have at most %d charges", maximumItems));
+        }
+
+        return gatewayAccountDao.findById(accountId).map(
+                gatewayAccountEntity -> {
+                    List<Map<String, String>> chargeRequests = chargeBatchRequest.getCharges().stream()
+                            .map(chargeRequest -> chargeRequest != null ? chargeRequest : Collections.<String, String>emptyMap())
+                            .collect(Collectors.toList());
+                    List<Optional<String>> invalidRequests = chargeRequests.stream()
+                            .map(this::validateChargeRequest)
+                            .collect(Collectors.toList());
+                    List<Map<String, String>> validRequests = new ArrayList<>();
+                    for (int i = 0; i < chargeRequests.size(); i++) {
+                        if (!invalidRequests.get(i).isPresent()) {
+                            validRequests.add(chargeRequests.get(i));
+                        }
+                    }
+
+                    logger.info("Creating {} new charges of a batch of {}", validRequests.size(), chargeRequests.size());
+                    Iterator<ChargeResponse> createdCharges = validRequests.isEmpty()
+                            ? Collections.emptyIterator()
+                            : chargeService.createAll(validRequests, gatewayAccountEntity, uriInfo).iterator();
+                    List<ChargeBatchResponse.Item> items = invalidRequests.stream()
+                            .map(invalidRequest -> invalidRequest
+                                    .map(ChargeBatchResponse.Item::invalid)
+                                    .orElseGet(() -> ChargeBatchResponse.Item.created(createdCharges.next())))
+                            .collect(Collectors.toList());
+                    return Response.ok(new ChargeBatchResponse(items)).build();
+                })
+                .orElseGet(() -> notFoundResponse("Unknown gateway account: " + accountId));
     }
 
-    private ZonedDateTime getExpiryDate() {
-        //default expiry window, can be overridden by env var
-        int chargeExpiryWindowSeconds = ONE_HOUR;
-        if (StringUtils.isNotBlank(System.getenv(CHARGE_EXPIRY_WINDOW))) {
-            chargeExpiryWindowSeconds = Integer.parseInt(System.getenv(CHARGE_EXPIRY_WINDOW));
+    @POST
+    @Path(CHARGES_STATUS_API_PATH)
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    public Response getChargeStatuses(@PathParam(ACCOUNT_ID) Long accountId, ChargeStatusLookupRequest chargeStatusLookupRequest) {
+        if (chargeStatusLookupRequest == null || chargeStatusLookupRequest.getChargeIds() == null || chargeStatusLookupRequest.getChargeIds().isEmpty()) {
+            return fieldsMissingResponse(ImmutableList.of("charge_ids"));
         }
-        logger.debug("Charge expiry window size in seconds: " + chargeExpiryWindowSeconds);
-        return ZonedDateTime.now().minusSeconds(chargeExpiryWindowSeconds);
+        List<String> chargeIds = chargeStatusLookupRequest.getChargeIds().stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        int maximumItems = configuration.getChargeStatusLookupConfig().getMaximumItems();
+        if (chargeIds.size() > maximumItems) {
+            return badRequestResponse(format("A charge status lookup can have at most %d charge ids", maximumItems));
+        }
+
+        Map<String, ChargeStatusSummary> statusesByChargeId = chargeDao.findStatusesByExternalIdsAndGatewayAccount(chargeIds, accountId).stream()
+                .collect(Collectors.toMap(ChargeStatusSummary::getChargeId, summary -> summary));
+        List<ChargeStatusSummary> charges = new ArrayList<>();
+        List<String> notFound = new ArrayList<>();
+        chargeIds.forEach(chargeId -> {
+            if (statusesByChargeId.containsKey(chargeId)) {
+                charges.add(statusesByChargeId.get(chargeId));
+            } else {
+                notFound.add(chargeId);
+            }
+        });
+        return Response.ok(new ChargeStatusLookupResponse(charges, notFound)).build();
+    }
+
+    @POST
+    @Path(CHARGES_EXPIRE_CHARGES_TASK_API_PATH)
+    @Produces(APPLICATION_JSON)
+    public Response expireCharges(@Context UriInfo uriInfo) {
+        return chargeExpiryProcess.runExpiryUnlessRunning()
+                .map(ResponseUtil::successResponseWithEntity)
+                .orElseGet(() -> conflictErrorResponse("Charge expiry is already running"));
     }
 
     private ZonedDateTime parseDate(String date) {
@@ -184,6 +281,20 @@ public class ChargesApiResource {
         return parse;
     }
 
+    private Optional<String> validateChargeRequest(Map<String, String> chargeRequest) {
+        Optional<List<String>> missingFields = checkMissingFields(chargeRequest);
+        if (missingFields.isPresent()) {
+            return Optional.of(fieldsMissingMessage(missingFields.get()));
+        }
+
+        Optional<List<String>> invalidSizeFields = checkInvalidSizeFields(chargeRequest);
+        if (invalidSizeFields.isPresent()) {
+            return Optional.of(fieldsInvalidSizeMessage(invalidSizeFields.get()));
+        }
+
+        return ApiValidators.validateChargeParams(chargeRequest).map(ResponseUtil::fieldsInvalidMessage);
+    }
+
     private Optional<List<String>> checkMissingFields(Map<String, String> inputData) {
         List<String> missing = Arrays.stream(REQUIRED_FIELDS)
                 .filter(field -> !inputData.containsKey(field))
@@ -217,6 +328,10 @@ public class ChargesApiResource {
                         .buildResponse();
     }
 
+    private Response asJson(Response response) {
+        return Response.fromResponse(response).type(APPLICATION_JSON).build();
+    }
+
     private Optional<List<String>> checkInvalidSizeFields(Map<String, String> inputData) {
         List<String> invalidSize = MAXIMUM_FIELDS_SIZE.entrySet().stream()
                 .filter(entry -> !isFieldSizeValid(inputData, entry.getKey(), entry.getValue()))
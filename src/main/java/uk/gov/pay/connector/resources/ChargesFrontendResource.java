@@ -2,19 +2,30 @@ package uk.gov.pay.connector.resources;
 
 import com.fasterxml.jackson.annotation.JsonView;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.dropwizard.jersey.PATCH;
+import io.dropwizard.setup.Environment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import uk.gov.pay.connector.dao.CardTypeDao;
+import uk.gov.pay.connector.app.ChargeStatusWaitConfig;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.dao.ChargeStatusChangeRegistry;
+import uk.gov.pay.connector.dao.ChargeVersionCache;
 import uk.gov.pay.connector.model.ChargeResponse;
 import uk.gov.pay.connector.model.builder.PatchRequestBuilder;
 import uk.gov.pay.connector.model.domain.*;
+import uk.gov.pay.connector.service.CardBrandLabelIndex;
 import uk.gov.pay.connector.service.ChargeService;
 
 import javax.inject.Inject;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import java.net.URI;
@@ -24,6 +35,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static javax.ws.rs.HttpMethod.GET;
@@ -42,32 +55,60 @@ import static uk.gov.pay.connector.util.ResponseUtil.*;
 public class ChargesFrontendResource {
 
     private static final Logger logger = LoggerFactory.getLogger(ChargesFrontendResource.class);
-    private static final List<ChargeStatus> CURRENT_STATUSES_ALLOWING_UPDATE_TO_NEW_STATUS = newArrayList(CREATED, ENTERING_CARD_DETAILS);
+    private static final List<ChargeStatus> CURRENT_STATUSES_ALLOWING_UPDATE_TO_NEW_STATUS = newArrayList(CREATED);
     private final ChargeDao chargeDao;
     private final ChargeService chargeService;
-    private CardTypeDao cardTypeDao;
+    private final CardBrandLabelIndex cardBrandLabelIndex;
+    private final ChargeVersionCache chargeVersionCache;
+    private final ChargeStatusChangeRegistry chargeStatusChangeRegistry;
+    private final ChargeStatusWaitConfig statusWaitConfig;
+    private final ExecutorService statusWaitResumeExecutor;
 
     @Inject
-    public ChargesFrontendResource(ChargeDao chargeDao, ChargeService chargeService, CardTypeDao cardTypeDao) {
+    public ChargesFrontendResource(ChargeDao chargeDao, ChargeService chargeService, CardBrandLabelIndex cardBrandLabelIndex,
+                                   ChargeVersionCache chargeVersionCache, ChargeStatusChangeRegistry chargeStatusChangeRegistry,
+                                   ConnectorConfiguration configuration, Environment environment) {
         this.chargeDao = chargeDao;
         this.chargeService = chargeService;
-        this.cardTypeDao = cardTypeDao;
+        this.cardBrandLabelIndex = cardBrandLabelIndex;
+        this.chargeVersionCache = chargeVersionCache;
+        this.chargeStatusChangeRegistry = chargeStatusChangeRegistry;
+        this.statusWaitConfig = configuration.getChargeStatusWaitConfig();
+        this.statusWaitResumeExecutor = environment.lifecycle()
+                .executorService("charge-status-wait-%d")
+                .minThreads(statusWaitConfig.getResumeThreads())
+                .maxThreads(statusWaitConfig.getResumeThreads())
+                .build();
     }
 
     @GET
     @Path(FRONTEND_CHARGE_API_PATH)
     @Produces(APPLICATION_JSON)
     @JsonView(GatewayAccountEntity.Views.FrontendView.class)
-    public Response getCharge(@PathParam("chargeId") String chargeId, @Context UriInfo uriInfo) {
+    public Response getCharge(@PathParam("chargeId") String chargeId, @Context UriInfo uriInfo, @Context Request request) {
+        // a poll for a charge that has not changed since the client last fetched it is answered without loading it
+        Optional<Response> notModified = chargeVersionCache.getVersion(chargeId)
+                .map(version -> request.evaluatePreconditions(entityTagFor(version)))
+                .map(Response.ResponseBuilder::build);
+        if (notModified.isPresent()) {
+            return notModified.get();
+        }
 
         Optional<ChargeEntity> maybeCharge = chargeDao.findByExternalId(chargeId);
         logger.debug("charge from DB: " + maybeCharge);
 
         return maybeCharge
-                .map(charge -> Response.ok(buildChargeResponse(uriInfo, charge)).build())
+                .map(charge -> {
+                    chargeVersionCache.put(charge.getExternalId(), charge.getVersion());
+                    return Response.ok(buildChargeResponse(uriInfo, charge)).tag(entityTagFor(charge.getVersion())).build();
+                })
                 .orElseGet(() -> responseWithChargeNotFound(chargeId));
     }
 
+    private EntityTag entityTagFor(Long version) {
+        return new EntityTag(String.valueOf(version));
+    }
+
     @PATCH
     @Path(FRONTEND_CHARGE_API_PATH)
     @Produces(APPLICATION_JSON)
@@ -101,6 +142,54 @@ public class ChargesFrontendResource {
                 .orElseGet(() -> responseWithChargeNotFound(chargeId));
     }
 
+    /**
+     * Answers with the charge's status as soon as it is no longer <code>current_status</code>. The request is
+     * suspended, holding no thread, until the status changes on this node or the wait times out; on time out
+     * the charge is read again, so a change made on another node is seen then.
+     */
+    @GET
+    @Path(FRONTEND_CHARGE_STATUS_API_PATH)
+    @Produces(APPLICATION_JSON)
+    public void awaitStatusChange(@PathParam("chargeId") String chargeId, @QueryParam("current_status") String currentStatus,
+                                  @Suspended AsyncResponse asyncResponse) {
+        if (currentStatus == null) {
+            asyncResponse.resume(fieldsMissingResponse(ImmutableList.of("current_status")));
+            return;
+        }
+        ChargeStatus knownStatus;
+        try {
+            knownStatus = ChargeStatus.fromString(currentStatus);
+        } catch (IllegalArgumentException e) {
+            asyncResponse.resume(badRequestResponse(e.getMessage()));
+            return;
+        }
+
+        // registered before the charge is read, so a change made in between is not missed; the response is
+        // written on another thread, as the listener is called on the thread that committed the change
+        Runnable deregister = chargeStatusChangeRegistry.register(chargeId,
+                newStatus -> statusWaitResumeExecutor.execute(() -> asyncResponse.resume(statusResponse(newStatus))));
+        asyncResponse.register((CompletionCallback) throwable -> deregister.run());
+        asyncResponse.setTimeoutHandler(timedOut -> timedOut.resume(findStatus(chargeId)
+                .map(this::statusResponse)
+                .orElseGet(() -> responseWithChargeNotFound(chargeId))));
+        asyncResponse.setTimeout(statusWaitConfig.getTimeout().toMilliseconds(), TimeUnit.MILLISECONDS);
+
+        Optional<ChargeStatus> status = findStatus(chargeId);
+        if (!status.isPresent()) {
+            asyncResponse.resume(responseWithChargeNotFound(chargeId));
+        } else if (status.get() != knownStatus) {
+            asyncResponse.resume(statusResponse(status.get()));
+        }
+    }
+
+    private Optional<ChargeStatus> findStatus(String chargeId) {
+        return chargeDao.findByExternalId(chargeId).map(charge -> ChargeStatus.fromString(charge.getStatus()));
+    }
+
+    private Response statusResponse(ChargeStatus status) {
+        return successResponseWithEntity(ImmutableMap.of("status", status.getValue()));
+    }
+
     @PUT
     @Path(FRONTEND_CHARGE_STATUS_API_PATH)
     @Produces(APPLICATION_JSON)
@@ -125,38 +214,26 @@ public class ChargesFrontendResource {
         if (!isValidStateTransition(newChargeStatus)) {
             return badRequestResponse("charge with id: " + chargeId + " cant be updated to the new state: " + newChargeStatus.getValue());
         }
-        return chargeDao.findByExternalId(chargeId)
-                .map(chargeEntity -> {
-                    if (CURRENT_STATUSES_ALLOWING_UPDATE_TO_NEW_STATUS.contains(ChargeStatus.fromString(chargeEntity.getStatus()))) {
-                        chargeEntity.setStatus(newChargeStatus);
-                        chargeDao.mergeAndNotifyStatusHasChanged(chargeEntity, generatedTime);
-                        return noContentResponse();
-                    }
-                    return badRequestResponse("charge with id: " + chargeId + " cant be updated to the new state: " + newChargeStatus.getValue());
-                }).get();
+        switch (chargeDao.transitionStatus(chargeId, CURRENT_STATUSES_ALLOWING_UPDATE_TO_NEW_STATUS, newChargeStatus, generatedTime)) {
+            case TRANSITIONED:
+                return noContentResponse();
+            case NOT_FOUND:
+                return responseWithChargeNotFound(chargeId);
+            default:
+                return badRequestResponse("charge with id: " + chargeId + " cant be updated to the new state: " + newChargeStatus.getValue());
+        }
     }
 
     private boolean isValidStateTransition(ChargeStatus newChargeStatus) {
         return newChargeStatus.equals(ENTERING_CARD_DETAILS);
     }
 
-    private Optional<String> findCardBrandLabel(String cardBrand) {
-        if (cardBrand == null) {
-            return Optional.empty();
-        }
-
-        return cardTypeDao.findByBrand(cardBrand)
-                .stream()
-                .findFirst()
-                .map(CardTypeEntity::getLabel);
-    }
-
     private ChargeResponse buildChargeResponse(UriInfo uriInfo, ChargeEntity charge) {
         String chargeId = charge.getExternalId();
         PersistedCard persistedCard = null;
         if (charge.getCardDetails() != null) {
             persistedCard = charge.getCardDetails().toCard();
-            persistedCard.setCardBrand(findCardBrandLabel(charge.getCardDetails().getCardBrand()).orElse(""));
+            persistedCard.setCardBrand(cardBrandLabelIndex.labelFor(charge.getCardDetails().getCardBrand()).orElse(""));
         }
 
         ChargeResponse.Auth3dsData auth3dsData = null;
@@ -6,6 +6,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.dao.EmailNotificationsDao;
 import uk.gov.pay.connector.dao.GatewayAccountDao;
+import uk.gov.pay.connector.dao.ReferenceDataCache;
 import uk.gov.pay.connector.model.builder.PatchRequestBuilder;
 import uk.gov.pay.connector.model.domain.EmailNotificationEntity;
 
@@ -31,11 +32,13 @@ public class EmailNotificationResource {
 
     private final EmailNotificationsDao emailNotificationsDao;
     private final GatewayAccountDao gatewayDao;
+    private final ReferenceDataCache referenceDataCache;
 
     @Inject
-    public EmailNotificationResource(GatewayAccountDao gatewayDao, EmailNotificationsDao emailNotificationsDao) {
+    public EmailNotificationResource(GatewayAccountDao gatewayDao, EmailNotificationsDao emailNotificationsDao, ReferenceDataCache referenceDataCache) {
         this.emailNotificationsDao = emailNotificationsDao;
         this.gatewayDao = gatewayDao;
+        this.referenceDataCache = referenceDataCache;
     }
 
     @GET
@@ -66,10 +69,12 @@ public class EmailNotificationResource {
                 .map(gatewayAccount ->
                         emailNotificationsDao.findByAccountId(gatewayAccountId).map(emailNotificationEntity -> {
                             emailNotificationEntity.setTemplateBody(payload.get(EMAIL_NOTIFICATION_TEMPLATE_BODY));
+                            referenceDataCache.evict(gatewayAccount);
                             return Response.ok().build();
                         }).orElseGet(() -> {
                             gatewayAccount.setEmailNotification(
                                     new EmailNotificationEntity(gatewayAccount, payload.get(EMAIL_NOTIFICATION_TEMPLATE_BODY)));
+                            referenceDataCache.evict(gatewayAccount);
                             return Response.ok().build();
                         }))
                 .orElseGet(() -> notFoundResponse(format("The gateway account id '%s' does not exist", gatewayAccountId)));
@@ -97,9 +102,11 @@ public class EmailNotificationResource {
                 .map(gatewayAccount -> emailNotificationsDao.findByAccountId(gatewayAccountId)
                         .map(emailNotificationEntity -> {
                             emailNotificationEntity.setEnabled(Boolean.parseBoolean(emailPatchRequest.getValue()));
+                            referenceDataCache.evict(gatewayAccount);
                             return Response.ok().build();
                         }).orElseGet(() -> {
                             gatewayAccount.setEmailNotification(new EmailNotificationEntity(gatewayAccount));
+                            referenceDataCache.evict(gatewayAccount);
                             return Response.ok().build();
                         }))
                 .orElseGet(() -> notFoundResponse(format("The gateway account id '%s' does not exist", gatewayAccountId)));
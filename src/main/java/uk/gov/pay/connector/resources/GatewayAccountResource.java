@@ -3,6 +3,7 @@ package uk.gov.pay.connector.resources;
 import com.fasterxml.jackson.annotation.JsonView;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.persist.Transactional;
@@ -12,6 +13,7 @@ import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.dao.CardTypeDao;
 import uk.gov.pay.connector.dao.GatewayAccountDao;
+import uk.gov.pay.connector.dao.ReferenceDataCache;
 import uk.gov.pay.connector.exception.CredentialsException;
 import uk.gov.pay.connector.model.domain.CardTypeEntity;
 import uk.gov.pay.connector.model.domain.GatewayAccountEntity;
@@ -61,14 +63,20 @@ public class GatewayAccountResource {
     private final CardTypeDao cardTypeDao;
     private final Map<String, List<String>> providerCredentialFields;
     private final GatewayAccountNotificationCredentialsService gatewayAccountNotificationCredentialsService;
+    private final ReferenceDataCache referenceDataCache;
+    private final ObjectMapper apiViewObjectMapper;
 
 
     @Inject
     public GatewayAccountResource(GatewayAccountDao gatewayDao, CardTypeDao cardTypeDao, ConnectorConfiguration conf,
-                                  GatewayAccountNotificationCredentialsService gatewayAccountNotificationCredentialsService) {
+                                  GatewayAccountNotificationCredentialsService gatewayAccountNotificationCredentialsService,
+                                  ReferenceDataCache referenceDataCache, ObjectMapper objectMapper) {
         this.gatewayDao = gatewayDao;
         this.cardTypeDao = cardTypeDao;
         this.gatewayAccountNotificationCredentialsService = gatewayAccountNotificationCredentialsService;
+        this.referenceDataCache = referenceDataCache;
+        this.apiViewObjectMapper = objectMapper.copy()
+                .setConfig(objectMapper.getSerializationConfig().withView(GatewayAccountEntity.Views.ApiView.class));
         providerCredentialFields = newHashMap();
         providerCredentialFields.put("worldpay", conf.getWorldpayConfig().getCredentials());
         providerCredentialFields.put("smartpay", conf.getSmartpayConfig().getCredentials());
@@ -117,8 +125,13 @@ public class GatewayAccountResource {
         return gatewayDao.findById(gatewayAccountId)
                 .map(serviceAccount ->
                 {
-                    serviceAccount.getCredentials().remove("password");
-                    return Response.ok(serviceAccount).build();
+                    // the credentials map may be shared with the cached account, so the password is removed from a copy
+                    ObjectNode account = apiViewObjectMapper.valueToTree(serviceAccount);
+                    ObjectNode credentials = (ObjectNode) account.get("credentials");
+                    if (credentials != null) {
+                        credentials.remove("password");
+                    }
+                    return Response.ok(account).build();
                 })
                 .orElseGet(() -> notFoundResponse(format("Account with id '%s' not found", gatewayAccountId)));
     }
@@ -207,6 +220,7 @@ public class GatewayAccountResource {
                             }
 
                             gatewayAccount.setCredentials(new ObjectMapper().convertValue(credentialsPayload, Map.class));
+                            referenceDataCache.evict(gatewayAccount);
                             return Response.ok().build();
                         }
                 )
@@ -233,6 +247,7 @@ public class GatewayAccountResource {
                 .map(gatewayAccount ->
                         {
                             gatewayAccount.setServiceName(serviceName);
+                            referenceDataCache.evict(gatewayAccount);
                             return Response.ok().build();
                         }
                 )
@@ -258,6 +273,7 @@ public class GatewayAccountResource {
                                 return Response.status(Status.CONFLICT).build();
                             }
                             gatewayAccount.setRequires3ds(requires3ds);
+                            referenceDataCache.evict(gatewayAccount);
                             return Response.ok().build();
                         }
                 )
@@ -294,6 +310,7 @@ public class GatewayAccountResource {
                         return Response.status(Status.CONFLICT).build();
                     }
                     gatewayAccount.setCardTypes(cardTypeEntities);
+                    referenceDataCache.evict(gatewayAccount);
                     return Response.ok().build();
                 })
                 .orElseGet(() ->
@@ -336,6 +353,7 @@ public class GatewayAccountResource {
                     try {
                         gatewayAccountNotificationCredentialsService.setCredentialsForAccount(notificationCredentials,
                                 gatewayAccountEntity);
+                        referenceDataCache.evict(gatewayAccountEntity);
                     } catch (CredentialsException e) {
                         return badRequestResponse("Credentials update failure: " + e.getMessage());
                     }
@@ -361,6 +379,7 @@ public class GatewayAccountResource {
                 .map((gatewayAccountEntity) -> {
                     descriptionMaybe.ifPresent(gatewayAccountEntity::setDescription);
                     analyticsIdMaybe.ifPresent(gatewayAccountEntity::setAnalyticsId);
+                    referenceDataCache.evict(gatewayAccountEntity);
                     return Response.ok().build();
                 })
                 .orElseGet(() -> notFoundResponse(format("The gateway account id '%s' does not exist", gatewayAccountId)));
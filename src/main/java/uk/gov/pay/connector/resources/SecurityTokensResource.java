@@ -1,13 +1,11 @@
 package uk.gov.pay.connector.resources;
 
 import com.fasterxml.jackson.annotation.JsonView;
-import com.google.inject.persist.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import uk.gov.pay.connector.dao.ChargeDao;
-import uk.gov.pay.connector.dao.TokenDao;
 import uk.gov.pay.connector.model.domain.ChargeEntity;
 import uk.gov.pay.connector.model.domain.GatewayAccountEntity;
+import uk.gov.pay.connector.service.TokenService;
 
 import javax.inject.Inject;
 import javax.ws.rs.*;
@@ -23,13 +21,11 @@ public class SecurityTokensResource {
     public static final String GET_CHARGE_BY_TOKEN_PATH = CHARGE_TOKEN_PATH+ "/charge";
 
     private final Logger logger = LoggerFactory.getLogger(SecurityTokensResource.class);
-    private final TokenDao tokenDao;
-    private ChargeDao chargeDao;
+    private final TokenService tokenService;
 
     @Inject
-    public SecurityTokensResource(TokenDao tokenDao, ChargeDao chargeDao) {
-        this.tokenDao = tokenDao;
-        this.chargeDao = chargeDao;
+    public SecurityTokensResource(TokenService tokenService) {
+        this.tokenService = tokenService;
     }
 
     @GET
@@ -38,7 +34,7 @@ public class SecurityTokensResource {
     @JsonView(GatewayAccountEntity.Views.FrontendView.class)
     public Response getChargeForToken(@PathParam("chargeTokenId") String chargeTokenId) {
         logger.debug("get charge for token {}", chargeTokenId);
-        Optional<ChargeEntity> chargeOpt = chargeDao.findByTokenId(chargeTokenId);
+        Optional<ChargeEntity> chargeOpt = tokenService.findChargeByToken(chargeTokenId);
         return chargeOpt
                 .map(charge -> successResponseWithEntity(charge))
                 .orElseGet(() -> notFoundResponse("Token invalid!"));
@@ -46,11 +42,9 @@ public class SecurityTokensResource {
 
     @DELETE
     @Path(CHARGE_TOKEN_PATH)
-    @Transactional
     public Response deleteToken(@PathParam("chargeTokenId") String chargeTokenId) {
         logger.debug("delete({})", chargeTokenId);
-        tokenDao.findByTokenId(chargeTokenId)
-                .ifPresent(tokenDao::remove);
+        tokenService.deleteToken(chargeTokenId);
         return noContentResponse();
     }
 }
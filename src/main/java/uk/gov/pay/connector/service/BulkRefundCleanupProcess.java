@@ -0,0 +1,79 @@
+package uk.gov.pay.connector.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Stopwatch;
+import io.dropwizard.setup.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.BulkRefundConfig;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.dao.BulkRefundDao;
+
+import javax.inject.Inject;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+public class BulkRefundCleanupProcess {
+
+    static final String INTERRUPTED_REFUND_ERROR =
+            "the refund was interrupted and may not have been made; check the refunds of the charge before refunding it again";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final BulkRefundDao bulkRefundDao;
+    private final BulkRefundConfig bulkRefundConfig;
+    private final MetricRegistry metricRegistry;
+    private final Counter interruptedItemsMetric;
+    private final Counter purgedItemsMetric;
+
+    @Inject
+    public BulkRefundCleanupProcess(Environment environment, BulkRefundDao bulkRefundDao, ConnectorConfiguration connectorConfiguration) {
+        this.bulkRefundDao = bulkRefundDao;
+        this.bulkRefundConfig = connectorConfiguration.getBulkRefundConfig();
+        this.metricRegistry = environment.metrics();
+        this.interruptedItemsMetric = metricRegistry.counter("bulk-refund-cleanup.interrupted");
+        this.purgedItemsMetric = metricRegistry.counter("bulk-refund-cleanup.deleted");
+    }
+
+    /**
+     * Marks the refunds left pending by a connector node that stopped before dispatching them as errors, so their
+     * jobs finish, and then deletes the items of jobs past their retention in batches, each in its own transaction,
+     * until none are left or the maximum number of batches for one run is reached. Both are safe to run on several
+     * nodes at once.
+     *
+     * @return the number of items deleted
+     */
+    public int runCleanup() {
+        Stopwatch responseTimeStopwatch = Stopwatch.createStarted();
+        ZonedDateTime now = ZonedDateTime.now(ZoneId.of("UTC"));
+        int purged = 0;
+        try {
+            ZonedDateTime pendingSince = now.minus(bulkRefundConfig.getPendingTimeoutAsJavaDuration());
+            int interrupted = bulkRefundDao.markPendingCreatedBeforeAsError(pendingSince, INTERRUPTED_REFUND_ERROR);
+            interruptedItemsMetric.inc(interrupted);
+            if (interrupted > 0) {
+                logger.warn("Marked {} bulk refunds still pending since before {} as errors", interrupted, pendingSince);
+            }
+
+            ZonedDateTime createdBefore = now.minus(bulkRefundConfig.getRetentionAsJavaDuration());
+            for (int batch = 0; batch < bulkRefundConfig.getPurgeMaximumBatchesPerRun(); batch++) {
+                int purgedInBatch = bulkRefundDao.deleteCreatedBefore(createdBefore, bulkRefundConfig.getPurgeBatchSize());
+                purged += purgedInBatch;
+                purgedItemsMetric.inc(purgedInBatch);
+                if (purgedInBatch < bulkRefundConfig.getPurgeBatchSize()) {
+                    break;
+                }
+            }
+            if (purged > 0) {
+                logger.info("Deleted {} bulk refunds submitted before {}", purged, createdBefore);
+            }
+        } catch (Exception e) {
+            logger.error("Exception when cleaning up bulk refunds", e);
+        } finally {
+            responseTimeStopwatch.stop();
+            metricRegistry.histogram("bulk-refund-cleanup.running_time").update(responseTimeStopwatch.elapsed(TimeUnit.MILLISECONDS));
+        }
+        return purged;
+    }
+}
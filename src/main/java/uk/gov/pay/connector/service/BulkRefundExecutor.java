@@ -0,0 +1,27 @@
+package uk.gov.pay.connector.service;
+
+import io.dropwizard.setup.Environment;
+import uk.gov.pay.connector.app.BulkRefundConfig;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+
+import javax.inject.Inject;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * Runs the gateway refunds of bulk refund jobs, within the limits of each gateway set by
+ * <code>bulkRefundConfig</code>. The pools are separate from those of {@link ExpiryCancelExecutor}, so a large
+ * job does not hold up the expiry sweep.
+ */
+public class BulkRefundExecutor extends GatewayRateLimitedExecutor {
+
+    @Inject
+    public BulkRefundExecutor(ConnectorConfiguration configuration, Environment environment) {
+        this(managedThreadPools(environment, "bulk-refund", configuration.getBulkRefundConfig().getGatewayRefundParallelism()),
+                configuration.getBulkRefundConfig());
+    }
+
+    BulkRefundExecutor(Function<PaymentGatewayName, ExecutorService> executorFactory, BulkRefundConfig bulkRefundConfig) {
+        super(executorFactory, bulkRefundConfig.getGatewayRefundsPerSecond());
+    }
+}
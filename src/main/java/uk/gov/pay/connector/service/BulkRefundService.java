@@ -0,0 +1,173 @@
+package uk.gov.pay.connector.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.dao.BulkRefundDao;
+import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.model.BulkRefundItem;
+import uk.gov.pay.connector.model.BulkRefundRequest;
+import uk.gov.pay.connector.model.GatewayError;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.util.RandomIdGenerator;
+
+import javax.inject.Inject;
+import javax.ws.rs.WebApplicationException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+
+import static java.lang.String.format;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static uk.gov.pay.connector.model.BulkRefundItem.Status.ERROR;
+import static uk.gov.pay.connector.model.BulkRefundItem.Status.PENDING;
+import static uk.gov.pay.connector.model.BulkRefundItem.Status.REJECTED;
+
+/**
+ * Refunds many charges of an account in one job. The charges are loaded and checked together when the job is
+ * submitted, and the refunds that pass are handed to {@link BulkRefundExecutor}, each going through
+ * {@link ChargeRefundService} exactly as a single refund would. The outcome of each refund is recorded against
+ * its item, for the job to be polled. Refunds are dispatched only in memory, so those left pending by a node that
+ * stopped are marked as errors by {@link BulkRefundCleanupProcess}.
+ */
+public class BulkRefundService {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ChargeDao chargeDao;
+    private final BulkRefundDao bulkRefundDao;
+    private final ChargeRefundService refundService;
+    private final BulkRefundExecutor bulkRefundExecutor;
+
+    @Inject
+    public BulkRefundService(ChargeDao chargeDao, BulkRefundDao bulkRefundDao, ChargeRefundService refundService,
+                             BulkRefundExecutor bulkRefundExecutor) {
+        this.chargeDao = chargeDao;
+        this.bulkRefundDao = bulkRefundDao;
+        this.refundService = refundService;
+        this.bulkRefundExecutor = bulkRefundExecutor;
+    }
+
+    /**
+     * @return the id of the job, whose refunds carry on after this returns
+     */
+    public String submit(Long accountId, BulkRefundRequest bulkRefundRequest) {
+        List<BulkRefundRequest.Item> requestItems = bulkRefundRequest.getRefunds();
+        Map<String, ChargeEntity> charges = findCharges(accountId, requestItems);
+
+        List<BulkRefundItem> items = new ArrayList<>();
+        Set<String> seenChargeIds = new HashSet<>();
+        for (int position = 0; position < requestItems.size(); position++) {
+            BulkRefundRequest.Item requestItem = requestItems.get(position);
+            Optional<String> rejection = rejectionOf(requestItem, charges.get(requestItem.getChargeId()), seenChargeIds);
+            items.add(rejection.isPresent()
+                    ? BulkRefundItem.rejected(position, requestItem, rejection.get())
+                    : BulkRefundItem.pending(position, requestItem));
+        }
+
+        String jobId = RandomIdGenerator.newId();
+        bulkRefundDao.persist(jobId, accountId, items);
+        logger.info("Bulk refund submitted - job_id={}, account_id={}, refunds={}, rejected={}",
+                jobId, accountId, items.size(), items.stream().filter(item -> item.getStatus() == REJECTED).count());
+
+        items.stream()
+                .filter(item -> item.getStatus() == PENDING)
+                .forEach(item -> dispatch(jobId, accountId, item, requestItems.get(item.getPosition()),
+                        charges.get(item.getChargeId()).getPaymentGatewayName()));
+        return jobId;
+    }
+
+    public List<BulkRefundItem> findItems(Long accountId, String jobId) {
+        return bulkRefundDao.findItems(jobId, accountId);
+    }
+
+    /**
+     * Charges that are not in the live tables are looked up one by one, which restores them if they were archived,
+     * since they are about to be refunded.
+     */
+    private Map<String, ChargeEntity> findCharges(Long accountId, List<BulkRefundRequest.Item> requestItems) {
+        Set<String> chargeIds = requestItems.stream().map(BulkRefundRequest.Item::getChargeId).collect(toSet());
+        Map<String, ChargeEntity> charges = new HashMap<>(chargeDao.findByExternalIdsAndGatewayAccount(chargeIds, accountId)
+                .stream()
+                .collect(toMap(ChargeEntity::getExternalId, identity())));
+        chargeIds.stream()
+                .filter(chargeId -> !charges.containsKey(chargeId))
+                .forEach(chargeId -> chargeDao.findByExternalIdAndGatewayAccountRestoringArchived(chargeId, accountId)
+                        .ifPresent(charge -> charges.put(chargeId, charge)));
+        return charges;
+    }
+
+    /**
+     * Checks against the charge as loaded, without its lock. {@link ChargeRefundService} checks again under the
+     * lock when the refund is made, so this only saves a gateway round trip for refunds that cannot go through.
+     */
+    private Optional<String> rejectionOf(BulkRefundRequest.Item requestItem, ChargeEntity charge, Set<String> seenChargeIds) {
+        if (charge == null) {
+            return Optional.of(format("Charge with id [%s] not found.", requestItem.getChargeId()));
+        }
+        if (!seenChargeIds.add(charge.getExternalId())) {
+            return Optional.of(format("Charge with id [%s] is refunded more than once in this request.", charge.getExternalId()));
+        }
+        if (charge.getTotalAmountToBeRefunded() != requestItem.getAmountAvailableForRefund()) {
+            return Optional.of("Refund Amount Available Mismatch");
+        }
+        if (charge.getTotalAmountToBeRefunded() < requestItem.getAmount()) {
+            return Optional.of("Not sufficient amount available for refund");
+        }
+        return Optional.empty();
+    }
+
+    private void dispatch(String jobId, Long accountId, BulkRefundItem item, BulkRefundRequest.Item requestItem,
+                          PaymentGatewayName gatewayName) {
+        bulkRefundExecutor.submit(gatewayName,
+                () -> refundService.doRefund(accountId, item.getChargeId(), requestItem.toRefundRequest()))
+                .whenComplete((response, error) -> {
+                    try {
+                        recordOutcome(jobId, item, response, error);
+                    } catch (Exception e) {
+                        logger.error("Could not record bulk refund outcome - job_id={}, position={}, charge_external_id={}",
+                                jobId, item.getPosition(), item.getChargeId(), e);
+                    }
+                });
+    }
+
+    private void recordOutcome(String jobId, BulkRefundItem item, Optional<ChargeRefundService.Response> response, Throwable error) {
+        boolean recorded;
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof WebApplicationException) {
+                recorded = bulkRefundDao.markFailed(jobId, item.getPosition(), REJECTED, messageOf((WebApplicationException) cause));
+            } else {
+                logger.error("Error during bulk refund of charge {} - job_id={}", item.getChargeId(), jobId, cause);
+                recorded = bulkRefundDao.markFailed(jobId, item.getPosition(), ERROR, format("something went wrong during refund of charge %s", item.getChargeId()));
+            }
+        } else if (!response.isPresent()) {
+            recorded = bulkRefundDao.markFailed(jobId, item.getPosition(), ERROR, format("something went wrong during refund of charge %s", item.getChargeId()));
+        } else if (response.get().getRefundGatewayResponse().isSuccessful()) {
+            recorded = bulkRefundDao.markSubmitted(jobId, item.getPosition(), response.get().getRefundEntity().getExternalId());
+        } else {
+            recorded = bulkRefundDao.markFailed(jobId, item.getPosition(), ERROR, response.get().getRefundGatewayResponse().getGatewayError()
+                    .map(GatewayError::getMessage)
+                    .orElse("unknown error"));
+        }
+        if (!recorded) {
+            // the cleanup marks items still pending after its timeout as errors, so the outcome came too late to show
+            logger.warn("Bulk refund outcome not recorded as the item is no longer pending - job_id={}, position={}, charge_external_id={}",
+                    jobId, item.getPosition(), item.getChargeId());
+        }
+    }
+
+    private String messageOf(WebApplicationException exception) {
+        Object entity = exception.getResponse().getEntity();
+        if (entity instanceof Map && ((Map) entity).get("message") != null) {
+            return String.valueOf(((Map) entity).get("message"));
+        }
+        return exception.getMessage();
+    }
+}
@@ -18,8 +18,8 @@ import uk.gov.pay.connector.service.transaction.TransactionContext;
 import uk.gov.pay.connector.service.transaction.TransactionalOperation;
 
 import java.time.ZonedDateTime;
-import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static uk.gov.pay.connector.model.domain.ChargeStatus.AUTHORISATION_3DS_READY;
@@ -85,7 +85,7 @@ class CancelServiceFunctions {
         };
     }
 
-    static String getLegalStatusNames(List<ChargeStatus> legalStatuses) {
+    static String getLegalStatusNames(Set<ChargeStatus> legalStatuses) {
         return legalStatuses.stream().map(ChargeStatus::toString).collect(Collectors.joining(", "));
     }
 }
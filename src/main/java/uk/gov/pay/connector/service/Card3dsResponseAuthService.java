@@ -1,6 +1,5 @@
 package uk.gov.pay.connector.service;
 
-import com.google.common.collect.ImmutableList;
 import com.google.inject.persist.Transactional;
 import io.dropwizard.setup.Environment;
 import org.apache.commons.lang3.StringUtils;
@@ -13,8 +12,9 @@ import uk.gov.pay.connector.model.gateway.Auth3dsResponseGatewayRequest;
 import uk.gov.pay.connector.model.gateway.GatewayResponse;
 
 import javax.inject.Inject;
-import java.util.List;
+import java.util.EnumSet;
 import java.util.Optional;
+import java.util.Set;
 
 import static uk.gov.pay.connector.model.domain.ChargeStatus.AUTHORISATION_3DS_READY;
 import static uk.gov.pay.connector.model.domain.ChargeStatus.AUTHORISATION_3DS_REQUIRED;
@@ -75,9 +75,14 @@ public class Card3dsResponseAuthService extends CardAuthoriseBaseService<Auth3ds
     }
 
     @Override
-    protected List<ChargeStatus> getLegalStates() {
-        return ImmutableList.of(
+    protected Set<ChargeStatus> getLegalStates() {
+        return EnumSet.of(
                 AUTHORISATION_3DS_REQUIRED
         );
     }
+
+    @Override
+    protected OperationType getOperationType() {
+        return OperationType.AUTHORISATION_3DS;
+    }
 }
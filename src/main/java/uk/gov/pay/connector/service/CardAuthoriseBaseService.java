@@ -13,7 +13,7 @@ import uk.gov.pay.connector.model.domain.ChargeStatus;
 import uk.gov.pay.connector.model.gateway.GatewayResponse;
 
 import javax.persistence.OptimisticLockException;
-import java.util.List;
+import java.util.Set;
 import java.util.function.Supplier;
 
 import static uk.gov.pay.connector.service.CardExecutorService.ExecutionStatus;
@@ -45,7 +45,9 @@ public abstract class CardAuthoriseBaseService<T extends AuthorisationDetails> e
                 return postOperation(preOperationResponse, gatewayAuthRequest, operationResponse);
             };
 
-            Pair<ExecutionStatus, GatewayResponse> executeResult = cardExecutorService.execute(authorisationSupplier);
+            // a retried request for an authorisation that is still running waits for that one instead of failing
+            String inFlightKey = getOperationType().name() + ":" + chargeId;
+            Pair<ExecutionStatus, GatewayResponse> executeResult = cardExecutorService.execute(inFlightKey, authorisationSupplier);
 
             switch (executeResult.getLeft()) {
                 case COMPLETED:
@@ -64,6 +66,8 @@ public abstract class CardAuthoriseBaseService<T extends AuthorisationDetails> e
 
     protected abstract GatewayResponse<BaseAuthoriseResponse> operation(ChargeEntity preOperationResponse, T gatewayAuthRequest);
 
-    protected abstract List<ChargeStatus> getLegalStates();
+    protected abstract Set<ChargeStatus> getLegalStates();
+
+    protected abstract OperationType getOperationType();
 
 }
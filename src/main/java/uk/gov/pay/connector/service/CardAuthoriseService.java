@@ -1,6 +1,5 @@
 package uk.gov.pay.connector.service;
 
-import com.google.common.collect.ImmutableList;
 import com.google.inject.persist.Transactional;
 import io.dropwizard.setup.Environment;
 import org.apache.commons.lang3.StringUtils;
@@ -11,8 +10,10 @@ import uk.gov.pay.connector.model.gateway.AuthorisationGatewayRequest;
 import uk.gov.pay.connector.model.gateway.GatewayResponse;
 
 import javax.inject.Inject;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static uk.gov.pay.connector.model.domain.ChargeStatus.AUTHORISATION_READY;
@@ -68,12 +69,17 @@ public class CardAuthoriseService extends CardAuthoriseBaseService<AuthCardDetai
     }
 
     @Override
-    protected List<ChargeStatus> getLegalStates() {
-        return ImmutableList.of(
+    protected Set<ChargeStatus> getLegalStates() {
+        return EnumSet.of(
                 ENTERING_CARD_DETAILS
         );
     }
 
+    @Override
+    protected OperationType getOperationType() {
+        return OperationType.AUTHORISATION;
+    }
+
     @Transactional
     public GatewayResponse<BaseAuthoriseResponse> postOperation(ChargeEntity chargeEntity, AuthCardDetails authCardDetails, GatewayResponse<BaseAuthoriseResponse> operationResponse) {
         ChargeEntity reloadedCharge = chargeDao.merge(chargeEntity);
@@ -0,0 +1,101 @@
+package uk.gov.pay.connector.service;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.dao.CardTypeDao;
+import uk.gov.pay.connector.model.domain.CardTypeEntity;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In-memory index of card brand to card type label, loaded from <code>card_types</code> in a single query
+ * so that charge responses can be built without a query per charge.
+ * <p>
+ * The index is loaded on first use and then reloaded every {@link #REFRESH_INTERVAL} by a scheduled
+ * task, off the request threads. A brand that is not in it is reloaded for once;
+ * a brand still missing after that is remembered as unknown until the next reload, so unknown brands cost at most
+ * one query each.
+ */
+public class CardBrandLabelIndex {
+
+    public static final Duration REFRESH_INTERVAL = Duration.ofMinutes(5);
+
+    private static final Logger logger = LoggerFactory.getLogger(CardBrandLabelIndex.class);
+
+    private final CardTypeDao cardTypeDao;
+    private volatile Snapshot snapshot;
+
+    @Inject
+    public CardBrandLabelIndex(CardTypeDao cardTypeDao) {
+        this.cardTypeDao = cardTypeDao;
+    }
+
+    public Optional<String> labelFor(String cardBrand) {
+        if (cardBrand == null) {
+            return Optional.empty();
+        }
+
+        Snapshot current = snapshot;
+        if (current == null) {
+            current = reload(null);
+        }
+        if (!current.labels.containsKey(cardBrand) && !current.unknownBrands.contains(cardBrand)) {
+            current = reloadForMissingBrand(current, cardBrand);
+        }
+        return Optional.ofNullable(current.labels.get(cardBrand));
+    }
+
+    /**
+     * Reloads the whole index; if the card types cannot be read, the labels loaded before are kept.
+     */
+    public synchronized void refresh() {
+        snapshot = load();
+    }
+
+    private synchronized Snapshot reload(Snapshot seen) {
+        if (snapshot == seen) {
+            snapshot = load();
+        }
+        return snapshot;
+    }
+
+    private synchronized Snapshot reloadForMissingBrand(Snapshot seen, String cardBrand) {
+        if (snapshot == seen) {
+            snapshot = load().withUnknownBrands(seen.unknownBrands);
+        }
+        if (!snapshot.labels.containsKey(cardBrand)) {
+            logger.info("No card type found for card brand {}", cardBrand);
+            snapshot = snapshot.withUnknownBrands(ImmutableSet.of(cardBrand));
+        }
+        return snapshot;
+    }
+
+    private Snapshot load() {
+        Map<String, String> labels = new HashMap<>();
+        for (CardTypeEntity cardType : cardTypeDao.findAll()) {
+            labels.putIfAbsent(cardType.getBrand(), cardType.getLabel());
+        }
+        return new Snapshot(ImmutableMap.copyOf(labels), ImmutableSet.of());
+    }
+
+    private static class Snapshot {
+        private final Map<String, String> labels;
+        private final Set<String> unknownBrands;
+
+        Snapshot(Map<String, String> labels, Set<String> unknownBrands) {
+            this.labels = labels;
+            this.unknownBrands = unknownBrands;
+        }
+
+        Snapshot withUnknownBrands(Set<String> brands) {
+            return new Snapshot(labels, ImmutableSet.<String>builder().addAll(unknownBrands).addAll(brands).build());
+        }
+    }
+}
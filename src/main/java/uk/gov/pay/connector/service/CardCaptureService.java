@@ -1,6 +1,6 @@
 package uk.gov.pay.connector.service;
 
-import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
 import com.google.inject.persist.Transactional;
 import io.dropwizard.setup.Environment;
 import uk.gov.pay.connector.dao.ChargeDao;
@@ -14,27 +14,27 @@ import uk.gov.pay.connector.model.gateway.GatewayResponse;
 
 import javax.inject.Inject;
 import java.time.ZonedDateTime;
-import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static uk.gov.pay.connector.model.domain.ChargeStatus.*;
 
 public class CardCaptureService extends CardService implements TransactionalGatewayOperation<BaseCaptureResponse> {
 
-    private static List<ChargeStatus> legalStatuses = ImmutableList.of(
+    private static final Set<ChargeStatus> LEGAL_STATUSES = Sets.immutableEnumSet(
             AUTHORISATION_SUCCESS,
             CAPTURE_APPROVED,
             CAPTURE_APPROVED_RETRY
     );
 
-    private final UserNotificationService userNotificationService;
+    private final EmailOutboxService emailOutboxService;
 
 
     @Inject
-    public CardCaptureService(ChargeDao chargeDao, PaymentProviders providers, UserNotificationService userNotificationService, Environment environment) {
+    public CardCaptureService(ChargeDao chargeDao, PaymentProviders providers, EmailOutboxService emailOutboxService, Environment environment) {
         super(chargeDao, providers, environment);
-        this.userNotificationService = userNotificationService;
+        this.emailOutboxService = emailOutboxService;
     }
 
     public GatewayResponse<BaseCaptureResponse> doCapture(String externalId) {
@@ -47,7 +47,7 @@ public class CardCaptureService extends CardService implements TransactionalGate
     @Transactional
     @Override
     public ChargeEntity preOperation(ChargeEntity chargeEntity) {
-        return preOperation(chargeEntity, CardService.OperationType.CAPTURE, legalStatuses, ChargeStatus.CAPTURE_READY);
+        return preOperation(chargeEntity, CardService.OperationType.CAPTURE, LEGAL_STATUSES, ChargeStatus.CAPTURE_READY);
     }
 
     @Transactional
@@ -107,7 +107,7 @@ public class CardCaptureService extends CardService implements TransactionalGate
         reloadedCharge = chargeDao.mergeAndNotifyStatusHasChanged(reloadedCharge, Optional.empty());
 
         if (operationResponse.isSuccessful()) {
-            userNotificationService.notifyPaymentSuccessEmail(reloadedCharge);
+            emailOutboxService.enqueuePaymentSuccessEmail(reloadedCharge);
         }
 
         //for sandbox, immediately move from CAPTURE_SUBMITTED to CAPTURED, as there will be no external notification
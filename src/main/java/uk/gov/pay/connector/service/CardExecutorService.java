@@ -26,6 +26,7 @@ public class CardExecutorService<T> {
 
     private ExecutorServiceConfig config;
     private ExecutorService executor;
+    private final ConcurrentMap<String, Future<T>> inFlight = new ConcurrentHashMap<>();
 
     public enum ExecutionStatus {
         COMPLETED,
@@ -73,19 +74,49 @@ public class CardExecutorService<T> {
     // accepts a supplier function and executed that in a separate Thread of its own.
     // returns a Pair of the execution status and the return type
     public Pair<ExecutionStatus, T> execute(Supplier<T> callable) {
-        Callable<T> task = callable::get;
-        final long startTime = System.currentTimeMillis();
+        return awaitResult(executor.submit(timedTask(callable)));
+    }
 
-        Future<T> futureObject = executor.submit(() -> {
+    // as above, but while a task submitted under the same key is still running no second one is started:
+    // the caller waits on the running task and gets its result, so a retried request does no duplicate work
+    public Pair<ExecutionStatus, T> execute(String key, Supplier<T> callable) {
+        FutureTask<T> task = new FutureTask<>(timedTask(callable));
+        // a finished task can still be in the map for a moment, until its thread removes it
+        Future<T> running = inFlight.compute(key, (k, existing) -> existing == null || existing.isDone() ? task : existing);
+        if (running == task) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        inFlight.remove(key, task);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(key, task);
+                throw e;
+            }
+        } else {
+            logger.info("Card operation already in flight, waiting for its result - key={}", key);
+            metricRegistry.counter("card-executor.in-flight-reused").inc();
+        }
+        return awaitResult(running);
+    }
+
+    private Callable<T> timedTask(Supplier<T> callable) {
+        final long startTime = System.currentTimeMillis();
+        return () -> {
             long totalWaitTime = System.currentTimeMillis() - startTime;
             logger.debug("Card operation task spent {} ms in queue", totalWaitTime);
             if (totalWaitTime > QUEUE_WAIT_WARN_THRESHOLD_MILLIS) {
                 logger.warn("CardExecutor Service delay - queue_wait_time={}", totalWaitTime);
             }
             metricRegistry.histogram("card-executor.delay").update(totalWaitTime);
-            return task.call();
-        });
+            return callable.get();
+        };
+    }
 
+    private Pair<ExecutionStatus, T> awaitResult(Future<T> futureObject) {
         try {
             return Pair.of(COMPLETED, futureObject.get(config.getTimeoutInSeconds(), TimeUnit.SECONDS));
         } catch (ExecutionException | InterruptedException exception) {
@@ -12,7 +12,7 @@ import uk.gov.pay.connector.model.domain.ChargeEntity;
 import uk.gov.pay.connector.model.domain.ChargeStatus;
 import uk.gov.pay.connector.model.domain.GatewayAccountEntity;
 
-import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static uk.gov.pay.connector.model.domain.ChargeStatus.fromString;
@@ -46,7 +46,7 @@ public abstract class CardService<T extends BaseResponse> {
         this.metricRegistry = environment.metrics();
     }
 
-    public ChargeEntity preOperation(ChargeEntity chargeEntity, OperationType operationType, List<ChargeStatus> legalStatuses, ChargeStatus lockingStatus) {
+    public ChargeEntity preOperation(ChargeEntity chargeEntity, OperationType operationType, Set<ChargeStatus> legalStatuses, ChargeStatus lockingStatus) {
         ChargeEntity reloadedCharge = chargeDao.merge(chargeEntity);
         GatewayAccountEntity gatewayAccount = chargeEntity.getGatewayAccount();
 
@@ -75,7 +75,7 @@ public abstract class CardService<T extends BaseResponse> {
         return reloadedCharge;
     }
 
-    private String getLegalStatusNames(List<ChargeStatus> legalStatuses) {
+    private String getLegalStatusNames(Set<ChargeStatus> legalStatuses) {
         return legalStatuses.stream().map(ChargeStatus::toString).collect(Collectors.joining(", "));
     }
 
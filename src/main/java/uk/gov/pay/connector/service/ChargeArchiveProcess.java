@@ -0,0 +1,86 @@
+package uk.gov.pay.connector.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import io.dropwizard.setup.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.ChargeArchiveConfig;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.dao.ChargeArchiveDao;
+import uk.gov.pay.connector.model.domain.ChargeStatus;
+
+import javax.inject.Inject;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static uk.gov.pay.connector.model.domain.ChargeStatus.*;
+
+public class ChargeArchiveProcess {
+
+    /**
+     * Statuses from which a charge never moves on by itself. A captured charge can still be refunded;
+     * charges with a refund in progress are never archived, and archived charges are restored when changed.
+     */
+    public static final List<ChargeStatus> ARCHIVABLE_STATUSES = ImmutableList.of(
+            AUTHORISATION_ABORTED,
+            AUTHORISATION_REJECTED,
+            AUTHORISATION_CANCELLED,
+            AUTHORISATION_ERROR,
+            CAPTURED,
+            CAPTURE_ERROR,
+            EXPIRED,
+            EXPIRE_CANCEL_FAILED,
+            SYSTEM_CANCELLED,
+            SYSTEM_CANCEL_ERROR,
+            USER_CANCELLED,
+            USER_CANCEL_ERROR);
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final ChargeArchiveDao chargeArchiveDao;
+    private final ChargeArchiveConfig archiveConfig;
+    private final MetricRegistry metricRegistry;
+    private final Counter archivedChargesMetric;
+
+    @Inject
+    public ChargeArchiveProcess(Environment environment, ChargeArchiveDao chargeArchiveDao, ConnectorConfiguration connectorConfiguration) {
+        this.chargeArchiveDao = chargeArchiveDao;
+        this.archiveConfig = connectorConfiguration.getChargeArchiveConfig();
+        this.metricRegistry = environment.metrics();
+        this.archivedChargesMetric = metricRegistry.counter("charge-archive.archived");
+    }
+
+    /**
+     * Archives eligible charges in batches, each in its own transaction, until none are left
+     * or the maximum number of batches for one run is reached.
+     *
+     * @return the number of charges archived
+     */
+    public int runArchive() {
+        Stopwatch responseTimeStopwatch = Stopwatch.createStarted();
+        ZonedDateTime createdBefore = ZonedDateTime.now().minus(archiveConfig.getArchiveAfterAsJavaDuration());
+        int archived = 0;
+        try {
+            for (int batch = 0; batch < archiveConfig.getMaximumBatchesPerRun(); batch++) {
+                int archivedInBatch = chargeArchiveDao.archive(ARCHIVABLE_STATUSES, createdBefore, archiveConfig.getBatchSize());
+                archived += archivedInBatch;
+                archivedChargesMetric.inc(archivedInBatch);
+                if (archivedInBatch < archiveConfig.getBatchSize()) {
+                    break;
+                }
+            }
+            if (archived > 0) {
+                logger.info("Archived {} charges created before {}", archived, createdBefore);
+            }
+        } catch (Exception e) {
+            logger.error("Exception when archiving charges", e);
+        } finally {
+            responseTimeStopwatch.stop();
+            metricRegistry.histogram("charge-archive.running_time").update(responseTimeStopwatch.elapsed(TimeUnit.MILLISECONDS));
+        }
+        return archived;
+    }
+}
@@ -0,0 +1,128 @@
+package uk.gov.pay.connector.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
+import io.dropwizard.setup.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.ChargeExpiryConfig;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.dao.SchedulerLeaseDao;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.util.RandomIdGenerator;
+
+import javax.inject.Inject;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static uk.gov.pay.connector.service.ChargeExpiryService.EXPIRABLE_STATUSES;
+import static uk.gov.pay.connector.service.ChargeExpiryService.EXPIRY_FAILED;
+import static uk.gov.pay.connector.service.ChargeExpiryService.EXPIRY_SUCCESS;
+
+public class ChargeExpiryProcess {
+
+    public static final String LEASE_NAME = "charge-expiry";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final ChargeDao chargeDao;
+    private final SchedulerLeaseDao schedulerLeaseDao;
+    private final ChargeExpiryService chargeExpiryService;
+    private final ChargeExpiryConfig expiryConfig;
+    private final MetricRegistry metricRegistry;
+    private final Counter expiredChargesMetric;
+    private final Counter failedChargesMetric;
+    private final Counter backlogMetric;
+
+    @Inject
+    public ChargeExpiryProcess(Environment environment, ChargeDao chargeDao, SchedulerLeaseDao schedulerLeaseDao,
+                               ChargeExpiryService chargeExpiryService, ConnectorConfiguration connectorConfiguration) {
+        this.chargeDao = chargeDao;
+        this.schedulerLeaseDao = schedulerLeaseDao;
+        this.chargeExpiryService = chargeExpiryService;
+        this.expiryConfig = connectorConfiguration.getChargeExpiryConfig();
+        this.metricRegistry = environment.metrics();
+        this.expiredChargesMetric = metricRegistry.counter("charge-expiry.expired");
+        this.failedChargesMetric = metricRegistry.counter("charge-expiry.failed");
+        this.backlogMetric = metricRegistry.counter("charge-expiry.backlog");
+    }
+
+    /**
+     * Runs a sweep now, under the same lease as the scheduled sweeps, so it never overlaps one running on any node.
+     *
+     * @return the result of the sweep, or empty if a sweep is already running and this one was not started
+     */
+    public Optional<Map<String, Integer>> runExpiryUnlessRunning() {
+        String owner = RandomIdGenerator.newId();
+        if (!schedulerLeaseDao.tryAcquire(LEASE_NAME, owner, expiryConfig.getLeaseDurationAsJavaDuration())) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(runExpiry());
+        } finally {
+            schedulerLeaseDao.release(LEASE_NAME, owner);
+        }
+    }
+
+    /**
+     * Expires charges older than the expiry window a page at a time, oldest first, until none are left
+     * or the time budget for one run is used up. It is scheduled as a task leased under {@link #LEASE_NAME},
+     * so only one connector node at a time runs a sweep. It takes no lease itself, see
+     * {@link #runExpiryUnlessRunning()}.
+     *
+     * @return the number of charges expired and the number that failed to expire
+     */
+    public Map<String, Integer> runExpiry() {
+        int expired = 0;
+        int failed = 0;
+
+        Stopwatch responseTimeStopwatch = Stopwatch.createStarted();
+        ZonedDateTime createdBefore = ZonedDateTime.now().minus(expiryConfig.getExpiryWindowAsJavaDuration());
+        long timeBudgetMillis = expiryConfig.getTimeBudgetAsJavaDuration().toMillis();
+        try {
+            updateBacklogMetric(chargeDao.countBeforeDateWithStatusIn(createdBefore, EXPIRABLE_STATUSES));
+
+            Optional<ChargeEntity> after = Optional.empty();
+            List<ChargeEntity> page;
+            do {
+                page = chargeDao.findPageBeforeDateWithStatusIn(createdBefore, EXPIRABLE_STATUSES, after, expiryConfig.getPageSize());
+                if (page.isEmpty()) {
+                    break;
+                }
+                // move past the page first, so charges that fail to expire are not picked up again in this run
+                after = Optional.of(page.get(page.size() - 1));
+                try {
+                    Map<String, Integer> result = chargeExpiryService.expire(page);
+                    expired += result.get(EXPIRY_SUCCESS);
+                    failed += result.get(EXPIRY_FAILED);
+                    expiredChargesMetric.inc(result.get(EXPIRY_SUCCESS));
+                    failedChargesMetric.inc(result.get(EXPIRY_FAILED));
+                } catch (Exception e) {
+                    logger.error("Exception when expiring a page of charges - first_charge_external_id={}",
+                            page.get(0).getExternalId(), e);
+                }
+            } while (page.size() == expiryConfig.getPageSize()
+                    && responseTimeStopwatch.elapsed(TimeUnit.MILLISECONDS) < timeBudgetMillis);
+
+            if (expired > 0 || failed > 0) {
+                logger.info("Charges expired - expired={}, failed={}, created_before={}", expired, failed, createdBefore);
+            }
+        } catch (Exception e) {
+            logger.error("Exception when expiring charges", e);
+        } finally {
+            responseTimeStopwatch.stop();
+            metricRegistry.histogram("charge-expiry.running_time").update(responseTimeStopwatch.elapsed(TimeUnit.MILLISECONDS));
+        }
+        return ImmutableMap.of(EXPIRY_SUCCESS, expired, EXPIRY_FAILED, failed);
+    }
+
+    private void updateBacklogMetric(long backlog) {
+        // Counters do not provide a set method to record a spot value, thus we need this workaround.
+        backlogMetric.inc(backlog - backlogMetric.getCount());
+    }
+}
@@ -15,9 +15,13 @@ import uk.gov.pay.connector.service.transaction.TransactionFlow;
 import uk.gov.pay.connector.service.transaction.TransactionalOperation;
 
 import javax.inject.Inject;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -40,17 +44,26 @@ public class ChargeExpiryService {
             AUTHORISATION_3DS_REQUIRED,
             AUTHORISATION_SUCCESS);
 
+    // expirable statuses reached before the gateway holds an authorisation, so nothing needs cancelling there
+    static final List<ChargeStatus> CANCELLATION_NOT_REQUIRED_STATUSES = ImmutableList.of(
+            CREATED,
+            ENTERING_CARD_DETAILS,
+            AUTHORISATION_3DS_REQUIRED);
+
     private final ChargeDao chargeDao;
     private final PaymentProviders providers;
     private Provider<TransactionFlow> transactionFlowProvider;
+    private final ExpiryCancelExecutor expiryCancelExecutor;
 
     @Inject
     public ChargeExpiryService(ChargeDao chargeDao,
                                PaymentProviders providers,
-                               Provider<TransactionFlow> transactionFlowProvider) {
+                               Provider<TransactionFlow> transactionFlowProvider,
+                               ExpiryCancelExecutor expiryCancelExecutor) {
         this.chargeDao = chargeDao;
         this.providers = providers;
         this.transactionFlowProvider = transactionFlowProvider;
+        this.expiryCancelExecutor = expiryCancelExecutor;
     }
 
     public Map<String, Integer> expire(List<ChargeEntity> charges) {
@@ -67,14 +80,18 @@ public class ChargeExpiryService {
     }
 
     private int expireChargesWithCancellationNotRequired(List<ChargeEntity> nonAuthSuccessCharges) {
-        List<ChargeEntity> processedEntities = nonAuthSuccessCharges
-                .stream().map(chargeEntity -> transactionFlowProvider.get()
-                        .executeNext(changeStatusTo(chargeDao, chargeEntity, EXPIRED, Optional.empty()))
-                        .complete()
-                        .get(ChargeEntity.class))
-                .collect(Collectors.toList());
-
-        return processedEntities.size();
+        List<Long> chargeIds = nonAuthSuccessCharges.stream().map(ChargeEntity::getId).collect(Collectors.toList());
+        Set<Long> expiredIds = new HashSet<>(chargeDao.transitionStatusInBulk(chargeIds, CANCELLATION_NOT_REQUIRED_STATUSES, EXPIRED));
+
+        // the expired charges are stale now they are expired in the database, so they are dropped from the
+        // persistence context rather than changed; charges that moved on since they were loaded are left as they are
+        nonAuthSuccessCharges.stream()
+                .filter(chargeEntity -> expiredIds.contains(chargeEntity.getId()))
+                .forEach(chargeDao::detach);
+        logger.info("Charges expired without cancellation - number_of_charges={}, number_expired={}",
+                chargeIds.size(), expiredIds.size());
+
+        return expiredIds.size();
     }
 
     private Pair<Integer, Integer> expireChargesWithGatewayCancellation(List<ChargeEntity> gatewayAuthorizedCharges) {
@@ -83,12 +100,28 @@ public class ChargeExpiryService {
         final List<ChargeEntity> expireCancelFailed = newArrayList();
         final List<ChargeEntity> unexpectedStatuses = newArrayList();
 
-        gatewayAuthorizedCharges.forEach(chargeEntity -> {
-            ChargeEntity processedEntity = transactionFlowProvider.get()
-                    .executeNext(prepareForTerminate(chargeDao, chargeEntity, EXPIRE_FLOW))
-                    .executeNext(doGatewayCancel(providers))
-                    .executeNext(finishExpireCancel())
-                    .complete().get(ChargeEntity.class);
+        // every cancellation is submitted before any is waited on, so they run concurrently within each gateway's limits
+        List<Pair<ChargeEntity, CompletableFuture<ChargeEntity>>> cancellations = gatewayAuthorizedCharges.stream()
+                .map(chargeEntity -> Pair.of(chargeEntity, expiryCancelExecutor.submit(chargeEntity.getPaymentGatewayName(),
+                        () -> transactionFlowProvider.get()
+                                .executeNext(prepareForTerminate(chargeDao, chargeEntity, EXPIRE_FLOW))
+                                .executeNext(doGatewayCancel(providers))
+                                .executeNext(finishExpireCancel())
+                                .complete().get(ChargeEntity.class))))
+                .collect(Collectors.toList());
+
+        cancellations.forEach(cancellation -> {
+            ChargeEntity chargeEntity = cancellation.getLeft();
+            ChargeEntity processedEntity;
+            try {
+                processedEntity = cancellation.getRight().join();
+            } catch (CompletionException e) {
+                // the charge did not reach a terminal status, so it counts as failed
+                logger.error("Exception when expiring charge with gateway cancellation - charge_external_id={}",
+                        chargeEntity.getExternalId(), e.getCause());
+                expireCancelFailed.add(chargeEntity);
+                return;
+            }
 
             if (processedEntity == null) {
                 //this shouldn't happen, but don't break the expiry job
@@ -66,7 +66,7 @@ public class ChargeRefundService {
     }
 
     public Optional<Response> doRefund(Long accountId, String chargeId, RefundRequest refundRequest) {
-        return chargeDao.findByExternalIdAndGatewayAccount(chargeId, accountId)
+        return chargeDao.findByExternalIdAndGatewayAccountRestoringArchived(chargeId, accountId)
                 .map(chargeEntity -> refundWithGateway(chargeEntity, refundRequest))
                 .orElseThrow(() -> new ChargeNotFoundRuntimeException(chargeId));
     }
@@ -87,7 +87,7 @@ public class ChargeRefundService {
             GatewayAccountEntity gatewayAccount = reloadedCharge.getGatewayAccount();
             checkIfChargeIsRefundableOrTerminate(reloadedCharge, refundAvailability, gatewayAccount);
 
-            long totalAmountToBeRefunded = reloadedCharge.getTotalAmountToBeRefunded();
+            long totalAmountToBeRefunded = refundDao.lockAmountAvailableForRefund(reloadedCharge);
             checkIfRefundRequestIsInConflictOrTerminate(refundRequest, reloadedCharge, totalAmountToBeRefunded);
 
             checkIfRefundAmountWithinLimitOrTerminate(refundRequest, reloadedCharge, refundAvailability, gatewayAccount, totalAmountToBeRefunded);
@@ -130,7 +130,7 @@ public class ChargeRefundService {
             logger.info("Refund status to update - status={}, to_status={} for transaction_id={}, charge_id={}, charge_external_id={}, refund_id={}, refund_external_id={}, refund_reference={}, refund_status={}, refund_amount={}",
                     refundEntity.getStatus(), status, chargeEntity.getGatewayTransactionId(), chargeEntity.getId(), chargeEntity.getExternalId(), refundEntity.getId(), refundEntity.getExternalId(), reference, refundEntity.getStatus(), refundEntity.getAmount());
 
-            refundEntity.setStatus(status);
+            refundDao.updateStatus(refundEntity, status);
             refundEntity.setReference(reference);
             return new Response(gatewayResponse, refundEntity);
         };
@@ -138,7 +138,6 @@ public class ChargeRefundService {
 
     private RefundEntity completePrepareRefund(RefundRequest refundRequest, ChargeEntity reloadedCharge) {
         RefundEntity refundEntity = new RefundEntity(reloadedCharge, refundRequest.getAmount());
-        reloadedCharge.getRefunds().add(refundEntity);
         refundDao.persist(refundEntity);
         return refundEntity;
     }
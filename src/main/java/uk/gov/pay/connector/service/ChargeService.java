@@ -5,12 +5,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.LinksConfig;
-import uk.gov.pay.connector.dao.CardTypeDao;
 import uk.gov.pay.connector.dao.ChargeDao;
-import uk.gov.pay.connector.dao.TokenDao;
 import uk.gov.pay.connector.model.ChargeResponse;
 import uk.gov.pay.connector.model.builder.PatchRequestBuilder;
-import uk.gov.pay.connector.model.domain.CardTypeEntity;
 import uk.gov.pay.connector.model.domain.ChargeEntity;
 import uk.gov.pay.connector.model.domain.ChargeStatus;
 import uk.gov.pay.connector.model.domain.GatewayAccountEntity;
@@ -28,6 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static javax.ws.rs.HttpMethod.GET;
 import static javax.ws.rs.HttpMethod.POST;
@@ -43,32 +41,56 @@ public class ChargeService {
     private static final Logger logger = LoggerFactory.getLogger(ChargeService.class);
 
     private ChargeDao chargeDao;
-    private CardTypeDao cardTypeDao;
-    private TokenDao tokenDao;
+    private CardBrandLabelIndex cardBrandLabelIndex;
+    private TokenService tokenService;
     private LinksConfig linksConfig;
     private PaymentProviders providers;
 
     @Inject
-    public ChargeService(TokenDao tokenDao, ChargeDao chargeDao, ConnectorConfiguration config, CardTypeDao cardTypeDao, PaymentProviders providers) {
-        this.tokenDao = tokenDao;
+    public ChargeService(TokenService tokenService, ChargeDao chargeDao, ConnectorConfiguration config, CardBrandLabelIndex cardBrandLabelIndex, PaymentProviders providers) {
+        this.tokenService = tokenService;
         this.chargeDao = chargeDao;
-        this.cardTypeDao = cardTypeDao;
+        this.cardBrandLabelIndex = cardBrandLabelIndex;
         this.linksConfig = config.getLinks();
         this.providers = providers;
     }
 
     @Transactional
     public ChargeResponse create(Map<String, String> chargeRequest, GatewayAccountEntity gatewayAccount, UriInfo uriInfo) {
+        ChargeEntity chargeEntity = newChargeEntity(chargeRequest, gatewayAccount);
+        chargeDao.persist(chargeEntity);
+        return chargeResponseBuilder(uriInfo, chargeEntity, tokenService.issueNewTokenFor(chargeEntity)).build();
+    }
+
+    /**
+     * Creates the charges of already validated requests in one transaction, with their inserts sent in batches.
+     *
+     * @return the created charges, in the order of the requests
+     */
+    @Transactional
+    public List<ChargeResponse> createAll(List<Map<String, String>> chargeRequests, GatewayAccountEntity gatewayAccount, UriInfo uriInfo) {
+        List<ChargeEntity> chargeEntities = chargeRequests.stream()
+                .map(chargeRequest -> newChargeEntity(chargeRequest, gatewayAccount))
+                .collect(Collectors.toList());
+        chargeDao.persistAll(chargeEntities);
+        List<TokenEntity> tokens = tokenService.issueNewTokensFor(chargeEntities);
+
+        List<ChargeResponse> responses = new ArrayList<>();
+        for (int i = 0; i < chargeEntities.size(); i++) {
+            responses.add(chargeResponseBuilder(uriInfo, chargeEntities.get(i), tokens.get(i)).build());
+        }
+        return responses;
+    }
+
+    private ChargeEntity newChargeEntity(Map<String, String> chargeRequest, GatewayAccountEntity gatewayAccount) {
         String email = chargeRequest.get("email") != null ? chargeRequest.get("email") : null;
-        ChargeEntity chargeEntity = new ChargeEntity(new Long(chargeRequest.get("amount")),
+        return new ChargeEntity(new Long(chargeRequest.get("amount")),
                 chargeRequest.get("return_url"),
                 chargeRequest.get("description"),
                 chargeRequest.get("reference"),
                 gatewayAccount,
                 email
         );
-        chargeDao.persist(chargeEntity);
-        return chargeResponseBuilder(uriInfo, chargeEntity, createNewChargeEntityToken(chargeEntity)).build();
     }
 
     @Transactional
@@ -80,7 +102,7 @@ public class ChargeService {
 
     public ChargeResponse buildChargeResponse(UriInfo uriInfo, ChargeEntity chargeEntity) {
         if (!ChargeStatus.fromString(chargeEntity.getStatus()).toExternal().isFinished()) {
-            return chargeResponseBuilder(uriInfo, chargeEntity, createNewChargeEntityToken(chargeEntity)).build();
+            return chargeResponseBuilder(uriInfo, chargeEntity, tokenService.issueTokenFor(chargeEntity)).build();
         }
         return chargeResponseBuilder(uriInfo, chargeEntity).build();
     }
@@ -109,12 +131,6 @@ public class ChargeService {
         return chargeEntity;
     }
 
-    private TokenEntity createNewChargeEntityToken(ChargeEntity chargeEntity) {
-        TokenEntity token = TokenEntity.generateNewTokenFor(chargeEntity);
-        tokenDao.persist(token);
-        return token;
-    }
-
     private ChargeResponseBuilder chargeResponseBuilder(UriInfo uriInfo, ChargeEntity charge, TokenEntity token) {
         return chargeResponseBuilder(uriInfo, charge)
                 .withLink("next_url", GET, nextUrl(token.getToken()))
@@ -123,24 +139,13 @@ public class ChargeService {
                 }});
     }
 
-    private Optional<String> findCardBrandLabel(String cardBrand) {
-        if (cardBrand == null) {
-            return Optional.empty();
-        }
-
-        return cardTypeDao.findByBrand(cardBrand)
-                .stream()
-                .findFirst()
-                .map(CardTypeEntity::getLabel);
-    }
-
 
     private ChargeResponseBuilder chargeResponseBuilder(UriInfo uriInfo, ChargeEntity charge) {
         String chargeId = charge.getExternalId();
         PersistedCard persistedCard = null;
         if (charge.getCardDetails() != null) {
             persistedCard = charge.getCardDetails().toCard();
-            persistedCard.setCardBrand(findCardBrandLabel(charge.getCardDetails().getCardBrand()).orElse(""));
+            persistedCard.setCardBrand(cardBrandLabelIndex.labelFor(charge.getCardDetails().getCardBrand()).orElse(""));
         }
 
         ChargeResponse.Auth3dsData auth3dsData = null;
@@ -0,0 +1,135 @@
+package uk.gov.pay.connector.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.dao.ChargeSearchParams;
+import uk.gov.pay.connector.model.ChargeExportRow;
+import uk.gov.pay.connector.model.api.ExternalChargeState;
+import uk.gov.pay.connector.model.domain.ChargeStatus;
+import uk.gov.pay.connector.util.DateTimeUtils;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes charges matching a search straight from the database cursor to the response stream,
+ * so an export of any size needs the same amount of memory.
+ */
+public class ChargesExportService {
+
+    public enum Format {
+        CSV("text/csv"),
+        NDJSON("application/x-ndjson");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+    }
+
+    static final String[] COLUMNS = {
+            "charge_id", "reference", "description", "email", "amount", "state", "finished",
+            "card_brand", "gateway_transaction_id", "created_date"};
+
+    private final ChargeDao chargeDao;
+    private final CardBrandLabelIndex cardBrandLabelIndex;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    @Inject
+    public ChargesExportService(ChargeDao chargeDao, CardBrandLabelIndex cardBrandLabelIndex,
+                                ObjectMapper objectMapper, ConnectorConfiguration configuration) {
+        this.chargeDao = chargeDao;
+        this.cardBrandLabelIndex = cardBrandLabelIndex;
+        this.objectMapper = objectMapper;
+        this.fetchSize = configuration.getTransactionsPaginationConfig().getExportFetchSize();
+    }
+
+    public void export(ChargeSearchParams searchParams, Format format, OutputStream output) throws IOException {
+        switch (format) {
+            case CSV:
+                writeCsv(searchParams, output);
+                break;
+            case NDJSON:
+                writeNdjson(searchParams, output);
+                break;
+        }
+    }
+
+    // the writers are only closed once every row is written: a read that fails part way leaves the response
+    // unfinished, so the client sees it cut off rather than a complete but short export
+    private void writeCsv(ChargeSearchParams searchParams, OutputStream output) throws IOException {
+        Writer writer = new OutputStreamWriter(output, UTF_8);
+        CSVPrinter csv = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(COLUMNS));
+        forEachMatching(searchParams, row -> csv.printRecord(valuesOf(row)));
+        csv.close();
+    }
+
+    private void writeNdjson(ChargeSearchParams searchParams, OutputStream output) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(output);
+        json.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        forEachMatching(searchParams, row -> {
+            Object[] values = valuesOf(row);
+            json.writeStartObject();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                json.writeObjectField(COLUMNS[i], values[i]);
+            }
+            json.writeEndObject();
+        });
+        json.writeRaw('\n');
+        json.close();
+    }
+
+    private Object[] valuesOf(ChargeExportRow row) {
+        ExternalChargeState state = ChargeStatus.fromString(row.getStatus()).toExternal();
+        String cardBrand = cardBrandLabelIndex.labelFor(row.getCardBrand()).orElse(row.getCardBrand());
+        return new Object[]{
+                row.getChargeId(),
+                row.getReference(),
+                row.getDescription(),
+                row.getEmail(),
+                row.getAmount(),
+                state.getStatus(),
+                state.isFinished(),
+                cardBrand,
+                row.getGatewayTransactionId(),
+                DateTimeUtils.toUTCDateTimeString(row.getCreatedDate())};
+    }
+
+    private void forEachMatching(ChargeSearchParams searchParams, RowWriter rowWriter) throws IOException {
+        Consumer<ChargeExportRow> consumer = row -> {
+            try {
+                rowWriter.write(row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        try {
+            chargeDao.forEachMatching(searchParams, fetchSize, consumer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ChargeExportRow row) throws IOException;
+    }
+}
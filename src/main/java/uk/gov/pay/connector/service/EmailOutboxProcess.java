@@ -0,0 +1,227 @@
+package uk.gov.pay.connector.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.RateLimiter;
+import io.dropwizard.setup.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.EmailOutboxConfig;
+import uk.gov.pay.connector.dao.EmailOutboxDao;
+import uk.gov.pay.connector.model.EmailOutboxItem;
+import uk.gov.service.notify.NotificationClientException;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Sends the emails queued in the email outbox through Notify, then follows up on their delivery.
+ * It is scheduled as a leased task, so only one connector node at a time sends and the rate limit toward Notify
+ * holds across nodes.
+ */
+public class EmailOutboxProcess {
+
+    private static final String NOTIFY_STATUS_DELIVERED = "delivered";
+    private static final String NOTIFY_STATUS_FAILURE_SUFFIX = "-failure";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final EmailOutboxDao emailOutboxDao;
+    private final UserNotificationService userNotificationService;
+    private final EmailOutboxConfig emailOutboxConfig;
+    private final ExecutorService executor;
+    private final RateLimiter rateLimiter;
+    private final MetricRegistry metricRegistry;
+    private final Counter depthMetric;
+    private final Counter sentMetric;
+    private final Counter failedMetric;
+    private final Counter deliveredMetric;
+    private final Counter undeliveredMetric;
+    private final Counter purgedMetric;
+    private final Histogram sendLatencyMetric;
+
+    @Inject
+    public EmailOutboxProcess(Environment environment, EmailOutboxDao emailOutboxDao,
+                              UserNotificationService userNotificationService, ConnectorConfiguration connectorConfiguration) {
+        this(environment.metrics(), emailOutboxDao, userNotificationService, connectorConfiguration.getEmailOutboxConfig(),
+                environment.lifecycle()
+                        .executorService("email-outbox-%d")
+                        .minThreads(connectorConfiguration.getEmailOutboxConfig().getSendParallelism())
+                        .maxThreads(connectorConfiguration.getEmailOutboxConfig().getSendParallelism())
+                        .build());
+    }
+
+    EmailOutboxProcess(MetricRegistry metricRegistry, EmailOutboxDao emailOutboxDao,
+                       UserNotificationService userNotificationService, EmailOutboxConfig emailOutboxConfig, ExecutorService executor) {
+        this.emailOutboxDao = emailOutboxDao;
+        this.userNotificationService = userNotificationService;
+        this.emailOutboxConfig = emailOutboxConfig;
+        this.executor = executor;
+        this.rateLimiter = RateLimiter.create(emailOutboxConfig.getSendsPerSecond());
+        this.metricRegistry = metricRegistry;
+        this.depthMetric = metricRegistry.counter("email-outbox.depth");
+        this.sentMetric = metricRegistry.counter("email-outbox.sent");
+        this.failedMetric = metricRegistry.counter("email-outbox.failed");
+        this.deliveredMetric = metricRegistry.counter("email-outbox.delivered");
+        this.undeliveredMetric = metricRegistry.counter("email-outbox.undelivered");
+        this.purgedMetric = metricRegistry.counter("email-outbox.purged");
+        this.sendLatencyMetric = metricRegistry.histogram("email-outbox.send_latency");
+    }
+
+    /**
+     * Sends the emails that are due, a page at a time, oldest first, and then checks the delivery of the emails
+     * sent earlier, until neither is left or the time budget for one run is used up. Emails in a page are sent
+     * concurrently, up to the configured parallelism and rate. With any time left, emails past their retention
+     * are deleted.
+     */
+    public void runEmailOutbox() {
+        Stopwatch responseTimeStopwatch = Stopwatch.createStarted();
+        ZonedDateTime now = ZonedDateTime.now();
+        try {
+            // Counters do not provide a set method to record a spot value, thus we need this workaround.
+            depthMetric.inc(emailOutboxDao.countPending() - depthMetric.getCount());
+
+            processPages(responseTimeStopwatch,
+                    (afterId, limit) -> emailOutboxDao.findPageDueToSend(now, afterId, limit),
+                    item -> send(item, now));
+            ZonedDateTime sentSince = now.minus(emailOutboxConfig.getDeliveryCheckWindowAsJavaDuration());
+            processPages(responseTimeStopwatch,
+                    (afterId, limit) -> emailOutboxDao.findPageDueForDeliveryCheck(now, sentSince, afterId, limit),
+                    item -> checkDelivery(item, now));
+            purge(responseTimeStopwatch, now.minus(emailOutboxConfig.getRetentionAsJavaDuration()));
+        } catch (Exception e) {
+            logger.error("Exception when sending emails from the email outbox", e);
+        } finally {
+            responseTimeStopwatch.stop();
+            metricRegistry.histogram("email-outbox.running_time").update(responseTimeStopwatch.elapsed(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private void processPages(Stopwatch responseTimeStopwatch, BiFunction<Long, Integer, List<EmailOutboxItem>> pageFinder,
+                              Consumer<EmailOutboxItem> processor) {
+        long timeBudgetMillis = emailOutboxConfig.getTimeBudgetAsJavaDuration().toMillis();
+        long afterId = 0;
+        List<EmailOutboxItem> page;
+        while (responseTimeStopwatch.elapsed(TimeUnit.MILLISECONDS) < timeBudgetMillis) {
+            page = pageFinder.apply(afterId, emailOutboxConfig.getPageSize());
+            if (page.isEmpty()) {
+                return;
+            }
+            afterId = page.get(page.size() - 1).getId();
+            CompletableFuture.allOf(page.stream()
+                    .map(item -> CompletableFuture.runAsync(() -> {
+                        rateLimiter.acquire();
+                        process(item, processor);
+                    }, executor))
+                    .toArray(CompletableFuture[]::new))
+                    .join();
+            if (page.size() < emailOutboxConfig.getPageSize()) {
+                return;
+            }
+        }
+    }
+
+    private void purge(Stopwatch responseTimeStopwatch, ZonedDateTime createdBefore) {
+        long timeBudgetMillis = emailOutboxConfig.getTimeBudgetAsJavaDuration().toMillis();
+        int purged = 0;
+        int purgedInBatch;
+        do {
+            if (responseTimeStopwatch.elapsed(TimeUnit.MILLISECONDS) >= timeBudgetMillis) {
+                break;
+            }
+            purgedInBatch = emailOutboxDao.deleteFinishedCreatedBefore(createdBefore, emailOutboxConfig.getPurgeBatchSize());
+            purged += purgedInBatch;
+            purgedMetric.inc(purgedInBatch);
+        } while (purgedInBatch == emailOutboxConfig.getPurgeBatchSize());
+        if (purged > 0) {
+            logger.info("Deleted {} emails queued before {}", purged, createdBefore);
+        }
+    }
+
+    private void process(EmailOutboxItem item, Consumer<EmailOutboxItem> processor) {
+        try {
+            processor.accept(item);
+        } catch (Exception e) {
+            logger.error("Exception when processing email {} in the email outbox - charge_external_id={}",
+                    item.getId(), item.getChargeExternalId(), e);
+        }
+    }
+
+    private void send(EmailOutboxItem item, ZonedDateTime now) {
+        String notificationId;
+        try {
+            notificationId = userNotificationService.sendPaymentSuccessEmail(item.getEmailAddress(), item.getPersonalisation());
+        } catch (NotificationClientException e) {
+            recordFailedAttempt(item, now, e, isPermanent(e));
+            return;
+        } catch (Exception e) {
+            recordFailedAttempt(item, now, e, false);
+            return;
+        }
+
+        emailOutboxDao.markSent(item.getId(), notificationId, now.plus(emailOutboxConfig.getDeliveryCheckIntervalAsJavaDuration()));
+        sentMetric.inc();
+        sendLatencyMetric.update(Duration.between(item.getCreatedDate(), ZonedDateTime.now()).toMillis());
+        logger.info("Email sent - charge_external_id={}, notification_id={}", item.getChargeExternalId(), notificationId);
+    }
+
+    private void recordFailedAttempt(EmailOutboxItem item, ZonedDateTime now, Exception e, boolean permanent) {
+        int attempts = item.getAttempts() + 1;
+        if (permanent || attempts >= emailOutboxConfig.getMaximumAttempts()) {
+            emailOutboxDao.markFailed(item.getId(), e.toString());
+            failedMetric.inc();
+            logger.error("Failed to send email, giving up - charge_external_id={}, attempts={}, error={}",
+                    item.getChargeExternalId(), attempts, e.toString());
+            return;
+        }
+
+        ZonedDateTime retryAt = now.plus(retryDelay(item.getAttempts()));
+        emailOutboxDao.markAttemptFailed(item.getId(), retryAt, e.toString());
+        logger.warn("Failed to send email, will retry - charge_external_id={}, attempts={}, retry_at={}, error={}",
+                item.getChargeExternalId(), attempts, retryAt, e.toString());
+    }
+
+    private Duration retryDelay(int previousAttempts) {
+        Duration maximumRetryDelay = emailOutboxConfig.getMaximumRetryDelayAsJavaDuration();
+        Duration retryDelay = emailOutboxConfig.getInitialRetryDelayAsJavaDuration().multipliedBy(1L << Math.min(previousAttempts, 30));
+        return retryDelay.compareTo(maximumRetryDelay) > 0 ? maximumRetryDelay : retryDelay;
+    }
+
+    private boolean isPermanent(NotificationClientException e) {
+        // Notify rejects a malformed email or a bad API key with these; sending it again would meet the same answer
+        return e.getHttpResult() == 400 || e.getHttpResult() == 403;
+    }
+
+    private void checkDelivery(EmailOutboxItem item, ZonedDateTime now) {
+        String status;
+        try {
+            status = userNotificationService.checkDeliveryStatus(item.getNotificationId());
+        } catch (NotificationClientException e) {
+            logger.warn("Failed to check the delivery of email - charge_external_id={}, notification_id={}, error={}",
+                    item.getChargeExternalId(), item.getNotificationId(), e.toString());
+            emailOutboxDao.postponeDeliveryCheck(item.getId(), now.plus(emailOutboxConfig.getDeliveryCheckIntervalAsJavaDuration()));
+            return;
+        }
+
+        if (NOTIFY_STATUS_DELIVERED.equals(status)) {
+            emailOutboxDao.markDelivered(item.getId());
+            deliveredMetric.inc();
+        } else if (status != null && status.endsWith(NOTIFY_STATUS_FAILURE_SUFFIX)) {
+            emailOutboxDao.markUndelivered(item.getId(), "Notify status " + status);
+            undeliveredMetric.inc();
+            logger.warn("Email was not delivered - charge_external_id={}, notification_id={}, status={}",
+                    item.getChargeExternalId(), item.getNotificationId(), status);
+        } else {
+            emailOutboxDao.postponeDeliveryCheck(item.getId(), now.plus(emailOutboxConfig.getDeliveryCheckIntervalAsJavaDuration()));
+        }
+    }
+}
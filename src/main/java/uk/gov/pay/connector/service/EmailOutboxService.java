@@ -0,0 +1,44 @@
+package uk.gov.pay.connector.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.dao.EmailOutboxDao;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+
+import javax.inject.Inject;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Queues the emails that go out to paying users. The queued emails are sent by the {@link EmailOutboxProcess}.
+ */
+public class EmailOutboxService {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final EmailOutboxDao emailOutboxDao;
+    private final UserNotificationService userNotificationService;
+
+    @Inject
+    public EmailOutboxService(EmailOutboxDao emailOutboxDao, UserNotificationService userNotificationService) {
+        this.emailOutboxDao = emailOutboxDao;
+        this.userNotificationService = userNotificationService;
+    }
+
+    /**
+     * Queues the payment confirmation email for the charge, if its service sends one. Called within the
+     * transaction that captures the charge, so the email is queued if and only if the capture is recorded.
+     * A charge created without an email address gets no email; this must not fail the capture.
+     */
+    public void enqueuePaymentSuccessEmail(ChargeEntity chargeEntity) {
+        if (!userNotificationService.isPaymentSuccessEmailEnabledFor(chargeEntity)) {
+            return;
+        }
+        if (isBlank(chargeEntity.getEmail())) {
+            logger.info("No payment confirmation email queued, the charge has no email address - charge_external_id={}",
+                    chargeEntity.getExternalId());
+            return;
+        }
+        emailOutboxDao.enqueue(chargeEntity.getExternalId(), chargeEntity.getEmail(),
+                userNotificationService.paymentSuccessPersonalisation(chargeEntity));
+    }
+}
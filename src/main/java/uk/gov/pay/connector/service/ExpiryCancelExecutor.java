@@ -0,0 +1,26 @@
+package uk.gov.pay.connector.service;
+
+import io.dropwizard.setup.Environment;
+import uk.gov.pay.connector.app.ChargeExpiryConfig;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+
+import javax.inject.Inject;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * Runs the gateway cancellations of the expiry sweep, within the limits of each gateway set by
+ * <code>chargeExpiryConfig</code>.
+ */
+public class ExpiryCancelExecutor extends GatewayRateLimitedExecutor {
+
+    @Inject
+    public ExpiryCancelExecutor(ConnectorConfiguration configuration, Environment environment) {
+        this(managedThreadPools(environment, "expiry-cancel", configuration.getChargeExpiryConfig().getGatewayCancelParallelism()),
+                configuration.getChargeExpiryConfig());
+    }
+
+    ExpiryCancelExecutor(Function<PaymentGatewayName, ExecutorService> executorFactory, ChargeExpiryConfig expiryConfig) {
+        super(executorFactory, expiryConfig.getGatewayCancelsPerSecond());
+    }
+}
@@ -4,7 +4,8 @@ public enum GatewayOperation {
     AUTHORISE("auth"),
     CAPTURE("capture"),
     REFUND("refund"),
-    CANCEL("cancel");
+    CANCEL("cancel"),
+    INQUIRY("inquiry");
 
 
     private final String description;
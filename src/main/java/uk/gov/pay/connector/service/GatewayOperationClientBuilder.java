@@ -34,6 +34,11 @@ public class GatewayOperationClientBuilder {
         return this;
     }
 
+    public GatewayOperationClientBuilder inquiryClient(GatewayClient gatewayClient) {
+        operationGatewayClientEnumMap.put(GatewayOperation.INQUIRY, gatewayClient);
+        return this;
+    }
+
     public EnumMap<GatewayOperation, GatewayClient> build() {
         return operationGatewayClientEnumMap;
     }
@@ -0,0 +1,49 @@
+package uk.gov.pay.connector.service;
+
+import com.google.common.util.concurrent.RateLimiter;
+import io.dropwizard.setup.Environment;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs requests to the gateways concurrently. Each gateway has its own thread pool, bounding how many of its
+ * requests are in flight, and its own rate limit, so a large backlog stays within the gateway's request quota
+ * and a slow gateway cannot hold up requests to the others.
+ */
+public class GatewayRateLimitedExecutor {
+
+    private final Map<PaymentGatewayName, ExecutorService> executors = new EnumMap<>(PaymentGatewayName.class);
+    private final Map<PaymentGatewayName, RateLimiter> rateLimiters = new EnumMap<>(PaymentGatewayName.class);
+
+    GatewayRateLimitedExecutor(Function<PaymentGatewayName, ExecutorService> executorFactory, double requestsPerSecond) {
+        for (PaymentGatewayName gatewayName : PaymentGatewayName.values()) {
+            executors.put(gatewayName, executorFactory.apply(gatewayName));
+            rateLimiters.put(gatewayName, RateLimiter.create(requestsPerSecond));
+        }
+    }
+
+    /**
+     * Thread pools of <code>threadsPerGateway</code> threads, named after <code>name</code> and the gateway,
+     * that are shut down with the application.
+     */
+    static Function<PaymentGatewayName, ExecutorService> managedThreadPools(Environment environment, String name, int threadsPerGateway) {
+        return gatewayName -> environment.lifecycle()
+                .executorService(name + "-" + gatewayName.getName() + "-%d")
+                .minThreads(threadsPerGateway)
+                .maxThreads(threadsPerGateway)
+                .build();
+    }
+
+    public <T> CompletableFuture<T> submit(PaymentGatewayName gatewayName, Supplier<T> request) {
+        RateLimiter rateLimiter = rateLimiters.get(gatewayName);
+        return CompletableFuture.supplyAsync(() -> {
+            rateLimiter.acquire();
+            return request.get();
+        }, executors.get(gatewayName));
+    }
+}
@@ -231,7 +231,7 @@ public class NotificationService {
             RefundStatus oldStatus = refundEntity.getStatus();
             RefundStatus newStatus = notification.getRefundStatus();
 
-            refundEntity.setStatus(newStatus);
+            refundDao.updateStatus(refundEntity, newStatus);
 
             GatewayAccountEntity gatewayAccount = refundEntity.getChargeEntity().getGatewayAccount();
             logger.info("Notification received for refund. Updating refund - charge_external_id={}, refund_reference={}, transaction_id={}, status={}, "
@@ -3,6 +3,7 @@ package uk.gov.pay.connector.service;
 import fj.data.Either;
 import uk.gov.pay.connector.model.CancelGatewayRequest;
 import uk.gov.pay.connector.model.CaptureGatewayRequest;
+import uk.gov.pay.connector.model.InquiryGatewayRequest;
 import uk.gov.pay.connector.model.Notification;
 import uk.gov.pay.connector.model.Notifications;
 import uk.gov.pay.connector.model.RefundGatewayRequest;
@@ -15,6 +16,9 @@ import uk.gov.pay.connector.model.gateway.GatewayResponse;
 
 import java.util.Optional;
 
+import static java.lang.String.format;
+import static uk.gov.pay.connector.model.GatewayError.baseError;
+
 public interface PaymentProvider<T extends BaseResponse, R> {
 
     String getPaymentGatewayName();
@@ -33,6 +37,21 @@ public interface PaymentProvider<T extends BaseResponse, R> {
 
     GatewayResponse<T> cancel(CancelGatewayRequest request);
 
+    /**
+     * Whether the gateway can be asked for the current state of an order, see {@link #inquiry}.
+     */
+    default boolean supportsInquiry() {
+        return false;
+    }
+
+    /**
+     * Asks the gateway for the current state of an order, for when its outcome was never received.
+     * Gateways that do not {@link #supportsInquiry() support inquiries} answer with a gateway error.
+     */
+    default GatewayResponse<T> inquiry(InquiryGatewayRequest request) {
+        return GatewayResponse.with(baseError(format("%s does not support order inquiries", getPaymentGatewayName())));
+    }
+
     Either<String, Notifications<R>> parseNotification(String payload);
 
     Boolean isNotificationEndpointSecured();
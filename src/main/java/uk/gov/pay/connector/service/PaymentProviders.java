@@ -20,6 +20,7 @@ import static jersey.repackaged.com.google.common.collect.Maps.newHashMap;
 import static uk.gov.pay.connector.service.GatewayOperation.AUTHORISE;
 import static uk.gov.pay.connector.service.GatewayOperation.CANCEL;
 import static uk.gov.pay.connector.service.GatewayOperation.CAPTURE;
+import static uk.gov.pay.connector.service.GatewayOperation.INQUIRY;
 import static uk.gov.pay.connector.service.GatewayOperation.REFUND;
 import static uk.gov.pay.connector.service.PaymentGatewayName.EPDQ;
 import static uk.gov.pay.connector.service.PaymentGatewayName.SANDBOX;
@@ -68,6 +69,7 @@ public class PaymentProviders<T extends BaseResponse> {
                 .cancelClient(gatewayClientForOperation(WORLDPAY, CANCEL, WorldpayPaymentProvider.includeSessionIdentifier()))
                 .captureClient(gatewayClientForOperation(WORLDPAY, CAPTURE, WorldpayPaymentProvider.includeSessionIdentifier()))
                 .refundClient(gatewayClientForOperation(WORLDPAY, REFUND, WorldpayPaymentProvider.includeSessionIdentifier()))
+                .inquiryClient(gatewayClientForOperation(WORLDPAY, INQUIRY, WorldpayPaymentProvider.includeSessionIdentifier()))
                 .build();
 
         WorldpayConfig worldpayConfig = config.getWorldpayConfig();
@@ -0,0 +1,128 @@
+package uk.gov.pay.connector.service;
+
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.setup.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.dao.SchedulerLeaseDao;
+import uk.gov.pay.connector.util.RandomIdGenerator;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a background task on its own thread, with a fixed delay between the end of one run and the start of the next.
+ * <p>
+ * A leased task runs only on the connector node holding the lease named after the task, which it takes before each
+ * run and releases after it; on every other node the run is skipped. The lease must outlast one run, and its row
+ * must be inserted by the migration that introduces the task, see {@link SchedulerLeaseDao}.
+ */
+public class PeriodicTaskScheduler implements Managed {
+    final Logger logger = LoggerFactory.getLogger(PeriodicTaskScheduler.class);
+
+    static final int SCHEDULER_THREADS = 1;
+
+    private final String name;
+    private final Runnable task;
+    private final boolean enabled;
+    private final long initialDelayInSeconds;
+    private final long intervalInSeconds;
+    private final Optional<Duration> leaseDuration;
+    private final SchedulerLeaseDao schedulerLeaseDao;
+    private final String leaseOwner = RandomIdGenerator.newId();
+    ScheduledExecutorService scheduledExecutorService;
+
+    private PeriodicTaskScheduler(Builder builder, Environment environment) {
+        this.name = builder.name;
+        this.task = builder.task;
+        this.enabled = builder.enabled;
+        this.initialDelayInSeconds = builder.initialDelayInSeconds;
+        this.intervalInSeconds = builder.intervalInSeconds;
+        this.leaseDuration = builder.leaseDuration;
+        this.schedulerLeaseDao = builder.schedulerLeaseDao;
+
+        scheduledExecutorService = environment
+                .lifecycle()
+                .scheduledExecutorService(name)
+                .threads(SCHEDULER_THREADS)
+                .build();
+    }
+
+    public static Builder builder(String name, Runnable task) {
+        return new Builder(name, task);
+    }
+
+    public void start() {
+        if (!enabled) {
+            logger.info("Scheduled task {} is disabled", name);
+            return;
+        }
+
+        logger.info("Scheduling {} to run every {} seconds (will start in {} seconds)", name, intervalInSeconds, initialDelayInSeconds);
+
+        scheduledExecutorService.scheduleWithFixedDelay(this::runOnce, initialDelayInSeconds, intervalInSeconds, TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        scheduledExecutorService.shutdown();
+    }
+
+    void runOnce() {
+        try {
+            if (!leaseDuration.isPresent()) {
+                task.run();
+                return;
+            }
+            if (!schedulerLeaseDao.tryAcquire(name, leaseOwner, leaseDuration.get())) {
+                logger.debug("Lease for {} is held by another node", name);
+                return;
+            }
+            try {
+                task.run();
+            } finally {
+                schedulerLeaseDao.release(name, leaseOwner);
+            }
+        } catch (Exception e) {
+            // a scheduled executor stops running a task that throws, so every error ends here
+            logger.error("Unexpected error running {}", name, e);
+        }
+    }
+
+    public static class Builder {
+        private final String name;
+        private final Runnable task;
+        private boolean enabled = true;
+        private long initialDelayInSeconds;
+        private long intervalInSeconds;
+        private Optional<Duration> leaseDuration = Optional.empty();
+        private SchedulerLeaseDao schedulerLeaseDao;
+
+        private Builder(String name, Runnable task) {
+            this.name = name;
+            this.task = task;
+        }
+
+        public Builder enabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public Builder schedule(long initialDelayInSeconds, long intervalInSeconds) {
+            this.initialDelayInSeconds = initialDelayInSeconds;
+            this.intervalInSeconds = intervalInSeconds;
+            return this;
+        }
+
+        public Builder leased(SchedulerLeaseDao schedulerLeaseDao, Duration leaseDuration) {
+            this.schedulerLeaseDao = schedulerLeaseDao;
+            this.leaseDuration = Optional.of(leaseDuration);
+            return this;
+        }
+
+        public PeriodicTaskScheduler build(Environment environment) {
+            return new PeriodicTaskScheduler(this, environment);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package uk.gov.pay.connector.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Stopwatch;
+import io.dropwizard.setup.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.ReconciliationConfig;
+import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.dao.RefundDao;
+import uk.gov.pay.connector.model.domain.AbstractEntity;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.RefundEntity;
+import uk.gov.pay.connector.service.ReconciliationService.Outcome;
+
+import javax.inject.Inject;
+import java.time.ZonedDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static uk.gov.pay.connector.service.ReconciliationService.RECONCILABLE_CHARGE_STATUSES;
+
+public class ReconciliationProcess {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final ChargeDao chargeDao;
+    private final RefundDao refundDao;
+    private final ReconciliationService reconciliationService;
+    private final ReconciliationConfig reconciliationConfig;
+    private final MetricRegistry metricRegistry;
+    private final Counter resolvedMetric;
+    private final Counter unresolvedMetric;
+    private final Counter chargesBacklogMetric;
+    private final Counter refundsBacklogMetric;
+
+    @Inject
+    public ReconciliationProcess(Environment environment, ChargeDao chargeDao, RefundDao refundDao,
+                                 ReconciliationService reconciliationService, ConnectorConfiguration connectorConfiguration) {
+        this.chargeDao = chargeDao;
+        this.refundDao = refundDao;
+        this.reconciliationService = reconciliationService;
+        this.reconciliationConfig = connectorConfiguration.getReconciliationConfig();
+        this.metricRegistry = environment.metrics();
+        this.resolvedMetric = metricRegistry.counter("reconciliation.resolved");
+        this.unresolvedMetric = metricRegistry.counter("reconciliation.unresolved");
+        this.chargesBacklogMetric = metricRegistry.counter("reconciliation.backlog.charges");
+        this.refundsBacklogMetric = metricRegistry.counter("reconciliation.backlog.refunds");
+    }
+
+    /**
+     * Reconciles charges stuck awaiting the outcome of their authorisation, then refunds stuck awaiting theirs,
+     * a page at a time, oldest first, until none are left or the time budget for one run is used up.
+     * It is scheduled as a leased task, so only one connector node at a time reconciles.
+     *
+     * @return the number of charges and refunds reconciled with each outcome
+     */
+    public Map<Outcome, Integer> runReconciliation() {
+        Map<Outcome, Integer> outcomes = new EnumMap<>(Outcome.class);
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, 0);
+        }
+
+        Stopwatch responseTimeStopwatch = Stopwatch.createStarted();
+        ZonedDateTime staleBefore = ZonedDateTime.now().minus(reconciliationConfig.getStaleAfterAsJavaDuration());
+        try {
+            updateBacklogMetric(chargesBacklogMetric, chargeDao.countUnchangedSinceWithStatusIn(staleBefore, RECONCILABLE_CHARGE_STATUSES));
+            updateBacklogMetric(refundsBacklogMetric, refundDao.countSubmittedBefore(staleBefore));
+
+            reconcilePages(responseTimeStopwatch, outcomes,
+                    (after, limit) -> chargeDao.findPageUnchangedSinceWithStatusIn(staleBefore, RECONCILABLE_CHARGE_STATUSES, after, limit),
+                    reconciliationService::reconcileCharge);
+            reconcilePages(responseTimeStopwatch, outcomes,
+                    (after, limit) -> refundDao.findPageSubmittedBefore(staleBefore, after, limit),
+                    reconciliationService::reconcileRefund);
+
+            if (outcomes.get(Outcome.RESOLVED) > 0 || outcomes.get(Outcome.UNRESOLVED) > 0) {
+                logger.info("Charges and refunds reconciled - resolved={}, unresolved={}, skipped={}, stale_before={}",
+                        outcomes.get(Outcome.RESOLVED), outcomes.get(Outcome.UNRESOLVED), outcomes.get(Outcome.SKIPPED), staleBefore);
+            }
+        } catch (Exception e) {
+            logger.error("Exception when reconciling charges and refunds", e);
+        } finally {
+            responseTimeStopwatch.stop();
+            metricRegistry.histogram("reconciliation.running_time").update(responseTimeStopwatch.elapsed(TimeUnit.MILLISECONDS));
+        }
+        return outcomes;
+    }
+
+    private <T extends AbstractEntity> void reconcilePages(Stopwatch responseTimeStopwatch, Map<Outcome, Integer> outcomes,
+                                                           BiFunction<Optional<T>, Integer, List<T>> pageFinder,
+                                                           Function<T, Outcome> reconciler) {
+        long timeBudgetMillis = reconciliationConfig.getTimeBudgetAsJavaDuration().toMillis();
+        Optional<T> after = Optional.empty();
+        List<T> page;
+        while (responseTimeStopwatch.elapsed(TimeUnit.MILLISECONDS) < timeBudgetMillis) {
+            page = pageFinder.apply(after, reconciliationConfig.getPageSize());
+            if (page.isEmpty()) {
+                return;
+            }
+            // move past the page first, so records left unresolved are not picked up again in this run
+            after = Optional.of(page.get(page.size() - 1));
+            for (T entity : page) {
+                Outcome outcome = reconcile(entity, reconciler);
+                outcomes.merge(outcome, 1, Integer::sum);
+                if (outcome == Outcome.RESOLVED) {
+                    resolvedMetric.inc();
+                } else if (outcome == Outcome.UNRESOLVED) {
+                    unresolvedMetric.inc();
+                }
+            }
+            if (page.size() < reconciliationConfig.getPageSize()) {
+                return;
+            }
+        }
+    }
+
+    private <T extends AbstractEntity> Outcome reconcile(T entity, Function<T, Outcome> reconciler) {
+        try {
+            return reconciler.apply(entity);
+        } catch (Exception e) {
+            logger.error("Exception when reconciling {} with id {}", entity.getClass().getSimpleName(), entity.getId(), e);
+            return Outcome.UNRESOLVED;
+        }
+    }
+
+    private void updateBacklogMetric(Counter backlogMetric, long backlog) {
+        // Counters do not provide a set method to record a spot value, thus we need this workaround.
+        backlogMetric.inc(backlog - backlogMetric.getCount());
+    }
+}
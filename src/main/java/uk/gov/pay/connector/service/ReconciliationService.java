@@ -0,0 +1,149 @@
+package uk.gov.pay.connector.service;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.inject.Provider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.dao.ChargeDao.TransitionResult;
+import uk.gov.pay.connector.dao.RefundDao;
+import uk.gov.pay.connector.model.InquiryGatewayRequest;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.ChargeStatus;
+import uk.gov.pay.connector.model.domain.RefundEntity;
+import uk.gov.pay.connector.model.domain.RefundStatus;
+import uk.gov.pay.connector.model.gateway.GatewayResponse;
+import uk.gov.pay.connector.service.BaseAuthoriseResponse.AuthoriseStatus;
+import uk.gov.pay.connector.service.transaction.TransactionContext;
+import uk.gov.pay.connector.service.transaction.TransactionFlow;
+import uk.gov.pay.connector.service.transaction.TransactionalOperation;
+
+import javax.inject.Inject;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static uk.gov.pay.connector.model.domain.ChargeStatus.AUTHORISATION_READY;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.AUTHORISATION_SUBMITTED;
+import static uk.gov.pay.connector.model.domain.RefundStatus.REFUND_SUBMITTED;
+
+/**
+ * Settles charges and refunds whose gateway outcome never reached us, by asking the gateway for the state
+ * of their order and applying the answer as a notification would have been applied.
+ */
+public class ReconciliationService {
+
+    public enum Outcome {
+        // the charge or refund was moved on to the status reported by the gateway
+        RESOLVED,
+        // the gateway could not be asked, or its answer does not settle the status yet
+        UNRESOLVED,
+        // the charge or refund cannot be reconciled, or it moved on while the gateway was being asked
+        SKIPPED
+    }
+
+    public static final List<ChargeStatus> RECONCILABLE_CHARGE_STATUSES = ImmutableList.of(
+            AUTHORISATION_READY,
+            AUTHORISATION_SUBMITTED);
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ChargeDao chargeDao;
+    private final RefundDao refundDao;
+    private final PaymentProviders providers;
+    private final Provider<TransactionFlow> transactionFlowProvider;
+    private final double gatewayInquiriesPerSecond;
+    private final Map<PaymentGatewayName, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    @Inject
+    public ReconciliationService(ChargeDao chargeDao, RefundDao refundDao, PaymentProviders providers,
+                                 Provider<TransactionFlow> transactionFlowProvider, ConnectorConfiguration configuration) {
+        this.chargeDao = chargeDao;
+        this.refundDao = refundDao;
+        this.providers = providers;
+        this.transactionFlowProvider = transactionFlowProvider;
+        this.gatewayInquiriesPerSecond = configuration.getReconciliationConfig().getGatewayInquiriesPerSecond();
+    }
+
+    public Outcome reconcileCharge(ChargeEntity chargeEntity) {
+        if (!canInquire(chargeEntity)) {
+            return Outcome.SKIPPED;
+        }
+
+        Optional<ChargeStatus> status = inquire(chargeEntity)
+                .filter(BaseAuthoriseResponse.class::isInstance)
+                .map(response -> ((BaseAuthoriseResponse) response).authoriseStatus())
+                .filter(authoriseStatus -> authoriseStatus == AuthoriseStatus.AUTHORISED || authoriseStatus == AuthoriseStatus.REJECTED)
+                .map(AuthoriseStatus::getMappedChargeStatus);
+        if (!status.isPresent()) {
+            return Outcome.UNRESOLVED;
+        }
+
+        TransitionResult result = chargeDao.transitionStatus(chargeEntity.getExternalId(), RECONCILABLE_CHARGE_STATUSES, status.get(), Optional.empty());
+        if (result != TransitionResult.TRANSITIONED) {
+            logger.info("Charge moved on before it was reconciled - charge_external_id={}, result={}", chargeEntity.getExternalId(), result);
+            return Outcome.SKIPPED;
+        }
+        logger.info("Charge reconciled - charge_external_id={}, status={}, to_status={}",
+                chargeEntity.getExternalId(), chargeEntity.getStatus(), status.get());
+        return Outcome.RESOLVED;
+    }
+
+    public Outcome reconcileRefund(RefundEntity refundEntity) {
+        ChargeEntity chargeEntity = refundEntity.getChargeEntity();
+        // the last event of an order is about its latest refund, so it only settles a refund that has no siblings
+        if (!canInquire(chargeEntity) || chargeEntity.getRefunds().size() != 1) {
+            return Outcome.SKIPPED;
+        }
+
+        Optional<InterpretedStatus> status = inquire(chargeEntity)
+                .filter(BaseInquiryResponse.class::isInstance)
+                .map(response -> ((BaseInquiryResponse) response).getLastEvent())
+                .map(lastEvent -> providers.byName(chargeEntity.getPaymentGatewayName()).getStatusMapper().from(lastEvent))
+                .filter(interpretedStatus -> interpretedStatus.getType() == InterpretedStatus.Type.REFUND_STATUS);
+        if (!status.isPresent()) {
+            return Outcome.UNRESOLVED;
+        }
+
+        return transactionFlowProvider.get()
+                .executeNext(finishRefundReconciliation(refundEntity, status.get().getRefundStatus()))
+                .complete()
+                .get(Outcome.class);
+    }
+
+    private TransactionalOperation<TransactionContext, Outcome> finishRefundReconciliation(RefundEntity refundEntity, RefundStatus status) {
+        return context -> {
+            // serialises with refunds being admitted for the charge, which read the same running totals
+            refundDao.lockAmountAvailableForRefund(refundEntity.getChargeEntity());
+            Optional<RefundEntity> reloadedRefund = refundDao.findById(refundEntity.getId())
+                    .filter(refund -> refund.hasStatus(REFUND_SUBMITTED));
+            if (!reloadedRefund.isPresent()) {
+                logger.info("Refund moved on before it was reconciled - refund_external_id={}", refundEntity.getExternalId());
+                return Outcome.SKIPPED;
+            }
+            refundDao.updateStatus(reloadedRefund.get(), status);
+            logger.info("Refund reconciled - charge_external_id={}, refund_external_id={}, status={}, to_status={}",
+                    refundEntity.getChargeEntity().getExternalId(), refundEntity.getExternalId(), REFUND_SUBMITTED, status);
+            return Outcome.RESOLVED;
+        };
+    }
+
+    private boolean canInquire(ChargeEntity chargeEntity) {
+        return chargeEntity.getGatewayTransactionId() != null
+                && providers.byName(chargeEntity.getPaymentGatewayName()).supportsInquiry();
+    }
+
+    private Optional<BaseResponse> inquire(ChargeEntity chargeEntity) {
+        rateLimiters.computeIfAbsent(chargeEntity.getPaymentGatewayName(), gatewayName -> RateLimiter.create(gatewayInquiriesPerSecond))
+                .acquire();
+        GatewayResponse<BaseResponse> response = providers.byName(chargeEntity.getPaymentGatewayName())
+                .inquiry(InquiryGatewayRequest.valueOf(chargeEntity));
+        response.getGatewayError().ifPresent(error ->
+                logger.warn("Gateway error while making an order inquiry - charge_external_id={}, gateway_error={}",
+                        chargeEntity.getExternalId(), error));
+        return response.getBaseResponse();
+    }
+}
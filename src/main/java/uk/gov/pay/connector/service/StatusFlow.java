@@ -1,16 +1,17 @@
 package uk.gov.pay.connector.service;
 
-import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
 import uk.gov.pay.connector.model.domain.ChargeStatus;
 
-import java.util.List;
+import java.util.EnumSet;
+import java.util.Set;
 
 import static uk.gov.pay.connector.model.domain.ChargeStatus.*;
 
 public class StatusFlow {
 
     public static final StatusFlow USER_CANCELLATION_FLOW = new StatusFlow("User Cancellation",
-            ImmutableList.of(
+            EnumSet.of(
                     ENTERING_CARD_DETAILS,
                     AUTHORISATION_SUCCESS
             ),
@@ -21,7 +22,7 @@ public class StatusFlow {
     );
 
     public static final StatusFlow SYSTEM_CANCELLATION_FLOW = new StatusFlow("System Cancellation",
-            ImmutableList.of(
+            EnumSet.of(
                     CREATED,
                     ENTERING_CARD_DETAILS,
                     AUTHORISATION_SUCCESS
@@ -33,7 +34,7 @@ public class StatusFlow {
     );
 
     public static final StatusFlow EXPIRE_FLOW = new StatusFlow("Expiration",
-            ImmutableList.of(
+            EnumSet.of(
                     CREATED,
                     ENTERING_CARD_DETAILS,
                     AUTHORISATION_SUCCESS
@@ -45,22 +46,22 @@ public class StatusFlow {
     );
 
     private final String name;
-    private final List<ChargeStatus> terminatableStatuses;
+    private final Set<ChargeStatus> terminatableStatuses;
     private final ChargeStatus lockState;
     private final ChargeStatus successTerminalState;
     private final ChargeStatus submittedState;
     private final ChargeStatus failureTerminalState;
 
-    private StatusFlow(String name, List<ChargeStatus> terminatableStatuses, ChargeStatus lockState, ChargeStatus successTerminalState, ChargeStatus submittedState, ChargeStatus failureTerminalState) {
+    private StatusFlow(String name, Set<ChargeStatus> terminatableStatuses, ChargeStatus lockState, ChargeStatus successTerminalState, ChargeStatus submittedState, ChargeStatus failureTerminalState) {
         this.name = name;
-        this.terminatableStatuses = terminatableStatuses;
+        this.terminatableStatuses = Sets.immutableEnumSet(terminatableStatuses);
         this.lockState = lockState;
         this.successTerminalState = successTerminalState;
         this.submittedState = submittedState;
         this.failureTerminalState = failureTerminalState;
     }
 
-    public List<ChargeStatus> getTerminatableStatuses() {
+    public Set<ChargeStatus> getTerminatableStatuses() {
         return terminatableStatuses;
     }
 
@@ -9,10 +9,12 @@ import uk.gov.pay.connector.model.domain.RefundStatus;
 import uk.gov.pay.connector.model.domain.Status;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 public class StatusMapper<T> {
 
@@ -70,10 +72,42 @@ public class StatusMapper<T> {
         }
     }
 
-    private final List<StatusMap<T>> validStatuses;
+    private static final InterpretedStatus UNKNOWN_STATUS = new UnknownStatus();
+    private static final InterpretedStatus IGNORED_STATUS = new IgnoredStatus();
+    private static final Map<ChargeStatus, InterpretedStatus> MAPPED_CHARGE_STATUSES = new EnumMap<>(ChargeStatus.class);
+    private static final Map<RefundStatus, InterpretedStatus> MAPPED_REFUND_STATUSES = new EnumMap<>(RefundStatus.class);
+
+    static {
+        for (ChargeStatus status : ChargeStatus.values()) {
+            MAPPED_CHARGE_STATUSES.put(status, new MappedChargeStatus(status));
+        }
+        for (RefundStatus status : RefundStatus.values()) {
+            MAPPED_REFUND_STATUSES.put(status, new MappedRefundStatus(status));
+        }
+    }
+
+    // interpretation of a gateway status alone, from the first mapping that ignores the current status
+    private final Map<T, InterpretedStatus> byGatewayStatus = new HashMap<>();
+    // interpretation of a gateway status for each current status, from the first mapping that applies to it
+    private final Map<T, Map<ChargeStatus, InterpretedStatus>> byGatewayAndCurrentStatus = new HashMap<>();
 
     private StatusMapper(List<StatusMap<T>> validStatuses) {
-        this.validStatuses = validStatuses;
+        for (StatusMap<T> validStatus : validStatuses) {
+            StatusMapFromStatus<T> fromStatus = validStatus.getFromStatus();
+            T gatewayStatus = fromStatus.getGatewayStatus();
+            InterpretedStatus interpretedStatus = interpret(validStatus.getToStatus());
+
+            if (fromStatus instanceof GatewayStatusOnly) {
+                byGatewayStatus.putIfAbsent(gatewayStatus, interpretedStatus);
+            }
+            Map<ChargeStatus, InterpretedStatus> byCurrentStatus =
+                    byGatewayAndCurrentStatus.computeIfAbsent(gatewayStatus, status -> new EnumMap<>(ChargeStatus.class));
+            for (ChargeStatus currentStatus : ChargeStatus.values()) {
+                if (fromStatus.equals(GatewayStatusWithCurrentStatus.of(gatewayStatus, currentStatus))) {
+                    byCurrentStatus.putIfAbsent(currentStatus, interpretedStatus);
+                }
+            }
+        }
     }
 
     public static <T> Builder<T> builder() {
@@ -81,44 +115,32 @@ public class StatusMapper<T> {
     }
 
     public InterpretedStatus from(T gatewayStatus, ChargeStatus currentStatus) {
-        return from(GatewayStatusWithCurrentStatus.of(gatewayStatus, currentStatus), validStatuses);
+        Map<ChargeStatus, InterpretedStatus> byCurrentStatus = byGatewayAndCurrentStatus.get(gatewayStatus);
+        if (byCurrentStatus == null) {
+            return UNKNOWN_STATUS;
+        }
+        return byCurrentStatus.getOrDefault(currentStatus, UNKNOWN_STATUS);
     }
 
     public InterpretedStatus from(T gatewayStatus) {
-        List<StatusMap<T>> gatewayStatusesOnly = this.validStatuses
-                .stream()
-                .filter(validStatus -> validStatus.getFromStatus() instanceof GatewayStatusOnly)
-                .collect(Collectors.toList());
-        return from(GatewayStatusOnly.of(gatewayStatus), gatewayStatusesOnly);
+        return byGatewayStatus.getOrDefault(gatewayStatus, UNKNOWN_STATUS);
     }
 
-    private InterpretedStatus from(StatusMapFromStatus<T> gatewayStatus, List<StatusMap<T>> wantedValidStatuses) {
-
-        Optional<StatusMap<T>> statusMap = wantedValidStatuses
-                .stream()
-                .filter(validStatus -> validStatus.getFromStatus().equals(gatewayStatus))
-                .findFirst();
-
-        if (!statusMap.isPresent()) {
-            return new UnknownStatus();
-        }
-
-        Optional<Status> statusMaybe = statusMap.flatMap(StatusMap::getToStatus);
-
-        if (!statusMaybe.isPresent()) {
-            return new IgnoredStatus();
+    private static InterpretedStatus interpret(Optional<Status> toStatus) {
+        if (!toStatus.isPresent()) {
+            return IGNORED_STATUS;
         }
 
-        Status status = statusMaybe.get();
+        Status status = toStatus.get();
 
         if (status instanceof ChargeStatus) {
-            return new MappedChargeStatus((ChargeStatus) status);
+            return MAPPED_CHARGE_STATUSES.get(status);
         }
 
         if (status instanceof RefundStatus) {
-            return new MappedRefundStatus((RefundStatus) status);
+            return MAPPED_REFUND_STATUSES.get(status);
         }
 
-        return new UnknownStatus();
+        return UNKNOWN_STATUS;
     }
 }
@@ -0,0 +1,73 @@
+package uk.gov.pay.connector.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Stopwatch;
+import io.dropwizard.setup.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.TokenConfig;
+import uk.gov.pay.connector.dao.TokenDao;
+
+import javax.inject.Inject;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+public class TokenPurgeProcess {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final TokenDao tokenDao;
+    private final TokenConfig tokenConfig;
+    private final MetricRegistry metricRegistry;
+    private final Counter purgedTokensMetric;
+
+    @Inject
+    public TokenPurgeProcess(Environment environment, TokenDao tokenDao, ConnectorConfiguration connectorConfiguration) {
+        this.tokenDao = tokenDao;
+        this.tokenConfig = connectorConfiguration.getTokenConfig();
+        this.metricRegistry = environment.metrics();
+        this.purgedTokensMetric = metricRegistry.counter("token-purge.deleted");
+    }
+
+    /**
+     * Deletes tokens that have outlived their time to live in batches, each in its own transaction,
+     * first from <code>tokens</code> and then from <code>tokens_archive</code>. Each table is purged
+     * until none are left or the maximum number of batches for one run is reached.
+     *
+     * @return the number of tokens deleted
+     */
+    public int runPurge() {
+        Stopwatch responseTimeStopwatch = Stopwatch.createStarted();
+        ZonedDateTime createdBefore = ZonedDateTime.now(ZoneId.of("UTC")).minus(tokenConfig.getTimeToLiveAsJavaDuration());
+        int purged = 0;
+        try {
+            purged += purge(tokenDao::deleteCreatedBefore, createdBefore);
+            purged += purge(tokenDao::deleteArchivedCreatedBefore, createdBefore);
+            if (purged > 0) {
+                logger.info("Deleted {} tokens created before {}", purged, createdBefore);
+            }
+        } catch (Exception e) {
+            logger.error("Exception when deleting expired tokens", e);
+        } finally {
+            responseTimeStopwatch.stop();
+            metricRegistry.histogram("token-purge.running_time").update(responseTimeStopwatch.elapsed(TimeUnit.MILLISECONDS));
+        }
+        return purged;
+    }
+
+    private int purge(BiFunction<ZonedDateTime, Integer, Integer> deleteBatch, ZonedDateTime createdBefore) {
+        int purged = 0;
+        for (int batch = 0; batch < tokenConfig.getPurgeMaximumBatchesPerRun(); batch++) {
+            int purgedInBatch = deleteBatch.apply(createdBefore, tokenConfig.getPurgeBatchSize());
+            purged += purgedInBatch;
+            purgedTokensMetric.inc(purgedInBatch);
+            if (purgedInBatch < tokenConfig.getPurgeBatchSize()) {
+                break;
+            }
+        }
+        return purged;
+    }
+}
@@ -0,0 +1,81 @@
+package uk.gov.pay.connector.service;
+
+import com.google.inject.persist.Transactional;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.TokenConfig;
+import uk.gov.pay.connector.dao.TokenDao;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.TokenEntity;
+
+import javax.inject.Inject;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Issues the secure redirect tokens that take a paying user to the frontend, and resolves them back to their charge.
+ * <p>
+ * A token is valid for <code>tokenConfig.timeToLive</code> after it is issued. An unfinished charge keeps being
+ * given the same token while at least half of that is left, rather than a new token every time it is read.
+ */
+public class TokenService {
+
+    private final TokenDao tokenDao;
+    private final TokenConfig tokenConfig;
+
+    @Inject
+    public TokenService(TokenDao tokenDao, ConnectorConfiguration configuration) {
+        this.tokenDao = tokenDao;
+        this.tokenConfig = configuration.getTokenConfig();
+    }
+
+    @Transactional
+    public TokenEntity issueNewTokenFor(ChargeEntity chargeEntity) {
+        TokenEntity token = TokenEntity.generateNewTokenFor(chargeEntity);
+        tokenDao.persist(token);
+        return token;
+    }
+
+    /**
+     * Issues a new token for each of the charges, written in one batch.
+     *
+     * @return the tokens, in the order of the charges
+     */
+    @Transactional
+    public List<TokenEntity> issueNewTokensFor(List<ChargeEntity> chargeEntities) {
+        List<TokenEntity> tokens = chargeEntities.stream()
+                .map(TokenEntity::generateNewTokenFor)
+                .collect(Collectors.toList());
+        tokenDao.persistAll(tokens);
+        return tokens;
+    }
+
+    @Transactional
+    public TokenEntity issueTokenFor(ChargeEntity chargeEntity) {
+        ZonedDateTime reusableIfCreatedAfter = now().minus(tokenConfig.getTimeToLiveAsJavaDuration().dividedBy(2));
+        return tokenDao.findLatestByChargeIdCreatedAfter(chargeEntity.getId(), reusableIfCreatedAfter)
+                .orElseGet(() -> issueNewTokenFor(chargeEntity));
+    }
+
+    public Optional<ChargeEntity> findChargeByToken(String tokenId) {
+        return tokenDao.findByTokenId(tokenId)
+                .filter(token -> isValid(token.getCreatedDate()))
+                .map(TokenEntity::getChargeEntity);
+    }
+
+    @Transactional
+    public void deleteToken(String tokenId) {
+        tokenDao.findByTokenId(tokenId)
+                .ifPresent(tokenDao::remove);
+    }
+
+    private boolean isValid(ZonedDateTime createdDate) {
+        return createdDate.isAfter(now().minus(tokenConfig.getTimeToLiveAsJavaDuration()));
+    }
+
+    private static ZonedDateTime now() {
+        return ZonedDateTime.now(ZoneId.of("UTC"));
+    }
+}
@@ -19,10 +19,9 @@ import uk.gov.service.notify.SendEmailResponse;
 import javax.inject.Inject;
 import java.math.BigDecimal;
 import java.util.HashMap;
-import java.util.Optional;
-import java.util.concurrent.*;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
-import static java.lang.Runtime.getRuntime;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 
@@ -32,7 +31,6 @@ public class UserNotificationService {
     private boolean emailNotifyGloballyEnabled;
     protected final Logger logger = LoggerFactory.getLogger(getClass());
     private NotificationClient notificationClient;
-    private ExecutorService executorService;
     private final MetricRegistry metricRegistry;
 
     @Inject
@@ -40,31 +38,32 @@ public class UserNotificationService {
         readEmailConfig(configuration);
         if (emailNotifyGloballyEnabled) {
             this.notificationClient = notifyClientProvider.get();
-            int numberOfThreads = configuration.getExecutorServiceConfig().getThreadsPerCpu() * getRuntime().availableProcessors();
-            executorService = Executors.newFixedThreadPool(numberOfThreads);
         }
         this.metricRegistry = environment.metrics();
     }
 
-    public Future<Optional<String>> notifyPaymentSuccessEmail(ChargeEntity chargeEntity) {
-        if (emailNotifyGloballyEnabled && chargeEntity.getGatewayAccount().hasEmailNotificationsEnabled()) {
-            String emailAddress = chargeEntity.getEmail();
-            Stopwatch responseTimeStopwatch = Stopwatch.createStarted();
-            return executorService.submit(() -> {
-                try {
-                    SendEmailResponse response = notificationClient.sendEmail(emailTemplateId, emailAddress, buildEmailPersonalisationFromCharge(chargeEntity), null);
-                    return Optional.of(response.getNotificationId().toString());
-                } catch (NotificationClientException e) {
-                    logger.error("Failed to send confirmation email - charge_external_id=" + chargeEntity.getExternalId(), e);
-                    metricRegistry.counter("notify-operations.failures").inc();
-                    return Optional.empty();
-                } finally {
-                    responseTimeStopwatch.stop();
-                    metricRegistry.histogram("notify-operations.response_time").update(responseTimeStopwatch.elapsed(TimeUnit.MILLISECONDS));
-                }
-            });
+    public boolean isPaymentSuccessEmailEnabledFor(ChargeEntity chargeEntity) {
+        return emailNotifyGloballyEnabled && chargeEntity.getGatewayAccount().hasEmailNotificationsEnabled();
+    }
+
+    /**
+     * Sends one payment confirmation email on the calling thread. Emails are queued in the email outbox
+     * and sent from there, rather than through this directly, so none is lost if the send fails.
+     *
+     * @return the Notify id of the email
+     */
+    public String sendPaymentSuccessEmail(String emailAddress, Map<String, String> personalisation) throws NotificationClientException {
+        Stopwatch responseTimeStopwatch = Stopwatch.createStarted();
+        try {
+            SendEmailResponse response = notificationClient.sendEmail(emailTemplateId, emailAddress, new HashMap<>(personalisation), null);
+            return response.getNotificationId().toString();
+        } catch (NotificationClientException e) {
+            metricRegistry.counter("notify-operations.failures").inc();
+            throw e;
+        } finally {
+            responseTimeStopwatch.stop();
+            metricRegistry.histogram("notify-operations.response_time").update(responseTimeStopwatch.elapsed(TimeUnit.MILLISECONDS));
         }
-        return CompletableFuture.completedFuture(Optional.empty());
     }
 
     public String checkDeliveryStatus(String notificationId) throws NotificationClientException {
@@ -84,7 +83,7 @@ public class UserNotificationService {
         }
     }
 
-    private HashMap<String, String> buildEmailPersonalisationFromCharge(ChargeEntity charge) {
+    public Map<String, String> paymentSuccessPersonalisation(ChargeEntity charge) {
         GatewayAccountEntity gatewayAccount = charge.getGatewayAccount();
         EmailNotificationEntity emailNotification = gatewayAccount
                 .getEmailNotification();
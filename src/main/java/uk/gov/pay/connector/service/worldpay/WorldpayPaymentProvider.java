@@ -5,6 +5,7 @@ import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import uk.gov.pay.connector.model.CancelGatewayRequest;
 import uk.gov.pay.connector.model.CaptureGatewayRequest;
+import uk.gov.pay.connector.model.InquiryGatewayRequest;
 import uk.gov.pay.connector.model.Notification;
 import uk.gov.pay.connector.model.Notifications;
 import uk.gov.pay.connector.model.RefundGatewayRequest;
@@ -38,6 +39,7 @@ import static uk.gov.pay.connector.service.worldpay.WorldpayOrderRequestBuilder.
 import static uk.gov.pay.connector.service.worldpay.WorldpayOrderRequestBuilder.aWorldpayAuthoriseOrderRequestBuilder;
 import static uk.gov.pay.connector.service.worldpay.WorldpayOrderRequestBuilder.aWorldpayCancelOrderRequestBuilder;
 import static uk.gov.pay.connector.service.worldpay.WorldpayOrderRequestBuilder.aWorldpayCaptureOrderRequestBuilder;
+import static uk.gov.pay.connector.service.worldpay.WorldpayOrderRequestBuilder.aWorldpayInquiryOrderRequestBuilder;
 import static uk.gov.pay.connector.service.worldpay.WorldpayOrderRequestBuilder.aWorldpayRefundOrderRequestBuilder;
 import static uk.gov.pay.connector.util.XMLUnmarshaller.unmarshall;
 
@@ -86,6 +88,16 @@ public class WorldpayPaymentProvider extends BasePaymentProvider<BaseResponse, S
 
     }
 
+    @Override
+    public boolean supportsInquiry() {
+        return true;
+    }
+
+    @Override
+    public GatewayResponse inquiry(InquiryGatewayRequest request) {
+        return sendReceive(request, buildInquiryOrderFor(), WorldpayOrderStatusResponse.class, extractResponseIdentifier());
+    }
+
     @Override
     public Boolean isNotificationEndpointSecured() {
         return this.isNotificationEndpointSecured;
@@ -184,6 +196,13 @@ public class WorldpayPaymentProvider extends BasePaymentProvider<BaseResponse, S
                 .build();
     }
 
+    private Function<InquiryGatewayRequest, GatewayOrder> buildInquiryOrderFor() {
+        return request -> aWorldpayInquiryOrderRequestBuilder()
+                .withTransactionId(request.getTransactionId())
+                .withMerchantCode(request.getGatewayAccount().getCredentials().get(CREDENTIALS_MERCHANT_ID))
+                .build();
+    }
+
     private Function<GatewayClient.Response, Optional<String>> extractResponseIdentifier() {
         return response -> Optional.ofNullable(response.getResponseCookies().get(WORLDPAY_MACHINE_COOKIE_NAME));
     }
@@ -0,0 +1,39 @@
+package uk.gov.pay.connector.util;
+
+import com.codahale.metrics.MetricRegistry;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.queries.DatabaseQuery;
+import org.eclipse.persistence.sessions.SessionProfilerAdapter;
+
+import static org.eclipse.persistence.sessions.SessionProfiler.CacheHits;
+import static org.eclipse.persistence.sessions.SessionProfiler.CacheMisses;
+
+/**
+ * Counts EclipseLink shared cache hits and misses per entity, e.g. <code>jpa-cache.GatewayAccountEntity.hits</code>.
+ * Lookups against isolated (per transaction) caches are ignored.
+ */
+public class CacheMetricsProfiler extends SessionProfilerAdapter {
+
+    private final MetricRegistry metricRegistry;
+
+    public CacheMetricsProfiler(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Override
+    public void occurred(String operationName, DatabaseQuery query, AbstractSession session) {
+        if (CacheHits.equals(operationName)) {
+            count(query, "hits");
+        } else if (CacheMisses.equals(operationName)) {
+            count(query, "misses");
+        }
+    }
+
+    private void count(DatabaseQuery query, String outcome) {
+        ClassDescriptor descriptor = query == null ? null : query.getDescriptor();
+        if (descriptor != null && descriptor.getCachePolicy().isSharedIsolation()) {
+            metricRegistry.counter(MetricRegistry.name("jpa-cache", descriptor.getJavaClass().getSimpleName(), outcome)).inc();
+        }
+    }
+}
@@ -1,11 +1,36 @@
 package uk.gov.pay.connector.util;
 
+import com.google.common.collect.ImmutableList;
+import org.eclipse.persistence.config.CacheIsolationType;
 import org.eclipse.persistence.config.SessionCustomizer;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.descriptors.invalidation.TimeToLiveCacheInvalidationPolicy;
 import org.eclipse.persistence.sessions.DatabaseLogin;
 import org.eclipse.persistence.sessions.Session;
+import org.eclipse.persistence.sessions.SessionProfiler;
+import uk.gov.pay.connector.model.domain.CardTypeEntity;
+import uk.gov.pay.connector.model.domain.EmailNotificationEntity;
+import uk.gov.pay.connector.model.domain.GatewayAccountEntity;
+import uk.gov.pay.connector.model.domain.NotificationCredentials;
+
+import java.util.List;
 
 public class ConnectorSessionCustomiser implements SessionCustomizer {
 
+    public static final String REFERENCE_DATA_CACHE_ENABLED = "connector.reference-data-cache.enabled";
+    public static final String REFERENCE_DATA_CACHE_EXPIRY_MILLIS = "connector.reference-data-cache.expiry-millis";
+    public static final String REFERENCE_DATA_CACHE_PROFILER = "connector.reference-data-cache.profiler";
+
+    /**
+     * Read-mostly entities that are kept in the shared (L2) cache when the reference data cache is enabled.
+     * Every other entity keeps the isolated cache set by <code>eclipselink.cache.shared.default</code>.
+     */
+    static final List<Class<?>> REFERENCE_DATA_ENTITIES = ImmutableList.of(
+            GatewayAccountEntity.class,
+            EmailNotificationEntity.class,
+            NotificationCredentials.class,
+            CardTypeEntity.class);
+
     private static final int QUERY_RETRY_ATTEMPT_COUNT_ZERO_BASED_INDEX = 0;
     private static final int DELAY_BETWEEN_CONNECTION_ATTEMPTS_MILLIS = 2000;
 
@@ -14,5 +39,21 @@ public class ConnectorSessionCustomiser implements SessionCustomizer {
         DatabaseLogin datasourceLogin = (DatabaseLogin) session.getDatasourceLogin();
         datasourceLogin.setQueryRetryAttemptCount(QUERY_RETRY_ATTEMPT_COUNT_ZERO_BASED_INDEX);
         datasourceLogin.setDelayBetweenConnectionAttempts(DELAY_BETWEEN_CONNECTION_ATTEMPTS_MILLIS);
+
+        if (Boolean.parseBoolean(String.valueOf(session.getProperty(REFERENCE_DATA_CACHE_ENABLED)))) {
+            long expiryMillis = Long.parseLong(String.valueOf(session.getProperty(REFERENCE_DATA_CACHE_EXPIRY_MILLIS)));
+            REFERENCE_DATA_ENTITIES.forEach(entityClass -> shareInCache(session.getDescriptor(entityClass), expiryMillis));
+
+            Object profiler = session.getProperty(REFERENCE_DATA_CACHE_PROFILER);
+            if (profiler instanceof SessionProfiler) {
+                session.setProfiler((SessionProfiler) profiler);
+            }
+        }
+    }
+
+    private void shareInCache(ClassDescriptor descriptor, long expiryMillis) {
+        descriptor.getCachePolicy().setCacheIsolation(CacheIsolationType.SHARED);
+        // bounds staleness of entries updated by other connector nodes, which cannot evict them here
+        descriptor.setCacheInvalidationPolicy(new TimeToLiveCacheInvalidationPolicy(expiryMillis));
     }
 }
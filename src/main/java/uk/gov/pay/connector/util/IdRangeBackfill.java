@@ -0,0 +1,83 @@
+package uk.gov.pay.connector.util;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.SetupException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static java.lang.String.format;
+
+/**
+ * A migration step that runs an <code>UPDATE</code> over a large table in ranges of ids, committing after each
+ * range, so no statement locks more than one range of rows and the table stays writable meanwhile. The update
+ * takes the first id of the range and the id after its last as its two parameters. It must run in a changeset
+ * with <code>runInTransaction="false"</code>.
+ */
+public class IdRangeBackfill implements CustomTaskChange {
+
+    private String tableName;
+    private String sql;
+    private long batchSize = 10000;
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public void setSql(String sql) {
+        this.sql = sql;
+    }
+
+    public void setBatchSize(String batchSize) {
+        this.batchSize = Long.parseLong(batchSize);
+    }
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+        try (PreparedStatement bounds = connection.prepareStatement(format("SELECT min(id), max(id) FROM %s", tableName));
+             PreparedStatement update = connection.prepareStatement(sql)) {
+            ResultSet idRange = bounds.executeQuery();
+            idRange.next();
+            long lastId = idRange.getLong(2);
+            for (long fromId = idRange.getLong(1); fromId <= lastId; fromId += batchSize) {
+                update.setLong(1, fromId);
+                update.setLong(2, fromId + batchSize);
+                update.executeUpdate();
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+            }
+        } catch (SQLException | DatabaseException e) {
+            throw new CustomChangeException(format("Backfilling %s failed", tableName), e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return format("Backfilled %s in ranges of %d ids", tableName, batchSize);
+    }
+
+    @Override
+    public void setUp() throws SetupException {
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors errors = new ValidationErrors();
+        errors.checkRequiredField("tableName", tableName);
+        errors.checkRequiredField("sql", sql);
+        return errors;
+    }
+}
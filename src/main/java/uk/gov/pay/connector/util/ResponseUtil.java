@@ -17,18 +17,27 @@ public class ResponseUtil {
     private static final Joiner COMMA_JOINER = Joiner.on(", ");
 
     public static Response fieldsMissingResponse(List<String> missingFields) {
-        String message = format("Field(s) missing: [%s]", COMMA_JOINER.join(missingFields));
-        return badRequestResponse(message);
+        return badRequestResponse(fieldsMissingMessage(missingFields));
     }
 
     public static Response fieldsInvalidSizeResponse(List<String> invalidSizeFields) {
-        String message = format("Field(s) are too big: [%s]", COMMA_JOINER.join(invalidSizeFields));
-        return badRequestResponse(message);
+        return badRequestResponse(fieldsInvalidSizeMessage(invalidSizeFields));
     }
 
     public static Response fieldsInvalidResponse(List<String> invalidFields) {
-        String message = format("Field(s) are invalid: [%s]", COMMA_JOINER.join(invalidFields));
-        return badRequestResponse(message);
+        return badRequestResponse(fieldsInvalidMessage(invalidFields));
+    }
+
+    public static String fieldsMissingMessage(List<String> missingFields) {
+        return format("Field(s) missing: [%s]", COMMA_JOINER.join(missingFields));
+    }
+
+    public static String fieldsInvalidSizeMessage(List<String> invalidSizeFields) {
+        return format("Field(s) are too big: [%s]", COMMA_JOINER.join(invalidSizeFields));
+    }
+
+    public static String fieldsInvalidMessage(List<String> invalidFields) {
+        return format("Field(s) are invalid: [%s]", COMMA_JOINER.join(invalidFields));
     }
 
     public static Response responseWithChargeNotFound(String chargeId) {
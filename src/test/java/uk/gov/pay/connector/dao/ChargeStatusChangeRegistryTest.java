@@ -0,0 +1,135 @@
+package uk.gov.pay.connector.dao;
+
+import org.junit.Test;
+import uk.gov.pay.connector.model.domain.ChargeStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.AUTHORISATION_SUCCESS;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.CAPTURE_APPROVED;
+
+public class ChargeStatusChangeRegistryTest {
+
+    private ChargeStatusChangeRegistry registry = new ChargeStatusChangeRegistry();
+
+    @Test
+    public void shouldCallEveryListenerForTheChargeOnce() {
+        List<ChargeStatus> first = new ArrayList<>();
+        List<ChargeStatus> second = new ArrayList<>();
+        registry.register("charge-id", first::add);
+        registry.register("charge-id", second::add);
+
+        registry.statusChanged("charge-id", AUTHORISATION_SUCCESS);
+        registry.statusChanged("charge-id", CAPTURE_APPROVED);
+
+        assertThat(first, contains(AUTHORISATION_SUCCESS));
+        assertThat(second, contains(AUTHORISATION_SUCCESS));
+        assertThat(registry.countWaiting("charge-id"), is(0));
+    }
+
+    @Test
+    public void shouldNotCallListenersForOtherCharges() {
+        List<ChargeStatus> statuses = new ArrayList<>();
+        registry.register("charge-id", statuses::add);
+
+        registry.statusChanged("other-charge-id", AUTHORISATION_SUCCESS);
+
+        assertThat(statuses.isEmpty(), is(true));
+        assertThat(registry.countWaiting("charge-id"), is(1));
+    }
+
+    @Test
+    public void shouldNotCallADeregisteredListener() {
+        List<ChargeStatus> statuses = new ArrayList<>();
+        Runnable deregister = registry.register("charge-id", statuses::add);
+
+        deregister.run();
+        registry.statusChanged("charge-id", AUTHORISATION_SUCCESS);
+
+        assertThat(statuses.isEmpty(), is(true));
+        assertThat(registry.countWaiting("charge-id"), is(0));
+    }
+
+    @Test
+    public void shouldHoldBackAChangeUntilTheOutermostTransactionCommits() {
+        List<ChargeStatus> statuses = new ArrayList<>();
+        registry.register("charge-id", statuses::add);
+
+        registry.transactionStarted();
+        registry.transactionStarted();
+        registry.statusChanged("charge-id", AUTHORISATION_SUCCESS);
+        registry.transactionEnded(true);
+
+        assertThat(statuses.isEmpty(), is(true));
+
+        registry.transactionEnded(true);
+
+        assertThat(statuses, contains(AUTHORISATION_SUCCESS));
+    }
+
+    @Test
+    public void shouldPublishOnlyTheLastChangeOfAChargeInATransaction() {
+        List<ChargeStatus> statuses = new ArrayList<>();
+        registry.register("charge-id", statuses::add);
+
+        registry.transactionStarted();
+        registry.statusChanged("charge-id", AUTHORISATION_SUCCESS);
+        registry.statusChanged("charge-id", CAPTURE_APPROVED);
+        registry.transactionEnded(true);
+
+        assertThat(statuses, contains(CAPTURE_APPROVED));
+    }
+
+    @Test
+    public void shouldDropTheChangesOfATransactionThatRolledBack() {
+        List<ChargeStatus> statuses = new ArrayList<>();
+        registry.register("charge-id", statuses::add);
+
+        registry.transactionStarted();
+        registry.statusChanged("charge-id", AUTHORISATION_SUCCESS);
+        registry.transactionEnded(false);
+        registry.statusChanged("charge-id", CAPTURE_APPROVED);
+
+        assertThat(statuses, contains(CAPTURE_APPROVED));
+    }
+
+    @Test
+    public void shouldRunAnAfterCommitActionOnceTheOutermostTransactionCommits_beforeCallingListeners() {
+        List<String> calls = new ArrayList<>();
+        registry.register("charge-id", status -> calls.add("listener"));
+
+        registry.transactionStarted();
+        registry.transactionStarted();
+        registry.statusChanged("charge-id", AUTHORISATION_SUCCESS);
+        registry.afterCommit(() -> calls.add("action"));
+        registry.transactionEnded(true);
+        assertThat(calls.isEmpty(), is(true));
+        registry.transactionEnded(true);
+
+        assertThat(calls, contains("action", "listener"));
+    }
+
+    @Test
+    public void shouldDropAnAfterCommitAction_whenTheTransactionRollsBack() {
+        List<String> calls = new ArrayList<>();
+
+        registry.transactionStarted();
+        registry.afterCommit(() -> calls.add("action"));
+        registry.transactionEnded(false);
+
+        assertThat(calls.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldRunAnAfterCommitActionStraightAway_outsideATransaction() {
+        List<String> calls = new ArrayList<>();
+
+        registry.afterCommit(() -> calls.add("action"));
+
+        assertThat(calls, contains("action"));
+    }
+}
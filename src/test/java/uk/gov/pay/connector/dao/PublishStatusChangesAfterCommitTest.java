@@ -0,0 +1,87 @@
+package uk.gov.pay.connector.dao;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.Test;
+import uk.gov.pay.connector.app.ChargeVersionCacheConfig;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.ChargeStatus;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.model.domain.ChargeEntityFixture.aValidChargeEntity;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.AUTHORISATION_SUCCESS;
+
+public class PublishStatusChangesAfterCommitTest {
+
+    private ChargeStatusChangeRegistry registry = new ChargeStatusChangeRegistry();
+    private PublishStatusChangesAfterCommit interceptor = new PublishStatusChangesAfterCommit(registry);
+
+    @Test
+    public void shouldPublishTheChangesOnceTheMethodReturns() throws Throwable {
+        List<ChargeStatus> statuses = new ArrayList<>();
+        registry.register("charge-id", statuses::add);
+        List<ChargeStatus> seenWithinTheMethod = new ArrayList<>();
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.proceed()).thenAnswer(call -> {
+            registry.statusChanged("charge-id", AUTHORISATION_SUCCESS);
+            seenWithinTheMethod.addAll(statuses);
+            return "result";
+        });
+
+        Object result = interceptor.invoke(invocation);
+
+        assertThat(result, is("result"));
+        assertThat(seenWithinTheMethod.isEmpty(), is(true));
+        assertThat(statuses, contains(AUTHORISATION_SUCCESS));
+    }
+
+    @Test
+    public void shouldDropTheChanges_whenTheMethodThrows() throws Throwable {
+        List<ChargeStatus> statuses = new ArrayList<>();
+        registry.register("charge-id", statuses::add);
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.proceed()).thenAnswer(call -> {
+            registry.statusChanged("charge-id", AUTHORISATION_SUCCESS);
+            throw new IllegalStateException("rolled back");
+        });
+
+        try {
+            interceptor.invoke(invocation);
+            fail("expected the exception to be rethrown");
+        } catch (IllegalStateException e) {
+            assertThat(statuses.isEmpty(), is(true));
+            assertThat(registry.countWaiting("charge-id"), is(1));
+        }
+    }
+
+    @Test
+    public void shouldKeepTheOldVersionOutOfTheCache_whenAPollReadsTheChargeBeforeTheChangeCommits() throws Throwable {
+        ConnectorConfiguration configuration = mock(ConnectorConfiguration.class);
+        when(configuration.getChargeVersionCacheConfig()).thenReturn(new ChargeVersionCacheConfig());
+        ChargeVersionCache chargeVersionCache = new ChargeVersionCache(configuration);
+        ChargeDao chargeDao = new ChargeDao(() -> mock(EntityManager.class), mock(ChargeEventDao.class),
+                mock(ChargeArchiveDao.class), mock(ChargeStatsDao.class), chargeVersionCache, registry);
+        ChargeEntity charge = aValidChargeEntity().withExternalId("charge-id").build();
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.proceed()).thenAnswer(call -> {
+            chargeDao.merge(charge);
+            // a concurrent poll still reads the committed version and caches it
+            chargeVersionCache.put("charge-id", 1L);
+            return null;
+        });
+
+        interceptor.invoke(invocation);
+
+        assertThat(chargeVersionCache.getVersion("charge-id"), is(Optional.empty()));
+    }
+}
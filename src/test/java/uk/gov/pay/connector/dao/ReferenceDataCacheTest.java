@@ -0,0 +1,57 @@
+package uk.gov.pay.connector.dao;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.setup.Environment;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.model.domain.GatewayAccountEntity;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.util.HashMap;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.model.domain.GatewayAccountEntity.Type.TEST;
+
+public class ReferenceDataCacheTest {
+
+    private ChargeStatusChangeRegistry registry = new ChargeStatusChangeRegistry();
+    private Cache cache = mock(Cache.class);
+    private ReferenceDataCache referenceDataCache;
+    private GatewayAccountEntity gatewayAccount;
+
+    @Before
+    public void setUp() {
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        Environment environment = mock(Environment.class);
+        when(environment.metrics()).thenReturn(new MetricRegistry());
+        referenceDataCache = new ReferenceDataCache(() -> entityManagerFactory, registry, environment);
+
+        gatewayAccount = new GatewayAccountEntity("sandbox", new HashMap<>(), TEST);
+        gatewayAccount.setId(1L);
+    }
+
+    @Test
+    public void shouldEvictTheAccountOnlyOnceTheTransactionCommits() {
+        registry.transactionStarted();
+        referenceDataCache.evict(gatewayAccount);
+        verifyZeroInteractions(cache);
+
+        registry.transactionEnded(true);
+
+        verify(cache).evict(GatewayAccountEntity.class, 1L);
+    }
+
+    @Test
+    public void shouldKeepTheAccount_whenTheTransactionRollsBack() {
+        registry.transactionStarted();
+        referenceDataCache.evict(gatewayAccount);
+        registry.transactionEnded(false);
+
+        verifyZeroInteractions(cache);
+    }
+}
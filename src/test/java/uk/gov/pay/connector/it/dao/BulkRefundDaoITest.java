@@ -0,0 +1,83 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.dao.BulkRefundDao;
+import uk.gov.pay.connector.model.BulkRefundItem;
+import uk.gov.pay.connector.util.RandomIdGenerator;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static uk.gov.pay.connector.model.BulkRefundItem.Status.ERROR;
+import static uk.gov.pay.connector.model.BulkRefundItem.Status.PENDING;
+import static uk.gov.pay.connector.model.BulkRefundItem.Status.REJECTED;
+import static uk.gov.pay.connector.model.BulkRefundItem.Status.SUBMITTED;
+
+public class BulkRefundDaoITest extends DaoITestBase {
+
+    private static final Long ACCOUNT_ID = 1L;
+
+    private BulkRefundDao bulkRefundDao;
+    private String jobId;
+
+    @Before
+    public void setUp() {
+        bulkRefundDao = env.getInstance(BulkRefundDao.class);
+        jobId = RandomIdGenerator.newId();
+    }
+
+    @Test
+    public void persist_shouldInsertTheItemsOfAJobWithTheirErrors() {
+        bulkRefundDao.persist(jobId, ACCOUNT_ID, asList(
+                new BulkRefundItem(0, "charge-1", 100L, PENDING, null, null),
+                new BulkRefundItem(1, "charge-2", 200L, REJECTED, null, "Charge with id [charge-2] not found.")));
+
+        List<BulkRefundItem> items = bulkRefundDao.findItems(jobId, ACCOUNT_ID);
+
+        assertThat(items, hasSize(2));
+        assertThat(items.get(0).getStatus(), is(PENDING));
+        assertThat(items.get(0).getError().isPresent(), is(false));
+        assertThat(items.get(1).getStatus(), is(REJECTED));
+        assertThat(items.get(1).getError().get(), is("Charge with id [charge-2] not found."));
+    }
+
+    @Test
+    public void markSubmitted_shouldRecordTheRefundOfAPendingItem() {
+        bulkRefundDao.persist(jobId, ACCOUNT_ID, singletonList(new BulkRefundItem(0, "charge-1", 100L, PENDING, null, null)));
+
+        assertThat(bulkRefundDao.markSubmitted(jobId, 0, "refund-1"), is(true));
+
+        BulkRefundItem item = bulkRefundDao.findItems(jobId, ACCOUNT_ID).get(0);
+        assertThat(item.getStatus(), is(SUBMITTED));
+        assertThat(item.getRefundId().get(), is("refund-1"));
+    }
+
+    @Test
+    public void markSubmitted_shouldNotOverwriteAnItemTheCleanupMarkedAsAnError() {
+        bulkRefundDao.persist(jobId, ACCOUNT_ID, singletonList(new BulkRefundItem(0, "charge-1", 100L, PENDING, null, null)));
+        bulkRefundDao.markPendingCreatedBeforeAsError(ZonedDateTime.now(ZoneId.of("UTC")).plusMinutes(1), "timed out");
+
+        assertThat(bulkRefundDao.markSubmitted(jobId, 0, "refund-1"), is(false));
+
+        BulkRefundItem item = bulkRefundDao.findItems(jobId, ACCOUNT_ID).get(0);
+        assertThat(item.getStatus(), is(ERROR));
+        assertThat(item.getError().get(), is("timed out"));
+    }
+
+    @Test
+    public void markFailed_shouldNotOverwriteAnItemThatAlreadyHasAnOutcome() {
+        bulkRefundDao.persist(jobId, ACCOUNT_ID, singletonList(new BulkRefundItem(0, "charge-1", 100L, PENDING, null, null)));
+        bulkRefundDao.markSubmitted(jobId, 0, "refund-1");
+
+        assertThat(bulkRefundDao.markFailed(jobId, 0, ERROR, "gateway unavailable"), is(false));
+
+        assertThat(bulkRefundDao.findItems(jobId, ACCOUNT_ID).get(0).getStatus(), is(SUBMITTED));
+    }
+}
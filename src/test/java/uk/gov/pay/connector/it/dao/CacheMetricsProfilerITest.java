@@ -0,0 +1,97 @@
+package uk.gov.pay.connector.it.dao;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.persist.UnitOfWork;
+import com.google.inject.persist.jpa.JpaPersistModule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.dao.GatewayAccountDao;
+import uk.gov.pay.connector.util.CacheMetricsProfiler;
+
+import java.util.Properties;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static uk.gov.pay.connector.util.ConnectorSessionCustomiser.REFERENCE_DATA_CACHE_ENABLED;
+import static uk.gov.pay.connector.util.ConnectorSessionCustomiser.REFERENCE_DATA_CACHE_EXPIRY_MILLIS;
+import static uk.gov.pay.connector.util.ConnectorSessionCustomiser.REFERENCE_DATA_CACHE_PROFILER;
+
+/**
+ * Looks gateway accounts up through an entity manager set up as the application sets it up with the
+ * reference data cache enabled, and checks the shared cache hits and misses it counts.
+ */
+public class CacheMetricsProfilerITest extends DaoITestBase {
+
+    private MetricRegistry metricRegistry;
+    private GuicedTestEnvironment cachingEnv;
+    private GatewayAccountDao gatewayAccountDao;
+    private UnitOfWork unitOfWork;
+
+    @Before
+    public void startCachingEnvironment() {
+        metricRegistry = new MetricRegistry();
+
+        Properties properties = new Properties();
+        properties.put("javax.persistence.jdbc.driver", postgres.getDriverClass());
+        properties.put("javax.persistence.jdbc.url", postgres.getConnectionUrl());
+        properties.put("javax.persistence.jdbc.user", postgres.getUsername());
+        properties.put("javax.persistence.jdbc.password", postgres.getPassword());
+        properties.put("eclipselink.cache.shared.default", "false");
+        properties.put("eclipselink.session.customizer", "uk.gov.pay.connector.util.ConnectorSessionCustomiser");
+        properties.put("eclipselink.session-name", "CacheMetricsProfilerITest");
+        properties.put(REFERENCE_DATA_CACHE_ENABLED, "true");
+        properties.put(REFERENCE_DATA_CACHE_EXPIRY_MILLIS, "60000");
+        properties.put(REFERENCE_DATA_CACHE_PROFILER, new CacheMetricsProfiler(metricRegistry));
+        JpaPersistModule cachingModule = new JpaPersistModule("ConnectorUnit");
+        cachingModule.properties(properties);
+
+        cachingEnv = GuicedTestEnvironment.from(cachingModule).start();
+        gatewayAccountDao = cachingEnv.getInstance(GatewayAccountDao.class);
+        unitOfWork = cachingEnv.getInstance(UnitOfWork.class);
+    }
+
+    @After
+    public void stopCachingEnvironment() {
+        cachingEnv.stop();
+    }
+
+    @Test
+    public void shouldCountMissesForTheFirstLookupAndOnlyHitsForLaterOnes() {
+        Long accountId = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestAccount()
+                .insert()
+                .getAccountId();
+
+        findInARequestOfItsOwn(accountId);
+        long missesOfTheFirstLookup = misses();
+        long hitsOfTheFirstLookup = hits();
+        findInARequestOfItsOwn(accountId);
+        findInARequestOfItsOwn(accountId);
+
+        assertThat(missesOfTheFirstLookup, is(greaterThan(0L)));
+        assertThat(hitsOfTheFirstLookup, is(0L));
+        assertThat(misses(), is(missesOfTheFirstLookup));
+        assertThat(hits(), is(greaterThanOrEqualTo(2L)));
+    }
+
+    private void findInARequestOfItsOwn(Long accountId) {
+        unitOfWork.begin();
+        try {
+            assertThat(gatewayAccountDao.findById(accountId).isPresent(), is(true));
+        } finally {
+            unitOfWork.end();
+        }
+    }
+
+    private long hits() {
+        return metricRegistry.counter("jpa-cache.GatewayAccountEntity.hits").getCount();
+    }
+
+    private long misses() {
+        return metricRegistry.counter("jpa-cache.GatewayAccountEntity.misses").getCount();
+    }
+}
@@ -0,0 +1,127 @@
+package uk.gov.pay.connector.it.dao;
+
+import com.google.inject.persist.jpa.JpaPersistModule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.dao.CardTypeDao;
+import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.dao.ChargeSearchParams;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.ChargeStatus;
+import uk.gov.pay.connector.service.CardBrandLabelIndex;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Resolves the card brand labels of a page of charges, as a charge search does, through an entity manager
+ * whose statements are recorded, and counts the statements actually sent to the database.
+ */
+public class CardBrandLabelIndexITest extends DaoITestBase {
+
+    private static final int PAGE_SIZE = 60;
+    private static final String[] CARD_BRANDS = {"visa", "master-card", "unknown-brand"};
+
+    private QueryRecorder queryRecorder;
+    private GuicedTestEnvironment recordingEnv;
+    private ChargeDao chargeDao;
+    private CardBrandLabelIndex cardBrandLabelIndex;
+    private DatabaseFixtures.TestAccount testAccount;
+
+    @Before
+    public void startRecording() {
+        queryRecorder = new QueryRecorder();
+
+        Properties properties = new Properties();
+        properties.put("javax.persistence.nonJtaDataSource",
+                queryRecorder.dataSource(postgres.getConnectionUrl(), postgres.getUsername(), postgres.getPassword()));
+        // a session of its own, so it is not shared with the one the base class set up
+        properties.put("eclipselink.session-name", "CardBrandLabelIndexITest");
+        JpaPersistModule recordingModule = new JpaPersistModule("ConnectorUnit");
+        recordingModule.properties(properties);
+
+        recordingEnv = GuicedTestEnvironment.from(recordingModule).start();
+        chargeDao = recordingEnv.getInstance(ChargeDao.class);
+        cardBrandLabelIndex = new CardBrandLabelIndex(recordingEnv.getInstance(CardTypeDao.class));
+
+        testAccount = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestAccount()
+                .insert();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            insertChargeWithCardBrand(CARD_BRANDS[i % CARD_BRANDS.length]);
+        }
+    }
+
+    @After
+    public void stopRecording() {
+        recordingEnv.stop();
+    }
+
+    @Test
+    public void shouldReadTheCardTypesOnceForAPage_andOnceMoreForABrandThatIsNotOne() {
+        List<ChargeEntity> page = chargeDao.findAllBy(new ChargeSearchParams()
+                .withGatewayAccountId(testAccount.getAccountId())
+                .withPage(1L)
+                .withDisplaySize((long) PAGE_SIZE));
+        assertThat(page, hasSize(PAGE_SIZE));
+        queryRecorder.clear();
+
+        Map<String, String> labelsByBrand = page.stream()
+                .map(charge -> charge.getCardDetails().getCardBrand())
+                .distinct()
+                .collect(Collectors.toMap(brand -> brand, brand -> cardBrandLabelIndex.labelFor(brand).orElse("")));
+        labelsOf(page);
+
+        List<String> statements = queryRecorder.queries().stream()
+                .map(QueryRecorder.RecordedQuery::getSql)
+                .collect(Collectors.toList());
+        assertThat(statements, hasSize(2));
+        assertThat(statements, everyItem(containsString("card_types")));
+        assertThat(labelsByBrand.get("visa"), is("Visa"));
+        assertThat(labelsByBrand.get("master-card"), is("Mastercard"));
+        assertThat(labelsByBrand.get("unknown-brand"), is(""));
+    }
+
+    @Test
+    public void shouldNotReadTheCardTypesAgainForLaterPages() {
+        ChargeSearchParams params = new ChargeSearchParams()
+                .withGatewayAccountId(testAccount.getAccountId())
+                .withPage(1L)
+                .withDisplaySize((long) PAGE_SIZE);
+        labelsOf(chargeDao.findAllBy(params));
+        List<ChargeEntity> nextPage = chargeDao.findAllBy(params);
+        queryRecorder.clear();
+
+        labelsOf(nextPage);
+
+        assertThat(queryRecorder.queries(), hasSize(0));
+    }
+
+    private void labelsOf(List<ChargeEntity> page) {
+        page.forEach(charge -> cardBrandLabelIndex.labelFor(charge.getCardDetails().getCardBrand()));
+    }
+
+    private void insertChargeWithCardBrand(String cardBrand) {
+        DatabaseFixtures.TestCharge testCharge = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(testAccount)
+                .withChargeStatus(ChargeStatus.CAPTURED);
+        testCharge.withCardDetails(DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCardDetails()
+                .withChargeId(testCharge.getChargeId())
+                .withCardBrand(cardBrand));
+        testCharge.insert();
+    }
+}
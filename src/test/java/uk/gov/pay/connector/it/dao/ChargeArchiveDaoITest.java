@@ -0,0 +1,224 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.dao.ChargeArchiveDao;
+import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.dao.ChargeEventDao;
+import uk.gov.pay.connector.model.ChargeEvent;
+import uk.gov.pay.connector.model.ChargeStatusSummary;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.ChargeStatus;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.time.ZonedDateTime.now;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.AUTHORISATION_SUCCESS;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.CAPTURED;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.CAPTURE_APPROVED;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.CREATED;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.EXPIRED;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.USER_CANCELLED;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.USER_CANCEL_ERROR;
+import static uk.gov.pay.connector.model.domain.RefundStatus.REFUNDED;
+import static uk.gov.pay.connector.model.domain.RefundStatus.REFUND_SUBMITTED;
+import static uk.gov.pay.connector.service.ChargeArchiveProcess.ARCHIVABLE_STATUSES;
+
+public class ChargeArchiveDaoITest extends DaoITestBase {
+
+    private ChargeArchiveDao chargeArchiveDao;
+    private ChargeDao chargeDao;
+    private DatabaseFixtures.TestAccount testAccount;
+
+    @Before
+    public void setUp() throws Exception {
+        chargeArchiveDao = env.getInstance(ChargeArchiveDao.class);
+        chargeDao = env.getInstance(ChargeDao.class);
+
+        testAccount = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestAccount()
+                .insert();
+    }
+
+    @Test
+    public void archive_shouldMoveOldTerminalChargesWithTheirEventsRefundsAndTokens() {
+        DatabaseFixtures.TestCharge oldCaptured = insertCharge(CAPTURED, now().minusDays(100));
+        databaseTestHelper.addEvent(oldCaptured.getChargeId(), CAPTURED.getValue());
+        databaseTestHelper.addToken(oldCaptured.getChargeId(), "used-token");
+        insertRefund(oldCaptured, REFUNDED.getValue());
+
+        int archived = chargeArchiveDao.archive(ARCHIVABLE_STATUSES, now().minusDays(90), 100);
+
+        assertThat(archived, is(1));
+        assertThat(databaseTestHelper.getChargeStatus(oldCaptured.getChargeId()), is(nullValue()));
+        assertThat(databaseTestHelper.getInternalEvents(oldCaptured.getExternalChargeId()), hasSize(0));
+        assertThat(databaseTestHelper.getChargeTokenId(oldCaptured.getChargeId()), is(nullValue()));
+    }
+
+    @Test
+    public void archive_shouldLeaveRecentInProgressAndRefundingCharges() {
+        insertCharge(EXPIRED, now().minusDays(10));
+        insertCharge(CREATED, now().minusDays(100));
+        DatabaseFixtures.TestCharge refunding = insertCharge(CAPTURED, now().minusDays(100));
+        insertRefund(refunding, REFUND_SUBMITTED.getValue());
+
+        assertThat(chargeArchiveDao.archive(ARCHIVABLE_STATUSES, now().minusDays(90), 100), is(0));
+    }
+
+    @Test
+    public void archive_shouldArchiveAtMostOneBatch() {
+        insertCharge(EXPIRED, now().minusDays(100));
+        insertCharge(EXPIRED, now().minusDays(101));
+        insertCharge(EXPIRED, now().minusDays(102));
+
+        assertThat(chargeArchiveDao.archive(ARCHIVABLE_STATUSES, now().minusDays(90), 2), is(2));
+        assertThat(chargeArchiveDao.archive(ARCHIVABLE_STATUSES, now().minusDays(90), 2), is(1));
+    }
+
+    @Test
+    public void findByExternalId_shouldReadAnArchivedChargeWithItsRefundsWithoutRestoringIt() {
+        DatabaseFixtures.TestCharge oldCaptured = insertCharge(CAPTURED, now().minusDays(100));
+        insertRefund(oldCaptured, REFUNDED.getValue());
+        chargeArchiveDao.archive(ARCHIVABLE_STATUSES, now().minusDays(90), 100);
+
+        Optional<ChargeEntity> charge = chargeDao.findByExternalId(oldCaptured.getExternalChargeId(), ChargeEntity.WITH_REFUNDS);
+
+        assertThat(charge.isPresent(), is(true));
+        assertThat(charge.get().getId(), is(oldCaptured.getChargeId()));
+        assertThat(charge.get().isArchived(), is(true));
+        assertThat(charge.get().getRefunds(), hasSize(1));
+        assertThat(charge.get().getRefunds().get(0).getChargeEntity(), is(charge.get()));
+        assertThat(databaseTestHelper.getChargeStatus(oldCaptured.getChargeId()), is(nullValue()));
+    }
+
+    @Test
+    public void findByExternalIdAndGatewayAccountRestoringArchived_shouldRestoreAnArchivedChargeWithItsRefunds() {
+        DatabaseFixtures.TestCharge oldCaptured = insertCharge(CAPTURED, now().minusDays(100));
+        insertRefund(oldCaptured, REFUNDED.getValue());
+        chargeArchiveDao.archive(ARCHIVABLE_STATUSES, now().minusDays(90), 100);
+
+        Optional<ChargeEntity> charge = chargeDao.findByExternalIdAndGatewayAccountRestoringArchived(
+                oldCaptured.getExternalChargeId(), testAccount.getAccountId());
+
+        assertThat(charge.isPresent(), is(true));
+        assertThat(charge.get().isArchived(), is(false));
+        assertThat(charge.get().getRefunds(), hasSize(1));
+        assertThat(databaseTestHelper.getChargeStatus(oldCaptured.getChargeId()), is(CAPTURED.getValue()));
+    }
+
+    @Test
+    public void restoreByExternalId_shouldFindNothingToMove_whenTheChargeHasAlreadyBeenRestored() {
+        DatabaseFixtures.TestCharge oldCaptured = insertCharge(CAPTURED, now().minusDays(100));
+        chargeArchiveDao.archive(ARCHIVABLE_STATUSES, now().minusDays(90), 100);
+
+        assertThat(chargeArchiveDao.restoreByExternalId(oldCaptured.getExternalChargeId()), is(true));
+        assertThat(chargeArchiveDao.restoreByExternalId(oldCaptured.getExternalChargeId()), is(false));
+        assertThat(chargeDao.findByExternalIdAndGatewayAccountRestoringArchived(
+                oldCaptured.getExternalChargeId(), testAccount.getAccountId()).isPresent(), is(true));
+    }
+
+    @Test
+    public void merge_shouldRestoreAnArchivedChargeBeforeWritingIt() {
+        DatabaseFixtures.TestCharge oldCaptured = insertCharge(CAPTURED, now().minusDays(100));
+        chargeArchiveDao.archive(ARCHIVABLE_STATUSES, now().minusDays(90), 100);
+        ChargeEntity archivedCharge = chargeDao.findByExternalId(oldCaptured.getExternalChargeId()).get();
+
+        archivedCharge.setEmail("new-email@example.com");
+        chargeDao.merge(archivedCharge);
+
+        assertThat(databaseTestHelper.getChargeStatus(oldCaptured.getChargeId()), is(CAPTURED.getValue()));
+        assertThat(chargeDao.findByExternalId(oldCaptured.getExternalChargeId()).get().getEmail(), is("new-email@example.com"));
+    }
+
+    @Test
+    public void transitionStatus_shouldRestoreAnArchivedChargeInAFromStatusAndMoveIt() {
+        DatabaseFixtures.TestCharge oldCancelError = insertCharge(USER_CANCEL_ERROR, now().minusDays(100));
+        chargeArchiveDao.archive(ARCHIVABLE_STATUSES, now().minusDays(90), 100);
+
+        ChargeDao.TransitionResult result = chargeDao.transitionStatus(oldCancelError.getExternalChargeId(),
+                asList(USER_CANCEL_ERROR), USER_CANCELLED, Optional.empty());
+
+        assertThat(result, is(ChargeDao.TransitionResult.TRANSITIONED));
+        assertThat(databaseTestHelper.getChargeStatus(oldCancelError.getChargeId()), is(USER_CANCELLED.getValue()));
+    }
+
+    @Test
+    public void transitionStatus_shouldReportAConflictAndLeaveArchivedAChargeNotInAFromStatus() {
+        DatabaseFixtures.TestCharge oldCaptured = insertCharge(CAPTURED, now().minusDays(100));
+        chargeArchiveDao.archive(ARCHIVABLE_STATUSES, now().minusDays(90), 100);
+
+        ChargeDao.TransitionResult result = chargeDao.transitionStatus(oldCaptured.getExternalChargeId(),
+                asList(AUTHORISATION_SUCCESS), CAPTURE_APPROVED, Optional.empty());
+
+        assertThat(result, is(ChargeDao.TransitionResult.CONFLICT));
+        assertThat(databaseTestHelper.getChargeStatus(oldCaptured.getChargeId()), is(nullValue()));
+    }
+
+    @Test
+    public void findExternalChargeEvents_shouldReadEventsOfAnArchivedChargeWithoutRestoringIt() {
+        DatabaseFixtures.TestCharge oldExpired = insertCharge(EXPIRED, now().minusDays(100));
+        databaseTestHelper.addEvent(oldExpired.getChargeId(), CREATED.getValue(), now().minusDays(100));
+        databaseTestHelper.addEvent(oldExpired.getChargeId(), EXPIRED.getValue(), now().minusDays(100).plusHours(2));
+        chargeArchiveDao.archive(ARCHIVABLE_STATUSES, now().minusDays(90), 100);
+
+        Optional<List<ChargeEvent>> events = env.getInstance(ChargeEventDao.class)
+                .findExternalChargeEvents(oldExpired.getExternalChargeId(), testAccount.getAccountId());
+
+        assertThat(events.isPresent(), is(true));
+        assertThat(events.get(), hasSize(2));
+        assertThat(databaseTestHelper.getChargeStatus(oldExpired.getChargeId()), is(nullValue()));
+    }
+
+    @Test
+    public void findStatusesByExternalIdsAndGatewayAccount_shouldReadLiveAndArchivedChargesWithoutRestoringThem() {
+        DatabaseFixtures.TestCharge oldExpired = insertCharge(EXPIRED, now().minusDays(100));
+        chargeArchiveDao.archive(ARCHIVABLE_STATUSES, now().minusDays(90), 100);
+        DatabaseFixtures.TestCharge recentCaptured = insertCharge(CAPTURED, now().minusDays(1));
+        DatabaseFixtures.TestAccount otherAccount = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestAccount()
+                .withAccountId(testAccount.getAccountId() + 1)
+                .insert();
+        DatabaseFixtures.TestCharge otherAccountCharge = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(otherAccount)
+                .insert();
+
+        List<ChargeStatusSummary> statuses = chargeDao.findStatusesByExternalIdsAndGatewayAccount(
+                asList(oldExpired.getExternalChargeId(), recentCaptured.getExternalChargeId(), otherAccountCharge.getExternalChargeId()),
+                testAccount.getAccountId());
+
+        assertThat(statuses, hasSize(2));
+        Map<String, ChargeStatusSummary> statusesByChargeId = statuses.stream()
+                .collect(toMap(ChargeStatusSummary::getChargeId, summary -> summary));
+        assertThat(statusesByChargeId.get(oldExpired.getExternalChargeId()).getState(), is(EXPIRED.toExternal()));
+        assertThat(statusesByChargeId.get(recentCaptured.getExternalChargeId()).getState(), is(CAPTURED.toExternal()));
+        assertThat(statusesByChargeId.get(recentCaptured.getExternalChargeId()).getAmount(), is(recentCaptured.getAmount()));
+        assertThat(databaseTestHelper.getChargeStatus(oldExpired.getChargeId()), is(nullValue()));
+    }
+
+    private DatabaseFixtures.TestCharge insertCharge(ChargeStatus status, ZonedDateTime createdDate) {
+        return DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(testAccount)
+                .withChargeStatus(status)
+                .withCreatedDate(createdDate)
+                .insert();
+    }
+
+    private void insertRefund(DatabaseFixtures.TestCharge charge, String status) {
+        databaseTestHelper.addRefund(charge.getChargeId(), "refund-" + charge.getChargeId(), "reference", 100L, status, charge.getChargeId(), now());
+    }
+}
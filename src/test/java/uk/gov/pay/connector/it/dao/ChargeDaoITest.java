@@ -11,12 +11,20 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import uk.gov.pay.connector.dao.ChargeDao;
 import uk.gov.pay.connector.dao.ChargeSearchParams;
+import uk.gov.pay.connector.dao.ChargeStatsDao;
+import uk.gov.pay.connector.dao.TokenDao;
+import uk.gov.pay.connector.model.ChargeExportRow;
+import uk.gov.pay.connector.model.ChargeStateTotal;
 import uk.gov.pay.connector.model.domain.*;
 import uk.gov.pay.connector.model.domain.ChargeStatus;
 import uk.gov.pay.connector.util.DateTimeUtils;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
@@ -843,6 +851,67 @@ public class ChargeDaoITest extends DaoITestBase {
         assertThat(charge.get().getProviderSessionId(), is(providerSessionId));
     }
 
+    @Test
+    public void persistAll_shouldInsertTheChargesWithTheirCreatedEvents() {
+        GatewayAccountEntity gatewayAccount = gatewayAccountFor(defaultTestAccount);
+        List<ChargeEntity> charges = asList(
+                aValidChargeEntity().withId(null).withGatewayAccountEntity(gatewayAccount).withAmount(100L).build(),
+                aValidChargeEntity().withId(null).withGatewayAccountEntity(gatewayAccount).withAmount(250L).build());
+
+        chargeDao.persistAll(charges);
+
+        for (ChargeEntity charge : charges) {
+            assertThat(charge.getId(), is(notNullValue()));
+            Optional<ChargeEntity> persisted = chargeDao.findById(charge.getId());
+            assertThat(persisted.get().getExternalId(), is(charge.getExternalId()));
+            assertThat(persisted.get().getAmount(), is(charge.getAmount()));
+            assertThat(persisted.get().getStatus(), is(CREATED.getValue()));
+
+            List<Map<String, Object>> events = databaseTestHelper.getChargeEvents(charge.getId());
+            assertThat(events, hasSize(1));
+            assertThat(events.get(0).get("status"), is("CREATED"));
+        }
+    }
+
+    @Test
+    public void persistAll_shouldAddTheChargesToTheTotalsOfTheirAccountAndUtcDay() {
+        DatabaseFixtures.TestAccount otherTestAccount = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestAccount()
+                .withAccountId(defaultTestAccount.getAccountId() + 1)
+                .insert();
+        GatewayAccountEntity gatewayAccount = gatewayAccountFor(defaultTestAccount);
+        GatewayAccountEntity otherGatewayAccount = gatewayAccountFor(otherTestAccount);
+        ZonedDateTime lateOnTheDay = ZonedDateTime.of(2017, 3, 10, 23, 30, 0, 0, ZoneOffset.UTC);
+        LocalDate day = lateOnTheDay.toLocalDate();
+
+        chargeDao.persistAll(asList(
+                aValidChargeEntity().withId(null).withGatewayAccountEntity(gatewayAccount).withAmount(100L).withCreatedDate(lateOnTheDay).build(),
+                aValidChargeEntity().withId(null).withGatewayAccountEntity(gatewayAccount).withAmount(250L).withCreatedDate(lateOnTheDay).build(),
+                aValidChargeEntity().withId(null).withGatewayAccountEntity(gatewayAccount).withAmount(400L).withCreatedDate(lateOnTheDay.plusHours(1)).build(),
+                aValidChargeEntity().withId(null).withGatewayAccountEntity(otherGatewayAccount).withAmount(800L).withCreatedDate(lateOnTheDay).build()));
+
+        ChargeStatsDao chargeStatsDao = env.getInstance(ChargeStatsDao.class);
+        assertCreatedTotal(chargeStatsDao.findTotals(gatewayAccount.getId(), day, day.plusDays(1)), 2L, 350L);
+        assertCreatedTotal(chargeStatsDao.findTotals(gatewayAccount.getId(), day.plusDays(1), day.plusDays(2)), 1L, 400L);
+        assertCreatedTotal(chargeStatsDao.findTotals(otherGatewayAccount.getId(), day, day.plusDays(1)), 1L, 800L);
+    }
+
+    @Test
+    public void persistAll_shouldInsertTheTokensOfTheChargesWithTheirCreationDate() {
+        ChargeEntity charge = aValidChargeEntity().withId(null).withGatewayAccountEntity(gatewayAccountFor(defaultTestAccount)).build();
+        chargeDao.persistAll(asList(charge));
+        TokenEntity token = TokenEntity.generateNewTokenFor(charge);
+        token.setCreatedDate(ZonedDateTime.of(2017, 3, 10, 23, 30, 0, 0, ZoneOffset.UTC));
+
+        TokenDao tokenDao = env.getInstance(TokenDao.class);
+        tokenDao.persistAll(asList(token));
+
+        Optional<TokenEntity> persisted = tokenDao.findByTokenId(token.getToken());
+        assertThat(persisted.get().getChargeEntity().getId(), is(charge.getId()));
+        assertThat(persisted.get().getCreatedDate().toInstant(), is(token.getCreatedDate().toInstant()));
+    }
+
     @Test
     public void shouldReturnNullFindingByIdWhenChargeDoesNotExist() {
 
@@ -1004,6 +1073,32 @@ public class ChargeDaoITest extends DaoITestBase {
         assertThat(chargeForAccount.isPresent(), is(false));
     }
 
+    @Test
+    public void findByExternalId_shouldLoadRefundsLazily() {
+        insertTestCharge();
+        insertTestRefund();
+
+        ChargeEntity charge = chargeDao.findByExternalId(defaultTestCharge.getExternalChargeId()).get();
+
+        PersistenceUnitUtil persistenceUnitUtil = env.getInstance(EntityManager.class).getEntityManagerFactory().getPersistenceUnitUtil();
+        assertThat(persistenceUnitUtil.isLoaded(charge, "refunds"), is(false));
+        assertThat(persistenceUnitUtil.isLoaded(charge, "events"), is(false));
+        assertThat(charge.getRefunds().size(), is(1));
+    }
+
+    @Test
+    public void findByExternalId_shouldLoadRefundsWithEntityGraph() {
+        insertTestCharge();
+        insertTestRefund();
+
+        ChargeEntity charge = chargeDao.findByExternalIdAndGatewayAccount(
+                defaultTestCharge.getExternalChargeId(), defaultTestAccount.getAccountId(), ChargeEntity.WITH_REFUNDS).get();
+
+        PersistenceUnitUtil persistenceUnitUtil = env.getInstance(EntityManager.class).getEntityManagerFactory().getPersistenceUnitUtil();
+        assertThat(persistenceUnitUtil.isLoaded(charge, "refunds"), is(true));
+        assertThat(charge.getRefunds().size(), is(1));
+    }
+
     @Test
     public void testFindByDate_status_findsValidChargeForStatus() throws Exception {
         DatabaseFixtures
@@ -1059,6 +1154,31 @@ public class ChargeDaoITest extends DaoITestBase {
         assertThat(charges.size(), is(0));
     }
 
+    @Test
+    public void findPageBeforeDateWithStatusIn_shouldPageThroughChargesOldestFirst() throws Exception {
+        ZonedDateTime createdDate = now().minusHours(2);
+        for (long chargeId = 100; chargeId < 105; chargeId++) {
+            DatabaseFixtures
+                    .withDatabaseTestHelper(databaseTestHelper)
+                    .aTestCharge()
+                    .withTestAccount(defaultTestAccount)
+                    .withChargeId(chargeId)
+                    .withExternalChargeId("ext-id-" + chargeId)
+                    .withCreatedDate(chargeId == 100 ? createdDate.plusMinutes(1) : createdDate)
+                    .insert();
+        }
+        List<ChargeStatus> chargeStatuses = Lists.newArrayList(CREATED, ENTERING_CARD_DETAILS, AUTHORISATION_SUCCESS);
+
+        List<ChargeEntity> firstPage = chargeDao.findPageBeforeDateWithStatusIn(now().minusHours(1), chargeStatuses, Optional.empty(), 2);
+        List<ChargeEntity> secondPage = chargeDao.findPageBeforeDateWithStatusIn(now().minusHours(1), chargeStatuses, Optional.of(firstPage.get(1)), 2);
+        List<ChargeEntity> lastPage = chargeDao.findPageBeforeDateWithStatusIn(now().minusHours(1), chargeStatuses, Optional.of(secondPage.get(1)), 2);
+
+        assertThat(firstPage.stream().map(ChargeEntity::getId).collect(toList()), contains(101L, 102L));
+        assertThat(secondPage.stream().map(ChargeEntity::getId).collect(toList()), contains(103L, 104L));
+        assertThat(lastPage.stream().map(ChargeEntity::getId).collect(toList()), contains(100L));
+        assertThat(chargeDao.countBeforeDateWithStatusIn(now().minusHours(1), chargeStatuses), is(5L));
+    }
+
     @Test
     public void testFindChargeByTokenId() {
         DatabaseFixtures
@@ -1270,6 +1390,35 @@ public class ChargeDaoITest extends DaoITestBase {
 
     }
 
+    @Test
+    public void forEachMatching_shouldLeaveNoTransactionOpen_whenAllRowsAreRead() {
+        insertTestCharge();
+        List<ChargeExportRow> rows = new ArrayList<>();
+
+        chargeDao.forEachMatching(new ChargeSearchParams().withGatewayAccountId(defaultTestAccount.getAccountId()), 10, rows::add);
+
+        assertThat(rows, hasSize(1));
+        assertThat(env.getInstance(EntityManager.class).getTransaction().isActive(), is(false));
+        assertThat(databaseTestHelper.countConnectionsIdleInTransaction(), is(0));
+    }
+
+    @Test
+    public void forEachMatching_shouldLeaveNoTransactionOpen_whenTheReaderStopsPartWay() {
+        insertTestCharge();
+        RuntimeException clientGone = new RuntimeException("Broken pipe");
+
+        try {
+            chargeDao.forEachMatching(new ChargeSearchParams().withGatewayAccountId(defaultTestAccount.getAccountId()), 10, row -> {
+                throw clientGone;
+            });
+        } catch (RuntimeException e) {
+            assertThat(e, is(clientGone));
+        }
+
+        assertThat(env.getInstance(EntityManager.class).getTransaction().isActive(), is(false));
+        assertThat(databaseTestHelper.countConnectionsIdleInTransaction(), is(0));
+    }
+
     private void insertTestAccount() {
         this.defaultTestAccount = DatabaseFixtures
                 .withDatabaseTestHelper(databaseTestHelper)
@@ -1277,6 +1426,72 @@ public class ChargeDaoITest extends DaoITestBase {
                 .insert();
     }
 
+    @Test
+    public void transitionStatus_shouldMoveTheChargeAndRecordTheEventWhenItIsInAFromStatus() {
+        insertTestCharge();
+
+        ChargeDao.TransitionResult result = chargeDao.transitionStatus(defaultTestCharge.getExternalChargeId(),
+                asList(CREATED), ENTERING_CARD_DETAILS, Optional.empty());
+
+        assertThat(result, is(ChargeDao.TransitionResult.TRANSITIONED));
+        assertThat(databaseTestHelper.getChargeStatus(defaultTestCharge.getChargeId()), is(ENTERING_CARD_DETAILS.getValue()));
+        assertThat(databaseTestHelper.getInternalEvents(defaultTestCharge.getExternalChargeId()), contains(ENTERING_CARD_DETAILS.getValue()));
+    }
+
+    @Test
+    public void transitionStatus_shouldReportAConflictAndChangeNothingWhenTheChargeIsNotInAFromStatus() {
+        insertTestCharge();
+
+        ChargeDao.TransitionResult result = chargeDao.transitionStatus(defaultTestCharge.getExternalChargeId(),
+                asList(AUTHORISATION_SUCCESS), CAPTURE_APPROVED, Optional.empty());
+
+        assertThat(result, is(ChargeDao.TransitionResult.CONFLICT));
+        assertThat(databaseTestHelper.getChargeStatus(defaultTestCharge.getChargeId()), is(defaultTestCharge.getChargeStatus().getValue()));
+        assertThat(databaseTestHelper.getInternalEvents(defaultTestCharge.getExternalChargeId()), hasSize(0));
+    }
+
+    @Test
+    public void transitionStatus_shouldReportAnUnknownCharge() {
+        ChargeDao.TransitionResult result = chargeDao.transitionStatus("unknown-external-id",
+                asList(CREATED), ENTERING_CARD_DETAILS, Optional.empty());
+
+        assertThat(result, is(ChargeDao.TransitionResult.NOT_FOUND));
+    }
+
+    @Test
+    public void transitionStatusInBulk_shouldMoveOnlyTheChargesInAFromStatusAndRecordTheirEvents() {
+        DatabaseFixtures.TestCharge createdCharge = insertChargeWithStatus(100L, CREATED);
+        DatabaseFixtures.TestCharge enteringCardDetailsCharge = insertChargeWithStatus(101L, ENTERING_CARD_DETAILS);
+        DatabaseFixtures.TestCharge authorisedCharge = insertChargeWithStatus(102L, AUTHORISATION_SUCCESS);
+
+        List<Long> transitioned = chargeDao.transitionStatusInBulk(asList(100L, 101L, 102L),
+                asList(CREATED, ENTERING_CARD_DETAILS), EXPIRED);
+
+        assertThat(transitioned, containsInAnyOrder(100L, 101L));
+        assertThat(databaseTestHelper.getChargeStatus(100L), is(EXPIRED.getValue()));
+        assertThat(databaseTestHelper.getChargeStatus(101L), is(EXPIRED.getValue()));
+        assertThat(databaseTestHelper.getChargeStatus(102L), is(AUTHORISATION_SUCCESS.getValue()));
+        assertThat(databaseTestHelper.getInternalEvents(createdCharge.getExternalChargeId()), contains(EXPIRED.getValue()));
+        assertThat(databaseTestHelper.getInternalEvents(enteringCardDetailsCharge.getExternalChargeId()), contains(EXPIRED.getValue()));
+        assertThat(databaseTestHelper.getInternalEvents(authorisedCharge.getExternalChargeId()), hasSize(0));
+    }
+
+    @Test
+    public void transitionStatusInBulk_shouldDoNothingForNoCharges() {
+        assertThat(chargeDao.transitionStatusInBulk(Collections.emptyList(), asList(CREATED), EXPIRED), hasSize(0));
+    }
+
+    private DatabaseFixtures.TestCharge insertChargeWithStatus(Long chargeId, ChargeStatus status) {
+        return DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(defaultTestAccount)
+                .withChargeId(chargeId)
+                .withExternalChargeId("ext-id-" + chargeId)
+                .withChargeStatus(status)
+                .insert();
+    }
+
     private void insertTestCharge() {
         this.defaultTestCharge = DatabaseFixtures
                 .withDatabaseTestHelper(databaseTestHelper)
@@ -1288,6 +1503,19 @@ public class ChargeDaoITest extends DaoITestBase {
                 .update();
     }
 
+    private GatewayAccountEntity gatewayAccountFor(DatabaseFixtures.TestAccount testAccount) {
+        GatewayAccountEntity gatewayAccount = new GatewayAccountEntity(testAccount.getPaymentProvider(), new HashMap<>(), TEST);
+        gatewayAccount.setId(testAccount.getAccountId());
+        return gatewayAccount;
+    }
+
+    private void assertCreatedTotal(List<ChargeStateTotal> totals, long count, long amount) {
+        assertThat(totals, hasSize(1));
+        assertThat(totals.get(0).getState(), is("created"));
+        assertThat(totals.get(0).getCount(), is(count));
+        assertThat(totals.get(0).getAmount(), is(amount));
+    }
+
     private void insertTestRefund() {
         this.defaultTestRefund = DatabaseFixtures
                 .withDatabaseTestHelper(databaseTestHelper)
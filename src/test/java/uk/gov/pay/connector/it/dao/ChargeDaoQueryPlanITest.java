@@ -0,0 +1,98 @@
+package uk.gov.pay.connector.it.dao;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.persist.jpa.JpaPersistModule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.dao.ChargeSearchParams;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.AUTHORISATION_SUCCESS;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.CREATED;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.ENTERING_CARD_DETAILS;
+
+/**
+ * Checks that the date-bounded queries issued by ChargeDao are answered by a range scan
+ * over an index ending in created_date rather than by reading the whole table. Each test
+ * runs the DAO method and explains the SQL and parameters the entity manager sent.
+ */
+public class ChargeDaoQueryPlanITest extends DaoITestBase {
+
+    private QueryRecorder queryRecorder;
+    private GuicedTestEnvironment recordingEnv;
+    private ChargeDao chargeDao;
+
+    @Before
+    public void startRecording() {
+        queryRecorder = new QueryRecorder();
+
+        Properties properties = new Properties();
+        properties.put("javax.persistence.nonJtaDataSource",
+                queryRecorder.dataSource(postgres.getConnectionUrl(), postgres.getUsername(), postgres.getPassword()));
+        // a session of its own, so it is not shared with the one the base class set up
+        properties.put("eclipselink.session-name", "ChargeDaoQueryPlanITest");
+        JpaPersistModule recordingModule = new JpaPersistModule("ConnectorUnit");
+        recordingModule.properties(properties);
+
+        recordingEnv = GuicedTestEnvironment.from(recordingModule).start();
+        chargeDao = recordingEnv.getInstance(ChargeDao.class);
+    }
+
+    @After
+    public void stopRecording() {
+        recordingEnv.stop();
+    }
+
+    @Test
+    public void findAllBy_forAnAccountBetweenDates_shouldScanTheAccountAndCreatedDateIndex() {
+        ZonedDateTime fromDate = ZonedDateTime.parse("2017-01-01T00:00:00Z");
+        chargeDao.findAllBy(new ChargeSearchParams()
+                .withGatewayAccountId(1L)
+                .withFromDate(fromDate)
+                .withToDate(fromDate.plusMonths(1))
+                .withPage(1L)
+                .withDisplaySize(500L));
+
+        String plan = explainLastQuery();
+
+        assertThat(plan, containsString("idx_charges_gateway_account_id_created_date"));
+        assertThat(plan, containsString("created_date >="));
+        assertThat(plan, not(containsString("Seq Scan on charges")));
+    }
+
+    @Test
+    public void findPageBeforeDateWithStatusIn_shouldScanTheStatusAndCreatedDateIndex() {
+        chargeDao.findPageBeforeDateWithStatusIn(ZonedDateTime.parse("2017-01-01T00:00:00Z"),
+                ImmutableList.of(CREATED, ENTERING_CARD_DETAILS, AUTHORISATION_SUCCESS), Optional.empty(), 500);
+
+        String plan = explainLastQuery();
+
+        assertThat(plan, containsString("idx_charges_status_created_date"));
+        assertThat(plan, containsString("created_date <"));
+        assertThat(plan, not(containsString("Seq Scan on charges")));
+    }
+
+    @Test
+    public void findChargesForCapture_shouldScanTheStatusAndCreatedDateIndex() {
+        chargeDao.findChargesForCapture(10, Duration.ofHours(1));
+
+        String plan = explainLastQuery();
+
+        assertThat(plan, containsString("idx_charges_status_created_date"));
+        assertThat(plan, not(containsString("Seq Scan on charges")));
+    }
+
+    private String explainLastQuery() {
+        QueryRecorder.RecordedQuery query = queryRecorder.lastQuery();
+        return databaseTestHelper.explain(query.getSql(), query.getParameters());
+    }
+}
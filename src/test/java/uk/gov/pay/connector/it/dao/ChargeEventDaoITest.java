@@ -0,0 +1,92 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.dao.ChargeEventDao;
+import uk.gov.pay.connector.model.ChargeEvent;
+import uk.gov.pay.connector.model.domain.ChargeStatus;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static java.time.ZoneOffset.UTC;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static uk.gov.pay.connector.model.api.ExternalChargeState.EXTERNAL_CREATED;
+import static uk.gov.pay.connector.model.api.ExternalChargeState.EXTERNAL_STARTED;
+import static uk.gov.pay.connector.model.api.ExternalChargeState.EXTERNAL_SUBMITTED;
+import static uk.gov.pay.connector.model.api.ExternalChargeState.EXTERNAL_SUCCESS;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.AUTHORISATION_READY;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.AUTHORISATION_SUCCESS;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.CAPTURED;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.CREATED;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.ENTERING_CARD_DETAILS;
+
+public class ChargeEventDaoITest extends DaoITestBase {
+
+    private ChargeEventDao chargeEventDao;
+    private DatabaseFixtures.TestAccount testAccount;
+    private DatabaseFixtures.TestCharge testCharge;
+
+    @Before
+    public void setUp() throws Exception {
+        chargeEventDao = env.getInstance(ChargeEventDao.class);
+
+        testAccount = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestAccount()
+                .insert();
+
+        testCharge = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(testAccount)
+                .withChargeStatus(CAPTURED)
+                .insert();
+    }
+
+    @Test
+    public void findExternalChargeEvents_shouldKeepTheLatestEventOfEachExternalState() {
+        ZonedDateTime now = ZonedDateTime.now(UTC).withNano(0);
+        insertEvent(CREATED, now.minusMinutes(5));
+        insertEvent(ENTERING_CARD_DETAILS, now.minusMinutes(4));
+        insertEvent(AUTHORISATION_READY, now.minusMinutes(3));
+        insertEvent(AUTHORISATION_SUCCESS, now.minusMinutes(2));
+        insertEvent(CAPTURED, now.minusMinutes(1));
+
+        Optional<List<ChargeEvent>> events = chargeEventDao.findExternalChargeEvents(testCharge.getExternalChargeId(), testAccount.getAccountId());
+
+        assertThat(events.isPresent(), is(true));
+        assertThat(events.get().stream().map(ChargeEvent::getState).collect(toList()),
+                contains(EXTERNAL_SUCCESS, EXTERNAL_SUBMITTED, EXTERNAL_STARTED, EXTERNAL_CREATED));
+        assertThat(events.get().get(2).getTimeUpdate().toInstant(), is(now.minusMinutes(3).toInstant()));
+    }
+
+    @Test
+    public void findExternalChargeEvents_shouldReturnNoEventsForAChargeWithoutEvents() {
+        Optional<List<ChargeEvent>> events = chargeEventDao.findExternalChargeEvents(testCharge.getExternalChargeId(), testAccount.getAccountId());
+
+        assertThat(events.isPresent(), is(true));
+        assertThat(events.get().isEmpty(), is(true));
+    }
+
+    @Test
+    public void findExternalChargeEvents_shouldNotFindChargeOfAnotherAccount() {
+        Optional<List<ChargeEvent>> events = chargeEventDao.findExternalChargeEvents(testCharge.getExternalChargeId(), testAccount.getAccountId() + 1);
+
+        assertThat(events.isPresent(), is(false));
+    }
+
+    private void insertEvent(ChargeStatus status, ZonedDateTime updated) {
+        DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestChargeEvent()
+                .withChargeId(testCharge.getChargeId())
+                .withChargeStatus(status)
+                .withDate(updated)
+                .insert();
+    }
+}
@@ -0,0 +1,98 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.dao.ChargeStatsDao;
+import uk.gov.pay.connector.model.ChargeStateTotal;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.GatewayAccountEntity;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static uk.gov.pay.connector.model.domain.ChargeEntityFixture.aValidChargeEntity;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.CREATED;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.ENTERING_CARD_DETAILS;
+import static uk.gov.pay.connector.model.domain.GatewayAccountEntity.Type.TEST;
+
+public class ChargeStatsDaoITest extends DaoITestBase {
+
+    private static final ZonedDateTime CREATED_DATE = ZonedDateTime.of(2017, 3, 10, 23, 30, 0, 0, ZoneOffset.UTC);
+    private static final LocalDate CREATED_DAY = CREATED_DATE.toLocalDate();
+
+    private ChargeDao chargeDao;
+    private ChargeStatsDao chargeStatsDao;
+    private GatewayAccountEntity gatewayAccount;
+
+    @Before
+    public void setUp() throws Exception {
+        chargeDao = env.getInstance(ChargeDao.class);
+        chargeStatsDao = env.getInstance(ChargeStatsDao.class);
+
+        DatabaseFixtures.TestAccount testAccount = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestAccount()
+                .insert();
+        gatewayAccount = new GatewayAccountEntity(testAccount.getPaymentProvider(), new HashMap<>(), TEST);
+        gatewayAccount.setId(testAccount.getAccountId());
+    }
+
+    @Test
+    public void persist_shouldCountNewChargesUnderTheirUtcCreationDay() {
+        persistCharge(100L);
+        persistCharge(250L);
+
+        List<ChargeStateTotal> totals = chargeStatsDao.findTotals(gatewayAccount.getId(), CREATED_DAY, CREATED_DAY.plusDays(1));
+
+        assertThat(totals, hasSize(1));
+        assertTotal(totals.get(0), "created", 2L, 350L);
+    }
+
+    @Test
+    public void mergeAndNotifyStatusHasChanged_shouldMoveTheChargeToItsNewExternalState() {
+        ChargeEntity charge = persistCharge(100L);
+        persistCharge(250L);
+
+        charge.setStatus(ENTERING_CARD_DETAILS);
+        chargeDao.mergeAndNotifyStatusHasChanged(charge, Optional.empty());
+
+        List<ChargeStateTotal> totals = chargeStatsDao.findTotals(gatewayAccount.getId(), CREATED_DAY, CREATED_DAY.plusDays(1));
+
+        assertThat(totals, hasSize(2));
+        assertTotal(totals.get(0), "created", 1L, 250L);
+        assertTotal(totals.get(1), "started", 1L, 100L);
+    }
+
+    @Test
+    public void findTotals_shouldExcludeTheToDate() {
+        persistCharge(100L);
+
+        assertThat(chargeStatsDao.findTotals(gatewayAccount.getId(), CREATED_DAY.minusDays(1), CREATED_DAY), hasSize(0));
+    }
+
+    private ChargeEntity persistCharge(long amount) {
+        ChargeEntity charge = aValidChargeEntity()
+                .withId(null)
+                .withGatewayAccountEntity(gatewayAccount)
+                .withAmount(amount)
+                .withStatus(CREATED)
+                .withCreatedDate(CREATED_DATE)
+                .build();
+        chargeDao.persist(charge);
+        return charge;
+    }
+
+    private void assertTotal(ChargeStateTotal total, String state, long count, long amount) {
+        assertThat(total.getState(), is(state));
+        assertThat(total.getCount(), is(count));
+        assertThat(total.getAmount(), is(amount));
+    }
+}
@@ -0,0 +1,25 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.junit.Test;
+import uk.gov.pay.connector.model.domain.ChargeStatus;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+public class ChargeStatusCodesITest extends DaoITestBase {
+
+    @Test
+    public void chargeStatusesTable_shouldHoldTheCodeOfEveryChargeStatus() {
+        List<Map<String, Object>> codes = databaseTestHelper.getChargeStatusCodes();
+
+        assertThat(codes, hasSize(ChargeStatus.values().length));
+        for (Map<String, Object> code : codes) {
+            ChargeStatus status = ChargeStatus.fromCode(((Number) code.get("code")).shortValue());
+            assertThat(code.get("name"), is(status.getValue()));
+        }
+    }
+}
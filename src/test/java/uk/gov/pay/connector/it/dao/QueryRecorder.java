@@ -0,0 +1,107 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.postgresql.ds.PGSimpleDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Hands out connections to the test database that record every query run through them, with the parameters
+ * bound to it, so a test can look at the SQL the entity manager actually issued for a DAO method.
+ */
+class QueryRecorder {
+
+    static class RecordedQuery {
+        private final String sql;
+        private final List<Object> parameters;
+
+        private RecordedQuery(String sql, List<Object> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+
+        String getSql() {
+            return sql;
+        }
+
+        List<Object> getParameters() {
+            return parameters;
+        }
+    }
+
+    private final List<RecordedQuery> queries = new CopyOnWriteArrayList<>();
+
+    DataSource dataSource(String url, String user, String password) {
+        PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(url);
+        dataSource.setUser(user);
+        dataSource.setPassword(password);
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            Object result = invoke(dataSource, method, args);
+            return method.getName().equals("getConnection") ? recording((Connection) result) : result;
+        });
+    }
+
+    List<RecordedQuery> queries() {
+        return new ArrayList<>(queries);
+    }
+
+    void clear() {
+        queries.clear();
+    }
+
+    RecordedQuery lastQuery() {
+        if (queries.isEmpty()) {
+            throw new IllegalStateException("No query has been run");
+        }
+        return queries.get(queries.size() - 1);
+    }
+
+    private Connection recording(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return method.getName().equals("prepareStatement") ? recording((PreparedStatement) result, (String) args[0]) : result;
+        });
+    }
+
+    private PreparedStatement recording(PreparedStatement statement, String sql) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            if (isParameterSetter(method, args)) {
+                parameters.put((Integer) args[0], method.getName().equals("setNull") ? null : args[1]);
+            } else if (method.getName().equals("clearParameters")) {
+                parameters.clear();
+            } else if (method.getName().equals("executeQuery")) {
+                queries.add(new RecordedQuery(sql, new ArrayList<>(parameters.values())));
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private static boolean isParameterSetter(Method method, Object[] args) {
+        return method.getName().startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(QueryRecorder.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -130,4 +130,41 @@ public class RefundDaoJpaITest extends DaoITestBase {
                 refundEntity.getChargeEntity().getId(), refundEntity.getAmount(), refundEntity.getStatus().getValue())));
         assertThat(refundByIdFound.get(0), hasEntry("created_date", java.sql.Timestamp.from(refundEntity.getCreatedDate().toInstant())));
     }
+
+    @Test
+    public void persist_shouldAddTheRefundToTheChargesPendingRefundAmount() {
+        ChargeEntity chargeEntity = new ChargeEntity();
+        chargeEntity.setId(chargeTestRecord.getChargeId());
+
+        refundDao.persist(new RefundEntity(chargeEntity, 100L));
+
+        Map<String, Object> refundAmounts = databaseTestHelper.getChargeRefundAmounts(chargeTestRecord.getChargeId());
+        assertThat(refundAmounts, hasEntry("pending_refund_amount", refundTestRecord.getAmount() + 100L));
+        assertThat(refundAmounts, hasEntry("refunded_amount", 0L));
+    }
+
+    @Test
+    public void updateStatus_shouldMoveAConfirmedRefundFromPendingToRefunded() {
+        RefundEntity refundEntity = refundDao.findById(refundTestRecord.getId()).get();
+
+        refundDao.updateStatus(refundEntity, RefundStatus.REFUNDED);
+
+        assertThat(refundEntity.getStatus(), is(RefundStatus.REFUNDED));
+        Map<String, Object> refundAmounts = databaseTestHelper.getChargeRefundAmounts(chargeTestRecord.getChargeId());
+        assertThat(refundAmounts, hasEntry("pending_refund_amount", 0L));
+        assertThat(refundAmounts, hasEntry("refunded_amount", refundTestRecord.getAmount()));
+    }
+
+    @Test
+    public void updateStatus_shouldMakeTheAmountOfAFailedRefundAvailableAgain() {
+        RefundEntity refundEntity = refundDao.findById(refundTestRecord.getId()).get();
+        assertThat(refundDao.lockAmountAvailableForRefund(refundEntity.getChargeEntity()), is(chargeTestRecord.getAmount() - refundTestRecord.getAmount()));
+
+        refundDao.updateStatus(refundEntity, RefundStatus.REFUND_ERROR);
+
+        assertThat(refundDao.lockAmountAvailableForRefund(refundEntity.getChargeEntity()), is(chargeTestRecord.getAmount()));
+        Map<String, Object> refundAmounts = databaseTestHelper.getChargeRefundAmounts(chargeTestRecord.getChargeId());
+        assertThat(refundAmounts, hasEntry("pending_refund_amount", 0L));
+        assertThat(refundAmounts, hasEntry("refunded_amount", 0L));
+    }
 }
@@ -0,0 +1,64 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.dao.SchedulerLeaseDao;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class SchedulerLeaseDaoITest extends DaoITestBase {
+
+    private static final String LEASE_NAME = "charge-expiry";
+
+    private SchedulerLeaseDao schedulerLeaseDao;
+
+    @Before
+    public void setUp() {
+        schedulerLeaseDao = env.getInstance(SchedulerLeaseDao.class);
+    }
+
+    @After
+    public void tearDown() {
+        schedulerLeaseDao.release(LEASE_NAME, "node-1");
+        schedulerLeaseDao.release(LEASE_NAME, "node-2");
+    }
+
+    @Test
+    public void tryAcquire_shouldGiveTheLeaseToOneOwnerAtATime() {
+        assertThat(schedulerLeaseDao.tryAcquire(LEASE_NAME, "node-1", Duration.ofMinutes(5)), is(true));
+        assertThat(schedulerLeaseDao.tryAcquire(LEASE_NAME, "node-2", Duration.ofMinutes(5)), is(false));
+        assertThat(schedulerLeaseDao.tryAcquire(LEASE_NAME, "node-1", Duration.ofMinutes(5)), is(true));
+    }
+
+    @Test
+    public void tryAcquire_shouldTakeOverALeaseThatWasReleased() {
+        schedulerLeaseDao.tryAcquire(LEASE_NAME, "node-1", Duration.ofMinutes(5));
+        schedulerLeaseDao.release(LEASE_NAME, "node-1");
+
+        assertThat(schedulerLeaseDao.tryAcquire(LEASE_NAME, "node-2", Duration.ofMinutes(5)), is(true));
+    }
+
+    @Test
+    public void tryAcquire_shouldTakeOverALeaseThatHasLapsed() {
+        schedulerLeaseDao.tryAcquire(LEASE_NAME, "node-1", Duration.ofMillis(-1));
+
+        assertThat(schedulerLeaseDao.tryAcquire(LEASE_NAME, "node-2", Duration.ofMinutes(5)), is(true));
+    }
+
+    @Test
+    public void release_shouldNotReleaseALeaseHeldByAnotherOwner() {
+        schedulerLeaseDao.tryAcquire(LEASE_NAME, "node-1", Duration.ofMinutes(5));
+        schedulerLeaseDao.release(LEASE_NAME, "node-2");
+
+        assertThat(schedulerLeaseDao.tryAcquire(LEASE_NAME, "node-2", Duration.ofMinutes(5)), is(false));
+    }
+
+    @Test
+    public void tryAcquire_shouldNotAcquireAnUnknownLease() {
+        assertThat(schedulerLeaseDao.tryAcquire("no-such-lease", "node-1", Duration.ofMinutes(5)), is(false));
+    }
+}
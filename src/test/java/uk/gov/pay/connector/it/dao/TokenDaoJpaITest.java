@@ -9,6 +9,8 @@ import uk.gov.pay.connector.dao.TokenDao;
 import uk.gov.pay.connector.model.domain.ChargeEntity;
 import uk.gov.pay.connector.model.domain.TokenEntity;
 
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.Optional;
 
 import static org.hamcrest.CoreMatchers.notNullValue;
@@ -98,4 +100,52 @@ public class TokenDaoJpaITest extends DaoITestBase {
 
         assertThat(tokenDao.findByTokenId(tokenId), is(Optional.empty()));
     }
+
+    @Test
+    public void findLatestByChargeIdCreatedAfter_shouldFindTheLatestTokenCreatedAfterTheGivenDate() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneId.of("UTC"));
+        databaseTestHelper.addToken(defaultTestCharge.getChargeId(), "old-token", now.minusHours(2));
+        databaseTestHelper.addToken(defaultTestCharge.getChargeId(), "older-recent-token", now.minusMinutes(20));
+        databaseTestHelper.addToken(defaultTestCharge.getChargeId(), "recent-token", now.minusMinutes(10));
+
+        Optional<TokenEntity> token = tokenDao.findLatestByChargeIdCreatedAfter(defaultTestCharge.getChargeId(), now.minusHours(1));
+
+        assertThat(token.get().getToken(), is("recent-token"));
+    }
+
+    @Test
+    public void findLatestByChargeIdCreatedAfter_shouldNotFindTokensCreatedBeforeTheGivenDate() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneId.of("UTC"));
+        databaseTestHelper.addToken(defaultTestCharge.getChargeId(), "old-token", now.minusHours(2));
+
+        assertThat(tokenDao.findLatestByChargeIdCreatedAfter(defaultTestCharge.getChargeId(), now.minusHours(1)), is(Optional.empty()));
+    }
+
+    @Test
+    public void deleteCreatedBefore_shouldDeleteUpToABatchOfTokensCreatedBeforeTheGivenDate() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneId.of("UTC"));
+        databaseTestHelper.addToken(defaultTestCharge.getChargeId(), "old-token-1", now.minusHours(3));
+        databaseTestHelper.addToken(defaultTestCharge.getChargeId(), "old-token-2", now.minusHours(3));
+        databaseTestHelper.addToken(defaultTestCharge.getChargeId(), "old-token-3", now.minusHours(2));
+        databaseTestHelper.addToken(defaultTestCharge.getChargeId(), "recent-token", now.minusMinutes(10));
+
+        assertThat(tokenDao.deleteCreatedBefore(now.minusHours(1), 2), is(2));
+        assertThat(tokenDao.deleteCreatedBefore(now.minusHours(1), 2), is(1));
+
+        assertThat(databaseTestHelper.countTokens(), is(1));
+        assertThat(tokenDao.findByTokenId("recent-token").isPresent(), is(true));
+    }
+
+    @Test
+    public void deleteArchivedCreatedBefore_shouldDeleteOnlyArchivedTokensCreatedBeforeTheGivenDate() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneId.of("UTC"));
+        databaseTestHelper.addArchivedToken(1L, defaultTestCharge.getChargeId(), "old-archived-token", now.minusHours(2));
+        databaseTestHelper.addArchivedToken(2L, defaultTestCharge.getChargeId(), "recent-archived-token", now.minusMinutes(10));
+        databaseTestHelper.addToken(defaultTestCharge.getChargeId(), "old-token", now.minusHours(2));
+
+        assertThat(tokenDao.deleteArchivedCreatedBefore(now.minusHours(1), 10), is(1));
+
+        assertThat(databaseTestHelper.countArchivedTokens(), is(1));
+        assertThat(databaseTestHelper.countTokens(), is(1));
+    }
 }
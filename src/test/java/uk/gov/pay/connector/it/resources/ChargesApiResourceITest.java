@@ -42,7 +42,9 @@ import static org.hamcrest.text.MatchesPattern.matchesPattern;
 import static org.junit.Assert.assertTrue;
 import static uk.gov.pay.connector.matcher.ResponseContainsLinkMatcher.containsLink;
 import static uk.gov.pay.connector.matcher.ZoneDateTimeAsStringWithinMatcher.isWithin;
+import static uk.gov.pay.connector.model.api.ExternalChargeState.EXTERNAL_CREATED;
 import static uk.gov.pay.connector.model.api.ExternalChargeState.EXTERNAL_SUBMITTED;
+import static uk.gov.pay.connector.model.api.ExternalChargeState.EXTERNAL_SUCCESS;
 import static uk.gov.pay.connector.model.domain.ChargeStatus.*;
 import static uk.gov.pay.connector.model.domain.ChargeStatus.CREATED;
 import static uk.gov.pay.connector.resources.ApiPaths.CHARGES_API_PATH;
@@ -149,8 +151,9 @@ public class ChargesApiResourceITest extends ChargingITestBase {
                 .body("refund_summary.status", is("pending"));
 
 
-        // Reload the charge token which as it should have changed
+        // the charge token issued on creation is still valid, so it is given out again
         String newChargeTokenId = app.getDatabaseTestHelper().getChargeTokenByExternalChargeId(externalChargeId);
+        assertThat(newChargeTokenId, is(chargeTokenId));
 
         String newHrefNextUrl = "http://Frontend" + FRONTEND_CARD_DETAILS_URL + "/" + newChargeTokenId;
 
@@ -690,6 +693,116 @@ public class ChargesApiResourceITest extends ChargingITestBase {
                 .body(JSON_MESSAGE_KEY, is("Field(s) missing: [amount, description, reference, return_url]"));
     }
 
+    @Test
+    public void makeChargesInABatch_andReturnTheOutcomeOfEachRequest() throws Exception {
+        String postBody = toJson(ImmutableMap.of("charges", ImmutableList.of(
+                ImmutableMap.of(
+                        JSON_AMOUNT_KEY, AMOUNT,
+                        JSON_REFERENCE_KEY, "First reference",
+                        JSON_DESCRIPTION_KEY, "Test description",
+                        JSON_RETURN_URL_KEY, returnUrl),
+                ImmutableMap.of(
+                        JSON_REFERENCE_KEY, "Invalid reference",
+                        JSON_DESCRIPTION_KEY, "Test description",
+                        JSON_RETURN_URL_KEY, returnUrl),
+                ImmutableMap.of(
+                        JSON_AMOUNT_KEY, AMOUNT + 1,
+                        JSON_REFERENCE_KEY, "Second reference",
+                        JSON_DESCRIPTION_KEY, "Test description",
+                        JSON_RETURN_URL_KEY, returnUrl))));
+
+        ValidatableResponse response = createChargeApi
+                .postCreateCharges(postBody)
+                .statusCode(OK.getStatusCode())
+                .contentType(JSON)
+                .body("charges", hasSize(3))
+                .body("charges[0].status", is(201))
+                .body("charges[0].charge.reference", is("First reference"))
+                .body("charges[0].charge.amount", isNumber(AMOUNT))
+                .body("charges[0].charge.state.status", is(EXTERNAL_CREATED.getStatus()))
+                .body("charges[1].status", is(400))
+                .body("charges[1].containsKey('charge')", is(false))
+                .body("charges[1].message", is("Field(s) missing: [amount]"))
+                .body("charges[2].status", is(201))
+                .body("charges[2].charge.reference", is("Second reference"))
+                .body("charges[2].charge.amount", isNumber(AMOUNT + 1));
+
+        for (int i : new int[]{0, 2}) {
+            String externalChargeId = response.extract().path("charges[" + i + "].charge.charge_id");
+            String chargeTokenId = app.getDatabaseTestHelper().getChargeTokenByExternalChargeId(externalChargeId);
+            String documentLocation = expectedChargeLocationFor(accountId, externalChargeId);
+            response.body("charges[" + i + "].charge.links", containsLink("self", "GET", documentLocation))
+                    .body("charges[" + i + "].charge.links", containsLink("next_url", "GET", "http://Frontend" + FRONTEND_CARD_DETAILS_URL + "/" + chargeTokenId));
+
+            getChargeApi
+                    .withAccountId(accountId)
+                    .withChargeId(externalChargeId)
+                    .getCharge()
+                    .statusCode(OK.getStatusCode())
+                    .body(JSON_STATE_KEY, is(EXTERNAL_CREATED.getStatus()));
+        }
+    }
+
+    @Test
+    public void cannotMakeChargesInABatch_whenTheBatchIsEmpty() throws Exception {
+        createChargeApi.postCreateCharges(toJson(ImmutableMap.of("charges", ImmutableList.of())))
+                .statusCode(BAD_REQUEST.getStatusCode())
+                .contentType(JSON)
+                .body(JSON_MESSAGE_KEY, is("Field(s) missing: [charges]"));
+    }
+
+    @Test
+    public void cannotMakeChargesInABatch_forMissingGatewayAccount() throws Exception {
+        String missingGatewayAccount = "1234123";
+        String postBody = toJson(ImmutableMap.of("charges", ImmutableList.of(ImmutableMap.of(
+                JSON_AMOUNT_KEY, AMOUNT,
+                JSON_REFERENCE_KEY, "Test reference",
+                JSON_DESCRIPTION_KEY, "Test description",
+                JSON_RETURN_URL_KEY, returnUrl))));
+
+        createChargeApi
+                .withAccountId(missingGatewayAccount)
+                .postCreateCharges(postBody)
+                .statusCode(NOT_FOUND.getStatusCode())
+                .contentType(JSON)
+                .body(JSON_MESSAGE_KEY, is("Unknown gateway account: " + missingGatewayAccount));
+    }
+
+    @Test
+    public void shouldGetTheStatusesOfManyCharges_withoutIssuingTokens() throws Exception {
+        String createdChargeId = createNewChargeWith(CREATED, null);
+        String capturedChargeId = createNewChargeWith(CAPTURED, "gateway-transaction-id");
+        String unknownChargeId = "unknown-charge-id";
+
+        String postBody = toJson(ImmutableMap.of("charge_ids", ImmutableList.of(capturedChargeId, unknownChargeId, createdChargeId)));
+
+        getChargeApi
+                .postChargeStatuses(postBody)
+                .statusCode(OK.getStatusCode())
+                .contentType(JSON)
+                .body("charges", hasSize(2))
+                .body("charges[0].charge_id", is(capturedChargeId))
+                .body("charges[0].state.status", is(EXTERNAL_SUCCESS.getStatus()))
+                .body("charges[0].state.finished", is(true))
+                .body("charges[0].gateway_transaction_id", is("gateway-transaction-id"))
+                .body("charges[0].amount", isNumber(AMOUNT))
+                .body("charges[1].charge_id", is(createdChargeId))
+                .body("charges[1].state.status", is(EXTERNAL_CREATED.getStatus()))
+                .body("charges[1].containsKey('links')", is(false))
+                .body("not_found", is(ImmutableList.of(unknownChargeId)));
+
+        assertThat(app.getDatabaseTestHelper().getChargeTokenByExternalChargeId(createdChargeId), is(nullValue()));
+    }
+
+    @Test
+    public void cannotGetTheStatusesOfCharges_whenNoChargeIdIsGiven() throws Exception {
+        getChargeApi
+                .postChargeStatuses(toJson(ImmutableMap.of("charge_ids", ImmutableList.of())))
+                .statusCode(BAD_REQUEST.getStatusCode())
+                .contentType(JSON)
+                .body(JSON_MESSAGE_KEY, is("Field(s) missing: [charge_ids]"));
+    }
+
     @Test
     public void cannotGetCharge_WhenInvalidChargeId() throws Exception {
         String chargeId = "23235124";
@@ -902,6 +1015,57 @@ public class ChargesApiResourceITest extends ChargingITestBase {
         assertThat(references, not(contains("ref-1", "ref-2", "ref-5")));
     }
 
+    @Test
+    public void shouldExportMatchingChargesAsCsv_inCreationDateOrder() throws Exception {
+        String id_1 = addChargeAndCardDetails(CREATED, "ref-1", now());
+        String id_2 = addChargeAndCardDetails(AUTHORISATION_SUCCESS, "ref-2", now().plusHours(1));
+        addChargeAndCardDetails(CREATED, "other", now().plusHours(2));
+
+        String csv = getChargeApi
+                .withAccountId(accountId)
+                .withQueryParam("reference", "ref")
+                .getTransactionsExport()
+                .statusCode(OK.getStatusCode())
+                .contentType(startsWith("text/csv"))
+                .extract().body().asString();
+
+        String[] lines = csv.split("\r\n");
+        assertThat(lines.length, is(3));
+        assertThat(lines[0], is("charge_id,reference,description,email,amount,state,finished,card_brand,gateway_transaction_id,created_date"));
+        assertThat(lines[1], startsWith(id_2 + ",ref-2,Test description," + email + "," + AMOUNT + ",submitted,false,"));
+        assertThat(lines[2], startsWith(id_1 + ",ref-1,Test description," + email + "," + AMOUNT + ",created,false,"));
+    }
+
+    @Test
+    public void shouldExportMatchingChargesAsNdjson() throws Exception {
+        String id_1 = addChargeAndCardDetails(CREATED, "ref-1", now(), "visa");
+
+        String ndjson = getChargeApi
+                .withAccountId(accountId)
+                .withQueryParam("format", "ndjson")
+                .getTransactionsExport()
+                .statusCode(OK.getStatusCode())
+                .contentType(startsWith("application/x-ndjson"))
+                .extract().body().asString();
+
+        String[] lines = ndjson.split("\n");
+        assertThat(lines.length, is(1));
+        assertThat(lines[0], containsString("\"charge_id\":\"" + id_1 + "\""));
+        assertThat(lines[0], containsString("\"card_brand\":\"Visa\""));
+        assertThat(lines[0], containsString("\"amount\":" + AMOUNT));
+    }
+
+    @Test
+    public void shouldNotExportChargesInAnUnknownFormat() throws Exception {
+        getChargeApi
+                .withAccountId(accountId)
+                .withQueryParam("format", "xml")
+                .getTransactionsExport()
+                .statusCode(BAD_REQUEST.getStatusCode())
+                .contentType(JSON)
+                .body(JSON_MESSAGE_KEY, is("query param 'format' should be one of csv, ndjson"));
+    }
+
     private void assertResultsAndNoNextLinksWhenOnLastPage() {
         // when 5 charges are there, page is 3, display-size is 2
         ValidatableResponse response = getChargeApi
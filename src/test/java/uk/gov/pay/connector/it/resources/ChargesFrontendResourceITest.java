@@ -14,6 +14,8 @@ import uk.gov.pay.connector.util.RestAssuredClient;
 
 import javax.ws.rs.core.HttpHeaders;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static com.jayway.restassured.http.ContentType.JSON;
 import static java.lang.String.format;
@@ -27,6 +29,7 @@ import static javax.ws.rs.core.Response.Status;
 import static javax.ws.rs.core.Response.Status.*;
 import static org.apache.commons.lang.RandomStringUtils.randomAlphabetic;
 import static org.apache.commons.lang.RandomStringUtils.randomAlphanumeric;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.text.MatchesPattern.matchesPattern;
@@ -138,6 +141,96 @@ public class ChargesFrontendResourceITest {
         validateGetCharge(expectedAmount, chargeId, ENTERING_CARD_DETAILS);
     }
 
+    @Test
+    public void getChargeShouldAnswerNotModifiedUntilTheChargeChanges() {
+        String chargeId = postToCreateACharge(expectedAmount);
+
+        String etag = connectorRestApi
+                .withChargeId(chargeId)
+                .getFrontendCharge()
+                .statusCode(OK.getStatusCode())
+                .header(HttpHeaders.ETAG, notNullValue())
+                .extract().header(HttpHeaders.ETAG);
+
+        connectorRestApi
+                .withHeader(HttpHeaders.IF_NONE_MATCH, etag)
+                .getFrontendCharge()
+                .statusCode(NOT_MODIFIED.getStatusCode())
+                .header(HttpHeaders.ETAG, is(etag));
+
+        connectorRestApi
+                .withChargeId(chargeId)
+                .putChargeStatus(toJson(ImmutableMap.of("new_status", ENTERING_CARD_DETAILS.getValue())))
+                .statusCode(NO_CONTENT.getStatusCode());
+
+        connectorRestApi
+                .withHeader(HttpHeaders.IF_NONE_MATCH, etag)
+                .getFrontendCharge()
+                .statusCode(OK.getStatusCode())
+                .header(HttpHeaders.ETAG, not(etag))
+                .body("status", is(ENTERING_CARD_DETAILS.getValue()));
+    }
+
+    @Test
+    public void statusChangeShouldAnswerStraightAwayWhenTheStatusHasAlreadyChanged() {
+        String chargeId = postToCreateACharge(expectedAmount);
+
+        connectorRestApi
+                .withChargeId(chargeId)
+                .getFrontendChargeStatusChange(ENTERING_CARD_DETAILS.getValue())
+                .statusCode(OK.getStatusCode())
+                .body("status", is(CREATED.getValue()));
+    }
+
+    @Test
+    public void statusChangeShouldAnswerAsSoonAsTheStatusChanges() throws Exception {
+        String chargeId = postToCreateACharge(expectedAmount);
+        RestAssuredClient waitingClient = new RestAssuredClient(app, accountId).withChargeId(chargeId);
+
+        CompletableFuture<ValidatableResponse> statusChange = CompletableFuture.supplyAsync(() ->
+                waitingClient.getFrontendChargeStatusChange(CREATED.getValue()));
+        Thread.sleep(500);
+        assertThat(statusChange.isDone(), is(false));
+
+        connectorRestApi
+                .withChargeId(chargeId)
+                .putChargeStatus(toJson(ImmutableMap.of("new_status", ENTERING_CARD_DETAILS.getValue())))
+                .statusCode(NO_CONTENT.getStatusCode());
+
+        statusChange.get(5, TimeUnit.SECONDS)
+                .statusCode(OK.getStatusCode())
+                .body("status", is(ENTERING_CARD_DETAILS.getValue()));
+    }
+
+    @Test
+    public void statusChangeShouldBeNotFoundForAnUnknownCharge() {
+        connectorRestApi
+                .withChargeId("unknown-charge-id")
+                .getFrontendChargeStatusChange(CREATED.getValue())
+                .statusCode(NOT_FOUND.getStatusCode());
+    }
+
+    @Test
+    public void shouldBeBadRequestForUpdateStatusWhenChargeIsAlreadyEnteringCardDetails() {
+
+        String chargeId = postToCreateACharge(expectedAmount);
+        String putBody = toJson(ImmutableMap.of("new_status", ENTERING_CARD_DETAILS.getValue()));
+
+        connectorRestApi
+                .withAccountId(accountId)
+                .withChargeId(chargeId)
+                .putChargeStatus(putBody)
+                .statusCode(NO_CONTENT.getStatusCode());
+
+        connectorRestApi
+                .withAccountId(accountId)
+                .withChargeId(chargeId)
+                .putChargeStatus(putBody)
+                .statusCode(BAD_REQUEST.getStatusCode());
+
+        validateGetCharge(expectedAmount, chargeId, ENTERING_CARD_DETAILS);
+    }
+
     @Test
     public void shouldBeBadRequestForUpdateStatusWithEmptyBody() {
         String chargeId = postToCreateACharge(expectedAmount);
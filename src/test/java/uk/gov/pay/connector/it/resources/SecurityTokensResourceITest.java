@@ -9,6 +9,9 @@ import uk.gov.pay.connector.it.dao.DatabaseFixtures;
 import uk.gov.pay.connector.resources.SecurityTokensResource;
 import uk.gov.pay.connector.rules.DropwizardAppWithPostgresRule;
 
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
 import static com.jayway.restassured.RestAssured.given;
 import static com.jayway.restassured.http.ContentType.JSON;
 import static org.hamcrest.Matchers.is;
@@ -65,6 +68,15 @@ public class SecurityTokensResourceITest {
                 .body("message", is("Token invalid!"));
     }
 
+    @Test
+    public void shouldReturn404WhenTokenHasExpired() throws Exception {
+        app.getDatabaseTestHelper().addToken(defaultTestCharge.getChargeId(), "expired-token",
+                ZonedDateTime.now(ZoneId.of("UTC")).minusHours(2));
+
+        findTokenGetsStatusCode("expired-token", 404)
+                .body("message", is("Token invalid!"));
+    }
+
     @Test
     public void shouldSuccessfullyDeleteToken() throws Exception {
         givenSetup()
@@ -0,0 +1,161 @@
+package uk.gov.pay.connector.it.resources.sandbox;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.jayway.restassured.http.ContentType;
+import com.jayway.restassured.response.ValidatableResponse;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.it.base.ChargingITestBase;
+import uk.gov.pay.connector.it.dao.DatabaseFixtures;
+import uk.gov.pay.connector.util.DatabaseTestHelper;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+import static javax.ws.rs.core.Response.Status.ACCEPTED;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.Status.OK;
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.core.Is.is;
+import static uk.gov.pay.connector.matcher.RefundsMatcher.aRefundMatching;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.CAPTURED;
+import static uk.gov.pay.connector.resources.ApiPaths.BULK_REFUNDS_API_PATH;
+import static uk.gov.pay.connector.resources.ApiPaths.BULK_REFUND_API_PATH;
+
+public class SandboxBulkRefundITest extends ChargingITestBase {
+
+    private DatabaseFixtures.TestAccount defaultTestAccount;
+    private DatabaseTestHelper databaseTestHelper;
+
+    public SandboxBulkRefundITest() {
+        super("sandbox");
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        databaseTestHelper = app.getDatabaseTestHelper();
+        defaultTestAccount = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestAccount()
+                .withAccountId(Long.valueOf(accountId));
+    }
+
+    @Test
+    public void shouldRefundEachChargeAndReportTheOutcomeOfEachRefund() throws Exception {
+        DatabaseFixtures.TestCharge firstCharge = aCapturedCharge();
+        DatabaseFixtures.TestCharge secondCharge = aCapturedCharge();
+
+        String jobId = postBulkRefund(ImmutableList.of(
+                refund(firstCharge.getExternalChargeId(), 50L, firstCharge.getAmount()),
+                refund(secondCharge.getExternalChargeId(), 100L, secondCharge.getAmount()),
+                refund("unknown-charge", 10L, 10L)))
+                .statusCode(ACCEPTED.getStatusCode())
+                .body("job_id", is(notNullValue()))
+                .body("refunds.size()", is(3))
+                .extract().path("job_id");
+
+        ValidatableResponse finishedJob = waitUntilFinished(jobId)
+                .body("refunds[0].charge_id", is(firstCharge.getExternalChargeId()))
+                .body("refunds[0].status", is("submitted"))
+                .body("refunds[1].charge_id", is(secondCharge.getExternalChargeId()))
+                .body("refunds[1].status", is("submitted"))
+                .body("refunds[2].status", is("rejected"))
+                .body("refunds[2].error", is("Charge with id [unknown-charge] not found."));
+
+        String firstRefundId = finishedJob.extract().path("refunds[0].refund_id");
+        List<Map<String, Object>> refunds = databaseTestHelper.getRefundsByChargeId(firstCharge.getChargeId());
+        assertThat(refunds.size(), is(1));
+        assertThat(refunds, hasItems(aRefundMatching(firstRefundId, is(notNullValue()), firstCharge.getChargeId(), 50L, "REFUNDED")));
+        assertThat(databaseTestHelper.getRefundsByChargeId(secondCharge.getChargeId()).size(), is(1));
+    }
+
+    @Test
+    public void shouldRejectARefundWhoseAmountAvailableDoesNotMatchTheCharge() throws Exception {
+        DatabaseFixtures.TestCharge charge = aCapturedCharge();
+
+        String jobId = postBulkRefund(ImmutableList.of(refund(charge.getExternalChargeId(), 50L, charge.getAmount() - 1)))
+                .statusCode(ACCEPTED.getStatusCode())
+                .extract().path("job_id");
+
+        waitUntilFinished(jobId)
+                .body("refunds[0].status", is("rejected"))
+                .body("refunds[0].error", is("Refund Amount Available Mismatch"));
+        assertThat(databaseTestHelper.getRefundsByChargeId(charge.getChargeId()).size(), is(0));
+    }
+
+    @Test
+    public void shouldRespond_400_WhenThereAreNoRefunds() {
+        postBulkRefund(ImmutableList.of())
+                .statusCode(BAD_REQUEST.getStatusCode())
+                .body("message", is("Field(s) missing: [refunds]"));
+    }
+
+    @Test
+    public void shouldRespond_400_WhenARefundAmountIsBelowTheMinimum() {
+        DatabaseFixtures.TestCharge charge = aCapturedCharge();
+
+        postBulkRefund(ImmutableList.of(refund(charge.getExternalChargeId(), 0L, charge.getAmount())))
+                .statusCode(BAD_REQUEST.getStatusCode())
+                .body("reason", is("amount_min_validation"));
+    }
+
+    @Test
+    public void shouldRespond_404_ForAnUnknownJob() {
+        givenSetup()
+                .accept(ContentType.JSON)
+                .get(bulkRefundPath("unknown-job"))
+                .then()
+                .statusCode(NOT_FOUND.getStatusCode())
+                .body("message", is("Bulk refund with id [unknown-job] not found."));
+    }
+
+    private DatabaseFixtures.TestCharge aCapturedCharge() {
+        return DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withAmount(100L)
+                .withTestAccount(defaultTestAccount)
+                .withChargeStatus(CAPTURED)
+                .insert();
+    }
+
+    private Map<String, Object> refund(String chargeId, Long amount, Long amountAvailable) {
+        return ImmutableMap.of("charge_id", chargeId, "amount", amount, "refund_amount_available", amountAvailable);
+    }
+
+    private ValidatableResponse postBulkRefund(List<Map<String, Object>> refunds) {
+        return givenSetup()
+                .body(new Gson().toJson(ImmutableMap.of("refunds", refunds)))
+                .accept(ContentType.JSON)
+                .contentType(ContentType.JSON)
+                .post(BULK_REFUNDS_API_PATH.replace("{accountId}", accountId))
+                .then();
+    }
+
+    private ValidatableResponse waitUntilFinished(String jobId) throws InterruptedException {
+        for (int attempt = 0; attempt < 50; attempt++) {
+            ValidatableResponse response = givenSetup()
+                    .accept(ContentType.JSON)
+                    .get(bulkRefundPath(jobId))
+                    .then()
+                    .statusCode(OK.getStatusCode());
+            if ("finished".equals(response.extract().path("status"))) {
+                return response;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError(format("Bulk refund %s did not finish", jobId));
+    }
+
+    private String bulkRefundPath(String jobId) {
+        return BULK_REFUND_API_PATH
+                .replace("{accountId}", accountId)
+                .replace("{jobId}", jobId);
+    }
+}
@@ -0,0 +1,94 @@
+package uk.gov.pay.connector.it.service;
+
+import com.google.inject.persist.UnitOfWork;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.it.dao.DaoITestBase;
+import uk.gov.pay.connector.it.dao.DatabaseFixtures;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.ChargeStatus;
+import uk.gov.pay.connector.service.ChargeExpiryService;
+import uk.gov.pay.connector.service.ExpiryCancelExecutor;
+import uk.gov.pay.connector.service.PaymentProviders;
+import uk.gov.pay.connector.service.transaction.TransactionFlow;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.CREATED;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.ENTERING_CARD_DETAILS;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.EXPIRED;
+import static uk.gov.pay.connector.service.ChargeExpiryService.EXPIRABLE_STATUSES;
+import static uk.gov.pay.connector.service.ChargeExpiryService.EXPIRY_SUCCESS;
+
+public class ChargeExpiryServiceITest extends DaoITestBase {
+
+    private ChargeDao chargeDao;
+    private ChargeExpiryService chargeExpiryService;
+    private UnitOfWork unitOfWork;
+    private DatabaseFixtures.TestAccount testAccount;
+
+    @Before
+    public void setUp() {
+        chargeDao = env.getInstance(ChargeDao.class);
+        // only charges that need no cancellation are expired here, so the gateways are never called
+        chargeExpiryService = new ChargeExpiryService(chargeDao, mock(PaymentProviders.class), TransactionFlow::new,
+                mock(ExpiryCancelExecutor.class));
+        testAccount = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestAccount()
+                .insert();
+
+        // the expiry scheduler thread keeps one entity manager across all its transactions
+        unitOfWork = env.getInstance(UnitOfWork.class);
+        unitOfWork.begin();
+    }
+
+    @After
+    public void endUnitOfWork() {
+        unitOfWork.end();
+    }
+
+    @Test
+    public void shouldLeaveTheEntityManagerUsableForTheNextTransaction_whenChargesAreExpiredInBulk() {
+        ZonedDateTime createdBefore = ZonedDateTime.now();
+        insertCharge(100L, CREATED, createdBefore.minusHours(2));
+        insertCharge(101L, ENTERING_CARD_DETAILS, createdBefore.minusHours(2));
+
+        List<ChargeEntity> page = chargeDao.findPageBeforeDateWithStatusIn(createdBefore, EXPIRABLE_STATUSES, Optional.empty(), 10);
+        assertThat(page, hasSize(2));
+
+        Map<String, Integer> result = chargeExpiryService.expire(page);
+        assertThat(result.get(EXPIRY_SUCCESS), is(2));
+
+        // a stale expired charge left in the entity manager would fail this with an optimistic lock exception
+        ChargeEntity charge = chargeDao.findById(100L).get();
+        assertThat(charge.getStatus(), is(EXPIRED.getValue()));
+        charge.setEmail("changed@example.com");
+        chargeDao.merge(charge);
+
+        assertThat(databaseTestHelper.getChargeStatus(100L), is(EXPIRED.getValue()));
+        assertThat(databaseTestHelper.getChargeStatus(101L), is(EXPIRED.getValue()));
+        assertThat(chargeDao.findById(100L).get().getEmail(), is("changed@example.com"));
+    }
+
+    private void insertCharge(long chargeId, ChargeStatus status, ZonedDateTime createdDate) {
+        DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(testAccount)
+                .withChargeId(chargeId)
+                .withExternalChargeId("ext-id-" + chargeId)
+                .withChargeStatus(status)
+                .withCreatedDate(createdDate)
+                .insert();
+    }
+}
@@ -40,6 +40,9 @@ public class ChargeEntityFixture {
         chargeEntity.setGatewayTransactionId(transactionId);
         chargeEntity.getEvents().addAll(events);
         chargeEntity.getRefunds().addAll(refunds);
+        chargeEntity.setRefundAmounts(
+                amountOfRefundsIn(RefundStatus.REFUNDED),
+                amountOfRefundsIn(RefundStatus.CREATED, RefundStatus.REFUND_SUBMITTED));
         chargeEntity.setProviderSessionId(providerSessionId);
         if(paRequest != null && issuerUrl != null) {
             Auth3dsDetailsEntity auth3dsDetailsEntity = new Auth3dsDetailsEntity();
@@ -51,6 +54,13 @@ public class ChargeEntityFixture {
         return chargeEntity;
     }
 
+    private long amountOfRefundsIn(RefundStatus... statuses) {
+        return refunds.stream()
+                .filter(refund -> refund.hasStatus(statuses))
+                .mapToLong(RefundEntity::getAmount)
+                .sum();
+    }
+
     public ChargeEntityFixture withId(Long id) {
         this.id = id;
         return this;
@@ -71,6 +81,11 @@ public class ChargeEntityFixture {
         return this;
     }
 
+    public ChargeEntityFixture withEmail(String email) {
+        this.email = email;
+        return this;
+    }
+
     public ChargeEntityFixture withTransactionId(String transactionId) {
         this.transactionId = transactionId;
         return this;
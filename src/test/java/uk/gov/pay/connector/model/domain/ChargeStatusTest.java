@@ -0,0 +1,43 @@
+package uk.gov.pay.connector.model.domain;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class ChargeStatusTest {
+
+    @Test
+    public void shouldHaveAUniqueCodeForEachStatus() {
+        assertThat(Arrays.stream(ChargeStatus.values()).map(ChargeStatus::getCode).distinct().count(),
+                is((long) ChargeStatus.values().length));
+    }
+
+    @Test
+    public void shouldDecodeEachStatusFromItsCodeAndValue() {
+        for (ChargeStatus status : ChargeStatus.values()) {
+            assertThat(ChargeStatus.fromCode(status.getCode()), is(status));
+            assertThat(ChargeStatus.fromString(status.getValue()), is(status));
+        }
+    }
+
+    @Test
+    public void shouldKeepTheCodesStoredInTheDatabase() {
+        assertThat(ChargeStatus.CREATED.getCode(), is((short) 1));
+        assertThat(ChargeStatus.CAPTURE_APPROVED.getCode(), is((short) 12));
+        assertThat(ChargeStatus.EXPIRED.getCode(), is((short) 21));
+        assertThat(ChargeStatus.USER_CANCEL_ERROR.getCode(), is((short) 29));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectAnUnknownCode() {
+        ChargeStatus.fromCode((short) 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectAnUnknownValue() {
+        ChargeStatus.fromString("EXPIRE CANCEL PENDING");
+    }
+}
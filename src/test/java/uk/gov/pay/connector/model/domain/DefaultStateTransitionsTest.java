@@ -40,5 +40,10 @@ public class DefaultStateTransitionsTest extends DefaultStateTransitionsTestBase
                                 defaultStateTransitions.isValidTransition(state, targetState))
                 );
     }
-}
 
+    @Test
+    public void shouldInvalidateTransitionsFromNoState() throws Exception {
+        assertFalse(format("ChargeStatus transition [null] -> [%s] is not a valid", state),
+                defaultStateTransitions.isValidTransition(null, state));
+    }
+}
@@ -39,6 +39,11 @@ public class DefaultStateTransitionsTestBase {
         params.add(new Object[]{SYSTEM_CANCEL_SUBMITTED, of(SYSTEM_CANCEL_ERROR, SYSTEM_CANCELLED)});
         params.add(new Object[]{USER_CANCEL_READY, of(USER_CANCEL_ERROR, USER_CANCELLED, USER_CANCEL_SUBMITTED)});
         params.add(new Object[]{USER_CANCEL_SUBMITTED, of(USER_CANCEL_ERROR, USER_CANCELLED)});
+        params.add(new Object[]{AUTHORISATION_REJECTED, of()});
+        params.add(new Object[]{CAPTURED, of()});
+        params.add(new Object[]{EXPIRED, of()});
+        params.add(new Object[]{SYSTEM_CANCELLED, of()});
+        params.add(new Object[]{USER_CANCELLED, of()});
         return params;
     }
 
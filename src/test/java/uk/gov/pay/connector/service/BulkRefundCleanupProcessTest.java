@@ -0,0 +1,106 @@
+package uk.gov.pay.connector.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.setup.Environment;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.gov.pay.connector.app.BulkRefundConfig;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.dao.BulkRefundDao;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.service.BulkRefundCleanupProcess.INTERRUPTED_REFUND_ERROR;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkRefundCleanupProcessTest {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Mock
+    private BulkRefundDao mockBulkRefundDao;
+    @Mock
+    private Environment mockEnvironment;
+    @Mock
+    private ConnectorConfiguration mockConnectorConfiguration;
+    @Mock
+    private BulkRefundConfig mockBulkRefundConfig;
+
+    private Counter interruptedCounter = new Counter();
+    private Counter deletedCounter = new Counter();
+    private BulkRefundCleanupProcess bulkRefundCleanupProcess;
+
+    @Before
+    public void setUp() {
+        MetricRegistry mockMetricRegistry = mock(MetricRegistry.class);
+        when(mockMetricRegistry.histogram(anyString())).thenReturn(mock(Histogram.class));
+        when(mockMetricRegistry.counter("bulk-refund-cleanup.interrupted")).thenReturn(interruptedCounter);
+        when(mockMetricRegistry.counter("bulk-refund-cleanup.deleted")).thenReturn(deletedCounter);
+        when(mockEnvironment.metrics()).thenReturn(mockMetricRegistry);
+
+        when(mockBulkRefundConfig.getPendingTimeoutAsJavaDuration()).thenReturn(Duration.ofHours(6));
+        when(mockBulkRefundConfig.getRetentionAsJavaDuration()).thenReturn(Duration.ofDays(30));
+        when(mockBulkRefundConfig.getPurgeBatchSize()).thenReturn(BATCH_SIZE);
+        when(mockBulkRefundConfig.getPurgeMaximumBatchesPerRun()).thenReturn(3);
+        when(mockConnectorConfiguration.getBulkRefundConfig()).thenReturn(mockBulkRefundConfig);
+
+        bulkRefundCleanupProcess = new BulkRefundCleanupProcess(mockEnvironment, mockBulkRefundDao, mockConnectorConfiguration);
+    }
+
+    @Test
+    public void shouldMarkRefundsPendingForLongerThanTheTimeoutAsErrors() {
+        ZonedDateTime latestExpected = ZonedDateTime.now().minusHours(6);
+        when(mockBulkRefundDao.markPendingCreatedBeforeAsError(any(ZonedDateTime.class), eq(INTERRUPTED_REFUND_ERROR))).thenReturn(2);
+
+        bulkRefundCleanupProcess.runCleanup();
+
+        ArgumentCaptor<ZonedDateTime> createdBefore = ArgumentCaptor.forClass(ZonedDateTime.class);
+        verify(mockBulkRefundDao).markPendingCreatedBeforeAsError(createdBefore.capture(), eq(INTERRUPTED_REFUND_ERROR));
+        assertThat(createdBefore.getValue().isBefore(latestExpected), is(false));
+        assertThat(createdBefore.getValue().isBefore(latestExpected.plusMinutes(1)), is(true));
+        assertThat(interruptedCounter.getCount(), is(2L));
+    }
+
+    @Test
+    public void shouldDeleteBatchesOfItemsPastTheirRetentionUntilOneIsNotFull() {
+        when(mockBulkRefundDao.deleteCreatedBefore(any(ZonedDateTime.class), eq(BATCH_SIZE))).thenReturn(BATCH_SIZE, 42);
+
+        assertThat(bulkRefundCleanupProcess.runCleanup(), is(BATCH_SIZE + 42));
+
+        verify(mockBulkRefundDao, times(2)).deleteCreatedBefore(any(ZonedDateTime.class), eq(BATCH_SIZE));
+        assertThat(deletedCounter.getCount(), is((long) BATCH_SIZE + 42));
+    }
+
+    @Test
+    public void shouldStopAfterTheMaximumNumberOfBatches() {
+        when(mockBulkRefundDao.deleteCreatedBefore(any(ZonedDateTime.class), eq(BATCH_SIZE))).thenReturn(BATCH_SIZE);
+
+        assertThat(bulkRefundCleanupProcess.runCleanup(), is(3 * BATCH_SIZE));
+
+        verify(mockBulkRefundDao, times(3)).deleteCreatedBefore(any(ZonedDateTime.class), eq(BATCH_SIZE));
+    }
+
+    @Test
+    public void shouldKeepGoingAfterAFailedRun() {
+        when(mockBulkRefundDao.markPendingCreatedBeforeAsError(any(ZonedDateTime.class), anyString()))
+                .thenThrow(new RuntimeException("database unavailable"));
+
+        assertThat(bulkRefundCleanupProcess.runCleanup(), is(0));
+    }
+}
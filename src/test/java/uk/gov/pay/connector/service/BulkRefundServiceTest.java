@@ -0,0 +1,148 @@
+package uk.gov.pay.connector.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.gov.pay.connector.app.BulkRefundConfig;
+import uk.gov.pay.connector.dao.BulkRefundDao;
+import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.exception.RefundException;
+import uk.gov.pay.connector.model.BulkRefundItem;
+import uk.gov.pay.connector.model.BulkRefundRequest;
+import uk.gov.pay.connector.model.GatewayError;
+import uk.gov.pay.connector.model.RefundRequest;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.RefundEntity;
+import uk.gov.pay.connector.model.gateway.GatewayResponse;
+import uk.gov.pay.connector.model.gateway.GatewayResponse.GatewayResponseBuilder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.exception.RefundException.ErrorCode.NOT_SUFFICIENT_AMOUNT_AVAILABLE;
+import static uk.gov.pay.connector.model.BulkRefundItem.Status.ERROR;
+import static uk.gov.pay.connector.model.BulkRefundItem.Status.PENDING;
+import static uk.gov.pay.connector.model.BulkRefundItem.Status.REJECTED;
+import static uk.gov.pay.connector.model.ErrorType.GENERIC_GATEWAY_ERROR;
+import static uk.gov.pay.connector.model.domain.ChargeEntityFixture.aValidChargeEntity;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.CAPTURED;
+import static uk.gov.pay.connector.model.domain.RefundEntityFixture.aValidRefundEntity;
+import static uk.gov.pay.connector.model.gateway.GatewayResponse.GatewayResponseBuilder.responseBuilder;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkRefundServiceTest {
+
+    private static final Long ACCOUNT_ID = 1L;
+
+    @Mock
+    private ChargeDao mockChargeDao;
+    @Mock
+    private BulkRefundDao mockBulkRefundDao;
+    @Mock
+    private ChargeRefundService mockRefundService;
+
+    private BulkRefundService bulkRefundService;
+    private ChargeEntity charge;
+
+    @Before
+    public void setUp() {
+        BulkRefundExecutor bulkRefundExecutor = new BulkRefundExecutor(gatewayName -> newDirectExecutorService(), new BulkRefundConfig());
+        bulkRefundService = new BulkRefundService(mockChargeDao, mockBulkRefundDao, mockRefundService, bulkRefundExecutor);
+        charge = aValidChargeEntity().withAmount(500L).withStatus(CAPTURED).build();
+    }
+
+    @Test
+    public void shouldLoadTheChargesInOneQueryAndRejectItemsThatCannotBeRefunded() {
+        BulkRefundRequest.Item refund = new BulkRefundRequest.Item(charge.getExternalId(), 100L, 500L);
+        BulkRefundRequest.Item sameChargeAgain = new BulkRefundRequest.Item(charge.getExternalId(), 100L, 400L);
+        BulkRefundRequest.Item unknownCharge = new BulkRefundRequest.Item("unknown", 100L, 500L);
+        when(mockChargeDao.findByExternalIdsAndGatewayAccount(any(), eq(ACCOUNT_ID))).thenReturn(singletonList(charge));
+        when(mockChargeDao.findByExternalIdAndGatewayAccountRestoringArchived("unknown", ACCOUNT_ID)).thenReturn(Optional.empty());
+        when(mockRefundService.doRefund(eq(ACCOUNT_ID), anyString(), any(RefundRequest.class))).thenReturn(Optional.empty());
+
+        bulkRefundService.submit(ACCOUNT_ID, new BulkRefundRequest(asList(refund, sameChargeAgain, unknownCharge)));
+
+        ArgumentCaptor<Collection> chargeIdsCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(mockChargeDao).findByExternalIdsAndGatewayAccount(chargeIdsCaptor.capture(), eq(ACCOUNT_ID));
+        assertThat((Collection<String>) chargeIdsCaptor.getValue(), containsInAnyOrder(charge.getExternalId(), "unknown"));
+
+        ArgumentCaptor<List> itemsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockBulkRefundDao).persist(anyString(), eq(ACCOUNT_ID), itemsCaptor.capture());
+        List<BulkRefundItem> items = itemsCaptor.getValue();
+        assertThat(items.get(0).getStatus(), is(PENDING));
+        assertThat(items.get(1).getStatus(), is(REJECTED));
+        assertThat(items.get(1).getError().get(), is("Charge with id [" + charge.getExternalId() + "] is refunded more than once in this request."));
+        assertThat(items.get(2).getStatus(), is(REJECTED));
+        assertThat(items.get(2).getError().get(), is("Charge with id [unknown] not found."));
+    }
+
+    @Test
+    public void shouldRejectAnItemWhoseAmountAvailableDoesNotMatchTheCharge() {
+        when(mockChargeDao.findByExternalIdsAndGatewayAccount(any(), eq(ACCOUNT_ID))).thenReturn(singletonList(charge));
+
+        bulkRefundService.submit(ACCOUNT_ID, new BulkRefundRequest(singletonList(new BulkRefundRequest.Item(charge.getExternalId(), 100L, 400L))));
+
+        ArgumentCaptor<List> itemsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockBulkRefundDao).persist(anyString(), eq(ACCOUNT_ID), itemsCaptor.capture());
+        List<BulkRefundItem> items = itemsCaptor.getValue();
+        assertThat(items.get(0).getStatus(), is(REJECTED));
+        assertThat(items.get(0).getError().get(), is("Refund Amount Available Mismatch"));
+        verify(mockRefundService, never()).doRefund(any(), any(), any());
+    }
+
+    @Test
+    public void shouldRecordTheRefundOfAnItemAcceptedByTheGateway() {
+        RefundEntity refundEntity = aValidRefundEntity().withCharge(charge).build();
+        GatewayResponseBuilder<BaseRefundResponse> gatewayResponseBuilder = responseBuilder();
+        GatewayResponse gatewayResponse = gatewayResponseBuilder.withResponse(mock(BaseRefundResponse.class)).build();
+        when(mockChargeDao.findByExternalIdsAndGatewayAccount(any(), eq(ACCOUNT_ID))).thenReturn(singletonList(charge));
+        when(mockRefundService.doRefund(eq(ACCOUNT_ID), eq(charge.getExternalId()), any(RefundRequest.class)))
+                .thenReturn(Optional.of(mockRefundService.new Response(gatewayResponse, refundEntity)));
+
+        String jobId = bulkRefundService.submit(ACCOUNT_ID, new BulkRefundRequest(singletonList(new BulkRefundRequest.Item(charge.getExternalId(), 100L, 500L))));
+
+        verify(mockBulkRefundDao).markSubmitted(jobId, 0, refundEntity.getExternalId());
+    }
+
+    @Test
+    public void shouldRecordAnItemRejectedWhenTheRefundWasMade() {
+        when(mockChargeDao.findByExternalIdsAndGatewayAccount(any(), eq(ACCOUNT_ID))).thenReturn(singletonList(charge));
+        when(mockRefundService.doRefund(eq(ACCOUNT_ID), eq(charge.getExternalId()), any(RefundRequest.class)))
+                .thenThrow(RefundException.refundException("Not sufficient amount available for refund", NOT_SUFFICIENT_AMOUNT_AVAILABLE));
+
+        String jobId = bulkRefundService.submit(ACCOUNT_ID, new BulkRefundRequest(singletonList(new BulkRefundRequest.Item(charge.getExternalId(), 100L, 500L))));
+
+        verify(mockBulkRefundDao).markFailed(jobId, 0, REJECTED, "Not sufficient amount available for refund");
+    }
+
+    @Test
+    public void shouldRecordAnErrorWhenTheGatewayFailsTheRefund() {
+        RefundEntity refundEntity = aValidRefundEntity().withCharge(charge).build();
+        GatewayResponseBuilder<BaseRefundResponse> gatewayResponseBuilder = responseBuilder();
+        GatewayResponse gatewayResponse = gatewayResponseBuilder.withGatewayError(new GatewayError("gateway unavailable", GENERIC_GATEWAY_ERROR)).build();
+        when(mockChargeDao.findByExternalIdsAndGatewayAccount(any(), eq(ACCOUNT_ID))).thenReturn(singletonList(charge));
+        when(mockRefundService.doRefund(eq(ACCOUNT_ID), eq(charge.getExternalId()), any(RefundRequest.class)))
+                .thenReturn(Optional.of(mockRefundService.new Response(gatewayResponse, refundEntity)));
+
+        String jobId = bulkRefundService.submit(ACCOUNT_ID, new BulkRefundRequest(singletonList(new BulkRefundRequest.Item(charge.getExternalId(), 100L, 500L))));
+
+        verify(mockBulkRefundDao).markFailed(jobId, 0, ERROR, "gateway unavailable");
+    }
+}
@@ -37,6 +37,7 @@ import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 import static uk.gov.pay.connector.model.domain.ChargeStatus.*;
 import static uk.gov.pay.connector.model.gateway.GatewayResponse.GatewayResponseBuilder.responseBuilder;
@@ -74,8 +75,8 @@ public class CardAuthoriseServiceTest extends CardServiceTest {
     }
 
     public void setupMockExecutorServiceMock() {
-        doAnswer(invocation -> Pair.of(COMPLETED, ((Supplier) invocation.getArguments()[0]).get()))
-                .when(mockExecutorService).execute(any(Supplier.class));
+        doAnswer(invocation -> Pair.of(COMPLETED, ((Supplier) invocation.getArguments()[1]).get()))
+                .when(mockExecutorService).execute(anyString(), any(Supplier.class));
     }
 
     private void setupPaymentProviderMock(String transactionId, AuthoriseStatus authoriseStatus, String errorCode) {
@@ -288,7 +289,7 @@ public class CardAuthoriseServiceTest extends CardServiceTest {
     public void authoriseShouldThrowAnOperationAlreadyInProgressRuntimeExceptionWhenTimeout() throws Exception {
         when(mockedChargeDao.findByExternalId(charge.getExternalId())).thenReturn(Optional.of(charge));
         when(mockedChargeDao.merge(any())).thenReturn(charge);
-        when(mockExecutorService.execute(any())).thenReturn(Pair.of(IN_PROGRESS, null));
+        when(mockExecutorService.execute(anyString(), any())).thenReturn(Pair.of(IN_PROGRESS, null));
 
         try {
             cardAuthorisationService.doAuthorise(charge.getExternalId(), AuthUtils.aValidAuthorisationDetails());
@@ -0,0 +1,108 @@
+package uk.gov.pay.connector.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.gov.pay.connector.dao.CardTypeDao;
+import uk.gov.pay.connector.model.domain.CardTypeEntity;
+
+import java.util.Optional;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CardBrandLabelIndexTest {
+
+    @Mock
+    private CardTypeDao mockCardTypeDao;
+
+    private CardBrandLabelIndex cardBrandLabelIndex;
+
+    @Before
+    public void setUp() {
+        when(mockCardTypeDao.findAll()).thenReturn(asList(
+                aCardType("visa", "Visa"),
+                aCardType("visa", "Visa Debit"),
+                aCardType("master-card", "Mastercard")));
+        cardBrandLabelIndex = new CardBrandLabelIndex(mockCardTypeDao);
+    }
+
+    @Test
+    public void shouldLoadAllCardTypesOnceForManyLookups() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(cardBrandLabelIndex.labelFor("visa"), is(Optional.of("Visa")));
+            assertThat(cardBrandLabelIndex.labelFor("master-card"), is(Optional.of("Mastercard")));
+        }
+
+        verify(mockCardTypeDao, times(1)).findAll();
+    }
+
+    @Test
+    public void shouldNotQueryForANullBrand() {
+        assertThat(cardBrandLabelIndex.labelFor(null), is(Optional.empty()));
+
+        verifyZeroInteractions(mockCardTypeDao);
+    }
+
+    @Test
+    public void shouldReloadOnceForAnUnknownBrand() {
+        cardBrandLabelIndex.labelFor("visa");
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(cardBrandLabelIndex.labelFor("unknown-brand"), is(Optional.empty()));
+        }
+
+        verify(mockCardTypeDao, times(2)).findAll();
+    }
+
+    @Test
+    public void shouldPickUpCardTypesAddedAfterLoading() {
+        cardBrandLabelIndex.labelFor("visa");
+        when(mockCardTypeDao.findAll()).thenReturn(asList(
+                aCardType("visa", "Visa"),
+                aCardType("amex", "American Express")));
+
+        assertThat(cardBrandLabelIndex.labelFor("amex"), is(Optional.of("American Express")));
+    }
+
+    @Test
+    public void shouldPickUpChangedLabels_whenRefreshed() {
+        cardBrandLabelIndex.labelFor("visa");
+        when(mockCardTypeDao.findAll()).thenReturn(asList(aCardType("visa", "VISA")));
+
+        cardBrandLabelIndex.refresh();
+
+        assertThat(cardBrandLabelIndex.labelFor("visa"), is(Optional.of("VISA")));
+        verify(mockCardTypeDao, times(2)).findAll();
+    }
+
+    @Test
+    public void shouldKeepTheLoadedLabels_whenARefreshFails() {
+        cardBrandLabelIndex.labelFor("visa");
+        RuntimeException databaseError = new RuntimeException("database unavailable");
+        when(mockCardTypeDao.findAll()).thenThrow(databaseError);
+
+        try {
+            cardBrandLabelIndex.refresh();
+        } catch (RuntimeException e) {
+            // the scheduler logs it and tries again at the next interval
+        }
+
+        assertThat(cardBrandLabelIndex.labelFor("visa"), is(Optional.of("Visa")));
+    }
+
+    private CardTypeEntity aCardType(String brand, String label) {
+        CardTypeEntity cardType = new CardTypeEntity();
+        cardType.setBrand(brand);
+        cardType.setLabel(label);
+        return cardType;
+    }
+}
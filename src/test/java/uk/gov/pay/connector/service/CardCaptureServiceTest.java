@@ -52,7 +52,7 @@ public class CardCaptureServiceTest extends CardServiceTest {
     public final ExpectedException exception = ExpectedException.none();
 
     @Mock
-    private UserNotificationService mockUserNotificationService;
+    private EmailOutboxService mockEmailOutboxService;
     private CardCaptureService cardCaptureService;
 
     @Mock
@@ -69,7 +69,7 @@ public class CardCaptureServiceTest extends CardServiceTest {
         when(mockEnvironment.metrics()).thenReturn(mockMetricRegistry);
         when(mockMetricRegistry.counter(anyString())).thenReturn(mockCounter);
 
-        cardCaptureService = new CardCaptureService(mockedChargeDao, mockedProviders, mockUserNotificationService, mockEnvironment);
+        cardCaptureService = new CardCaptureService(mockedChargeDao, mockedProviders, mockEmailOutboxService, mockEnvironment);
 
         Logger root = (Logger) LoggerFactory.getLogger(CardCaptureService.class);
         root.addAppender(mockAppender);
@@ -132,7 +132,7 @@ public class CardCaptureServiceTest extends CardServiceTest {
         assertThat(request.getValue().getTransactionId(), is(gatewayTxId));
 
         // verify an email notification is sent for a successful capture
-        verify(mockUserNotificationService).notifyPaymentSuccessEmail(reloadedCharge);
+        verify(mockEmailOutboxService).enqueuePaymentSuccessEmail(reloadedCharge);
     }
 
     @Test
@@ -172,7 +172,7 @@ public class CardCaptureServiceTest extends CardServiceTest {
         assertThat(request.getValue().getTransactionId(), is(gatewayTxId));
 
         // verify an email notification is sent for a successful capture
-        verify(mockUserNotificationService).notifyPaymentSuccessEmail(reloadedCharge);
+        verify(mockEmailOutboxService).enqueuePaymentSuccessEmail(reloadedCharge);
     }
 
     private void mockChargeDaoOperations(ChargeEntity charge, ChargeEntity reloadedCharge) {
@@ -191,7 +191,7 @@ public class CardCaptureServiceTest extends CardServiceTest {
                 .thenReturn(Optional.empty());
         cardCaptureService.doCapture(chargeId);
         // verify an email notification is not sent when an unsuccessful capture
-        verifyZeroInteractions(mockUserNotificationService);
+        verifyZeroInteractions(mockEmailOutboxService);
     }
 
     @Test
@@ -206,7 +206,7 @@ public class CardCaptureServiceTest extends CardServiceTest {
         cardCaptureService.doCapture(charge.getExternalId());
         assertEquals(charge.getStatus(), is(ChargeStatus.CAPTURE_READY.getValue()));
         // verify an email notification is not sent when an unsuccessful capture
-        verifyZeroInteractions(mockUserNotificationService);
+        verifyZeroInteractions(mockEmailOutboxService);
     }
 
     @Test
@@ -222,7 +222,7 @@ public class CardCaptureServiceTest extends CardServiceTest {
         cardCaptureService.doCapture(charge.getExternalId());
         assertEquals(charge.getStatus(), is(ChargeStatus.CREATED.getValue()));
         // verify an email notification is not sent when an unsuccessful capture
-        verifyZeroInteractions(mockUserNotificationService);
+        verifyZeroInteractions(mockEmailOutboxService);
     }
 
     @Test
@@ -237,7 +237,7 @@ public class CardCaptureServiceTest extends CardServiceTest {
         cardCaptureService.doCapture(charge.getExternalId());
         assertEquals(charge.getStatus(), is(ChargeStatus.CREATED.getValue()));
         // verify an email notification is not sent when an unsuccessful capture
-        verifyZeroInteractions(mockUserNotificationService);
+        verifyZeroInteractions(mockEmailOutboxService);
     }
 
     @Test
@@ -261,7 +261,7 @@ public class CardCaptureServiceTest extends CardServiceTest {
         verify(mockedChargeDao).mergeAndNotifyStatusHasChanged(reloadedCharge, Optional.empty());
 
         // verify an email notification is not sent when an unsuccessful capture
-        verifyZeroInteractions(mockUserNotificationService);
+        verifyZeroInteractions(mockEmailOutboxService);
     }
 
     @Test
@@ -0,0 +1,90 @@
+package uk.gov.pay.connector.service;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.setup.Environment;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.ExecutorServiceConfig;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.service.CardExecutorService.ExecutionStatus.COMPLETED;
+
+public class CardExecutorServiceTest {
+
+    private MetricRegistry metricRegistry = new MetricRegistry();
+    private CardExecutorService<String> cardExecutorService;
+
+    @Before
+    public void setUp() {
+        ExecutorServiceConfig executorServiceConfig = mock(ExecutorServiceConfig.class);
+        when(executorServiceConfig.getThreadsPerCpu()).thenReturn(2);
+        when(executorServiceConfig.getTimeoutInSeconds()).thenReturn(5);
+        ConnectorConfiguration configuration = mock(ConnectorConfiguration.class);
+        when(configuration.getExecutorServiceConfig()).thenReturn(executorServiceConfig);
+        Environment environment = mock(Environment.class);
+        when(environment.metrics()).thenReturn(metricRegistry);
+
+        cardExecutorService = new CardExecutorService<>(configuration, environment);
+    }
+
+    @Test
+    public void shouldWaitOnTheRunningTaskForTheSameKey() throws Exception {
+        CountDownLatch firstTaskStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstTask = new CountDownLatch(1);
+        AtomicInteger invocations = new AtomicInteger();
+
+        CompletableFuture<Pair<CardExecutorService.ExecutionStatus, String>> firstCall = CompletableFuture.supplyAsync(() ->
+                cardExecutorService.execute("AUTHORISATION:charge-1", () -> {
+                    invocations.incrementAndGet();
+                    firstTaskStarted.countDown();
+                    awaitQuietly(releaseFirstTask);
+                    return "first";
+                }));
+        firstTaskStarted.await(5, TimeUnit.SECONDS);
+
+        CompletableFuture<Pair<CardExecutorService.ExecutionStatus, String>> secondCall = CompletableFuture.supplyAsync(() ->
+                cardExecutorService.execute("AUTHORISATION:charge-1", () -> {
+                    invocations.incrementAndGet();
+                    return "second";
+                }));
+        while (metricRegistry.counter("card-executor.in-flight-reused").getCount() == 0) {
+            Thread.sleep(10);
+        }
+        releaseFirstTask.countDown();
+
+        assertThat(firstCall.get(5, TimeUnit.SECONDS), is(Pair.of(COMPLETED, "first")));
+        assertThat(secondCall.get(5, TimeUnit.SECONDS), is(Pair.of(COMPLETED, "first")));
+        assertThat(invocations.get(), is(1));
+    }
+
+    @Test
+    public void shouldRunAgainForTheSameKeyOnceThePreviousTaskHasFinished() {
+        assertThat(cardExecutorService.execute("AUTHORISATION:charge-1", () -> "first"), is(Pair.of(COMPLETED, "first")));
+        assertThat(cardExecutorService.execute("AUTHORISATION:charge-1", () -> "second"), is(Pair.of(COMPLETED, "second")));
+        assertThat(metricRegistry.counter("card-executor.in-flight-reused").getCount(), is(0L));
+    }
+
+    @Test
+    public void shouldNotShareTasksBetweenDifferentKeys() {
+        assertThat(cardExecutorService.execute("AUTHORISATION:charge-1", () -> "first"), is(Pair.of(COMPLETED, "first")));
+        assertThat(cardExecutorService.execute("AUTHORISATION_3DS:charge-1", () -> "second"), is(Pair.of(COMPLETED, "second")));
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
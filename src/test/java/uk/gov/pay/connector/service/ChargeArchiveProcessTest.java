@@ -0,0 +1,103 @@
+package uk.gov.pay.connector.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.setup.Environment;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.gov.pay.connector.app.ChargeArchiveConfig;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.dao.ChargeArchiveDao;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.service.ChargeArchiveProcess.ARCHIVABLE_STATUSES;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChargeArchiveProcessTest {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Mock
+    private ChargeArchiveDao mockChargeArchiveDao;
+    @Mock
+    private Environment mockEnvironment;
+    @Mock
+    private ConnectorConfiguration mockConnectorConfiguration;
+    @Mock
+    private ChargeArchiveConfig mockArchiveConfig;
+
+    private Counter archivedCounter = new Counter();
+    private ChargeArchiveProcess chargeArchiveProcess;
+
+    @Before
+    public void setUp() {
+        MetricRegistry mockMetricRegistry = mock(MetricRegistry.class);
+        when(mockMetricRegistry.histogram(anyString())).thenReturn(mock(Histogram.class));
+        when(mockMetricRegistry.counter("charge-archive.archived")).thenReturn(archivedCounter);
+        when(mockEnvironment.metrics()).thenReturn(mockMetricRegistry);
+
+        when(mockArchiveConfig.getArchiveAfterAsJavaDuration()).thenReturn(Duration.ofDays(90));
+        when(mockArchiveConfig.getBatchSize()).thenReturn(BATCH_SIZE);
+        when(mockArchiveConfig.getMaximumBatchesPerRun()).thenReturn(3);
+        when(mockConnectorConfiguration.getChargeArchiveConfig()).thenReturn(mockArchiveConfig);
+
+        chargeArchiveProcess = new ChargeArchiveProcess(mockEnvironment, mockChargeArchiveDao, mockConnectorConfiguration);
+    }
+
+    @Test
+    public void shouldArchiveBatchesUntilOneIsNotFull() {
+        when(mockChargeArchiveDao.archive(eq(ARCHIVABLE_STATUSES), any(ZonedDateTime.class), eq(BATCH_SIZE)))
+                .thenReturn(BATCH_SIZE, 42);
+
+        assertThat(chargeArchiveProcess.runArchive(), is(BATCH_SIZE + 42));
+
+        verify(mockChargeArchiveDao, times(2)).archive(eq(ARCHIVABLE_STATUSES), any(ZonedDateTime.class), eq(BATCH_SIZE));
+        assertThat(archivedCounter.getCount(), is((long) BATCH_SIZE + 42));
+    }
+
+    @Test
+    public void shouldStopAfterTheMaximumNumberOfBatches() {
+        when(mockChargeArchiveDao.archive(eq(ARCHIVABLE_STATUSES), any(ZonedDateTime.class), eq(BATCH_SIZE)))
+                .thenReturn(BATCH_SIZE);
+
+        assertThat(chargeArchiveProcess.runArchive(), is(3 * BATCH_SIZE));
+
+        verify(mockChargeArchiveDao, times(3)).archive(eq(ARCHIVABLE_STATUSES), any(ZonedDateTime.class), eq(BATCH_SIZE));
+    }
+
+    @Test
+    public void shouldOnlyArchiveChargesOlderThanTheConfiguredAge() {
+        ZonedDateTime latestExpected = ZonedDateTime.now().minusDays(90);
+
+        chargeArchiveProcess.runArchive();
+
+        ArgumentCaptor<ZonedDateTime> createdBefore = ArgumentCaptor.forClass(ZonedDateTime.class);
+        verify(mockChargeArchiveDao).archive(eq(ARCHIVABLE_STATUSES), createdBefore.capture(), eq(BATCH_SIZE));
+        assertThat(createdBefore.getValue().isBefore(latestExpected), is(false));
+        assertThat(createdBefore.getValue().isBefore(latestExpected.plusMinutes(1)), is(true));
+    }
+
+    @Test
+    public void shouldKeepGoingAfterAFailedRun() {
+        when(mockChargeArchiveDao.archive(eq(ARCHIVABLE_STATUSES), any(ZonedDateTime.class), eq(BATCH_SIZE)))
+                .thenThrow(new RuntimeException("database unavailable"));
+
+        assertThat(chargeArchiveProcess.runArchive(), is(0));
+    }
+}
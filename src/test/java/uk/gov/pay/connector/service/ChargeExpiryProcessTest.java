@@ -0,0 +1,177 @@
+package uk.gov.pay.connector.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import io.dropwizard.setup.Environment;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.gov.pay.connector.app.ChargeExpiryConfig;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.dao.SchedulerLeaseDao;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.model.domain.ChargeEntityFixture.aValidChargeEntity;
+import static uk.gov.pay.connector.service.ChargeExpiryService.EXPIRABLE_STATUSES;
+import static uk.gov.pay.connector.service.ChargeExpiryService.EXPIRY_FAILED;
+import static uk.gov.pay.connector.service.ChargeExpiryService.EXPIRY_SUCCESS;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChargeExpiryProcessTest {
+
+    private static final int PAGE_SIZE = 2;
+
+    @Mock
+    private ChargeDao mockChargeDao;
+    @Mock
+    private ChargeExpiryService mockChargeExpiryService;
+    @Mock
+    private Environment mockEnvironment;
+    @Mock
+    private ConnectorConfiguration mockConnectorConfiguration;
+    @Mock
+    private ChargeExpiryConfig mockExpiryConfig;
+    @Mock
+    private SchedulerLeaseDao mockSchedulerLeaseDao;
+
+    private Counter expiredCounter = new Counter();
+    private Counter failedCounter = new Counter();
+    private Counter backlogCounter = new Counter();
+    private ChargeExpiryProcess chargeExpiryProcess;
+
+    @Before
+    public void setUp() {
+        MetricRegistry mockMetricRegistry = mock(MetricRegistry.class);
+        when(mockMetricRegistry.histogram(anyString())).thenReturn(mock(Histogram.class));
+        when(mockMetricRegistry.counter("charge-expiry.expired")).thenReturn(expiredCounter);
+        when(mockMetricRegistry.counter("charge-expiry.failed")).thenReturn(failedCounter);
+        when(mockMetricRegistry.counter("charge-expiry.backlog")).thenReturn(backlogCounter);
+        when(mockEnvironment.metrics()).thenReturn(mockMetricRegistry);
+
+        when(mockExpiryConfig.getExpiryWindowAsJavaDuration()).thenReturn(Duration.ofHours(1));
+        when(mockExpiryConfig.getTimeBudgetAsJavaDuration()).thenReturn(Duration.ofMinutes(1));
+        when(mockExpiryConfig.getPageSize()).thenReturn(PAGE_SIZE);
+        when(mockConnectorConfiguration.getChargeExpiryConfig()).thenReturn(mockExpiryConfig);
+
+        chargeExpiryProcess = new ChargeExpiryProcess(mockEnvironment, mockChargeDao, mockSchedulerLeaseDao,
+                mockChargeExpiryService, mockConnectorConfiguration);
+    }
+
+    @Test
+    public void shouldExpireCharges_pageByPageUntilAPageIsNotFull() {
+        List<ChargeEntity> firstPage = charges(PAGE_SIZE);
+        List<ChargeEntity> lastPage = charges(1);
+        when(mockChargeDao.countBeforeDateWithStatusIn(any(ZonedDateTime.class), eq(EXPIRABLE_STATUSES))).thenReturn(3L);
+        when(mockChargeDao.findPageBeforeDateWithStatusIn(any(ZonedDateTime.class), eq(EXPIRABLE_STATUSES), eq(Optional.empty()), eq(PAGE_SIZE)))
+                .thenReturn(firstPage);
+        when(mockChargeDao.findPageBeforeDateWithStatusIn(any(ZonedDateTime.class), eq(EXPIRABLE_STATUSES), eq(Optional.of(firstPage.get(1))), eq(PAGE_SIZE)))
+                .thenReturn(lastPage);
+        when(mockChargeExpiryService.expire(firstPage)).thenReturn(result(1, 1));
+        when(mockChargeExpiryService.expire(lastPage)).thenReturn(result(1, 0));
+
+        Map<String, Integer> result = chargeExpiryProcess.runExpiry();
+
+        assertThat(result, is(result(2, 1)));
+        assertThat(expiredCounter.getCount(), is(2L));
+        assertThat(failedCounter.getCount(), is(1L));
+        assertThat(backlogCounter.getCount(), is(3L));
+        verify(mockChargeDao, times(2)).findPageBeforeDateWithStatusIn(any(ZonedDateTime.class), eq(EXPIRABLE_STATUSES), any(Optional.class), eq(PAGE_SIZE));
+    }
+
+    @Test
+    public void shouldMovePastAPageThatFailsToExpire() {
+        List<ChargeEntity> firstPage = charges(PAGE_SIZE);
+        when(mockChargeDao.findPageBeforeDateWithStatusIn(any(ZonedDateTime.class), eq(EXPIRABLE_STATUSES), eq(Optional.empty()), eq(PAGE_SIZE)))
+                .thenReturn(firstPage);
+        when(mockChargeDao.findPageBeforeDateWithStatusIn(any(ZonedDateTime.class), eq(EXPIRABLE_STATUSES), eq(Optional.of(firstPage.get(1))), eq(PAGE_SIZE)))
+                .thenReturn(charges(0));
+        when(mockChargeExpiryService.expire(firstPage)).thenThrow(new RuntimeException("gateway unavailable"));
+
+        Map<String, Integer> result = chargeExpiryProcess.runExpiry();
+
+        assertThat(result, is(result(0, 0)));
+        verify(mockChargeDao).findPageBeforeDateWithStatusIn(any(ZonedDateTime.class), eq(EXPIRABLE_STATUSES), eq(Optional.of(firstPage.get(1))), eq(PAGE_SIZE));
+    }
+
+    @Test
+    public void shouldStartNoNewPageOnceTheTimeBudgetIsUsedUp() {
+        when(mockExpiryConfig.getTimeBudgetAsJavaDuration()).thenReturn(Duration.ZERO);
+        List<ChargeEntity> firstPage = charges(PAGE_SIZE);
+        when(mockChargeDao.findPageBeforeDateWithStatusIn(any(ZonedDateTime.class), eq(EXPIRABLE_STATUSES), any(Optional.class), eq(PAGE_SIZE)))
+                .thenReturn(firstPage);
+        when(mockChargeExpiryService.expire(firstPage)).thenReturn(result(PAGE_SIZE, 0));
+
+        Map<String, Integer> result = chargeExpiryProcess.runExpiry();
+
+        assertThat(result, is(result(PAGE_SIZE, 0)));
+        verify(mockChargeDao, times(1)).findPageBeforeDateWithStatusIn(any(ZonedDateTime.class), eq(EXPIRABLE_STATUSES), any(Optional.class), eq(PAGE_SIZE));
+    }
+
+
+    @Test
+    public void shouldExpireNothing_whenLoadingChargesFails() {
+        when(mockChargeDao.countBeforeDateWithStatusIn(any(ZonedDateTime.class), eq(EXPIRABLE_STATUSES)))
+                .thenThrow(new RuntimeException("database unavailable"));
+
+        chargeExpiryProcess.runExpiry();
+
+        verifyZeroInteractions(mockChargeExpiryService);
+    }
+
+    @Test
+    public void shouldRunASweepOnRequest_underTheLeaseOfTheScheduledSweeps() {
+        when(mockExpiryConfig.getLeaseDurationAsJavaDuration()).thenReturn(Duration.ofMinutes(5));
+        when(mockSchedulerLeaseDao.tryAcquire(eq(ChargeExpiryProcess.LEASE_NAME), anyString(), eq(Duration.ofMinutes(5)))).thenReturn(true);
+        when(mockChargeDao.findPageBeforeDateWithStatusIn(any(ZonedDateTime.class), eq(EXPIRABLE_STATUSES), any(Optional.class), eq(PAGE_SIZE)))
+                .thenReturn(charges(0));
+
+        assertThat(chargeExpiryProcess.runExpiryUnlessRunning(), is(Optional.of(result(0, 0))));
+
+        verify(mockSchedulerLeaseDao).release(eq(ChargeExpiryProcess.LEASE_NAME), anyString());
+    }
+
+    @Test
+    public void shouldNotRunASweepOnRequest_whenOneIsAlreadyRunning() {
+        when(mockSchedulerLeaseDao.tryAcquire(eq(ChargeExpiryProcess.LEASE_NAME), anyString(), any())).thenReturn(false);
+
+        assertThat(chargeExpiryProcess.runExpiryUnlessRunning(), is(Optional.empty()));
+
+        verifyZeroInteractions(mockChargeDao);
+        verify(mockSchedulerLeaseDao, never()).release(anyString(), anyString());
+    }
+
+    private List<ChargeEntity> charges(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> aValidChargeEntity().build())
+                .collect(Collectors.toList());
+    }
+
+    private Map<String, Integer> result(int expired, int failed) {
+        return ImmutableMap.of(EXPIRY_SUCCESS, expired, EXPIRY_FAILED, failed);
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import uk.gov.pay.connector.app.ChargeExpiryConfig;
 import uk.gov.pay.connector.dao.ChargeDao;
 import uk.gov.pay.connector.model.CancelGatewayRequest;
 import uk.gov.pay.connector.model.GatewayError;
@@ -20,15 +21,21 @@ import uk.gov.pay.connector.service.transaction.TransactionFlow;
 import uk.gov.pay.connector.service.worldpay.WorldpayBaseResponse;
 
 import java.time.ZonedDateTime;
+import java.util.Map;
 import uk.gov.pay.connector.service.worldpay.WorldpayCancelResponse;
 
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 import static uk.gov.pay.connector.model.gateway.GatewayResponse.GatewayResponseBuilder.responseBuilder;
+import static uk.gov.pay.connector.service.ChargeExpiryService.CANCELLATION_NOT_REQUIRED_STATUSES;
 import static uk.gov.pay.connector.service.ChargeExpiryService.EXPIRABLE_STATUSES;
+import static uk.gov.pay.connector.service.ChargeExpiryService.EXPIRY_FAILED;
+import static uk.gov.pay.connector.service.ChargeExpiryService.EXPIRY_SUCCESS;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ChargeExpiryServiceTest {
@@ -50,7 +57,8 @@ public class ChargeExpiryServiceTest {
 
     @Before
     public void setup() {
-        chargeExpiryService = new ChargeExpiryService(mockChargeDao, mockPaymentProviders, TransactionFlow::new);
+        ExpiryCancelExecutor expiryCancelExecutor = new ExpiryCancelExecutor(gatewayName -> newDirectExecutorService(), new ChargeExpiryConfig());
+        chargeExpiryService = new ChargeExpiryService(mockChargeDao, mockPaymentProviders, TransactionFlow::new, expiryCancelExecutor);
     }
 
     @Test
@@ -104,19 +112,60 @@ public class ChargeExpiryServiceTest {
                             .withStatus(status)
                             .withGatewayAccountEntity(gatewayAccount)
                             .build();
-                    ArgumentCaptor<ChargeEntity> captor = ArgumentCaptor.forClass(ChargeEntity.class);
+                    when(mockChargeDao.transitionStatusInBulk(singletonList(chargeEntity.getId()), CANCELLATION_NOT_REQUIRED_STATUSES, ChargeStatus.EXPIRED))
+                            .thenReturn(singletonList(chargeEntity.getId()));
 
-                    when(mockChargeDao.merge(chargeEntity)).thenReturn(chargeEntity);
-                    when(mockChargeDao.mergeAndNotifyStatusHasChanged(captor.capture(), any()))
-                            .thenAnswer(invocationOnMock -> invocationOnMock.getArguments()[0]);
-
-                    chargeExpiryService.expire(singletonList(chargeEntity));
+                    Map<String, Integer> result = chargeExpiryService.expire(singletonList(chargeEntity));
 
                     verify(mockPaymentProvider, never()).cancel(any());
-                    assertThat(chargeEntity.getStatus(), is(ChargeStatus.EXPIRED.getValue()));
+                    verify(mockChargeDao).detach(chargeEntity);
+                    assertThat(result.get(EXPIRY_SUCCESS), is(1));
+                    assertThat(chargeEntity.getStatus(), is(status.getValue()));
                 });
     }
 
+    @Test
+    public void shouldCountAChargeAsFailed_whenItsCancellationThrows() {
+        GatewayAccountEntity gatewayAccount = ChargeEntityFixture.defaultGatewayAccountEntity();
+        gatewayAccount.setGatewayName("worldpay");
+        ChargeEntity chargeEntity = ChargeEntityFixture.aValidChargeEntity()
+                .withStatus(ChargeStatus.AUTHORISATION_SUCCESS)
+                .withGatewayAccountEntity(gatewayAccount)
+                .build();
+
+        when(mockChargeDao.merge(chargeEntity)).thenReturn(chargeEntity);
+        when(mockPaymentProviders.byName(PaymentGatewayName.WORLDPAY)).thenReturn(mockPaymentProvider);
+        when(mockPaymentProvider.cancel(any())).thenThrow(new RuntimeException("connection reset"));
+
+        Map<String, Integer> result = chargeExpiryService.expire(singletonList(chargeEntity));
+
+        assertThat(result.get(EXPIRY_SUCCESS), is(0));
+        assertThat(result.get(EXPIRY_FAILED), is(1));
+    }
+
+    @Test
+    public void shouldExpireChargesWithoutCancellationInOneBulkTransition() {
+        ChargeEntity createdCharge = ChargeEntityFixture.aValidChargeEntity()
+                .withId(1L)
+                .withStatus(ChargeStatus.CREATED)
+                .build();
+        ChargeEntity enteringCardDetailsCharge = ChargeEntityFixture.aValidChargeEntity()
+                .withId(2L)
+                .withStatus(ChargeStatus.ENTERING_CARD_DETAILS)
+                .build();
+        when(mockChargeDao.transitionStatusInBulk(asList(1L, 2L), CANCELLATION_NOT_REQUIRED_STATUSES, ChargeStatus.EXPIRED))
+                .thenReturn(singletonList(1L));
+
+        Map<String, Integer> result = chargeExpiryService.expire(asList(createdCharge, enteringCardDetailsCharge));
+
+        assertThat(result.get(EXPIRY_SUCCESS), is(1));
+        assertThat(result.get(EXPIRY_FAILED), is(0));
+        verify(mockChargeDao).detach(createdCharge);
+        verify(mockChargeDao, never()).detach(enteringCardDetailsCharge);
+        assertThat(createdCharge.getStatus(), is(ChargeStatus.CREATED.getValue()));
+        verify(mockChargeDao, never()).mergeAndNotifyStatusHasChanged(any(), any());
+    }
+
     @Test
     public void shouldUpdateStatusWhenCancellationFails() {
         GatewayAccountEntity gatewayAccount = ChargeEntityFixture.defaultGatewayAccountEntity();
@@ -35,6 +35,7 @@ import static org.junit.Assert.fail;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -71,6 +72,8 @@ public class ChargeRefundServiceTest {
     public void setUp() {
         when(mockProviders.byName(any(PaymentGatewayName.class))).thenReturn(mockProvider);
         when(mockProvider.getExternalChargeRefundAvailability(any(ChargeEntity.class))).thenReturn(EXTERNAL_AVAILABLE);
+        when(mockRefundDao.lockAmountAvailableForRefund(any(ChargeEntity.class)))
+                .thenAnswer(invocation -> ((ChargeEntity) invocation.getArguments()[0]).getTotalAmountToBeRefunded());
         chargeRefundService = new ChargeRefundService(mockChargeDao, mockRefundDao, mockProviders, TransactionFlow::new);
     }
 
@@ -114,7 +117,7 @@ public class ChargeRefundServiceTest {
         RefundEntity refundEntity = aValidRefundEntity().withCharge(charge).build();
         RefundEntity spiedRefundEntity = spy(refundEntity);
 
-        when(mockChargeDao.findByExternalIdAndGatewayAccount(externalChargeId, accountId))
+        when(mockChargeDao.findByExternalIdAndGatewayAccountRestoringArchived(externalChargeId, accountId))
                 .thenReturn(Optional.of(charge));
 
         when(mockChargeDao.merge(charge)).thenReturn(charge);
@@ -131,12 +134,13 @@ public class ChargeRefundServiceTest {
 
         assertThat(gatewayResponse.getRefundEntity(), is(spiedRefundEntity));
 
-        verify(mockChargeDao).findByExternalIdAndGatewayAccount(externalChargeId, accountId);
+        verify(mockChargeDao).findByExternalIdAndGatewayAccountRestoringArchived(externalChargeId, accountId);
         verify(mockChargeDao).merge(charge);
+        verify(mockRefundDao).lockAmountAvailableForRefund(charge);
         verify(mockRefundDao).persist(argThat(aRefundEntity(amount, charge)));
         verify(mockProvider).refund(argThat(aRefundRequestWith(charge, amount)));
         verify(mockRefundDao).merge(any(RefundEntity.class));
-        verify(spiedRefundEntity).setStatus(RefundStatus.REFUND_SUBMITTED);
+        verify(mockRefundDao).updateStatus(spiedRefundEntity, RefundStatus.REFUND_SUBMITTED);
         verify(spiedRefundEntity).setReference(refundEntity.getExternalId());
         verifyNoMoreInteractions(mockChargeDao, mockRefundDao);
     }
@@ -160,7 +164,7 @@ public class ChargeRefundServiceTest {
         RefundEntity refundEntity = aValidRefundEntity().withCharge(charge).build();
         RefundEntity spiedRefundEntity = spy(refundEntity);
 
-        when(mockChargeDao.findByExternalIdAndGatewayAccount(externalChargeId, accountId))
+        when(mockChargeDao.findByExternalIdAndGatewayAccountRestoringArchived(externalChargeId, accountId))
                 .thenReturn(Optional.of(charge));
 
         when(mockChargeDao.merge(charge)).thenReturn(charge);
@@ -177,12 +181,13 @@ public class ChargeRefundServiceTest {
 
         assertThat(gatewayResponse.getRefundEntity(), is(spiedRefundEntity));
 
-        verify(mockChargeDao).findByExternalIdAndGatewayAccount(externalChargeId, accountId);
+        verify(mockChargeDao).findByExternalIdAndGatewayAccountRestoringArchived(externalChargeId, accountId);
         verify(mockChargeDao).merge(charge);
+        verify(mockRefundDao).lockAmountAvailableForRefund(charge);
         verify(mockRefundDao).persist(argThat(aRefundEntity(amount, charge)));
         verify(mockProvider).refund(argThat(aRefundRequestWith(charge, amount)));
         verify(mockRefundDao).merge(any(RefundEntity.class));
-        verify(spiedRefundEntity).setStatus(RefundStatus.REFUND_SUBMITTED);
+        verify(mockRefundDao).updateStatus(spiedRefundEntity, RefundStatus.REFUND_SUBMITTED);
         verify(spiedRefundEntity).setReference("refund-pspReference");
         verifyNoMoreInteractions(mockChargeDao, mockRefundDao);
     }
@@ -207,7 +212,7 @@ public class ChargeRefundServiceTest {
 
         RefundEntity spiedRefundEntity = spy(aValidRefundEntity().withReference(generatedReference).withCharge(charge).build());
 
-        when(mockChargeDao.findByExternalIdAndGatewayAccount(externalChargeId, accountId))
+        when(mockChargeDao.findByExternalIdAndGatewayAccountRestoringArchived(externalChargeId, accountId))
                 .thenReturn(Optional.of(charge));
         when(mockChargeDao.merge(charge)).thenReturn(charge);
         when(mockProviders.byName(WORLDPAY)).thenReturn(mockProvider);
@@ -239,7 +244,7 @@ public class ChargeRefundServiceTest {
 
         RefundEntity spiedRefundEntity = spy(aValidRefundEntity().withReference(generatedReference).withCharge(charge).build());
 
-        when(mockChargeDao.findByExternalIdAndGatewayAccount(externalChargeId, accountId))
+        when(mockChargeDao.findByExternalIdAndGatewayAccountRestoringArchived(externalChargeId, accountId))
                 .thenReturn(Optional.of(charge));
         when(mockChargeDao.merge(charge)).thenReturn(charge);
         when(mockProviders.byName(WORLDPAY)).thenReturn(mockProvider);
@@ -272,7 +277,7 @@ public class ChargeRefundServiceTest {
 
         RefundEntity spiedRefundEntity = spy(aValidRefundEntity().withCharge(charge).build());
 
-        when(mockChargeDao.findByExternalIdAndGatewayAccount(externalChargeId, accountId))
+        when(mockChargeDao.findByExternalIdAndGatewayAccountRestoringArchived(externalChargeId, accountId))
                 .thenReturn(Optional.of(charge));
 
         when(mockChargeDao.merge(charge)).thenReturn(charge);
@@ -290,21 +295,51 @@ public class ChargeRefundServiceTest {
 
         assertThat(gatewayResponse.getRefundEntity(), is(spiedRefundEntity));
 
-        verify(mockChargeDao).findByExternalIdAndGatewayAccount(externalChargeId, accountId);
+        verify(mockChargeDao).findByExternalIdAndGatewayAccountRestoringArchived(externalChargeId, accountId);
         verify(mockChargeDao).merge(charge);
+        verify(mockRefundDao).lockAmountAvailableForRefund(charge);
         verify(mockRefundDao).persist(argThat(aRefundEntity(amount, charge)));
         verify(mockProvider).refund(argThat(aRefundRequestWith(charge, amount)));
         verify(mockRefundDao).merge(any(RefundEntity.class));
-        verify(spiedRefundEntity).setStatus(RefundStatus.REFUNDED);
+        verify(mockRefundDao).updateStatus(spiedRefundEntity, RefundStatus.REFUNDED);
         verifyNoMoreInteractions(mockChargeDao, mockRefundDao);
     }
 
+    @Test
+    public void shouldRejectARefundWhenAnotherRefundOfTheChargeWasAdmittedFirst() {
+        String externalChargeId = "chargeId";
+        Long accountId = 2L;
+        GatewayAccountEntity account = new GatewayAccountEntity("sandbox", newHashMap(), TEST);
+        account.setId(accountId);
+        ChargeEntity charge = aValidChargeEntity()
+                .withGatewayAccountEntity(account)
+                .withTransactionId("transactionId")
+                .withStatus(CAPTURED)
+                .build();
+
+        when(mockChargeDao.findByExternalIdAndGatewayAccountRestoringArchived(externalChargeId, accountId))
+                .thenReturn(Optional.of(charge));
+        when(mockChargeDao.merge(charge)).thenReturn(charge);
+        when(mockRefundDao.lockAmountAvailableForRefund(charge)).thenReturn(charge.getAmount() - 100L);
+
+        try {
+            chargeRefundService.doRefund(accountId, externalChargeId, new RefundRequest(100L, charge.getAmount()));
+            fail("Should throw an exception here");
+        } catch (Exception e) {
+            assertEquals(e.getClass(), RefundException.class);
+        }
+
+        verify(mockRefundDao).lockAmountAvailableForRefund(charge);
+        verify(mockRefundDao, never()).persist(any(RefundEntity.class));
+        verifyNoMoreInteractions(mockRefundDao);
+    }
+
     @Test
     public void shouldFailWhenChargeNotFound() {
         String externalChargeId = "chargeId";
         Long accountId = 2L;
 
-        when(mockChargeDao.findByExternalIdAndGatewayAccount(externalChargeId, accountId))
+        when(mockChargeDao.findByExternalIdAndGatewayAccountRestoringArchived(externalChargeId, accountId))
                 .thenReturn(Optional.empty());
 
         try {
@@ -314,7 +349,7 @@ public class ChargeRefundServiceTest {
             assertEquals(e.getClass(), ChargeNotFoundRuntimeException.class);
         }
 
-        verify(mockChargeDao).findByExternalIdAndGatewayAccount(externalChargeId, accountId);
+        verify(mockChargeDao).findByExternalIdAndGatewayAccountRestoringArchived(externalChargeId, accountId);
         verifyNoMoreInteractions(mockChargeDao, mockRefundDao, mockProviders, mockProvider);
     }
 
@@ -330,7 +365,7 @@ public class ChargeRefundServiceTest {
                 .withStatus(AUTHORISATION_SUCCESS)
                 .build();
 
-        when(mockChargeDao.findByExternalIdAndGatewayAccount(externalChargeId, accountId))
+        when(mockChargeDao.findByExternalIdAndGatewayAccountRestoringArchived(externalChargeId, accountId))
                 .thenReturn(Optional.of(charge));
         when(mockChargeDao.merge(charge)).thenReturn(charge);
 
@@ -341,8 +376,9 @@ public class ChargeRefundServiceTest {
             assertEquals(e.getClass(), RefundException.class);
         }
 
-        verify(mockChargeDao).findByExternalIdAndGatewayAccount(externalChargeId, accountId);
+        verify(mockChargeDao).findByExternalIdAndGatewayAccountRestoringArchived(externalChargeId, accountId);
         verify(mockChargeDao).merge(charge);
+        verify(mockRefundDao).lockAmountAvailableForRefund(charge);
         verifyNoMoreInteractions(mockChargeDao, mockRefundDao);
     }
 
@@ -364,7 +400,7 @@ public class ChargeRefundServiceTest {
 
         RefundEntity spiedRefundEntity = spy(aValidRefundEntity().build());
 
-        when(mockChargeDao.findByExternalIdAndGatewayAccount(externalChargeId, accountId))
+        when(mockChargeDao.findByExternalIdAndGatewayAccountRestoringArchived(externalChargeId, accountId))
                 .thenReturn(Optional.of(capturedCharge));
         when(mockChargeDao.merge(capturedCharge)).thenReturn(capturedCharge);
         when(mockProviders.byName(WORLDPAY)).thenReturn(mockProvider);
@@ -379,12 +415,13 @@ public class ChargeRefundServiceTest {
         assertThat(gatewayResponse.getRefundGatewayResponse().getGatewayError().get().getMessage(), is("[error-code]"));
         assertThat(gatewayResponse.getRefundGatewayResponse().getGatewayError().get().getErrorType(), is(ErrorType.GENERIC_GATEWAY_ERROR));
 
-        verify(mockChargeDao).findByExternalIdAndGatewayAccount(externalChargeId, accountId);
+        verify(mockChargeDao).findByExternalIdAndGatewayAccountRestoringArchived(externalChargeId, accountId);
         verify(mockChargeDao).merge(capturedCharge);
+        verify(mockRefundDao).lockAmountAvailableForRefund(capturedCharge);
         verify(mockRefundDao).persist(argThat(aRefundEntity(amount, capturedCharge)));
         verify(mockProvider).refund(argThat(aRefundRequestWith(capturedCharge, amount)));
         verify(mockRefundDao).merge(any(RefundEntity.class));
-        verify(spiedRefundEntity).setStatus(RefundStatus.REFUND_ERROR);
+        verify(mockRefundDao).updateStatus(spiedRefundEntity, RefundStatus.REFUND_ERROR);
         verifyNoMoreInteractions(mockChargeDao, mockRefundDao);
     }
 
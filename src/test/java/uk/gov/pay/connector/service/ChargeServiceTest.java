@@ -10,10 +10,13 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.LinksConfig;
+import uk.gov.pay.connector.app.TokenConfig;
 import uk.gov.pay.connector.dao.CardTypeDao;
 import uk.gov.pay.connector.dao.ChargeDao;
 import uk.gov.pay.connector.dao.TokenDao;
 import uk.gov.pay.connector.model.ChargeResponse;
+import uk.gov.pay.connector.model.domain.CardDetailsEntity;
+import uk.gov.pay.connector.model.domain.CardTypeEntity;
 import uk.gov.pay.connector.model.domain.ChargeEntity;
 import uk.gov.pay.connector.model.domain.ChargeStatus;
 import uk.gov.pay.connector.model.domain.GatewayAccountEntity;
@@ -26,8 +29,11 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyMap;
@@ -40,10 +46,13 @@ import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentCaptor.forClass;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static uk.gov.pay.connector.model.ChargeResponse.ChargeResponseBuilder;
@@ -102,7 +111,10 @@ public class ChargeServiceTest {
         when(mockedProviders.byName(any(PaymentGatewayName.class))).thenReturn(mockedPaymentProvider);
         when(mockedPaymentProvider.getExternalChargeRefundAvailability(any(ChargeEntity.class))).thenReturn(EXTERNAL_AVAILABLE);
 
-        service = new ChargeService(mockedTokenDao, mockedChargeDao, mockedConfig, mockedCardTypeDao, mockedProviders);
+        when(mockedConfig.getTokenConfig()).thenReturn(new TokenConfig());
+        when(mockedTokenDao.findLatestByChargeIdCreatedAfter(anyLong(), any(ZonedDateTime.class))).thenReturn(Optional.empty());
+
+        service = new ChargeService(new TokenService(mockedTokenDao, mockedConfig), mockedChargeDao, mockedConfig, new CardBrandLabelIndex(mockedCardTypeDao), mockedProviders);
     }
 
     @Test
@@ -163,6 +175,56 @@ public class ChargeServiceTest {
         assertThat(response, is(expectedChargeResponse.build()));
     }
 
+    @Test
+    public void shouldCreateABatchOfCharges_withATokenEach_inTheOrderOfTheRequests() throws Exception {
+        GatewayAccountEntity gatewayAccount = new GatewayAccountEntity("sandbox", new HashMap<>(), TEST);
+        gatewayAccount.setId(1L);
+        Map<String, String> secondChargeRequest = new HashMap<>(chargeRequest);
+        secondChargeRequest.put("amount", "200");
+        secondChargeRequest.put("reference", "Second reference");
+
+        doAnswer(invocation -> {
+            List<ChargeEntity> chargeEntitiesBeingPersisted = (List<ChargeEntity>) invocation.getArguments()[0];
+            IntStream.range(0, chargeEntitiesBeingPersisted.size())
+                    .forEach(i -> chargeEntitiesBeingPersisted.get(i).setId(100L + i));
+            return null;
+        }).when(mockedChargeDao).persistAll(any(List.class));
+
+        List<ChargeResponse> responses = service.createAll(asList(chargeRequest, secondChargeRequest), gatewayAccount, mockedUriInfo);
+
+        ArgumentCaptor<List> chargeEntitiesArgumentCaptor = forClass(List.class);
+        verify(mockedChargeDao).persistAll(chargeEntitiesArgumentCaptor.capture());
+        verify(mockedChargeDao, never()).persist(any(ChargeEntity.class));
+        List<ChargeEntity> createdChargeEntities = chargeEntitiesArgumentCaptor.getValue();
+        assertThat(createdChargeEntities.size(), is(2));
+        assertThat(createdChargeEntities.get(0).getAmount(), is(100L));
+        assertThat(createdChargeEntities.get(1).getAmount(), is(200L));
+        assertThat(createdChargeEntities.get(1).getReference(), is("Second reference"));
+
+        ArgumentCaptor<List> tokenEntitiesArgumentCaptor = forClass(List.class);
+        verify(mockedTokenDao).persistAll(tokenEntitiesArgumentCaptor.capture());
+        verify(mockedTokenDao, never()).persist(any(TokenEntity.class));
+        List<TokenEntity> tokenEntities = tokenEntitiesArgumentCaptor.getValue();
+        assertThat(tokenEntities.size(), is(2));
+
+        assertThat(responses.size(), is(2));
+        for (int i = 0; i < 2; i++) {
+            ChargeEntity createdChargeEntity = createdChargeEntities.get(i);
+            TokenEntity tokenEntity = tokenEntities.get(i);
+            assertThat(tokenEntity.getChargeEntity().getId(), is(createdChargeEntity.getId()));
+
+            ChargeResponseBuilder expectedChargeResponse = chargeResponseBuilderOf(createdChargeEntity);
+            expectedChargeResponse.withLink("self", GET, new URI(SERVICE_HOST + "/v1/api/accounts/1/charges/" + createdChargeEntity.getExternalId()));
+            expectedChargeResponse.withLink("refunds", GET, new URI(SERVICE_HOST + "/v1/api/accounts/1/charges/" + createdChargeEntity.getExternalId() + "/refunds"));
+            expectedChargeResponse.withLink("next_url", GET, new URI("http://payments.com/secure/" + tokenEntity.getToken()));
+            expectedChargeResponse.withLink("next_url_post", POST, new URI("http://payments.com/secure"), "application/x-www-form-urlencoded", new HashMap<String, Object>() {{
+                put("chargeTokenId", tokenEntity.getToken());
+            }});
+
+            assertThat(responses.get(i), is(expectedChargeResponse.build()));
+        }
+    }
+
     @Test
     public void shouldFindChargeForChargeIdAndAccountIdWithNextUrlWhenChargeStatusIsCreated() throws Exception {
 
@@ -305,6 +367,34 @@ public class ChargeServiceTest {
         inOrder.verify(mockedChargeDao).mergeAndNotifyStatusHasChanged(chargeEntity2, Optional.empty());
     }
 
+    @Test
+    public void shouldLookUpCardBrandLabelsOnceForAPageOfCharges() {
+        when(mockedCardTypeDao.findAll()).thenReturn(asList(
+                aCardType("visa", "Visa"),
+                aCardType("master-card", "Mastercard")));
+
+        List<ChargeResponse> page = IntStream.range(0, 500)
+                .mapToObj(i -> {
+                    ChargeEntity charge = aValidChargeEntity().withId((long) i).withStatus(CAPTURED).build();
+                    CardDetailsEntity cardDetails = new CardDetailsEntity();
+                    cardDetails.setCardBrand(i % 2 == 0 ? "visa" : "master-card");
+                    charge.setCardDetails(cardDetails);
+                    return service.buildChargeResponse(mockedUriInfo, charge);
+                })
+                .collect(Collectors.toList());
+
+        assertThat(page.size(), is(500));
+        verify(mockedCardTypeDao, times(1)).findAll();
+        verify(mockedCardTypeDao, never()).findByBrand(anyString());
+    }
+
+    private CardTypeEntity aCardType(String brand, String label) {
+        CardTypeEntity cardType = new CardTypeEntity();
+        cardType.setBrand(brand);
+        cardType.setLabel(label);
+        return cardType;
+    }
+
     /**
      * TODO To create a matcher rather than using main src to build our assertions
      */
@@ -0,0 +1,153 @@
+package uk.gov.pay.connector.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.TransactionsPaginationServiceConfig;
+import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.dao.ChargeSearchParams;
+import uk.gov.pay.connector.model.ChargeExportRow;
+
+import javax.persistence.PersistenceException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.service.ChargesExportService.Format.CSV;
+import static uk.gov.pay.connector.service.ChargesExportService.Format.NDJSON;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChargesExportServiceTest {
+
+    private static final ZonedDateTime CREATED_DATE = ZonedDateTime.parse("2017-03-01T10:00:00Z");
+
+    @Mock
+    private ChargeDao mockChargeDao;
+    @Mock
+    private CardBrandLabelIndex mockCardBrandLabelIndex;
+
+    private ObjectMapper objectMapper = Jackson.newObjectMapper();
+    private ChargeSearchParams searchParams = new ChargeSearchParams().withGatewayAccountId(1L);
+    private ChargesExportService exportService;
+
+    @Before
+    public void setUp() {
+        TransactionsPaginationServiceConfig paginationConfig = mock(TransactionsPaginationServiceConfig.class);
+        when(paginationConfig.getExportFetchSize()).thenReturn(250);
+        ConnectorConfiguration configuration = mock(ConnectorConfiguration.class);
+        when(configuration.getTransactionsPaginationConfig()).thenReturn(paginationConfig);
+
+        when(mockCardBrandLabelIndex.labelFor("visa")).thenReturn(Optional.of("Visa"));
+        when(mockCardBrandLabelIndex.labelFor(null)).thenReturn(Optional.empty());
+
+        givenMatchingRows(
+                new ChargeExportRow("charge-2", "ref, 2", "a \"quoted\" description", "a@example.com", 200L,
+                        "AUTHORISATION SUCCESS", "visa", "transaction-2", CREATED_DATE.plusHours(1)),
+                new ChargeExportRow("charge-1", "ref-1", "description", null, 100L,
+                        "EXPIRED", null, null, CREATED_DATE));
+
+        exportService = new ChargesExportService(mockChargeDao, mockCardBrandLabelIndex, objectMapper, configuration);
+    }
+
+    @Test
+    public void shouldWriteCsvWithAHeaderAndOneRecordPerCharge() throws Exception {
+        String csv = export(CSV);
+
+        assertThat(csv, is(
+                "charge_id,reference,description,email,amount,state,finished,card_brand,gateway_transaction_id,created_date\r\n" +
+                "charge-2,\"ref, 2\",\"a \"\"quoted\"\" description\",a@example.com,200,submitted,false,Visa,transaction-2,2017-03-01T11:00:00Z\r\n" +
+                "charge-1,ref-1,description,,100,failed,true,,,2017-03-01T10:00:00Z\r\n"));
+        verify(mockChargeDao).forEachMatching(eq(searchParams), eq(250), any());
+    }
+
+    @Test
+    public void shouldWriteOneJsonObjectPerLine() throws Exception {
+        String[] lines = export(NDJSON).split("\n");
+
+        assertThat(lines.length, is(2));
+        Map<?, ?> first = objectMapper.readValue(lines[0], Map.class);
+        assertThat(first.get("charge_id"), is("charge-2"));
+        assertThat(first.get("amount"), is(200));
+        assertThat(first.get("state"), is("submitted"));
+        assertThat(first.get("finished"), is(false));
+        assertThat(first.get("card_brand"), is("Visa"));
+        Map<?, ?> second = objectMapper.readValue(lines[1], Map.class);
+        assertThat(second.get("charge_id"), is("charge-1"));
+        assertThat(second.get("state"), is("failed"));
+        assertThat(second.containsKey("email"), is(true));
+        assertThat(second.get("email"), is((Object) null));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldStopAndRethrowWhenTheClientGoesAway() throws Exception {
+        OutputStream brokenStream = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        exportService.export(searchParams, NDJSON, brokenStream);
+    }
+
+    @Test
+    public void shouldLeaveTheStreamUnfinished_whenReadingTheChargesFails() throws Exception {
+        doThrow(new PersistenceException("connection reset"))
+                .when(mockChargeDao).forEachMatching(any(ChargeSearchParams.class), anyInt(), any(Consumer.class));
+        AtomicBoolean closed = new AtomicBoolean(false);
+        OutputStream output = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+
+        for (ChargesExportService.Format format : ChargesExportService.Format.values()) {
+            try {
+                exportService.export(searchParams, format, output);
+                fail("Expected the export to fail");
+            } catch (PersistenceException e) {
+                assertThat(closed.get(), is(false));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenMatchingRows(ChargeExportRow... rows) {
+        doAnswer(invocation -> {
+            Consumer<ChargeExportRow> consumer = (Consumer<ChargeExportRow>) invocation.getArguments()[2];
+            for (ChargeExportRow row : rows) {
+                consumer.accept(row);
+            }
+            return null;
+        }).when(mockChargeDao).forEachMatching(any(ChargeSearchParams.class), anyInt(), any(Consumer.class));
+    }
+
+    private String export(ChargesExportService.Format format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.export(searchParams, format, output);
+        return new String(output.toByteArray(), UTF_8);
+    }
+}
@@ -0,0 +1,229 @@
+package uk.gov.pay.connector.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.gov.pay.connector.app.EmailOutboxConfig;
+import uk.gov.pay.connector.dao.EmailOutboxDao;
+import uk.gov.pay.connector.model.EmailOutboxItem;
+import uk.gov.service.notify.NotificationClientException;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EmailOutboxProcessTest {
+
+    private static final int PAGE_SIZE = 2;
+    private static final int MAXIMUM_ATTEMPTS = 3;
+    private static final int PURGE_BATCH_SIZE = 2;
+    private static final ImmutableMap<String, String> PERSONALISATION = ImmutableMap.of("amount", "5.00");
+
+    @Mock
+    private EmailOutboxDao mockEmailOutboxDao;
+    @Mock
+    private UserNotificationService mockUserNotificationService;
+    @Mock
+    private EmailOutboxConfig mockEmailOutboxConfig;
+
+    private Counter depthCounter = new Counter();
+    private Counter sentCounter = new Counter();
+    private Counter failedCounter = new Counter();
+    private Counter deliveredCounter = new Counter();
+    private Counter undeliveredCounter = new Counter();
+    private Counter purgedCounter = new Counter();
+    private Histogram sendLatencyHistogram = mock(Histogram.class);
+    private EmailOutboxProcess emailOutboxProcess;
+
+    @Before
+    public void setUp() {
+        MetricRegistry mockMetricRegistry = mock(MetricRegistry.class);
+        when(mockMetricRegistry.histogram(anyString())).thenReturn(mock(Histogram.class));
+        when(mockMetricRegistry.histogram("email-outbox.send_latency")).thenReturn(sendLatencyHistogram);
+        when(mockMetricRegistry.counter("email-outbox.depth")).thenReturn(depthCounter);
+        when(mockMetricRegistry.counter("email-outbox.sent")).thenReturn(sentCounter);
+        when(mockMetricRegistry.counter("email-outbox.failed")).thenReturn(failedCounter);
+        when(mockMetricRegistry.counter("email-outbox.delivered")).thenReturn(deliveredCounter);
+        when(mockMetricRegistry.counter("email-outbox.undelivered")).thenReturn(undeliveredCounter);
+        when(mockMetricRegistry.counter("email-outbox.purged")).thenReturn(purgedCounter);
+
+        when(mockEmailOutboxConfig.getTimeBudgetAsJavaDuration()).thenReturn(Duration.ofMinutes(1));
+        when(mockEmailOutboxConfig.getPageSize()).thenReturn(PAGE_SIZE);
+        when(mockEmailOutboxConfig.getSendsPerSecond()).thenReturn(1000d);
+        when(mockEmailOutboxConfig.getMaximumAttempts()).thenReturn(MAXIMUM_ATTEMPTS);
+        when(mockEmailOutboxConfig.getInitialRetryDelayAsJavaDuration()).thenReturn(Duration.ofSeconds(30));
+        when(mockEmailOutboxConfig.getMaximumRetryDelayAsJavaDuration()).thenReturn(Duration.ofMinutes(1));
+        when(mockEmailOutboxConfig.getDeliveryCheckIntervalAsJavaDuration()).thenReturn(Duration.ofMinutes(5));
+        when(mockEmailOutboxConfig.getDeliveryCheckWindowAsJavaDuration()).thenReturn(Duration.ofHours(24));
+        when(mockEmailOutboxConfig.getRetentionAsJavaDuration()).thenReturn(Duration.ofDays(30));
+        when(mockEmailOutboxConfig.getPurgeBatchSize()).thenReturn(PURGE_BATCH_SIZE);
+
+        when(mockEmailOutboxDao.findPageDueToSend(any(ZonedDateTime.class), anyLong(), eq(PAGE_SIZE)))
+                .thenReturn(Collections.emptyList());
+        when(mockEmailOutboxDao.findPageDueForDeliveryCheck(any(ZonedDateTime.class), any(ZonedDateTime.class), anyLong(), eq(PAGE_SIZE)))
+                .thenReturn(Collections.emptyList());
+
+        emailOutboxProcess = new EmailOutboxProcess(mockMetricRegistry, mockEmailOutboxDao,
+                mockUserNotificationService, mockEmailOutboxConfig, newDirectExecutorService());
+    }
+
+    @Test
+    public void shouldSendTheDueEmails_pageByPage() throws Exception {
+        when(mockEmailOutboxDao.countPending()).thenReturn(3L);
+        when(mockEmailOutboxDao.findPageDueToSend(any(ZonedDateTime.class), eq(0L), eq(PAGE_SIZE)))
+                .thenReturn(asList(pendingEmail(1L, 0), pendingEmail(2L, 0)));
+        when(mockEmailOutboxDao.findPageDueToSend(any(ZonedDateTime.class), eq(2L), eq(PAGE_SIZE)))
+                .thenReturn(Collections.singletonList(pendingEmail(3L, 0)));
+        when(mockUserNotificationService.sendPaymentSuccessEmail("email-1@example.com", PERSONALISATION)).thenReturn("notification-1");
+        when(mockUserNotificationService.sendPaymentSuccessEmail("email-2@example.com", PERSONALISATION)).thenReturn("notification-2");
+        when(mockUserNotificationService.sendPaymentSuccessEmail("email-3@example.com", PERSONALISATION)).thenReturn("notification-3");
+
+        emailOutboxProcess.runEmailOutbox();
+
+        verify(mockEmailOutboxDao).markSent(eq(1L), eq("notification-1"), any(ZonedDateTime.class));
+        verify(mockEmailOutboxDao).markSent(eq(2L), eq("notification-2"), any(ZonedDateTime.class));
+        verify(mockEmailOutboxDao).markSent(eq(3L), eq("notification-3"), any(ZonedDateTime.class));
+        verify(sendLatencyHistogram, times(3)).update(anyLong());
+        assertThat(sentCounter.getCount(), is(3L));
+        assertThat(depthCounter.getCount(), is(3L));
+    }
+
+    @Test
+    public void shouldRetryAnEmailWithBackoff_whenNotifyFailsToSendIt() throws Exception {
+        when(mockEmailOutboxDao.findPageDueToSend(any(ZonedDateTime.class), eq(0L), eq(PAGE_SIZE)))
+                .thenReturn(asList(pendingEmail(1L, 0), pendingEmail(2L, 1)));
+        NotificationClientException exception = notificationClientException(500);
+        when(mockUserNotificationService.sendPaymentSuccessEmail(anyString(), eq(PERSONALISATION))).thenThrow(exception);
+        ZonedDateTime startOfRun = ZonedDateTime.now();
+
+        emailOutboxProcess.runEmailOutbox();
+
+        ZonedDateTime endOfRun = ZonedDateTime.now();
+        ArgumentCaptor<ZonedDateTime> firstRetryAt = ArgumentCaptor.forClass(ZonedDateTime.class);
+        ArgumentCaptor<ZonedDateTime> secondRetryAt = ArgumentCaptor.forClass(ZonedDateTime.class);
+        verify(mockEmailOutboxDao).markAttemptFailed(eq(1L), firstRetryAt.capture(), anyString());
+        verify(mockEmailOutboxDao).markAttemptFailed(eq(2L), secondRetryAt.capture(), anyString());
+        assertRetryAfter(Duration.ofSeconds(30), firstRetryAt.getValue(), startOfRun, endOfRun);
+        assertRetryAfter(Duration.ofMinutes(1), secondRetryAt.getValue(), startOfRun, endOfRun);
+        verify(mockEmailOutboxDao, never()).markFailed(anyLong(), anyString());
+        assertThat(failedCounter.getCount(), is(0L));
+    }
+
+    @Test
+    public void shouldGiveUpOnAnEmail_whenNotifyRejectsIt() throws Exception {
+        when(mockEmailOutboxDao.findPageDueToSend(any(ZonedDateTime.class), eq(0L), eq(PAGE_SIZE)))
+                .thenReturn(Collections.singletonList(pendingEmail(1L, 0)));
+        NotificationClientException exception = notificationClientException(400);
+        when(mockUserNotificationService.sendPaymentSuccessEmail(anyString(), eq(PERSONALISATION))).thenThrow(exception);
+
+        emailOutboxProcess.runEmailOutbox();
+
+        verify(mockEmailOutboxDao).markFailed(eq(1L), anyString());
+        verify(mockEmailOutboxDao, never()).markAttemptFailed(anyLong(), any(ZonedDateTime.class), anyString());
+        assertThat(failedCounter.getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldGiveUpOnAnEmail_whenItsLastAttemptFails() throws Exception {
+        when(mockEmailOutboxDao.findPageDueToSend(any(ZonedDateTime.class), eq(0L), eq(PAGE_SIZE)))
+                .thenReturn(Collections.singletonList(pendingEmail(1L, MAXIMUM_ATTEMPTS - 1)));
+        NotificationClientException exception = notificationClientException(500);
+        when(mockUserNotificationService.sendPaymentSuccessEmail(anyString(), eq(PERSONALISATION))).thenThrow(exception);
+
+        emailOutboxProcess.runEmailOutbox();
+
+        verify(mockEmailOutboxDao).markFailed(eq(1L), anyString());
+        assertThat(failedCounter.getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldRecordTheDeliveryOfSentEmails_andCheckAgainLaterWhileNotifyIsStillSending() throws Exception {
+        when(mockEmailOutboxDao.findPageDueForDeliveryCheck(any(ZonedDateTime.class), any(ZonedDateTime.class), eq(0L), eq(PAGE_SIZE)))
+                .thenReturn(asList(sentEmail(1L, "notification-1"), sentEmail(2L, "notification-2")));
+        when(mockEmailOutboxDao.findPageDueForDeliveryCheck(any(ZonedDateTime.class), any(ZonedDateTime.class), eq(2L), eq(PAGE_SIZE)))
+                .thenReturn(Collections.singletonList(sentEmail(3L, "notification-3")));
+        when(mockUserNotificationService.checkDeliveryStatus("notification-1")).thenReturn("delivered");
+        when(mockUserNotificationService.checkDeliveryStatus("notification-2")).thenReturn("permanent-failure");
+        when(mockUserNotificationService.checkDeliveryStatus("notification-3")).thenReturn("sending");
+
+        emailOutboxProcess.runEmailOutbox();
+
+        verify(mockEmailOutboxDao).markDelivered(1L);
+        verify(mockEmailOutboxDao).markUndelivered(eq(2L), anyString());
+        verify(mockEmailOutboxDao).postponeDeliveryCheck(eq(3L), any(ZonedDateTime.class));
+        assertThat(deliveredCounter.getCount(), is(1L));
+        assertThat(undeliveredCounter.getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldDeleteEmailsPastTheirRetention_batchByBatch() {
+        ZonedDateTime startOfRun = ZonedDateTime.now();
+        when(mockEmailOutboxDao.deleteFinishedCreatedBefore(any(ZonedDateTime.class), eq(PURGE_BATCH_SIZE)))
+                .thenReturn(PURGE_BATCH_SIZE, 1);
+
+        emailOutboxProcess.runEmailOutbox();
+
+        ArgumentCaptor<ZonedDateTime> createdBefore = ArgumentCaptor.forClass(ZonedDateTime.class);
+        verify(mockEmailOutboxDao, times(2)).deleteFinishedCreatedBefore(createdBefore.capture(), eq(PURGE_BATCH_SIZE));
+        assertThat(createdBefore.getValue().isBefore(startOfRun.minusDays(30)), is(false));
+        assertThat(createdBefore.getValue().isAfter(ZonedDateTime.now().minusDays(30)), is(false));
+        assertThat(purgedCounter.getCount(), is(3L));
+    }
+
+    @Test
+    public void shouldStartNoNewPageOnceTheTimeBudgetIsUsedUp() {
+        when(mockEmailOutboxConfig.getTimeBudgetAsJavaDuration()).thenReturn(Duration.ZERO);
+
+        emailOutboxProcess.runEmailOutbox();
+
+        verify(mockEmailOutboxDao, never()).findPageDueToSend(any(ZonedDateTime.class), anyLong(), eq(PAGE_SIZE));
+        verify(mockEmailOutboxDao, never()).findPageDueForDeliveryCheck(any(ZonedDateTime.class), any(ZonedDateTime.class), anyLong(), eq(PAGE_SIZE));
+        verify(mockEmailOutboxDao, never()).deleteFinishedCreatedBefore(any(ZonedDateTime.class), anyInt());
+    }
+
+
+    private void assertRetryAfter(Duration delay, ZonedDateTime retryAt, ZonedDateTime startOfRun, ZonedDateTime endOfRun) {
+        assertThat(retryAt.isBefore(startOfRun.plus(delay)), is(false));
+        assertThat(retryAt.isAfter(endOfRun.plus(delay)), is(false));
+    }
+
+    private EmailOutboxItem pendingEmail(long id, int attempts) {
+        return new EmailOutboxItem(id, "charge-" + id, "email-" + id + "@example.com", PERSONALISATION, attempts, null,
+                ZonedDateTime.now().minusSeconds(1));
+    }
+
+    private EmailOutboxItem sentEmail(long id, String notificationId) {
+        return new EmailOutboxItem(id, "charge-" + id, "email-" + id + "@example.com", PERSONALISATION, 1, notificationId,
+                ZonedDateTime.now().minusMinutes(10));
+    }
+
+    private NotificationClientException notificationClientException(int httpResult) {
+        NotificationClientException exception = mock(NotificationClientException.class);
+        when(exception.getHttpResult()).thenReturn(httpResult);
+        return exception;
+    }
+}
@@ -0,0 +1,64 @@
+package uk.gov.pay.connector.service;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.gov.pay.connector.dao.EmailOutboxDao;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.ChargeEntityFixture;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EmailOutboxServiceTest {
+
+    @Mock
+    private EmailOutboxDao mockEmailOutboxDao;
+    @Mock
+    private UserNotificationService mockUserNotificationService;
+
+    private EmailOutboxService emailOutboxService;
+    private ChargeEntity charge = ChargeEntityFixture.aValidChargeEntity().build();
+
+    @Before
+    public void setUp() {
+        emailOutboxService = new EmailOutboxService(mockEmailOutboxDao, mockUserNotificationService);
+    }
+
+    @Test
+    public void shouldQueueThePaymentConfirmationEmail_withItsPersonalisation() {
+        Map<String, String> personalisation = ImmutableMap.of("amount", "5.00");
+        when(mockUserNotificationService.isPaymentSuccessEmailEnabledFor(charge)).thenReturn(true);
+        when(mockUserNotificationService.paymentSuccessPersonalisation(charge)).thenReturn(personalisation);
+
+        emailOutboxService.enqueuePaymentSuccessEmail(charge);
+
+        verify(mockEmailOutboxDao).enqueue(charge.getExternalId(), charge.getEmail(), personalisation);
+    }
+
+    @Test
+    public void shouldNotQueueAnEmail_whenTheChargeHasNoEmailAddress() {
+        ChargeEntity chargeWithoutEmail = ChargeEntityFixture.aValidChargeEntity().withEmail(null).build();
+        when(mockUserNotificationService.isPaymentSuccessEmailEnabledFor(chargeWithoutEmail)).thenReturn(true);
+
+        emailOutboxService.enqueuePaymentSuccessEmail(chargeWithoutEmail);
+
+        verifyZeroInteractions(mockEmailOutboxDao);
+    }
+
+    @Test
+    public void shouldNotQueueAnEmail_whenEmailsAreDisabled() {
+        when(mockUserNotificationService.isPaymentSuccessEmailEnabledFor(charge)).thenReturn(false);
+
+        emailOutboxService.enqueuePaymentSuccessEmail(charge);
+
+        verifyZeroInteractions(mockEmailOutboxDao);
+    }
+}
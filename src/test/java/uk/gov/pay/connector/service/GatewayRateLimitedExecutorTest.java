@@ -0,0 +1,80 @@
+package uk.gov.pay.connector.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class GatewayRateLimitedExecutorTest {
+
+    private static final int PARALLELISM = 2;
+
+    private ExecutorService worldpayExecutor = Executors.newFixedThreadPool(PARALLELISM);
+    private ExecutorService otherExecutor = Executors.newFixedThreadPool(PARALLELISM);
+    private GatewayRateLimitedExecutor executor;
+
+    @Before
+    public void setUp() {
+        executor = new GatewayRateLimitedExecutor(
+                gatewayName -> gatewayName == PaymentGatewayName.WORLDPAY ? worldpayExecutor : otherExecutor, 1000.0);
+    }
+
+    @After
+    public void tearDown() {
+        worldpayExecutor.shutdownNow();
+        otherExecutor.shutdownNow();
+    }
+
+    @Test
+    public void shouldRunRequestsToAGatewayConcurrentlyUpToItsParallelism() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maximumRunning = new AtomicInteger();
+        CountDownLatch allSubmitted = new CountDownLatch(1);
+
+        List<CompletableFuture<Integer>> requests = IntStream.range(0, 6)
+                .mapToObj(i -> executor.submit(PaymentGatewayName.WORLDPAY, () -> {
+                    maximumRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    await(allSubmitted);
+                    running.decrementAndGet();
+                    return i;
+                }))
+                .collect(Collectors.toList());
+        allSubmitted.countDown();
+
+        assertThat(requests.stream().mapToInt(CompletableFuture::join).sum(), is(15));
+        assertThat(maximumRunning.get(), lessThanOrEqualTo(PARALLELISM));
+    }
+
+    @Test
+    public void shouldNotHoldUpOtherGateways_whenOneGatewayIsBusy() throws Exception {
+        CountDownLatch worldpayReleased = new CountDownLatch(1);
+        IntStream.range(0, PARALLELISM).forEach(i ->
+                executor.submit(PaymentGatewayName.WORLDPAY, () -> await(worldpayReleased)));
+
+        CompletableFuture<String> smartpayRequest = executor.submit(PaymentGatewayName.SMARTPAY, () -> "done");
+
+        assertThat(smartpayRequest.get(5, TimeUnit.SECONDS), is("done"));
+        worldpayReleased.countDown();
+    }
+
+    private boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -334,7 +334,7 @@ public class NotificationServiceTest {
         notificationService.handleNotificationFor("", SANDBOX, "payload");
 
         verify(mockedRefundDao).findByProviderAndReference(SANDBOX.getName(), reference);
-        verify(mockedRefundEntity).setStatus(REFUNDED);
+        verify(mockedRefundDao).updateStatus(mockedRefundEntity, REFUNDED);
         verifyNoMoreInteractions(ignoreStubs(mockedChargeDao));
     }
 
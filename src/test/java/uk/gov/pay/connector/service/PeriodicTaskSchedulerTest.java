@@ -0,0 +1,138 @@
+package uk.gov.pay.connector.service;
+
+import io.dropwizard.lifecycle.setup.LifecycleEnvironment;
+import io.dropwizard.lifecycle.setup.ScheduledExecutorServiceBuilder;
+import io.dropwizard.setup.Environment;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.gov.pay.connector.dao.SchedulerLeaseDao;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+import static uk.gov.pay.connector.service.PeriodicTaskScheduler.SCHEDULER_THREADS;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PeriodicTaskSchedulerTest {
+
+    private static final String TASK_NAME = "charge-expiry";
+    private static final Duration LEASE_DURATION = Duration.ofMinutes(5);
+
+    @Mock
+    Runnable task;
+
+    @Mock
+    SchedulerLeaseDao schedulerLeaseDao;
+
+    @Mock
+    Environment environment;
+
+    @Mock
+    LifecycleEnvironment lifecycleEnvironment;
+
+    @Mock
+    ScheduledExecutorService scheduledExecutorService;
+
+    ScheduledExecutorServiceBuilder scheduledExecutorServiceBuilder;
+
+    @Before
+    public void setup() {
+        scheduledExecutorServiceBuilder = mock(ScheduledExecutorServiceBuilder.class, invocation -> {
+            Object mock = invocation.getMock();
+            if(invocation.getMethod().getReturnType().isInstance(mock)) {
+                return mock;
+            } else {
+                return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+        when(scheduledExecutorServiceBuilder.build()).thenReturn(scheduledExecutorService);
+        when(environment.lifecycle()).thenReturn(lifecycleEnvironment);
+        when(lifecycleEnvironment.scheduledExecutorService(anyString())).thenReturn(scheduledExecutorServiceBuilder);
+    }
+
+    @Test
+    public void shouldSetupScheduledExecutorServiceNamedAfterTheTask() {
+        PeriodicTaskScheduler.builder(TASK_NAME, task).build(environment);
+
+        verify(lifecycleEnvironment).scheduledExecutorService(TASK_NAME);
+        verify(scheduledExecutorServiceBuilder).threads(SCHEDULER_THREADS);
+        verify(scheduledExecutorServiceBuilder).build();
+    }
+
+    @Test
+    public void shouldScheduleTheTaskWithAFixedDelayBetweenRuns() {
+        PeriodicTaskScheduler.builder(TASK_NAME, task)
+                .schedule(30L, 60L)
+                .build(environment)
+                .start();
+
+        verify(scheduledExecutorService).scheduleWithFixedDelay(any(Runnable.class), eq(30L), eq(60L), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldNotScheduleTheTask_whenItIsDisabled() {
+        PeriodicTaskScheduler.builder(TASK_NAME, task)
+                .enabled(false)
+                .schedule(30L, 60L)
+                .build(environment)
+                .start();
+
+        verifyZeroInteractions(scheduledExecutorService);
+    }
+
+    @Test
+    public void shouldRunATaskWithoutALease_onEveryNode() {
+        PeriodicTaskScheduler.builder(TASK_NAME, task).build(environment).runOnce();
+
+        verify(task).run();
+    }
+
+    @Test
+    public void shouldRunALeasedTask_andReleaseTheLeaseAfterwards() {
+        when(schedulerLeaseDao.tryAcquire(eq(TASK_NAME), anyString(), eq(LEASE_DURATION))).thenReturn(true);
+
+        leasedScheduler().runOnce();
+
+        verify(task).run();
+        verify(schedulerLeaseDao).release(eq(TASK_NAME), anyString());
+    }
+
+    @Test
+    public void shouldSkipTheRun_whenTheLeaseIsHeldByAnotherNode() {
+        when(schedulerLeaseDao.tryAcquire(eq(TASK_NAME), anyString(), eq(LEASE_DURATION))).thenReturn(false);
+
+        leasedScheduler().runOnce();
+
+        verifyZeroInteractions(task);
+        verify(schedulerLeaseDao, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    public void shouldReleaseTheLease_andKeepTheSchedule_whenTheTaskFails() {
+        when(schedulerLeaseDao.tryAcquire(eq(TASK_NAME), anyString(), eq(LEASE_DURATION))).thenReturn(true);
+        doThrow(new RuntimeException("database unavailable")).when(task).run();
+
+        leasedScheduler().runOnce();
+
+        verify(schedulerLeaseDao).release(eq(TASK_NAME), anyString());
+    }
+
+    @Test
+    public void shouldShutdownScheduledExecutorServiceWhenStopped() {
+        PeriodicTaskScheduler.builder(TASK_NAME, task).build(environment).stop();
+
+        verify(scheduledExecutorService).shutdown();
+    }
+
+    private PeriodicTaskScheduler leasedScheduler() {
+        return PeriodicTaskScheduler.builder(TASK_NAME, task)
+                .leased(schedulerLeaseDao, LEASE_DURATION)
+                .build(environment);
+    }
+}
@@ -0,0 +1,146 @@
+package uk.gov.pay.connector.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.setup.Environment;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.ReconciliationConfig;
+import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.dao.RefundDao;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.RefundEntity;
+import uk.gov.pay.connector.service.ReconciliationService.Outcome;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.model.domain.ChargeEntityFixture.aValidChargeEntity;
+import static uk.gov.pay.connector.model.domain.RefundEntityFixture.aValidRefundEntity;
+import static uk.gov.pay.connector.service.ReconciliationService.RECONCILABLE_CHARGE_STATUSES;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReconciliationProcessTest {
+
+    private static final int PAGE_SIZE = 2;
+
+    @Mock
+    private ChargeDao mockChargeDao;
+    @Mock
+    private RefundDao mockRefundDao;
+    @Mock
+    private ReconciliationService mockReconciliationService;
+    @Mock
+    private Environment mockEnvironment;
+    @Mock
+    private ConnectorConfiguration mockConnectorConfiguration;
+    @Mock
+    private ReconciliationConfig mockReconciliationConfig;
+
+    private Counter resolvedCounter = new Counter();
+    private Counter unresolvedCounter = new Counter();
+    private Counter chargesBacklogCounter = new Counter();
+    private Counter refundsBacklogCounter = new Counter();
+    private ReconciliationProcess reconciliationProcess;
+
+    @Before
+    public void setUp() {
+        MetricRegistry mockMetricRegistry = mock(MetricRegistry.class);
+        when(mockMetricRegistry.histogram(anyString())).thenReturn(mock(Histogram.class));
+        when(mockMetricRegistry.counter("reconciliation.resolved")).thenReturn(resolvedCounter);
+        when(mockMetricRegistry.counter("reconciliation.unresolved")).thenReturn(unresolvedCounter);
+        when(mockMetricRegistry.counter("reconciliation.backlog.charges")).thenReturn(chargesBacklogCounter);
+        when(mockMetricRegistry.counter("reconciliation.backlog.refunds")).thenReturn(refundsBacklogCounter);
+        when(mockEnvironment.metrics()).thenReturn(mockMetricRegistry);
+
+        when(mockReconciliationConfig.getStaleAfterAsJavaDuration()).thenReturn(Duration.ofMinutes(15));
+        when(mockReconciliationConfig.getTimeBudgetAsJavaDuration()).thenReturn(Duration.ofMinutes(1));
+        when(mockReconciliationConfig.getPageSize()).thenReturn(PAGE_SIZE);
+        when(mockConnectorConfiguration.getReconciliationConfig()).thenReturn(mockReconciliationConfig);
+
+        when(mockChargeDao.findPageUnchangedSinceWithStatusIn(any(ZonedDateTime.class), eq(RECONCILABLE_CHARGE_STATUSES), any(Optional.class), eq(PAGE_SIZE)))
+                .thenReturn(Collections.emptyList());
+        when(mockRefundDao.findPageSubmittedBefore(any(ZonedDateTime.class), any(Optional.class), eq(PAGE_SIZE)))
+                .thenReturn(Collections.emptyList());
+
+        reconciliationProcess = new ReconciliationProcess(mockEnvironment, mockChargeDao, mockRefundDao,
+                mockReconciliationService, mockConnectorConfiguration);
+    }
+
+    @Test
+    public void shouldReconcileStaleChargesAndThenStaleRefunds_pageByPage() {
+        ChargeEntity firstCharge = aValidChargeEntity().withId(1L).build();
+        ChargeEntity secondCharge = aValidChargeEntity().withId(2L).build();
+        ChargeEntity thirdCharge = aValidChargeEntity().withId(3L).build();
+        RefundEntity refund = aValidRefundEntity().build();
+        when(mockChargeDao.countUnchangedSinceWithStatusIn(any(ZonedDateTime.class), eq(RECONCILABLE_CHARGE_STATUSES))).thenReturn(3L);
+        when(mockRefundDao.countSubmittedBefore(any(ZonedDateTime.class))).thenReturn(1L);
+        when(mockChargeDao.findPageUnchangedSinceWithStatusIn(any(ZonedDateTime.class), eq(RECONCILABLE_CHARGE_STATUSES), eq(Optional.empty()), eq(PAGE_SIZE)))
+                .thenReturn(asList(firstCharge, secondCharge));
+        when(mockChargeDao.findPageUnchangedSinceWithStatusIn(any(ZonedDateTime.class), eq(RECONCILABLE_CHARGE_STATUSES), eq(Optional.of(secondCharge)), eq(PAGE_SIZE)))
+                .thenReturn(Collections.singletonList(thirdCharge));
+        when(mockRefundDao.findPageSubmittedBefore(any(ZonedDateTime.class), eq(Optional.empty()), eq(PAGE_SIZE)))
+                .thenReturn(Collections.singletonList(refund));
+        when(mockReconciliationService.reconcileCharge(firstCharge)).thenReturn(Outcome.RESOLVED);
+        when(mockReconciliationService.reconcileCharge(secondCharge)).thenReturn(Outcome.UNRESOLVED);
+        when(mockReconciliationService.reconcileCharge(thirdCharge)).thenReturn(Outcome.SKIPPED);
+        when(mockReconciliationService.reconcileRefund(refund)).thenReturn(Outcome.RESOLVED);
+
+        Map<Outcome, Integer> result = reconciliationProcess.runReconciliation();
+
+        assertThat(result.get(Outcome.RESOLVED), is(2));
+        assertThat(result.get(Outcome.UNRESOLVED), is(1));
+        assertThat(result.get(Outcome.SKIPPED), is(1));
+        assertThat(resolvedCounter.getCount(), is(2L));
+        assertThat(unresolvedCounter.getCount(), is(1L));
+        assertThat(chargesBacklogCounter.getCount(), is(3L));
+        assertThat(refundsBacklogCounter.getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldCountARecordThatFailsToReconcileAsUnresolved_andCarryOn() {
+        ChargeEntity firstCharge = aValidChargeEntity().withId(1L).build();
+        ChargeEntity secondCharge = aValidChargeEntity().withId(2L).build();
+        List<ChargeEntity> page = asList(firstCharge, secondCharge);
+        when(mockChargeDao.findPageUnchangedSinceWithStatusIn(any(ZonedDateTime.class), eq(RECONCILABLE_CHARGE_STATUSES), eq(Optional.empty()), eq(PAGE_SIZE)))
+                .thenReturn(page);
+        when(mockReconciliationService.reconcileCharge(firstCharge)).thenThrow(new RuntimeException("gateway unavailable"));
+        when(mockReconciliationService.reconcileCharge(secondCharge)).thenReturn(Outcome.RESOLVED);
+
+        Map<Outcome, Integer> result = reconciliationProcess.runReconciliation();
+
+        assertThat(result.get(Outcome.RESOLVED), is(1));
+        assertThat(result.get(Outcome.UNRESOLVED), is(1));
+        verify(mockChargeDao).findPageUnchangedSinceWithStatusIn(any(ZonedDateTime.class), eq(RECONCILABLE_CHARGE_STATUSES), eq(Optional.of(secondCharge)), eq(PAGE_SIZE));
+    }
+
+    @Test
+    public void shouldStartNoNewPageOnceTheTimeBudgetIsUsedUp() {
+        when(mockReconciliationConfig.getTimeBudgetAsJavaDuration()).thenReturn(Duration.ZERO);
+
+        reconciliationProcess.runReconciliation();
+
+        verify(mockChargeDao, never()).findPageUnchangedSinceWithStatusIn(any(ZonedDateTime.class), any(List.class), any(Optional.class), eq(PAGE_SIZE));
+        verify(mockRefundDao, never()).findPageSubmittedBefore(any(ZonedDateTime.class), any(Optional.class), eq(PAGE_SIZE));
+    }
+}
@@ -0,0 +1,196 @@
+package uk.gov.pay.connector.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.ReconciliationConfig;
+import uk.gov.pay.connector.dao.ChargeDao;
+import uk.gov.pay.connector.dao.ChargeDao.TransitionResult;
+import uk.gov.pay.connector.dao.RefundDao;
+import uk.gov.pay.connector.model.GatewayError;
+import uk.gov.pay.connector.model.InquiryGatewayRequest;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.GatewayAccountEntity;
+import uk.gov.pay.connector.model.domain.RefundEntity;
+import uk.gov.pay.connector.model.gateway.GatewayResponse;
+import uk.gov.pay.connector.service.ReconciliationService.Outcome;
+import uk.gov.pay.connector.service.transaction.TransactionFlow;
+import uk.gov.pay.connector.service.worldpay.WorldpayOrderStatusResponse;
+import uk.gov.pay.connector.service.worldpay.WorldpayStatusMapper;
+
+import java.util.HashMap;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.model.domain.ChargeEntityFixture.aValidChargeEntity;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.AUTHORISATION_REJECTED;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.AUTHORISATION_SUBMITTED;
+import static uk.gov.pay.connector.model.domain.ChargeStatus.AUTHORISATION_SUCCESS;
+import static uk.gov.pay.connector.model.domain.GatewayAccountEntity.Type.TEST;
+import static uk.gov.pay.connector.model.domain.RefundEntityFixture.aValidRefundEntity;
+import static uk.gov.pay.connector.model.domain.RefundStatus.REFUNDED;
+import static uk.gov.pay.connector.model.domain.RefundStatus.REFUND_SUBMITTED;
+import static uk.gov.pay.connector.model.gateway.GatewayResponse.GatewayResponseBuilder.responseBuilder;
+import static uk.gov.pay.connector.service.ReconciliationService.RECONCILABLE_CHARGE_STATUSES;
+import static uk.gov.pay.connector.util.XMLUnmarshaller.unmarshall;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReconciliationServiceTest {
+
+    @Mock
+    private ChargeDao mockChargeDao;
+    @Mock
+    private RefundDao mockRefundDao;
+    @Mock
+    private PaymentProviders mockProviders;
+    @Mock
+    private PaymentProvider mockProvider;
+    @Mock
+    private ConnectorConfiguration mockConfiguration;
+
+    private GatewayAccountEntity worldpayAccount = new GatewayAccountEntity("worldpay", new HashMap<>(), TEST);
+    private ReconciliationService reconciliationService;
+
+    @Before
+    public void setUp() {
+        ReconciliationConfig reconciliationConfig = mock(ReconciliationConfig.class);
+        when(reconciliationConfig.getGatewayInquiriesPerSecond()).thenReturn(1000d);
+        when(mockConfiguration.getReconciliationConfig()).thenReturn(reconciliationConfig);
+        when(mockProviders.byName(PaymentGatewayName.WORLDPAY)).thenReturn(mockProvider);
+        when(mockProvider.getStatusMapper()).thenReturn(WorldpayStatusMapper.get());
+        when(mockProvider.supportsInquiry()).thenReturn(true);
+
+        reconciliationService = new ReconciliationService(mockChargeDao, mockRefundDao, mockProviders, TransactionFlow::new, mockConfiguration);
+    }
+
+    @Test
+    public void shouldMoveTheChargeOnToTheAuthorisationOutcomeReportedByTheGateway() throws Exception {
+        ChargeEntity charge = worldpayCharge();
+        givenTheGatewayReportsLastEvent("AUTHORISED");
+        when(mockChargeDao.transitionStatus(charge.getExternalId(), RECONCILABLE_CHARGE_STATUSES, AUTHORISATION_SUCCESS, Optional.empty()))
+                .thenReturn(TransitionResult.TRANSITIONED);
+
+        assertThat(reconciliationService.reconcileCharge(charge), is(Outcome.RESOLVED));
+    }
+
+    @Test
+    public void shouldRejectTheCharge_whenTheGatewayRefusedIt() throws Exception {
+        ChargeEntity charge = worldpayCharge();
+        givenTheGatewayReportsLastEvent("REFUSED");
+        when(mockChargeDao.transitionStatus(charge.getExternalId(), RECONCILABLE_CHARGE_STATUSES, AUTHORISATION_REJECTED, Optional.empty()))
+                .thenReturn(TransitionResult.TRANSITIONED);
+
+        assertThat(reconciliationService.reconcileCharge(charge), is(Outcome.RESOLVED));
+    }
+
+    @Test
+    public void shouldSkipTheCharge_whenItMovedOnWhileTheGatewayWasAsked() throws Exception {
+        ChargeEntity charge = worldpayCharge();
+        givenTheGatewayReportsLastEvent("AUTHORISED");
+        when(mockChargeDao.transitionStatus(charge.getExternalId(), RECONCILABLE_CHARGE_STATUSES, AUTHORISATION_SUCCESS, Optional.empty()))
+                .thenReturn(TransitionResult.CONFLICT);
+
+        assertThat(reconciliationService.reconcileCharge(charge), is(Outcome.SKIPPED));
+    }
+
+    @Test
+    public void shouldLeaveTheChargeAlone_whenTheGatewayHasNoOutcomeYet() {
+        givenTheGatewayReportsAnError();
+
+        assertThat(reconciliationService.reconcileCharge(worldpayCharge()), is(Outcome.UNRESOLVED));
+        verifyZeroInteractions(mockChargeDao);
+    }
+
+    @Test
+    public void shouldSkipCharges_ofGatewaysWithoutInquiries() {
+        PaymentProvider sandboxProvider = mock(PaymentProvider.class);
+        when(sandboxProvider.supportsInquiry()).thenReturn(false);
+        when(mockProviders.byName(PaymentGatewayName.SANDBOX)).thenReturn(sandboxProvider);
+        ChargeEntity sandboxCharge = aValidChargeEntity().withTransactionId("transaction-id").withStatus(AUTHORISATION_SUBMITTED).build();
+
+        assertThat(reconciliationService.reconcileCharge(sandboxCharge), is(Outcome.SKIPPED));
+        verify(sandboxProvider, never()).inquiry(any(InquiryGatewayRequest.class));
+        verifyZeroInteractions(mockChargeDao);
+    }
+
+    @Test
+    public void shouldMarkTheRefundAsRefunded_whenTheGatewayReportsItRefunded() throws Exception {
+        RefundEntity refund = submittedRefundOf(worldpayCharge());
+        givenTheGatewayReportsLastEvent("REFUNDED");
+        when(mockRefundDao.findById(refund.getId())).thenReturn(Optional.of(refund));
+
+        assertThat(reconciliationService.reconcileRefund(refund), is(Outcome.RESOLVED));
+        verify(mockRefundDao).lockAmountAvailableForRefund(refund.getChargeEntity());
+        verify(mockRefundDao).updateStatus(refund, REFUNDED);
+    }
+
+    @Test
+    public void shouldSkipTheRefund_whenItMovedOnWhileTheGatewayWasAsked() throws Exception {
+        RefundEntity refund = submittedRefundOf(worldpayCharge());
+        givenTheGatewayReportsLastEvent("REFUNDED");
+        RefundEntity reloadedRefund = aValidRefundEntity().withCharge(refund.getChargeEntity()).withStatus(REFUNDED).build();
+        when(mockRefundDao.findById(refund.getId())).thenReturn(Optional.of(reloadedRefund));
+
+        assertThat(reconciliationService.reconcileRefund(refund), is(Outcome.SKIPPED));
+        verify(mockRefundDao, never()).updateStatus(any(RefundEntity.class), any());
+    }
+
+    @Test
+    public void shouldLeaveTheRefundAlone_whenTheGatewayHasNotRefundedYet() throws Exception {
+        RefundEntity refund = submittedRefundOf(worldpayCharge());
+        givenTheGatewayReportsLastEvent("SENT_FOR_REFUND");
+
+        assertThat(reconciliationService.reconcileRefund(refund), is(Outcome.UNRESOLVED));
+        verifyZeroInteractions(mockRefundDao);
+    }
+
+    @Test
+    public void shouldSkipTheRefund_whenTheChargeHasOtherRefunds() {
+        ChargeEntity charge = worldpayCharge();
+        RefundEntity refund = submittedRefundOf(charge);
+        submittedRefundOf(charge);
+
+        assertThat(reconciliationService.reconcileRefund(refund), is(Outcome.SKIPPED));
+        verify(mockProvider, never()).inquiry(any(InquiryGatewayRequest.class));
+    }
+
+    private ChargeEntity worldpayCharge() {
+        return aValidChargeEntity()
+                .withGatewayAccountEntity(worldpayAccount)
+                .withTransactionId("transaction-id")
+                .withStatus(AUTHORISATION_SUBMITTED)
+                .build();
+    }
+
+    private RefundEntity submittedRefundOf(ChargeEntity charge) {
+        RefundEntity refund = aValidRefundEntity().withCharge(charge).withStatus(REFUND_SUBMITTED).build();
+        refund.setId((long) charge.getRefunds().size() + 1);
+        charge.getRefunds().add(refund);
+        return refund;
+    }
+
+    private void givenTheGatewayReportsLastEvent(String lastEvent) throws Exception {
+        WorldpayOrderStatusResponse response = unmarshall("<paymentService><reply><orderStatus orderCode=\"transaction-id\">" +
+                "<payment><lastEvent>" + lastEvent + "</lastEvent></payment>" +
+                "</orderStatus></reply></paymentService>", WorldpayOrderStatusResponse.class);
+        GatewayResponse gatewayResponse = responseBuilder().withResponse(response).build();
+        when(mockProvider.inquiry(any(InquiryGatewayRequest.class))).thenReturn(gatewayResponse);
+    }
+
+    private void givenTheGatewayReportsAnError() {
+        GatewayResponse gatewayResponse = responseBuilder()
+                .withGatewayError(GatewayError.baseError("Order not found"))
+                .build();
+        when(mockProvider.inquiry(any(InquiryGatewayRequest.class))).thenReturn(gatewayResponse);
+    }
+}
@@ -3,6 +3,7 @@ package uk.gov.pay.connector.service;
 import org.junit.Test;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static uk.gov.pay.connector.model.domain.ChargeStatus.*;
 import static uk.gov.pay.connector.model.domain.RefundStatus.REFUNDED;
@@ -87,6 +88,30 @@ public class StatusMapperTest {
         assertThat(mappedStatus.getType(), is(InterpretedStatus.Type.UNKNOWN));
     }
 
+    @Test
+    public void shouldReturnTheSameInterpretationForRepeatedLookups() {
+        InterpretedStatus first = statusMapper.from("HERE_WE_CARE_ABOUT_THE_GATEWAY_STATUS_AND_THE_CURRENT_STATUS", SYSTEM_CANCEL_SUBMITTED);
+        InterpretedStatus second = statusMapper.from("HERE_WE_CARE_ABOUT_THE_GATEWAY_STATUS_AND_THE_CURRENT_STATUS", SYSTEM_CANCEL_SUBMITTED);
+
+        assertThat(first, is(sameInstance(second)));
+        assertThat(statusMapper.from("IGNORED_STATUS"), is(sameInstance(statusMapper.from("IGNORED_STATUS", CAPTURED))));
+    }
+
+    @Test
+    public void shouldUseTheFirstMappingThatApplies() {
+        StatusMapper<String> statusMapper =
+                StatusMapper
+                        .<String>builder()
+                        .map("STATUS", CREATED, SYSTEM_CANCELLED)
+                        .map("STATUS", EXPIRED)
+                        .map("STATUS", ENTERING_CARD_DETAILS, USER_CANCELLED)
+                        .build();
+
+        assertThat(statusMapper.from("STATUS", CREATED).getChargeStatus(), is(SYSTEM_CANCELLED));
+        assertThat(statusMapper.from("STATUS", ENTERING_CARD_DETAILS).getChargeStatus(), is(EXPIRED));
+        assertThat(statusMapper.from("STATUS").getChargeStatus(), is(EXPIRED));
+    }
+
     @Test
     public void shouldKnowAboutUnknownUnknowns() {
         StatusMapper<String> statusMapper =
@@ -0,0 +1,112 @@
+package uk.gov.pay.connector.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.setup.Environment;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.TokenConfig;
+import uk.gov.pay.connector.dao.TokenDao;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TokenPurgeProcessTest {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Mock
+    private TokenDao mockTokenDao;
+    @Mock
+    private Environment mockEnvironment;
+    @Mock
+    private ConnectorConfiguration mockConnectorConfiguration;
+    @Mock
+    private TokenConfig mockTokenConfig;
+
+    private Counter deletedCounter = new Counter();
+    private TokenPurgeProcess tokenPurgeProcess;
+
+    @Before
+    public void setUp() {
+        MetricRegistry mockMetricRegistry = mock(MetricRegistry.class);
+        when(mockMetricRegistry.histogram(anyString())).thenReturn(mock(Histogram.class));
+        when(mockMetricRegistry.counter("token-purge.deleted")).thenReturn(deletedCounter);
+        when(mockEnvironment.metrics()).thenReturn(mockMetricRegistry);
+
+        when(mockTokenConfig.getTimeToLiveAsJavaDuration()).thenReturn(Duration.ofMinutes(90));
+        when(mockTokenConfig.getPurgeBatchSize()).thenReturn(BATCH_SIZE);
+        when(mockTokenConfig.getPurgeMaximumBatchesPerRun()).thenReturn(3);
+        when(mockConnectorConfiguration.getTokenConfig()).thenReturn(mockTokenConfig);
+
+        tokenPurgeProcess = new TokenPurgeProcess(mockEnvironment, mockTokenDao, mockConnectorConfiguration);
+    }
+
+    @Test
+    public void shouldDeleteBatchesUntilOneIsNotFull() {
+        when(mockTokenDao.deleteCreatedBefore(any(ZonedDateTime.class), eq(BATCH_SIZE))).thenReturn(BATCH_SIZE, 42);
+
+        assertThat(tokenPurgeProcess.runPurge(), is(BATCH_SIZE + 42));
+
+        verify(mockTokenDao, times(2)).deleteCreatedBefore(any(ZonedDateTime.class), eq(BATCH_SIZE));
+        assertThat(deletedCounter.getCount(), is((long) BATCH_SIZE + 42));
+    }
+
+    @Test
+    public void shouldAlsoDeleteExpiredArchivedTokens() {
+        when(mockTokenDao.deleteCreatedBefore(any(ZonedDateTime.class), eq(BATCH_SIZE))).thenReturn(5);
+        when(mockTokenDao.deleteArchivedCreatedBefore(any(ZonedDateTime.class), eq(BATCH_SIZE))).thenReturn(BATCH_SIZE, 7);
+
+        assertThat(tokenPurgeProcess.runPurge(), is(5 + BATCH_SIZE + 7));
+
+        verify(mockTokenDao, times(2)).deleteArchivedCreatedBefore(any(ZonedDateTime.class), eq(BATCH_SIZE));
+        assertThat(deletedCounter.getCount(), is((long) 5 + BATCH_SIZE + 7));
+    }
+
+    @Test
+    public void shouldStopAfterTheMaximumNumberOfBatches() {
+        when(mockTokenDao.deleteCreatedBefore(any(ZonedDateTime.class), eq(BATCH_SIZE))).thenReturn(BATCH_SIZE);
+
+        assertThat(tokenPurgeProcess.runPurge(), is(3 * BATCH_SIZE));
+
+        verify(mockTokenDao, times(3)).deleteCreatedBefore(any(ZonedDateTime.class), eq(BATCH_SIZE));
+        verify(mockTokenDao).deleteArchivedCreatedBefore(any(ZonedDateTime.class), eq(BATCH_SIZE));
+    }
+
+    @Test
+    public void shouldOnlyDeleteTokensOlderThanTheirTimeToLive() {
+        ZonedDateTime latestExpected = ZonedDateTime.now().minusMinutes(90);
+
+        tokenPurgeProcess.runPurge();
+
+        ArgumentCaptor<ZonedDateTime> createdBefore = ArgumentCaptor.forClass(ZonedDateTime.class);
+        verify(mockTokenDao).deleteCreatedBefore(createdBefore.capture(), eq(BATCH_SIZE));
+        assertThat(createdBefore.getValue().isBefore(latestExpected), is(false));
+        assertThat(createdBefore.getValue().isBefore(latestExpected.plusMinutes(1)), is(true));
+    }
+
+    @Test
+    public void shouldKeepGoingAfterAFailedRun() {
+        when(mockTokenDao.deleteCreatedBefore(any(ZonedDateTime.class), eq(BATCH_SIZE)))
+                .thenThrow(new RuntimeException("database unavailable"));
+
+        assertThat(tokenPurgeProcess.runPurge(), is(0));
+    }
+}
@@ -0,0 +1,114 @@
+package uk.gov.pay.connector.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.TokenConfig;
+import uk.gov.pay.connector.dao.TokenDao;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.TokenEntity;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.model.domain.ChargeEntityFixture.aValidChargeEntity;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TokenServiceTest {
+
+    @Mock
+    private TokenDao mockTokenDao;
+    @Mock
+    private ConnectorConfiguration mockConfiguration;
+
+    private ChargeEntity charge = aValidChargeEntity().withId(1L).build();
+    private TokenService tokenService;
+
+    @Before
+    public void setUp() {
+        when(mockConfiguration.getTokenConfig()).thenReturn(new TokenConfig());
+        tokenService = new TokenService(mockTokenDao, mockConfiguration);
+    }
+
+    @Test
+    public void shouldReuseATokenIssuedWithinHalfItsTimeToLive() {
+        TokenEntity existingToken = tokenCreatedAt(ZonedDateTime.now(ZoneId.of("UTC")).minusMinutes(10));
+        ZonedDateTime latestReusableCreation = ZonedDateTime.now(ZoneId.of("UTC")).minusMinutes(45);
+        when(mockTokenDao.findLatestByChargeIdCreatedAfter(any(), any())).thenReturn(Optional.of(existingToken));
+
+        assertThat(tokenService.issueTokenFor(charge), is(existingToken));
+
+        ArgumentCaptor<ZonedDateTime> createdAfter = ArgumentCaptor.forClass(ZonedDateTime.class);
+        verify(mockTokenDao).findLatestByChargeIdCreatedAfter(eq(1L), createdAfter.capture());
+        assertThat(createdAfter.getValue().isBefore(latestReusableCreation), is(false));
+        verify(mockTokenDao, never()).persist(any(TokenEntity.class));
+    }
+
+    @Test
+    public void shouldIssueANewTokenWhenNoneIsReusable() {
+        when(mockTokenDao.findLatestByChargeIdCreatedAfter(anyLong(), any())).thenReturn(Optional.empty());
+
+        TokenEntity token = tokenService.issueTokenFor(charge);
+
+        verify(mockTokenDao).persist(token);
+        assertThat(token.getChargeEntity(), is(charge));
+    }
+
+    @Test
+    public void shouldResolveAValidTokenToItsCharge() {
+        TokenEntity token = tokenCreatedAt(ZonedDateTime.now(ZoneId.of("UTC")).minusMinutes(10));
+        when(mockTokenDao.findByTokenId(token.getToken())).thenReturn(Optional.of(token));
+
+        assertThat(tokenService.findChargeByToken(token.getToken()), is(Optional.of(charge)));
+    }
+
+    @Test
+    public void shouldLookUpATokenEveryTimeItIsResolved() {
+        TokenEntity token = tokenService.issueNewTokenFor(charge);
+        when(mockTokenDao.findByTokenId(token.getToken())).thenReturn(Optional.of(token), Optional.empty());
+
+        assertThat(tokenService.findChargeByToken(token.getToken()), is(Optional.of(charge)));
+        assertThat(tokenService.findChargeByToken(token.getToken()), is(Optional.empty()));
+
+        verify(mockTokenDao, times(2)).findByTokenId(token.getToken());
+    }
+
+    @Test
+    public void shouldNotResolveAnExpiredToken() {
+        TokenEntity token = tokenCreatedAt(ZonedDateTime.now(ZoneId.of("UTC")).minusHours(2));
+        when(mockTokenDao.findByTokenId(token.getToken())).thenReturn(Optional.of(token));
+
+        assertThat(tokenService.findChargeByToken(token.getToken()), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldNotResolveADeletedToken() {
+        TokenEntity token = tokenService.issueNewTokenFor(charge);
+        when(mockTokenDao.findByTokenId(token.getToken())).thenReturn(Optional.of(token), Optional.empty());
+
+        tokenService.deleteToken(token.getToken());
+
+        verify(mockTokenDao).remove(token);
+        assertThat(tokenService.findChargeByToken(token.getToken()), is(Optional.empty()));
+    }
+
+    private TokenEntity tokenCreatedAt(ZonedDateTime createdDate) {
+        TokenEntity token = TokenEntity.generateNewTokenFor(charge);
+        token.setCreatedDate(createdDate);
+        return token;
+    }
+}
@@ -19,14 +19,10 @@ import uk.gov.pay.connector.util.PortFactory;
 import uk.gov.service.notify.NotificationClientException;
 
 import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static io.dropwizard.testing.ConfigOverride.config;
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
 import static org.mockito.Mockito.*;
 
 public class UserNotificationServiceIntTest {
@@ -111,20 +107,19 @@ public class UserNotificationServiceIntTest {
 
     @Test
     @Ignore
-    public void notifyPaymentSuccessEmail() throws Exception {
+    public void sendPaymentSuccessEmail() throws Exception {
         notifyEmailMock.responseWithEmailRequestResponse(201, SUCCESS_EMAIL_REQUEST_RESPONSE, -1);
         notifyEmailMock.responseWithEmailCheckStatusResponse(201, SUCCESS_EMAIL_DELIVERY_RESPONSE, -1);
 
-        Future<Optional<String>> idF = userNotificationService.notifyPaymentSuccessEmail(ChargeEntityFixture.aValidChargeEntity().build());
-
-        String id = idF.get(1000, TimeUnit.SECONDS).orElseThrow(() -> new Exception("id not returned from notification service"));
+        ChargeEntity charge = ChargeEntityFixture.aValidChargeEntity().build();
+        String id = userNotificationService.sendPaymentSuccessEmail(charge.getEmail(), userNotificationService.paymentSuccessPersonalisation(charge));
         String checkDeliveryStatus = userNotificationService.checkDeliveryStatus(id);
         assertEquals("delivered", checkDeliveryStatus);
     }
 
     @Test
     @Ignore
-    public void notifyPaymentSuccessEmailWithPersonalisation() throws Exception {
+    public void sendPaymentSuccessEmailWithPersonalisation() throws Exception {
         ChargeEntity charge = ChargeEntityFixture.aValidChargeEntity().build();
         Map<String, String> expectedParameters = new ImmutableMap.Builder<String, String>()
                 .put("serviceReference", charge.getReference())
@@ -141,19 +136,17 @@ public class UserNotificationServiceIntTest {
                 -1);
         notifyEmailMock.responseWithEmailCheckStatusResponse(201, SUCCESS_EMAIL_DELIVERY_RESPONSE, -1);
 
-        Future<Optional<String>> idF = userNotificationService.notifyPaymentSuccessEmail(ChargeEntityFixture.aValidChargeEntity().build());
-
-        String id = idF.get(1000, TimeUnit.SECONDS).orElseThrow(() -> new Exception("id not returned from notification service"));
+        String id = userNotificationService.sendPaymentSuccessEmail(charge.getEmail(), userNotificationService.paymentSuccessPersonalisation(charge));
         String checkDeliveryStatus = userNotificationService.checkDeliveryStatus(id);
         assertEquals("delivered", checkDeliveryStatus);
     }
 
-    @Test
+    @Test(expected = NotificationClientException.class)
     @Ignore
     public void notifyPaymentFailedEmailRequest() throws Exception {
         notifyEmailMock.responseWithEmailRequestResponse(400, BAD_REQUEST_RESPONSE, -1);
-        Future<Optional<String>> idF = userNotificationService.notifyPaymentSuccessEmail(ChargeEntityFixture.aValidChargeEntity().build());
-        assertFalse(idF.get(1000, TimeUnit.SECONDS).isPresent());
+        ChargeEntity charge = ChargeEntityFixture.aValidChargeEntity().build();
+        userNotificationService.sendPaymentSuccessEmail(charge.getEmail(), userNotificationService.paymentSuccessPersonalisation(charge));
     }
 
     @Test(expected = NotificationClientException.class)
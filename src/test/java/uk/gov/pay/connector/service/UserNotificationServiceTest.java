@@ -25,13 +25,11 @@ import uk.gov.service.notify.SendEmailResponse;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.HashMap;
-import java.util.Optional;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 
 import static java.util.UUID.randomUUID;
 import static junit.framework.TestCase.fail;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
@@ -86,8 +84,7 @@ public class UserNotificationServiceTest {
                 .withCreatedDate(ZonedDateTime.of(2016, 1, 1, 10, 23, 12, 0, ZoneId.of("UTC")))
                 .build();
         userNotificationService = new UserNotificationService(mockNotifyClientProvider, mockConfig, mockEnvironment);
-        Future<Optional<String>> idF = userNotificationService.notifyPaymentSuccessEmail(charge);
-        idF.get(1000, TimeUnit.SECONDS);
+        userNotificationService.sendPaymentSuccessEmail(charge.getEmail(), userNotificationService.paymentSuccessPersonalisation(charge));
 
         HashMap<String, String> map = new HashMap<>();
 
@@ -114,12 +111,6 @@ public class UserNotificationServiceTest {
         userNotificationService = new UserNotificationService(mockNotifyClientProvider, mockConfig, mockEnvironment);
         userNotificationService.checkDeliveryStatus("100");
 
-        ChargeEntity charge = ChargeEntityFixture.aValidChargeEntity()
-                .withCreatedDate(ZonedDateTime.of(2016, 1, 1, 1, 1, 0, 0, ZoneId.of("UTC")))
-                .build();
-        userNotificationService = new UserNotificationService(mockNotifyClientProvider, mockConfig, mockEnvironment);
-        userNotificationService.notifyPaymentSuccessEmail(charge);
-
         verify(mockNotifyClient).getNotificationById("100");
     }
 
@@ -139,13 +130,10 @@ public class UserNotificationServiceTest {
     public void testEmailSendWhenEmailsNotifyDisabled() throws Exception {
         when(mockNotifyConfiguration.isEmailNotifyEnabled()).thenReturn(false);
         when(mockNotifyClientProvider.get()).thenReturn(mockNotifyClient);
-        when(mockNotifyClient.sendEmail(any(), any(), any(), any())).thenReturn(mockNotificationCreatedResponse);
-        when(mockNotificationCreatedResponse.getNotificationId()).thenReturn(randomUUID());
 
         userNotificationService = new UserNotificationService(mockNotifyClientProvider, mockConfig, mockEnvironment);
-        Future<Optional<String>> idF = userNotificationService.notifyPaymentSuccessEmail(ChargeEntityFixture.aValidChargeEntity().build());
-        idF.get(1000, TimeUnit.SECONDS);
 
+        assertFalse(userNotificationService.isPaymentSuccessEmailEnabledFor(ChargeEntityFixture.aValidChargeEntity().build()));
         verifyZeroInteractions(mockNotifyClient);
     }
 
@@ -153,14 +141,13 @@ public class UserNotificationServiceTest {
     public void whenEmailNotificationsAreDisabledForService_emailShouldNotBeSent() throws Exception {
         when(mockNotifyConfiguration.isEmailNotifyEnabled()).thenReturn(true);
         when(mockNotifyClientProvider.get()).thenReturn(mockNotifyClient);
-        when(mockNotifyClient.sendEmail(any(), any(), any(), any())).thenReturn(mockNotificationCreatedResponse);
-        when(mockNotificationCreatedResponse.getNotificationId()).thenReturn(randomUUID());
 
         ChargeEntity chargeEntity = ChargeEntityFixture.aValidChargeEntity().build();
         chargeEntity.getGatewayAccount().getEmailNotification().setEnabled(false);
 
         userNotificationService = new UserNotificationService(mockNotifyClientProvider, mockConfig, mockEnvironment);
-        userNotificationService.notifyPaymentSuccessEmail(chargeEntity);
+
+        assertFalse(userNotificationService.isPaymentSuccessEmailEnabledFor(chargeEntity));
         verifyZeroInteractions(mockNotifyClient);
     }
 
@@ -177,8 +164,7 @@ public class UserNotificationServiceTest {
                 .build();
         userNotificationService = new UserNotificationService(mockNotifyClientProvider, mockConfig, mockEnvironment);
 
-        Future<Optional<String>> idF = userNotificationService.notifyPaymentSuccessEmail(charge);
-        idF.get(1000, TimeUnit.SECONDS);
+        userNotificationService.sendPaymentSuccessEmail(charge.getEmail(), userNotificationService.paymentSuccessPersonalisation(charge));
         verify(mockMetricRegistry).histogram("notify-operations.response_time");
         verify(mockHistogram).update(anyLong());
         verifyNoMoreInteractions(mockCounter);
@@ -197,11 +183,14 @@ public class UserNotificationServiceTest {
                 .build();
         userNotificationService = new UserNotificationService(mockNotifyClientProvider, mockConfig, mockEnvironment);
 
-        Future<Optional<String>> idF = userNotificationService.notifyPaymentSuccessEmail(charge);
-        idF.get(1000, TimeUnit.SECONDS);
-        verify(mockMetricRegistry).histogram("notify-operations.response_time");
-        verify(mockHistogram).update(anyLong());
-        verify(mockCounter).inc();
+        try {
+            userNotificationService.sendPaymentSuccessEmail(charge.getEmail(), userNotificationService.paymentSuccessPersonalisation(charge));
+            fail("this method should rethrow the exception");
+        } catch (NotificationClientException e) {
+            verify(mockMetricRegistry).histogram("notify-operations.response_time");
+            verify(mockHistogram).update(anyLong());
+            verify(mockCounter).inc();
+        }
     }
 
     @Test
@@ -222,8 +211,7 @@ public class UserNotificationServiceTest {
         accountEntity.setEmailNotification(emailNotificationEntity);
 
         userNotificationService = new UserNotificationService(mockNotifyClientProvider, mockConfig, mockEnvironment);
-        Future<Optional<String>> idF = userNotificationService.notifyPaymentSuccessEmail(charge);
-        idF.get(1000, TimeUnit.SECONDS);
+        userNotificationService.sendPaymentSuccessEmail(charge.getEmail(), userNotificationService.paymentSuccessPersonalisation(charge));
 
         HashMap<String, String> map = new HashMap<>();
 
@@ -11,6 +11,7 @@ import org.mockito.runners.MockitoJUnitRunner;
 import uk.gov.pay.connector.model.CancelGatewayRequest;
 import uk.gov.pay.connector.model.CaptureGatewayRequest;
 import uk.gov.pay.connector.model.GatewayError;
+import uk.gov.pay.connector.model.InquiryGatewayRequest;
 import uk.gov.pay.connector.model.RefundGatewayRequest;
 import uk.gov.pay.connector.model.domain.AuthCardDetails;
 import uk.gov.pay.connector.model.domain.ChargeEntity;
@@ -207,6 +208,20 @@ public class SandboxPaymentProviderTest {
         assertThat(refundResponse.getErrorMessage(), is(nullValue()));
     }
 
+    @Test
+    public void inquiry_shouldAnswerWithAnError_asSandboxHasNoOrderInquiries() {
+
+        GatewayResponse gatewayResponse = provider.inquiry(InquiryGatewayRequest.valueOf(ChargeEntityFixture.aValidChargeEntity().build()));
+
+        assertThat(provider.supportsInquiry(), is(false));
+        assertThat(gatewayResponse.isFailed(), is(true));
+        assertThat(gatewayResponse.getBaseResponse().isPresent(), is(false));
+
+        GatewayError gatewayError = (GatewayError) gatewayResponse.getGatewayError().get();
+        assertThat(gatewayError.getErrorType(), is(GENERIC_GATEWAY_ERROR));
+        assertThat(gatewayError.getMessage(), is("sandbox does not support order inquiries"));
+    }
+
     @Test
     public void shouldReturnExternalRefundAvailability() {
         ChargeEntity mockChargeEntity = mock(ChargeEntity.class);
@@ -188,6 +188,18 @@ public class WorldpayOrderRequestBuilderTest {
         assertEquals(OrderRequestType.CANCEL, actualRequest.getOrderRequestType());
     }
 
+    @Test
+    public void shouldGenerateValidInquiryOrderRequest() throws Exception {
+
+        GatewayOrder actualRequest = aWorldpayInquiryOrderRequestBuilder()
+                .withMerchantCode("MERCHANTCODE")
+                .withTransactionId("MyUniqueTransactionId!")
+                .build();
+
+        assertXMLEqual(TestTemplateResourceLoader.load(WORLDPAY_VALID_INQUIRY_WORLDPAY_REQUEST), actualRequest.getPayload());
+        assertEquals(OrderRequestType.INQUIRY, actualRequest.getOrderRequestType());
+    }
+
     @Test
     public void shouldGenerateValidRefundOrderRequest() throws Exception {
 
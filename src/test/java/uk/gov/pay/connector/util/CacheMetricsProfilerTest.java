@@ -0,0 +1,62 @@
+package uk.gov.pay.connector.util;
+
+import com.codahale.metrics.MetricRegistry;
+import org.eclipse.persistence.config.CacheIsolationType;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.queries.ReadObjectQuery;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.model.domain.ChargeEntity;
+import uk.gov.pay.connector.model.domain.GatewayAccountEntity;
+
+import static org.eclipse.persistence.sessions.SessionProfiler.CacheHits;
+import static org.eclipse.persistence.sessions.SessionProfiler.CacheMisses;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CacheMetricsProfilerTest {
+
+    private MetricRegistry metricRegistry;
+    private CacheMetricsProfiler profiler;
+
+    @Before
+    public void setUp() {
+        metricRegistry = new MetricRegistry();
+        profiler = new CacheMetricsProfiler(metricRegistry);
+    }
+
+    @Test
+    public void shouldCountHitsAndMissesOfSharedEntities() {
+        ReadObjectQuery query = queryFor(GatewayAccountEntity.class, CacheIsolationType.SHARED);
+
+        profiler.occurred(CacheHits, query, null);
+        profiler.occurred(CacheHits, query, null);
+        profiler.occurred(CacheMisses, query, null);
+
+        assertThat(metricRegistry.counter("jpa-cache.GatewayAccountEntity.hits").getCount(), is(2L));
+        assertThat(metricRegistry.counter("jpa-cache.GatewayAccountEntity.misses").getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldIgnoreIsolatedEntities() {
+        profiler.occurred(CacheHits, queryFor(ChargeEntity.class, CacheIsolationType.ISOLATED), null);
+
+        assertThat(metricRegistry.getCounters().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldIgnoreOtherOperations() {
+        profiler.occurred("Caching", queryFor(GatewayAccountEntity.class, CacheIsolationType.SHARED), null);
+
+        assertThat(metricRegistry.getCounters().isEmpty(), is(true));
+    }
+
+    private ReadObjectQuery queryFor(Class<?> entityClass, CacheIsolationType isolation) {
+        ClassDescriptor descriptor = new ClassDescriptor();
+        descriptor.setJavaClass(entityClass);
+        descriptor.getCachePolicy().setCacheIsolation(isolation);
+        ReadObjectQuery query = new ReadObjectQuery(entityClass);
+        query.setDescriptor(descriptor);
+        return query;
+    }
+}
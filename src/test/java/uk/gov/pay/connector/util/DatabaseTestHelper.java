@@ -4,6 +4,8 @@ import com.google.gson.Gson;
 import org.apache.commons.lang3.RandomUtils;
 import org.postgresql.util.PGobject;
 import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Query;
+import org.skife.jdbi.v2.util.IntegerColumnMapper;
 import org.skife.jdbi.v2.util.StringColumnMapper;
 import uk.gov.pay.connector.model.domain.AuthCardDetails;
 import uk.gov.pay.connector.model.domain.ChargeStatus;
@@ -108,7 +110,7 @@ public class DatabaseTestHelper {
                         chargeId,
                         externalChargeId,
                         amount,
-                        status.getValue(),
+                        status.getCode(),
                         Long.valueOf(gatewayAccountId),
                         returnUrl,
                         transactionId,
@@ -134,6 +136,25 @@ public class DatabaseTestHelper {
                         .bind("created_date", Timestamp.from(createdDate.toInstant()))
                         .execute()
         );
+        // as RefundDao would
+        jdbi.withHandle(handle ->
+                handle
+                        .createStatement("UPDATE charges SET " +
+                                "refunded_amount = refunded_amount + CASE WHEN :status = 'REFUNDED' THEN :amount ELSE 0 END, " +
+                                "pending_refund_amount = pending_refund_amount + CASE WHEN :status IN ('CREATED', 'REFUND SUBMITTED') THEN :amount ELSE 0 END " +
+                                "WHERE id = :charge_id")
+                        .bind("amount", amount)
+                        .bind("status", status)
+                        .bind("charge_id", chargeId)
+                        .execute()
+        );
+    }
+
+    public Map<String, Object> getChargeRefundAmounts(Long chargeId) {
+        return jdbi.withHandle(h ->
+                h.createQuery("SELECT refunded_amount, pending_refund_amount FROM charges WHERE id = :charge_id")
+                        .bind("charge_id", chargeId)
+                        .first());
     }
 
     public void updateChargeCardDetails(Long chargeId, String cardBrand, String lastDigitsCardNumber, String cardHolderName, String expiryDate,
@@ -276,10 +297,16 @@ public class DatabaseTestHelper {
         return ret;
     }
 
+    public List<Map<String, Object>> getChargeStatusCodes() {
+        return jdbi.withHandle(h ->
+                h.createQuery("SELECT code, name FROM charge_statuses ORDER BY code")
+                        .list());
+    }
+
     public List<Map<String, Object>> getChargeEvents(long chargeId) {
         List<Map<String, Object>> ret = jdbi.withHandle(h ->
-                h.createQuery("SELECT ce.id, ce.charge_id, ce.status, ce.updated " +
-                        "FROM charge_events ce " +
+                h.createQuery("SELECT ce.id, ce.charge_id, cs.name AS status, ce.updated " +
+                        "FROM charge_events ce JOIN charge_statuses cs ON cs.code = ce.status " +
                         "WHERE ce.charge_id = :chargeId")
                         .bind("chargeId", chargeId)
                         .list());
@@ -296,6 +323,46 @@ public class DatabaseTestHelper {
         );
     }
 
+    public void addToken(Long chargeId, String tokenId, ZonedDateTime createdDate) {
+        jdbi.withHandle(handle ->
+                handle
+                        .createStatement("INSERT INTO tokens(charge_id, secure_redirect_token, created_date) VALUES (:charge_id, :secure_redirect_token, :created_date)")
+                        .bind("charge_id", chargeId)
+                        .bind("secure_redirect_token", tokenId)
+                        .bind("created_date", Timestamp.from(createdDate.toInstant()))
+                        .execute()
+        );
+    }
+
+    public int countTokens() {
+        return jdbi.withHandle(handle ->
+                handle.createQuery("SELECT count(*) FROM tokens")
+                        .map(IntegerColumnMapper.PRIMITIVE)
+                        .first()
+        );
+    }
+
+    public void addArchivedToken(Long id, Long chargeId, String tokenId, ZonedDateTime createdDate) {
+        jdbi.withHandle(handle ->
+                handle
+                        .createStatement("INSERT INTO tokens_archive(id, charge_id, secure_redirect_token, created_date, version) " +
+                                "VALUES (:id, :charge_id, :secure_redirect_token, :created_date, 1)")
+                        .bind("id", id)
+                        .bind("charge_id", chargeId)
+                        .bind("secure_redirect_token", tokenId)
+                        .bind("created_date", Timestamp.from(createdDate.toInstant()))
+                        .execute()
+        );
+    }
+
+    public int countArchivedTokens() {
+        return jdbi.withHandle(handle ->
+                handle.createQuery("SELECT count(*) FROM tokens_archive")
+                        .map(IntegerColumnMapper.PRIMITIVE)
+                        .first()
+        );
+    }
+
     public void addEmailNotification(Long accountId, String templateBody, boolean enabled) {
         jdbi.withHandle(handle ->
                 handle
@@ -351,7 +418,7 @@ public class DatabaseTestHelper {
 
     public String getChargeStatus(Long chargeId) {
         return jdbi.withHandle(h ->
-                h.createQuery("SELECT status from charges WHERE id = :charge_id")
+                h.createQuery("SELECT cs.name from charges c JOIN charge_statuses cs ON cs.code = c.status WHERE c.id = :charge_id")
                         .bind("charge_id", chargeId)
                         .map(StringColumnMapper.INSTANCE)
                         .first()
@@ -409,13 +476,15 @@ public class DatabaseTestHelper {
     public void addEvent(Long chargeId, String chargeStatus, ZonedDateTime updated) {
         jdbi.withHandle(
                 h -> h.update("INSERT INTO charge_events(charge_id,status,updated) values(?,?,?)",
-                        chargeId, chargeStatus, Timestamp.from(updated.toInstant()))
+                        chargeId, ChargeStatus.fromString(chargeStatus).getCode(), Timestamp.from(updated.toInstant()))
         );
     }
 
     public List<String> getInternalEvents(String externalChargeId) {
         return jdbi.withHandle(h ->
-                h.createQuery("SELECT status from charge_events WHERE charge_id = (SELECT id from charges WHERE external_id=:external_id)")
+                h.createQuery("SELECT cs.name from charge_events ce JOIN charge_statuses cs ON cs.code = ce.status " +
+                        "WHERE ce.charge_id = (SELECT id from charges WHERE external_id=:external_id) " +
+                        "ORDER BY ce.id")
                         .bind("external_id", externalChargeId)
                         .map(StringColumnMapper.INSTANCE)
                         .list()
@@ -431,4 +500,27 @@ public class DatabaseTestHelper {
                         .first()
         );
     }
+
+    public int countConnectionsIdleInTransaction() {
+        return jdbi.withHandle(h ->
+                h.createQuery("SELECT count(*) FROM pg_stat_activity WHERE datname = current_database() AND state LIKE 'idle in transaction%'")
+                        .map(IntegerColumnMapper.PRIMITIVE)
+                        .first()
+        );
+    }
+
+    public String explain(String query, List<Object> parameters) {
+        return jdbi.inTransaction((h, status) -> {
+            // the test tables are tiny, so make the planner show whether an index can serve the query at all;
+            // SET LOCAL ends with this transaction, so the connection goes back to the pool as it was
+            h.execute("SET LOCAL enable_seqscan = off");
+            Query<Map<String, Object>> explain = h.createQuery("EXPLAIN " + query);
+            for (int i = 0; i < parameters.size(); i++) {
+                explain.bind(i, parameters.get(i));
+            }
+            return String.join("\n", explain
+                    .map(StringColumnMapper.INSTANCE)
+                    .list());
+        });
+    }
 }
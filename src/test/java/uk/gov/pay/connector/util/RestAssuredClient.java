@@ -56,6 +56,28 @@ public class RestAssuredClient {
                 .then();
     }
 
+    public ValidatableResponse postCreateCharges(String postBody) {
+        String requestPath = CHARGES_BATCH_API_PATH
+                .replace("{accountId}", accountId);
+
+        return given().port(app.getLocalPort())
+                .contentType(JSON)
+                .body(postBody)
+                .post(requestPath)
+                .then();
+    }
+
+    public ValidatableResponse postChargeStatuses(String postBody) {
+        String requestPath = CHARGES_STATUS_API_PATH
+                .replace("{accountId}", accountId);
+
+        return given().port(app.getLocalPort())
+                .contentType(JSON)
+                .body(postBody)
+                .post(requestPath)
+                .then();
+    }
+
     public ValidatableResponse getCharge() {
         String requestPath = CHARGE_API_PATH
                 .replace("{accountId}", accountId)
@@ -114,6 +136,14 @@ public class RestAssuredClient {
                 .then();
     }
 
+    public ValidatableResponse getTransactionsExport() {
+        return given().port(app.getLocalPort())
+                .headers(headers)
+                .queryParams(queryParams)
+                .get(CHARGES_EXPORT_API_PATH.replace("{accountId}", accountId))
+                .then();
+    }
+
     public ValidatableResponse getEvents(String chargeId) {
         String requestPath = CHARGE_EVENTS_API_PATH
                 .replace("{accountId}", accountId)
@@ -128,6 +158,17 @@ public class RestAssuredClient {
                 .replace("{chargeId}", chargeId);
         return given()
                 .port(app.getLocalPort())
+                .headers(headers)
+                .get(requestPath)
+                .then();
+    }
+
+    public ValidatableResponse getFrontendChargeStatusChange(String currentStatus) {
+        String requestPath = FRONTEND_CHARGE_STATUS_API_PATH
+                .replace("{chargeId}", chargeId);
+        return given()
+                .port(app.getLocalPort())
+                .queryParam("current_status", currentStatus)
                 .get(requestPath)
                 .then();
     }
@@ -34,6 +34,7 @@ public class TestTemplateResourceLoader {
     public static final String WORLDPAY_CANCEL_SUCCESS_RESPONSE = WORLDPAY_BASE_NAME + "/cancel-success-response.xml";
     public static final String WORLDPAY_CANCEL_ERROR_RESPONSE = WORLDPAY_BASE_NAME + "/cancel-error-response.xml";
     public static final String WORLDPAY_VALID_CANCEL_WORLDPAY_REQUEST = WORLDPAY_BASE_NAME + "/valid-cancel-worldpay-request.xml";
+    public static final String WORLDPAY_VALID_INQUIRY_WORLDPAY_REQUEST = WORLDPAY_BASE_NAME + "/valid-inquiry-worldpay-request.xml";
 
     public static final String WORLDPAY_REFUND_SUCCESS_RESPONSE = WORLDPAY_BASE_NAME + "/refund-success-response.xml";
     public static final String WORLDPAY_REFUND_ERROR_RESPONSE = WORLDPAY_BASE_NAME + "/refund-error-response.xml";